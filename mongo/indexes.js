@@ -1 +1,4 @@
-db.waypoints.createIndex( { location : "2dsphere" } );
+db.waypoints.createIndex( { area : 1, location : "2dsphere", type : 1 }, { background : true } );
+db.waypoints.createIndex( { area : 1, type : 1, name : 1 }, { background : true } );
+db.waypoints.createIndex( { version : 1 }, { background : true } );
+db.waypoint_tombstones.createIndex( { version : 1 }, { background : true } );
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Query parameter parsing benchmarks.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParamParsingBenchmark {
+
+    private String coordinates = "19.054492,-98.283176";
+    private String boundingBox = "19.0521,-98.2868;19.0567,-98.2791";
+
+    @Benchmark
+    public Coordinates coordinatesFromString() {
+        return Coordinates.fromString(coordinates);
+    }
+
+    @Benchmark
+    public BoundingBox boundingBoxFromString() {
+        return BoundingBox.fromString(boundingBox);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain.transformer.orika;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.config.WaypointToTypedWaypointMapping;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2TypedWaypointTransformer;
+
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Waypoint to TypedWaypoint conversion benchmarks comparing Orika against the hand-written
+ * transformer.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WaypointOrikaTransformerBenchmark {
+
+    @Param({"1000"})
+    private int listSize;
+
+    @Param({"orika", "direct"})
+    private String implementation;
+
+    private Transformer<Waypoint, TypedWaypoint> transformer;
+    private Waypoint waypoint;
+    private List<Waypoint> waypoints;
+
+    @Setup
+    public void setUp() {
+        if ("direct".equals(implementation)) transformer = new Waypoint2TypedWaypointTransformer();
+        else {
+            MapperFactory mapperFactory = new DefaultMapperFactory.Builder().mapNulls(false).build();
+            new WaypointToTypedWaypointMapping().configure(mapperFactory);
+            transformer = new WaypointOrikaTransformer<>(mapperFactory.getMapperFacade(), TypedWaypoint.class);
+        }
+        waypoints = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) waypoints.add(newWaypoint(i));
+        waypoint = waypoints.get(0);
+    }
+
+    @Benchmark
+    public TypedWaypoint convertAtoB() {
+        return transformer.convertAtoB(waypoint);
+    }
+
+    @Benchmark
+    public List<TypedWaypoint> convertListAtoListB() {
+        return transformer.convertListAtoListB(waypoints);
+    }
+
+    static Waypoint newWaypoint(long id) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setType(id % 2 == 0 ? Waypoint.Type.POI : Waypoint.Type.WALKWAY);
+        if (waypoint.getType() == Waypoint.Type.POI) waypoint.setName("Área " + id);
+        waypoint.setLocation(Coordinates.ofLatLng(19.05 + id * 1e-5, -98.28 + id * 1e-5));
+        List<Path> paths = new ArrayList<>();
+        paths.add(Path.to(id + 1, 12.5));
+        waypoint.setPaths(paths);
+        return waypoint;
+    }
+}
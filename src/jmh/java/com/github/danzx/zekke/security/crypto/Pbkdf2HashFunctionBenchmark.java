@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * PBKDF2 hashing benchmarks to pick the iterations of {@code crypto.pbkdf2.iterations}.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class Pbkdf2HashFunctionBenchmark {
+
+    @Param({"10000", "100000"})
+    private int iterations;
+
+    private Pbkdf2HashFunction hashFunction;
+    private String password = "s0me-Adm1n-passw0rd";
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hashFunction = new Pbkdf2HashFunction(iterations);
+        hash = hashFunction.hash(password);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return hashFunction.matches(password, hash);
+    }
+}
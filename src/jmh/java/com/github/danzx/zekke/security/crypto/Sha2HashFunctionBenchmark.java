@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SHA-2 hashing benchmarks.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Sha2HashFunctionBenchmark {
+
+    @Param({"SHA_256", "SHA_512"})
+    private Sha2HashFunction.Algorithm algorithm;
+
+    private Sha2HashFunction hashFunction;
+    private String password = "s0me-Adm1n-passw0rd";
+
+    @Setup
+    public void setUp() {
+        hashFunction = Sha2HashFunction.of(algorithm);
+    }
+
+    @Benchmark
+    public String hash() {
+        return hashFunction.hash(password);
+    }
+}
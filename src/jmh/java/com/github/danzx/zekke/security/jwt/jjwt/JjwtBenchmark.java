@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.jwt.jjwt;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.security.jwt.JwtVerificationException;
+import com.github.danzx.zekke.security.jwt.SigningKeyHolder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JWT creation and verification benchmarks. Verification is measured with and without the
+ * verified token cache.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JjwtBenchmark {
+
+    private static final String ISSUER = "com.github.danzx.zekke";
+
+    private JjwtFactory factory;
+    private JjwtVerifier verifier;
+    private JjwtVerifier cachingVerifier;
+    private Instant issueTime;
+    private Instant expirationTime;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SigningKeyHolder signingKeyHolder = new SigningKeyHolder("jwt.key");
+        factory = new JjwtFactory(525600, ISSUER, signingKeyHolder);
+        verifier = new JjwtVerifier(ISSUER, signingKeyHolder, 0);
+        cachingVerifier = new JjwtVerifier(ISSUER, signingKeyHolder, 100);
+        issueTime = Instant.now();
+        expirationTime = issueTime.plus(365, ChronoUnit.DAYS);
+        token = factory.createToken(issueTime, expirationTime, User.Role.ANONYMOUS.name());
+    }
+
+    @Benchmark
+    public String createToken() {
+        return factory.createToken(issueTime, expirationTime, User.Role.ANONYMOUS.name());
+    }
+
+    @Benchmark
+    public void verify() throws JwtVerificationException {
+        verifier.verify(token, User.Role.ANONYMOUS);
+    }
+
+    @Benchmark
+    public void verifyCached() throws JwtVerificationException {
+        cachingVerifier.verify(token, User.Role.ANONYMOUS);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Jackson serialization of TypedWaypoint lists benchmarks.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TypedWaypointSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int listSize;
+
+    private ObjectWriter writer;
+    private List<TypedWaypoint> waypoints;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapperConfig().objectMapperCustomizer().writerFor(new TypeReference<List<TypedWaypoint>>() {});
+        waypoints = new ArrayList<>(listSize);
+        for (long id = 0; id < listSize; id++) {
+            TypedWaypoint waypoint = new TypedWaypoint();
+            waypoint.setId(id);
+            waypoint.setType(id % 2 == 0 ? Waypoint.Type.POI : Waypoint.Type.WALKWAY);
+            if (waypoint.getType() == Waypoint.Type.POI) waypoint.setName("Área " + id);
+            waypoint.setLocation(Coordinates.ofLatLng(19.05 + id * 1e-5, -98.28 + id * 1e-5));
+            List<Path> paths = new ArrayList<>();
+            Path path = new Path();
+            path.setToWaypoint(id + 1);
+            path.setDistance(12.5);
+            paths.add(path);
+            waypoint.setPaths(paths);
+            waypoints.add(waypoint);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(waypoints);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.patch.jsonpatch;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.patch.ObjectPatchException;
+import com.github.fge.jsonpatch.JsonPatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JSON patch benchmarks.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonObjectPatchBenchmark {
+
+    private JsonObjectPatch patch;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapperConfig().objectMapperCustomizer();
+        JsonPatch jsonPatch = JsonPatch.fromJson(objectMapper.readTree(
+                "[{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"Biblioteca central\"}," +
+                "{\"op\":\"replace\",\"path\":\"/location/latitude\",\"value\":19.0546}]"));
+        patch = new JsonObjectPatch(objectMapper, jsonPatch);
+    }
+
+    @Benchmark
+    public TypedWaypoint apply() throws ObjectPatchException {
+        TypedWaypoint target = new TypedWaypoint();
+        target.setId(1L);
+        target.setName("Biblioteca");
+        target.setType(Waypoint.Type.POI);
+        target.setLocation(Coordinates.ofLatLng(19.054492, -98.283176));
+        return patch.apply(target);
+    }
+}
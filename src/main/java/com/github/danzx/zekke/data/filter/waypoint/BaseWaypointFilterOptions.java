@@ -15,6 +15,8 @@
  */
 package com.github.danzx.zekke.data.filter.waypoint;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Optional;
 
 import com.github.danzx.zekke.data.filter.FilterOptions;
@@ -34,18 +36,44 @@ abstract class BaseWaypointFilterOptions extends FilterOptions {
         this.builder = builder;
     }
 
+    /** @return the area to look in, {@link Waypoint#DEFAULT_AREA} unless one was given. */
+    public String getArea() {
+        return builder.area;
+    }
+
     public Optional<Waypoint.Type> getWaypointType() {
         return Optional.ofNullable(builder.waypointType);
     }
 
+    /**
+     * @return whether the waypoints must be read from the primary even if secondaries may answer
+     *         other queries; results that are kept until the next change need it, a secondary may
+     *         still hold data older than that change.
+     */
+    public boolean fromPrimary() {
+        return builder.fromPrimary;
+    }
+
     static abstract class Builder extends FilterOptions.Builder {
+        private String area = Waypoint.DEFAULT_AREA;
         private Waypoint.Type waypointType;
+        private boolean fromPrimary;
+
+        public Builder inArea(String area) {
+            this.area = requireNonNull(area);
+            return this;
+        }
 
         public Builder byType(Waypoint.Type waypointType) {
             this.waypointType = waypointType;
             return this;
         }
 
+        public Builder fromPrimary() {
+            fromPrimary = true;
+            return this;
+        }
+
         @Override
         public Builder limitResulsTo(Integer limit) {
             super.limitResulsTo(limit);
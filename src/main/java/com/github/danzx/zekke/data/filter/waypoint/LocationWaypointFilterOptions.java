@@ -47,10 +47,12 @@ public class LocationWaypointFilterOptions extends BaseWaypointFilterOptions {
     @Override
     public String toString() {
         return  "{ "
+                + "area: " + getArea() + ", "
                 + "limit: " + getLimit() + ", "
                 + "waypointType: " + getWaypointType() + ", "
                 + "maxDistance: " + getMaxDistance() + ", "
-                + "location: " + getLocation()
+                + "location: " + getLocation() + ", "
+                + "fromPrimary: " + fromPrimary()
                 + " }";
     }
 
@@ -71,12 +73,24 @@ public class LocationWaypointFilterOptions extends BaseWaypointFilterOptions {
             return this;
         }
 
+        @Override
+        public Builder inArea(String area) {
+            super.inArea(area);
+            return this;
+        }
+
         @Override
         public Builder byType(Type waypointType) {
             super.byType(waypointType);
             return this;
         }
 
+        @Override
+        public Builder fromPrimary() {
+            super.fromPrimary();
+            return this;
+        }
+
         @Override
         public Builder limitResulsTo(Integer limit) {
             super.limitResulsTo(limit);
@@ -49,11 +49,13 @@ public class WaypointFilterOptions extends BaseWaypointFilterOptions {
     @Override
     public String toString() {
         return  "{ "
+                + "area: " + getArea() + ", "
                 + "limit: " + getLimit() + ", "
                 + "waypointType: " + getWaypointType() + ", "
                 + "onlyIdAndName: " + onlyIdAndName() + ", "
                 + "nameQuery: " + getNameQuery() + ", "
-                + "boundingBox: " + getBoundingBox()
+                + "boundingBox: " + getBoundingBox() + ", "
+                + "fromPrimary: " + fromPrimary()
                 + " }";
     }
 
@@ -77,12 +79,24 @@ public class WaypointFilterOptions extends BaseWaypointFilterOptions {
             return this;
         }
 
+        @Override
+        public Builder inArea(String area) {
+            super.inArea(area);
+            return this;
+        }
+
         @Override
         public Builder byType(Type waypointType) {
             super.byType(waypointType);
             return this;
         }
 
+        @Override
+        public Builder fromPrimary() {
+            super.fromPrimary();
+            return this;
+        }
+
         @Override
         public Builder limitResulsTo(Integer limit) {
             super.limitResulsTo(limit);
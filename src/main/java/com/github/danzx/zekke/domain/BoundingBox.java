@@ -79,6 +79,17 @@ public class BoundingBox {
         this.topCoordinates = topCoordinates;
     }
 
+    /**
+     * @param coordinates some coordinates.
+     * @return if the coordinates are inside this rectangle or on its edges.
+     */
+    public boolean contains(Coordinates coordinates) {
+        double latitude = coordinates.getLatitude();
+        double longitude = coordinates.getLongitude();
+        return latitude >= bottomCoordinates.getLatitude() && latitude <= topCoordinates.getLatitude() && 
+                longitude >= bottomCoordinates.getLongitude() && longitude <= topCoordinates.getLongitude();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(bottomCoordinates, topCoordinates);
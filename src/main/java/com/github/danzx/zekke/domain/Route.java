@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sequence of waypoints to walk from one waypoint to another.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Route {
+
+    private final List<Waypoint> waypoints;
+    private final double distance;
+
+    /**
+     * @param waypoints the waypoints in walking order, including the start and the end.
+     * @param distance the total length of the route in meters.
+     */
+    public Route(List<Waypoint> waypoints, double distance) {
+        this.waypoints = unmodifiableList(new ArrayList<>(requireNonNull(waypoints)));
+        this.distance = distance;
+    }
+
+    public List<Waypoint> getWaypoints() {
+        return waypoints;
+    }
+
+    /** @return the total length of the route in meters. */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        Route other = (Route) obj;
+        return Objects.equals(waypoints, other.waypoints) && 
+               Double.compare(distance, other.distance) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(waypoints, distance);
+    }
+
+    @Override
+    public String toString() {
+        return "{ waypoints:" + waypoints + ", distance:" + distance + " }";
+    }
+}
@@ -17,9 +17,12 @@ package com.github.danzx.zekke.domain;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 import com.github.danzx.zekke.domain.constraint.CheckWaypoint;
@@ -40,16 +43,33 @@ import org.mongodb.morphia.utils.IndexType;
  */
 @CheckWaypoint
 @Entity(value = "waypoints", noClassnameStored = true)
-@Indexes(
-        @Index(fields = @Field(value = "location", type = IndexType.GEO2DSPHERE))
-)
+@Indexes({
+        @Index(fields = { @Field("area"), @Field(value = "location", type = IndexType.GEO2DSPHERE), @Field("type") }),
+        @Index(fields = { @Field("area"), @Field("type"), @Field("name") }),
+        @Index(fields = @Field("version"))
+})
 public class Waypoint extends BaseEntity<Long> {
 
     public enum Type { POI, WALKWAY }
 
+    /** The area of the waypoints that were not given one. */
+    public static final String DEFAULT_AREA = "default";
+
+    @NotNull private String area = DEFAULT_AREA;
     private String name;
     @NotNull private Type type;
     @NotNull @Embedded private Point location;
+    @Valid @Embedded private List<Path> paths;
+    private Long version;
+
+    /** @return the map or campus this waypoint belongs to; every query is scoped to one area. */
+    public String getArea() {
+        return area;
+    }
+
+    public void setArea(String area) {
+        this.area = requireNonNull(area);
+    }
 
     public Optional<String> getName() {
         return Optional.ofNullable(name);
@@ -76,6 +96,28 @@ public class Waypoint extends BaseEntity<Long> {
         this.location = location.toGeoJsonPoint();
     }
 
+    /** @return the paths that start at this waypoint or null if there are none. */
+    public List<Path> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<Path> paths) {
+        this.paths = paths == null ? null : new ArrayList<>(paths);
+    }
+
+    /**
+     * @return the change version set every time this waypoint is persisted, greater than the
+     *         version of any previous change, or null if it was never persisted.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /** The change version is persistence metadata and it's not compared. */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -93,19 +135,21 @@ public class Waypoint extends BaseEntity<Long> {
      */
     protected boolean isWaypointEqualTo(Waypoint other) {
         return isEntityEqualTo(other) &&
+               Objects.equals(area, other.area) && 
                Objects.equals(name, other.name) && 
                Objects.equals(location, other.location) &&
-               Objects.equals(type, other.type);
+               Objects.equals(type, other.type) &&
+               Objects.equals(paths, other.paths);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), name, location, type);
+        return Objects.hash(super.hashCode(), area, name, location, type, paths);
     }
 
     @Override
     public String toString() {
-        return "{ _id:" + getId() + ", name:" + getName().map(Strings::quoted).orElse(null) + 
-                ", location:" + location + ", type:" + type + " }";
+        return "{ _id:" + getId() + ", area:" + Strings.quoted(area) + ", name:" + getName().map(Strings::quoted).orElse(null) + 
+                ", location:" + location + ", type:" + type + ", paths:" + paths + ", version:" + version + " }";
     }
 }
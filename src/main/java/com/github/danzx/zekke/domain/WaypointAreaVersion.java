@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain;
+
+import java.util.Objects;
+
+import org.mongodb.morphia.annotations.Entity;
+
+/**
+ * Counts the changes of the waypoints of an area, whose name is the id. Every instance reads the
+ * same counter so they all tag the responses of an area the same way.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Entity(value = "waypoint_area_versions", noClassnameStored = true)
+public class WaypointAreaVersion extends BaseEntity<String> {
+
+    private long version;
+
+    /** @return how many times the waypoints of the area changed. */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        WaypointAreaVersion other = (WaypointAreaVersion) obj;
+        return isEntityEqualTo(other) && version == other.version;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), version);
+    }
+
+    @Override
+    public String toString() {
+        return "{ _id:" + getId() + ", version:" + version + " }";
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of waypoint changes after some change version. A waypoint is either in the upserts,
+ * with its current state, or in the deletions, never in both.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class WaypointChangeSet {
+
+    private final List<Waypoint> upserts;
+    private final List<Long> deletions;
+    private final long cursor;
+    private final boolean hasMore;
+
+    public WaypointChangeSet(List<Waypoint> upserts, List<Long> deletions, long cursor, boolean hasMore) {
+        this.upserts = unmodifiableList(new ArrayList<>(requireNonNull(upserts)));
+        this.deletions = unmodifiableList(new ArrayList<>(requireNonNull(deletions)));
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    /** @return the waypoints saved in this page. */
+    public List<Waypoint> getUpserts() {
+        return upserts;
+    }
+
+    /** @return the ids of the waypoints deleted in this page. */
+    public List<Long> getDeletions() {
+        return deletions;
+    }
+
+    /** @return the version of the last change in this page, to ask for the next one. */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /** @return if there are changes after the cursor. */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "{ upserts:" + upserts.size() + ", deletions:" + deletions.size() + ", cursor:" + cursor + ", hasMore:" + hasMore + " }";
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.domain;
+
+import java.util.Objects;
+
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Field;
+import org.mongodb.morphia.annotations.Index;
+import org.mongodb.morphia.annotations.Indexes;
+
+/**
+ * Records that the waypoint with the same id was deleted so clients that sync changes can
+ * remove it too. Only the last deletion of each id is kept.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Entity(value = "waypoint_tombstones", noClassnameStored = true)
+@Indexes(
+        @Index(fields = @Field("version"))
+)
+public class WaypointTombstone extends BaseEntity<Long> {
+
+    private long version;
+
+    public static WaypointTombstone of(long waypointId, long version) {
+        WaypointTombstone tombstone = new WaypointTombstone();
+        tombstone.setId(waypointId);
+        tombstone.version = version;
+        return tombstone;
+    }
+
+    /** @return the change version of the deletion. */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        WaypointTombstone other = (WaypointTombstone) obj;
+        return isEntityEqualTo(other) && version == other.version;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), version);
+    }
+
+    @Override
+    public String toString() {
+        return "{ _id:" + getId() + ", version:" + version + " }";
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.persistence.dao.RawWaypointDao;
+import com.github.danzx.zekke.persistence.dao.UserDao;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.security.jwt.JwtFactory;
+import com.github.danzx.zekke.security.jwt.JwtVerifier;
+import com.github.danzx.zekke.transformer.Transformer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps DAOs, JWT factories and verifiers and transformers in proxies that time their calls.
+ * Proxies subclass the bean so it can still be injected by its concrete type.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class MetricsBeanPostProcessor implements BeanPostProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsBeanPostProcessor.class);
+
+    private final MetricsRegistry metricsRegistry;
+
+    public @Inject MetricsBeanPostProcessor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = requireNonNull(metricsRegistry);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String category = categoryOf(bean);
+        if (category == null) return bean;
+        log.debug("Timing {} calls of {}", category, beanName);
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TimingInterceptor(metricsRegistry, category, beanName));
+        return proxyFactory.getProxy();
+    }
+
+    private static String categoryOf(Object bean) {
+        if (bean instanceof WaypointDao || bean instanceof RawWaypointDao || bean instanceof UserDao) return MetricsRegistry.DAO_CATEGORY;
+        if (bean instanceof JwtFactory || bean instanceof JwtVerifier) return MetricsRegistry.JWT_CATEGORY;
+        if (bean instanceof Transformer) return MetricsRegistry.TRANSFORMER_CATEGORY;
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds every timer and cache of the application.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class MetricsRegistry {
+
+    /** Endpoint resource methods. */
+    public static final String HTTP_CATEGORY = "http";
+    /** DAO methods. */
+    public static final String DAO_CATEGORY = "dao";
+    /** JWT creation and verification. */
+    public static final String JWT_CATEGORY = "jwt";
+    /** Model transformers. */
+    public static final String TRANSFORMER_CATEGORY = "transformer";
+
+    private final ConcurrentMap<String, Timer> timers;
+    private final List<Supplier<CacheStats>> caches = new CopyOnWriteArrayList<>();
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    public MetricsRegistry() {
+        this(System::nanoTime);
+    }
+
+    MetricsRegistry(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        timers = new ConcurrentHashMap<>();
+        startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Gets or creates a timer. Callers in hot paths should keep the returned timer instead of
+     * looking it up on every call.
+     * 
+     * @param category the kind of operation, see the *_CATEGORY constants.
+     * @param operation the operation name.
+     * @return the timer.
+     */
+    public Timer timer(String category, String operation) {
+        String key = category + ':' + operation;
+        Timer timer = timers.get(key);
+        return timer != null ? timer : timers.computeIfAbsent(key, k -> new Timer(category, operation));
+    }
+
+    /** @return snapshots of every timer sorted by category and operation. */
+    public List<TimerSnapshot> snapshot() {
+        double uptimeSeconds = (double) (nanoClock.getAsLong() - startNanos) / TimeUnit.SECONDS.toNanos(1);
+        return timers.values()
+                .stream()
+                .map(timer -> timer.snapshot(uptimeSeconds))
+                .sorted(comparing(TimerSnapshot::getCategory).thenComparing(TimerSnapshot::getOperation))
+                .collect(toList());
+    }
+
+    /** @param cacheStats gets the current statistics of a cache. */
+    public void registerCache(Supplier<CacheStats> cacheStats) {
+        caches.add(cacheStats);
+    }
+
+    /** @return the statistics of every cache sorted by name. */
+    public List<CacheStats> cacheSnapshot() {
+        return caches.stream()
+                .map(Supplier::get)
+                .sorted(comparing(CacheStats::getName))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes timer snapshots and cache statistics in the Prometheus text exposition format (version
+ * 0.0.4). Each timer category becomes a summary whose samples are labeled with the operation and
+ * each cache statistic becomes a metric whose samples are labeled with the cache.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class PrometheusTextFormat {
+
+    private static final String METRIC_PREFIX = "zekke_";
+    private static final String METRIC_SUFFIX = "_duration_seconds";
+    private static final double MILLIS_PER_SECOND = 1000;
+
+    private PrometheusTextFormat() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param snapshots timer snapshots sorted by category.
+     * @return the text representation.
+     */
+    public static String write(List<TimerSnapshot> snapshots) {
+        StringBuilder text = new StringBuilder();
+        String currentCategory = null;
+        for (TimerSnapshot snapshot : snapshots) {
+            String metric = METRIC_PREFIX + snapshot.getCategory() + METRIC_SUFFIX;
+            if (!snapshot.getCategory().equals(currentCategory)) {
+                currentCategory = snapshot.getCategory();
+                text.append("# HELP ").append(metric).append(" Duration of ").append(currentCategory).append(" calls.\n");
+                text.append("# TYPE ").append(metric).append(" summary\n");
+            }
+            String operation = "operation=\"" + escape(snapshot.getOperation()) + '"';
+            appendQuantile(text, metric, operation, "0.5", snapshot.getP50Millis());
+            appendQuantile(text, metric, operation, "0.95", snapshot.getP95Millis());
+            appendQuantile(text, metric, operation, "0.99", snapshot.getP99Millis());
+            text.append(metric).append("_sum{").append(operation).append("} ").append(format(snapshot.getTotalMillis() / MILLIS_PER_SECOND)).append('\n');
+            text.append(metric).append("_count{").append(operation).append("} ").append(snapshot.getCount()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void appendQuantile(StringBuilder text, String metric, String operation, String quantile, double millis) {
+        text.append(metric).append('{').append(operation).append(",quantile=\"").append(quantile).append("\"} ")
+            .append(format(millis / MILLIS_PER_SECOND)).append('\n');
+    }
+
+    /**
+     * @param caches cache statistics.
+     * @return the text representation.
+     */
+    public static String writeCaches(List<CacheStats> caches) {
+        if (caches.isEmpty()) return "";
+        StringBuilder text = new StringBuilder();
+        appendCacheMetric(text, caches, "size", "gauge", "Entries in the cache.", CacheStats::getSize);
+        appendCacheMetric(text, caches, "hits_total", "counter", "Lookups that found an entry.", CacheStats::getHits);
+        appendCacheMetric(text, caches, "misses_total", "counter", "Lookups that didn't find an entry.", CacheStats::getMisses);
+        appendCacheMetric(text, caches, "evictions_total", "counter", "Entries evicted to make room.", CacheStats::getEvictions);
+        return text.toString();
+    }
+
+    private static void appendCacheMetric(StringBuilder text, List<CacheStats> caches, String name, String type, String help, ToLongFunction<CacheStats> value) {
+        String metric = METRIC_PREFIX + "cache_" + name;
+        text.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+        for (CacheStats cache : caches) {
+            text.append(metric).append("{cache=\"").append(escape(cache.getName())).append("\"} ").append(value.applyAsLong(cache)).append('\n');
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9f", value);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Records how long an operation takes, in nanoseconds.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Timer {
+
+    private final String category;
+    private final String operation;
+    private final LatencyHistogram histogram;
+
+    Timer(String category, String operation) {
+        this.category = requireNonNull(category);
+        this.operation = requireNonNull(operation);
+        histogram = new LatencyHistogram();
+    }
+
+    /** @param nanos the duration of one call. */
+    public void record(long nanos) {
+        histogram.record(nanos);
+    }
+
+    /** @param startNanos the {@link System#nanoTime()} when the call started. */
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    TimerSnapshot snapshot(double uptimeSeconds) {
+        return new TimerSnapshot(category, operation, histogram.snapshot(), uptimeSeconds);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles and throughput of a timer. Durations are in milliseconds and throughput
+ * is the mean number of calls per second since the application started.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class TimerSnapshot {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String category;
+    private final String operation;
+    private final long count;
+    private final double throughput;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    TimerSnapshot(String category, String operation, LatencyHistogram.Snapshot histogram, double uptimeSeconds) {
+        this.category = category;
+        this.operation = operation;
+        count = histogram.getCount();
+        throughput = uptimeSeconds > 0 ? count / uptimeSeconds : 0;
+        totalMillis = histogram.getSum() / NANOS_PER_MILLI;
+        meanMillis = histogram.getMean() / NANOS_PER_MILLI;
+        p50Millis = histogram.getValueAtQuantile(.5) / NANOS_PER_MILLI;
+        p95Millis = histogram.getValueAtQuantile(.95) / NANOS_PER_MILLI;
+        p99Millis = histogram.getValueAtQuantile(.99) / NANOS_PER_MILLI;
+        maxMillis = histogram.getMax() / NANOS_PER_MILLI;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "{ category=" + category + ", operation=" + operation + ", count=" + count + ", throughput=" + throughput + 
+                ", meanMillis=" + meanMillis + ", p50Millis=" + p50Millis + ", p95Millis=" + p95Millis + 
+                ", p99Millis=" + p99Millis + ", maxMillis=" + maxMillis + " }";
+    }
+}
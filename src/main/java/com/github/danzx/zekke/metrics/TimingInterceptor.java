@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Times every public method of a bean with a timer named after the bean and the method.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+class TimingInterceptor implements MethodInterceptor {
+
+    private final MetricsRegistry metricsRegistry;
+    private final String category;
+    private final String beanName;
+    private final ConcurrentMap<Method, Timer> timers;
+
+    TimingInterceptor(MetricsRegistry metricsRegistry, String category, String beanName) {
+        this.metricsRegistry = requireNonNull(metricsRegistry);
+        this.category = requireNonNull(category);
+        this.beanName = requireNonNull(beanName);
+        timers = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) return invocation.proceed();
+        Timer timer = timerFor(method);
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer.recordSince(start);
+        }
+    }
+
+    private Timer timerFor(Method method) {
+        Timer timer = timers.get(method);
+        return timer != null ? timer : timers.computeIfAbsent(method, m -> metricsRegistry.timer(category, beanName + '.' + m.getName()));
+    }
+}
@@ -36,13 +36,17 @@ public class DevelopmentMongoDbConfig extends MongoClientConfig {
                                            @Value("${dev.mongodb.host}") String host,
                                            @Value("${dev.mongodb.port}") int port,
                                            @Value("${dev.mongodb.db.user:#{null}}") String databaseUser,
-                                           @Value("${dev.mongodb.db.password:#{null}}") String databasePassword) {
+                                           @Value("${dev.mongodb.db.password:#{null}}") String databasePassword,
+                                           @Value("${dev.mongodb.seeds:#{null}}") String seeds,
+                                           @Value("${dev.mongodb.options:#{null}}") String options) {
         return MongoDbSettings
                 .builderFromDatabase(database)
                 .locatedAt(host)
                 .withPort(port)
                 .withUser(databaseUser)
                 .withPassword(databasePassword)
+                .withSeeds(seeds)
+                .withOptions(options)
                 .build();
     }
 }
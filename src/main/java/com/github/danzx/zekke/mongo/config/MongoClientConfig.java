@@ -15,9 +15,11 @@
  */
 package com.github.danzx.zekke.mongo.config;
 
-import static java.util.Collections.singletonList;
+import java.util.Collections;
+import java.util.List;
 
 import com.mongodb.MongoClient;
+import com.mongodb.MongoCredential;
 
 import org.springframework.context.annotation.Bean;
 
@@ -28,10 +30,17 @@ import org.springframework.context.annotation.Bean;
  */
 abstract class MongoClientConfig {
 
+    /**
+     * Creates a client that discovers the replica set when there is one. The client reads from
+     * the primary by default; DAOs opt in to the read preference of the settings per query.
+     */
     @Bean
     public MongoClient mongoClient(MongoDbSettings mongoSettings) {
-        return mongoSettings.getCredential().isPresent() ?
-                new MongoClient(mongoSettings.getAddress(), singletonList(mongoSettings.getCredential().get())) :
-                new MongoClient(mongoSettings.getAddress());
+        List<MongoCredential> credentials = mongoSettings.getCredential()
+                .map(Collections::singletonList)
+                .orElseGet(Collections::emptyList);
+        return mongoSettings.isReplicaSet() ?
+                new MongoClient(mongoSettings.getAddresses(), credentials, mongoSettings.getClientOptions()) :
+                new MongoClient(mongoSettings.getAddress(), credentials, mongoSettings.getClientOptions());
     }
 }
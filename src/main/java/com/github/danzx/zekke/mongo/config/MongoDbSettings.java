@@ -15,41 +15,73 @@
  */
 package com.github.danzx.zekke.mongo.config;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
 import static com.github.danzx.zekke.util.Strings.isNullOrBlank;
 import static com.github.danzx.zekke.util.Strings.requireNonBlank;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import com.github.danzx.zekke.base.Buildable;
 import com.github.danzx.zekke.util.Strings;
 
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
- * Mongo DB database location and settings to access the application database.
+ * Mongo DB database location and settings to access the application database. The location is
+ * either a single server or the seed list of a replica set.
  * 
  * @author Daniel Pedraza-Arcega
  */
 public class MongoDbSettings {
 
+    private static final Logger log = LoggerFactory.getLogger(MongoDbSettings.class);
+
     private final String database;
-    private final ServerAddress address;
+    private final List<ServerAddress> addresses;
     private final MongoCredential credential;
+    private final String replicaSet;
+    private final ReadPreference readPreference;
+    private final MongoClientOptions clientOptions;
 
     private MongoDbSettings(Builder builder) {
         this.database = builder.database;
-        address = new ServerAddress(builder.host, builder.port);
+        addresses = builder.seeds != null ? builder.seeds : singletonList(new ServerAddress(builder.host, builder.port));
         if (!isNullOrBlank(builder.user)) {
             credential = builder.password == null ? 
                     MongoCredential.createCredential(builder.user, builder.database, Strings.EMPTY.toCharArray()) :
                     MongoCredential.createCredential(builder.user, builder.database, builder.password.toCharArray());
         } else credential = null;
+        replicaSet = builder.replicaSet;
+        readPreference = builder.maxStalenessSeconds == null ? 
+                ReadPreference.valueOf(builder.readPreference) : 
+                ReadPreference.valueOf(builder.readPreference, emptyList(), builder.maxStalenessSeconds, TimeUnit.SECONDS);
+        MongoClientOptions.Builder options = MongoClientOptions.builder().requiredReplicaSetName(replicaSet);
+        if (builder.maxPoolSize != null) options.connectionsPerHost(builder.maxPoolSize);
+        if (builder.minPoolSize != null) options.minConnectionsPerHost(builder.minPoolSize);
+        if (builder.connectTimeout != null) options.connectTimeout(builder.connectTimeout);
+        if (builder.socketTimeout != null) options.socketTimeout(builder.socketTimeout);
+        if (builder.serverSelectionTimeout != null) options.serverSelectionTimeout(builder.serverSelectionTimeout);
+        clientOptions = options.build();
     }
 
     /**
-     * Builds a new MongoDbSettings with the info from the given URI.
+     * Builds a new MongoDbSettings with the info from the given URI. The URI may list several
+     * hosts and have the options described in {@link Builder#withOptions(String)}.
      * 
      * @param uri a valid URI string.
      * @return a new MongoDbSettings built from the give URI
@@ -57,18 +89,20 @@ public class MongoDbSettings {
     public static MongoDbSettings fromUri(String uri) {
         requireNonBlank(uri);
         URI mongoDbUri = URI.create(uri);
-        String[] userAndPassword = Optional.ofNullable(mongoDbUri.getUserInfo())
-                .map(userInfo -> userInfo.split(":"))
+        Optional<String> authority = Optional.ofNullable(mongoDbUri.getAuthority());
+        String[] userAndPassword = authority
+                .filter(auth -> auth.contains("@"))
+                .map(auth -> auth.substring(0, auth.lastIndexOf('@')).split(":"))
                 .filter(userInfoArray -> userInfoArray.length >= 2)
                 .orElseGet(() -> new String[] {null, null});
         String database = Optional.ofNullable(mongoDbUri.getPath())
                 .map(path -> path.replaceFirst("/", Strings.EMPTY))
                 .orElse(null);
         return new Builder(database)
-                .locatedAt(mongoDbUri.getHost())
-                .withPort(mongoDbUri.getPort())
+                .withSeeds(authority.map(auth -> auth.substring(auth.lastIndexOf('@') + 1)).orElse(null))
                 .withUser(userAndPassword[0])
                 .withPassword(userAndPassword[1])
+                .withOptions(mongoDbUri.getQuery())
                 .build();
     }
 
@@ -86,23 +120,60 @@ public class MongoDbSettings {
         return database;
     }
 
+    /** @return the only server or the first seed of the replica set. */
     public ServerAddress getAddress() {
-        return address;
+        return addresses.get(0);
+    }
+
+    public List<ServerAddress> getAddresses() {
+        return addresses;
     }
 
     public Optional<MongoCredential> getCredential() {
         return Optional.ofNullable(credential);
     }
 
+    public Optional<String> getReplicaSet() {
+        return Optional.ofNullable(replicaSet);
+    }
+
+    /** @return whether the client should discover a replica set instead of connecting to a single server. */
+    public boolean isReplicaSet() {
+        return replicaSet != null || addresses.size() > 1;
+    }
+
+    /**
+     * @return the read preference of read-only queries that may be answered by secondaries. The
+     *         client itself always reads from the primary.
+     */
+    public ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    /** @return pool, timeout and replica set options of the client. */
+    public MongoClientOptions getClientOptions() {
+        return clientOptions;
+    }
+
     public static class Builder implements Buildable<MongoDbSettings> {
         private static final String DEFAULT_HOST = "localhost";
         private static final int DEFAULT_PORT = 27017;
+        private static final String DEFAULT_READ_PREFERENCE = "primary";
 
         private final String database;
         private String host = DEFAULT_HOST;
         private int port = DEFAULT_PORT;
+        private List<ServerAddress> seeds;
         private String user;
         private String password;
+        private String replicaSet;
+        private String readPreference = DEFAULT_READ_PREFERENCE;
+        private Long maxStalenessSeconds;
+        private Integer maxPoolSize;
+        private Integer minPoolSize;
+        private Integer connectTimeout;
+        private Integer socketTimeout;
+        private Integer serverSelectionTimeout;
 
         private Builder(String database) {
             this.database = requireNonBlank(database);
@@ -118,6 +189,24 @@ public class MongoDbSettings {
             return this;
         }
 
+        /**
+         * Replaces the host and port with a seed list.
+         * 
+         * @param seedList comma separated host[:port] pairs.
+         * @return this builder.
+         */
+        public Builder withSeeds(String seedList) {
+            if (!isNullOrBlank(seedList)) {
+                seeds = unmodifiableList(Arrays.stream(seedList.split(","))
+                        .map(String::trim)
+                        .filter(seed -> !seed.isEmpty())
+                        .map(ServerAddress::new)
+                        .collect(toList()));
+                if (seeds.isEmpty()) seeds = null;
+            }
+            return this;
+        }
+
         public Builder withUser(String user) {
             this.user = user;
             return this;
@@ -128,6 +217,82 @@ public class MongoDbSettings {
             return this;
         }
 
+        public Builder withReplicaSet(String replicaSet) {
+            this.replicaSet = isNullOrBlank(replicaSet) ? null : replicaSet;
+            return this;
+        }
+
+        /**
+         * @param readPreference primary, primaryPreferred, secondary, secondaryPreferred or nearest.
+         * @return this builder.
+         */
+        public Builder withReadPreference(String readPreference) {
+            if (!isNullOrBlank(readPreference)) this.readPreference = readPreference;
+            return this;
+        }
+
+        public Builder withMaxStalenessSeconds(Long maxStalenessSeconds) {
+            this.maxStalenessSeconds = maxStalenessSeconds;
+            return this;
+        }
+
+        public Builder withMaxPoolSize(Integer maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        public Builder withMinPoolSize(Integer minPoolSize) {
+            this.minPoolSize = minPoolSize;
+            return this;
+        }
+
+        /** @param connectTimeout in milliseconds. */
+        public Builder withConnectTimeout(Integer connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /** @param socketTimeout in milliseconds. */
+        public Builder withSocketTimeout(Integer socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        /** @param serverSelectionTimeout in milliseconds. */
+        public Builder withServerSelectionTimeout(Integer serverSelectionTimeout) {
+            this.serverSelectionTimeout = serverSelectionTimeout;
+            return this;
+        }
+
+        /**
+         * Sets options written as in a connection string query: replicaSet, readPreference,
+         * maxStalenessSeconds, maxPoolSize, minPoolSize, connectTimeoutMS, socketTimeoutMS and
+         * serverSelectionTimeoutMS. Unknown options are ignored.
+         * 
+         * @param options {@code name=value} pairs separated by {@code &}.
+         * @return this builder.
+         */
+        public Builder withOptions(String options) {
+            if (isNullOrBlank(options)) return this;
+            for (String option : options.split("&")) {
+                String[] nameAndValue = option.split("=", 2);
+                if (nameAndValue.length < 2 || nameAndValue[1].isEmpty()) continue;
+                String value = nameAndValue[1];
+                switch (nameAndValue[0].toLowerCase(Locale.ROOT)) {
+                    case "replicaset": withReplicaSet(value); break;
+                    case "readpreference": withReadPreference(value); break;
+                    case "maxstalenessseconds": withMaxStalenessSeconds(Long.valueOf(value)); break;
+                    case "maxpoolsize": withMaxPoolSize(Integer.valueOf(value)); break;
+                    case "minpoolsize": withMinPoolSize(Integer.valueOf(value)); break;
+                    case "connecttimeoutms": withConnectTimeout(Integer.valueOf(value)); break;
+                    case "sockettimeoutms": withSocketTimeout(Integer.valueOf(value)); break;
+                    case "serverselectiontimeoutms": withServerSelectionTimeout(Integer.valueOf(value)); break;
+                    default: log.warn("Ignoring unknown MongoDB option {}", nameAndValue[0]);
+                }
+            }
+            return this;
+        }
+
         @Override
         public MongoDbSettings build() {
             return new MongoDbSettings(this);
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao;
+
+import java.util.stream.Stream;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+
+import org.bson.RawBsonDocument;
+
+/**
+ * Reads waypoint documents exactly as they are stored, for callers that write them somewhere
+ * else without needing domain objects.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public interface RawWaypointDao {
+
+    /**
+     * Filters waypoint documents with the same options as
+     * {@link WaypointDao#streamFiltered(WaypointFilterOptions)}. The returned stream must be
+     * closed after use.
+     * 
+     * @param filterOptions the filter options.
+     * @return a stream of raw BSON documents or an empty stream.
+     */
+    Stream<RawBsonDocument> streamRawFiltered(WaypointFilterOptions filterOptions);
+}
@@ -15,11 +15,20 @@
  */
 package com.github.danzx.zekke.persistence.dao;
 
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
 import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
 import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.WaypointTombstone;
 
 /**
  * Waypoint CRUD DAO.
@@ -39,6 +48,15 @@ public interface WaypointDao extends CrudDao<Waypoint, Long> {
      */
     List<Waypoint> findFiltered(WaypointFilterOptions filterOptions);
 
+    /**
+     * Filters waypoints with several options reading them one at a time from the underlying
+     * datastore. The returned stream must be closed after use.
+     * 
+     * @param filterOptions the filter options.
+     * @return a stream of waypoints or an empty stream.
+     */
+    Stream<Waypoint> streamFiltered(WaypointFilterOptions filterOptions);
+
     /**
      * Finds waypoints near a location and filters them with several options.
      * 
@@ -46,4 +64,99 @@ public interface WaypointDao extends CrudDao<Waypoint, Long> {
      * @return a list of waypoints or an empty list.
      */
     List<Waypoint> findNearALocationFiltered(LocationWaypointFilterOptions filterOptions);
+
+    /** @return the distinct areas of the stored waypoints. */
+    List<String> findAreas();
+
+    /**
+     * Inserts several new waypoints at once. Waypoints without an id get a new one. A failure
+     * inserting one waypoint does not stop the rest from being inserted.
+     * 
+     * @param waypoints the waypoints to insert.
+     * @return the error message key of each waypoint that couldn't be inserted mapped by its
+     *         position in the given list or an empty map.
+     */
+    Map<Integer, String> insertAll(List<Waypoint> waypoints);
+
+    /**
+     * Finds the waypoints whose last change version is greater than the given one.
+     * 
+     * @param version a change version.
+     * @param limit how many waypoints to find at most.
+     * @return a list of waypoints, lowest change version first, or an empty list.
+     */
+    List<Waypoint> findChangedSince(long version, int limit);
+
+    /**
+     * Finds the tombstones of the waypoints deleted after the given change version.
+     * 
+     * @param version a change version.
+     * @param limit how many tombstones to find at most.
+     * @return a list of tombstones, lowest change version first, or an empty list.
+     */
+    List<WaypointTombstone> findDeletedSince(long version, int limit);
+
+    /**
+     * Versions are taken before a write commits so a change may show up after changes with
+     * greater versions. Changes above the returned version must not be handed out yet.
+     * 
+     * @return the highest change version such that every change with a lower or equal version is
+     *         already visible.
+     */
+    long findStableVersion();
+
+    /**
+     * Records that the waypoints of some areas changed so every instance finds new data versions.
+     * Call it once the change is written.
+     * 
+     * @param areas the areas that changed; if empty every area is considered changed.
+     */
+    void markChanged(Set<String> areas);
+
+    /** @return a number that grows every time a waypoint changes. */
+    long findDataVersion();
+
+    /**
+     * @param area an area.
+     * @return a number that grows every time a waypoint of the area changes.
+     */
+    long findDataVersion(String area);
+
+    /**
+     * Finds a waypoint by its id in the given executor.
+     * 
+     * @param id an id.
+     * @param executor the executor that runs the blocking read.
+     * @return the stage that completes with the optional waypoint.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor doesn't take the read.
+     */
+    default CompletionStage<Optional<Waypoint>> findByIdAsync(Long id, Executor executor) {
+        return supplyAsync(() -> findById(id), executor);
+    }
+
+    /**
+     * Filters waypoints with several options in the given executor. Implementations that don't
+     * block may complete on the calling thread.
+     * 
+     * @param filterOptions the filter options.
+     * @param executor the executor that runs the blocking read.
+     * @return the stage that completes with a list of waypoints or an empty list.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor doesn't take the read.
+     */
+    default CompletionStage<List<Waypoint>> findFilteredAsync(WaypointFilterOptions filterOptions, Executor executor) {
+        return supplyAsync(() -> findFiltered(filterOptions), executor);
+    }
+
+    /**
+     * Finds waypoints near a location and filters them with several options in the given
+     * executor. Implementations that don't block may complete on the calling thread.
+     * 
+     * @param filterOptions the filter options.
+     * @param executor the executor that runs the blocking read.
+     * @return the stage that completes with a list of waypoints or an empty list.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor doesn't take the read.
+     */
+    default CompletionStage<List<Waypoint>> findNearALocationFilteredAsync(LocationWaypointFilterOptions filterOptions, Executor executor) {
+        return supplyAsync(() -> findNearALocationFiltered(filterOptions), executor);
+    }
 }
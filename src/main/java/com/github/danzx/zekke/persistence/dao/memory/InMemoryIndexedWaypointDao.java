@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.persistence.dao.morphia.WaypointMorphiaCrudDao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Waypoint DAO that answers bounding box, nearest neighbor and POI name queries from in-process
+ * indexes and delegates everything else to MongoDB. Writes go to MongoDB first and then
+ * to the index so both stay consistent within this process. Each area has indexes of its own so
+ * queries never visit the waypoints of other areas. Writes of other processes never reach the
+ * indexes, so it's only enabled when a single instance serves the waypoints.
+ *
+ * @author Daniel Pedraza-Arcega
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "waypoint.memory_index.enabled", havingValue = "true")
+public class InMemoryIndexedWaypointDao implements WaypointDao {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryIndexedWaypointDao.class);
+
+    private final WaypointDao delegate;
+    private final double cellSize;
+    private final ConcurrentMap<String, AreaIndex> areaIndexes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> areasById = new ConcurrentHashMap<>();
+
+    public @Inject InMemoryIndexedWaypointDao(WaypointMorphiaCrudDao delegate, @Value("${waypoint.memory_index.cell_size}") double cellSize) {
+        this((WaypointDao) delegate, cellSize);
+    }
+
+    InMemoryIndexedWaypointDao(WaypointDao delegate, double cellSize) {
+        this.delegate = requireNonNull(delegate);
+        this.cellSize = cellSize;
+    }
+
+    /** Loads every waypoint from the delegate into the indexes, one area at a time. */
+    @PostConstruct
+    public void reload() {
+        areaIndexes.clear();
+        areasById.clear();
+        for (String area : delegate.findAreas()) {
+            List<Waypoint> waypoints = delegate.findFiltered(new WaypointFilterOptions.Builder().inArea(area).build());
+            AreaIndex areaIndex = areaIndexOf(area);
+            areaIndex.waypoints.replaceAll(waypoints);
+            areaIndex.poiNames.replaceAll(waypoints);
+            waypoints.forEach(waypoint -> areasById.put(waypoint.getId(), area));
+            log.info("Indexed {} waypoints and {} POI names of area {} in memory", waypoints.size(), areaIndex.poiNames.size(), area);
+        }
+    }
+
+    @Override
+    public Optional<Waypoint> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public void saveOrUpdate(Waypoint waypoint) {
+        delegate.saveOrUpdate(waypoint);
+        index(waypoint);
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Waypoint> waypoints) {
+        Map<Integer, String> failures = delegate.insertAll(waypoints);
+        for (int i = 0; i < waypoints.size(); i++) {
+            if (!failures.containsKey(i)) index(waypoints.get(i));
+        }
+        return failures;
+    }
+
+    @Override
+    public boolean deleteById(Long id) {
+        boolean deleted = delegate.deleteById(id);
+        unindex(id);
+        return deleted;
+    }
+
+    @Override
+    public List<Waypoint> findFiltered(WaypointFilterOptions filterOptions) {
+        requireNonNull(filterOptions);
+        log.debug("Filter (in memory): {}", filterOptions);
+        AreaIndex areaIndex = areaIndexes.get(filterOptions.getArea());
+        if (areaIndex == null) return emptyList();
+        if (filterOptions.getNameQuery().isPresent()) return findByName(areaIndex, filterOptions);
+        return areaIndex.waypoints.find(
+                filterOptions.getBoundingBox().orElse(null),
+                filterOptions.getWaypointType().orElse(null),
+                filterOptions.getLimit().orElse(null),
+                filterOptions.onlyIdAndName());
+    }
+
+    /** {@inheritDoc} Index answers are already copies so they are streamed from a list. */
+    @Override
+    public Stream<Waypoint> streamFiltered(WaypointFilterOptions filterOptions) {
+        return findFiltered(filterOptions).stream();
+    }
+
+    @Override
+    public List<Waypoint> findNearALocationFiltered(LocationWaypointFilterOptions filterOptions) {
+        log.debug("Filter (in memory): {}", filterOptions);
+        AreaIndex areaIndex = areaIndexes.get(filterOptions.getArea());
+        if (areaIndex == null) return emptyList();
+        return areaIndex.waypoints.findNearest(
+                filterOptions.getLocation(),
+                filterOptions.getMaxDistance().orElse(DEFAULT_MAX_DISTANCE),
+                filterOptions.getWaypointType().orElse(null),
+                filterOptions.getLimit().orElse(null))
+            .stream()
+            .map(WaypointSpatialIndex.Neighbor::getWaypoint)
+            .collect(toList());
+    }
+
+    @Override
+    public List<String> findAreas() {
+        return areaIndexes.keySet().stream().sorted().collect(toList());
+    }
+
+    @Override
+    public List<Waypoint> findChangedSince(long version, int limit) {
+        return delegate.findChangedSince(version, limit);
+    }
+
+    @Override
+    public List<WaypointTombstone> findDeletedSince(long version, int limit) {
+        return delegate.findDeletedSince(version, limit);
+    }
+
+    @Override
+    public long findStableVersion() {
+        return delegate.findStableVersion();
+    }
+
+    @Override
+    public void markChanged(Set<String> areas) {
+        delegate.markChanged(areas);
+    }
+
+    @Override
+    public long findDataVersion() {
+        return delegate.findDataVersion();
+    }
+
+    @Override
+    public long findDataVersion(String area) {
+        return delegate.findDataVersion(area);
+    }
+
+    /** {@inheritDoc} Index answers don't block so they complete on the calling thread. */
+    @Override
+    public CompletionStage<List<Waypoint>> findFilteredAsync(WaypointFilterOptions filterOptions, Executor executor) {
+        return completed(() -> findFiltered(filterOptions));
+    }
+
+    /** {@inheritDoc} Index answers don't block so they complete on the calling thread. */
+    @Override
+    public CompletionStage<List<Waypoint>> findNearALocationFilteredAsync(LocationWaypointFilterOptions filterOptions, Executor executor) {
+        return completed(() -> findNearALocationFiltered(filterOptions));
+    }
+
+    /** Name queries only match POIs, ignoring case and accents, best matches first. */
+    private List<Waypoint> findByName(AreaIndex areaIndex, WaypointFilterOptions filterOptions) {
+        return areaIndex.poiNames.find(
+                filterOptions.getNameQuery().get(),
+                filterOptions.getBoundingBox().orElse(null),
+                filterOptions.getLimit().orElse(null))
+            .stream()
+            .map(id -> areaIndex.waypoints.get(id, filterOptions.onlyIdAndName()))
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(toList());
+    }
+
+    /** A waypoint that moved to another area is removed from the indexes of its previous area. */
+    private void index(Waypoint waypoint) {
+        String previousArea = areasById.put(waypoint.getId(), waypoint.getArea());
+        if (previousArea != null && !previousArea.equals(waypoint.getArea())) areaIndexOf(previousArea).remove(waypoint.getId());
+        areaIndexOf(waypoint.getArea()).put(waypoint);
+    }
+
+    private void unindex(Long id) {
+        String area = areasById.remove(id);
+        if (area != null) areaIndexOf(area).remove(id);
+    }
+
+    private AreaIndex areaIndexOf(String area) {
+        return areaIndexes.computeIfAbsent(area, key -> new AreaIndex(key, cellSize));
+    }
+
+    private static <T> CompletionStage<T> completed(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /** The indexes of one area. */
+    private static class AreaIndex {
+
+        private final WaypointSpatialIndex waypoints;
+        private final PoiNameIndex poiNames = new PoiNameIndex();
+
+        AreaIndex(String area, double cellSize) {
+            waypoints = new WaypointSpatialIndex(area, cellSize);
+        }
+
+        void put(Waypoint waypoint) {
+            waypoints.put(waypoint);
+            poiNames.put(waypoint);
+        }
+
+        void remove(long id) {
+            waypoints.remove(id);
+            poiNames.remove(id);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.github.danzx.zekke.util.Strings.fold;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+
+/**
+ * Trigram inverted index of POI names for name completion. Names and queries are folded (no
+ * accents, lower case) so "area" finds "Área". Queries of three or more characters only look at
+ * the names sharing the query's rarest trigram; shorter queries check every name. Safe for
+ * concurrent use; reads never block each other.
+ *
+ * @author Daniel Pedraza-Arcega
+ */
+class PoiNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final Comparator<Match> BEST_FIRST = Comparator
+            .comparingInt(Match::getRank)
+            .thenComparingInt(match -> match.entry.foldedName.length())
+            .thenComparing(match -> match.entry.foldedName)
+            .thenComparingLong(match -> match.entry.id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entriesById = new HashMap<>();
+    private final Map<String, Set<Entry>> entriesByGram = new HashMap<>();
+
+    /**
+     * Replaces the contents of this index. Only named POIs are indexed.
+     *
+     * @param waypoints the new contents.
+     */
+    void replaceAll(Collection<Waypoint> waypoints) {
+        requireNonNull(waypoints);
+        lock.writeLock().lock();
+        try {
+            entriesById.clear();
+            entriesByGram.clear();
+            waypoints.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds, replaces or removes a waypoint depending on whether it is a named POI.
+     *
+     * @param waypoint a waypoint with id, type and location.
+     */
+    void put(Waypoint waypoint) {
+        requireNonNull(waypoint);
+        requireNonNull(waypoint.getId());
+        lock.writeLock().lock();
+        try {
+            delete(waypoint.getId());
+            insert(waypoint);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a waypoint.
+     *
+     * @param id the id of the waypoint.
+     */
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the POIs whose name contains the given query ignoring case and accents. Exact matches
+     * come first, then names starting with the query, then names with a word starting with the
+     * query and then the rest; shorter names first within each group.
+     *
+     * @param query the text to look for.
+     * @param bbox if not {@code null} only POIs within this rectangle are returned.
+     * @param limit if not {@code null} limits the results to this number.
+     * @return the ids of the matching POIs, best first, or an empty list.
+     */
+    List<Long> find(String query, BoundingBox bbox, Integer limit) {
+        requireNonNull(query);
+        String foldedQuery = fold(query).trim();
+        int maxResults = limit == null || limit <= 0 ? Integer.MAX_VALUE : limit;
+        PriorityQueue<Match> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        lock.readLock().lock();
+        try {
+            for (Entry entry : candidates(foldedQuery)) {
+                if (bbox != null && !entry.isWithin(bbox)) continue;
+                int rank = entry.rank(foldedQuery);
+                if (rank < 0) continue;
+                best.add(new Match(entry, rank));
+                if (best.size() > maxResults) best.poll();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(BEST_FIRST);
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (Match match : matches) ids.add(match.entry.id);
+        return ids;
+    }
+
+    /** @return the number of indexed POIs. */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Entry> candidates(String foldedQuery) {
+        if (foldedQuery.length() < GRAM_LENGTH) return entriesById.values();
+        Set<Entry> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= foldedQuery.length(); i++) {
+            Set<Entry> entries = entriesByGram.get(foldedQuery.substring(i, i + GRAM_LENGTH));
+            if (entries == null) return Collections.emptySet();
+            if (rarest == null || entries.size() < rarest.size()) rarest = entries;
+        }
+        return rarest;
+    }
+
+    private void insert(Waypoint waypoint) {
+        if (waypoint.getType() != Waypoint.Type.POI || !waypoint.getName().isPresent()) return;
+        Entry entry = new Entry(waypoint.getId(), waypoint.getName().get(), waypoint.getLocation());
+        entriesById.put(entry.id, entry);
+        for (String gram : entry.grams()) entriesByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(entry);
+    }
+
+    private void delete(long id) {
+        Entry entry = entriesById.remove(id);
+        if (entry == null) return;
+        for (String gram : entry.grams()) {
+            Set<Entry> entries = entriesByGram.get(gram);
+            entries.remove(entry);
+            if (entries.isEmpty()) entriesByGram.remove(gram);
+        }
+    }
+
+    /** An indexed POI. Identity based so it can be removed from the posting sets cheaply. */
+    private static class Entry {
+
+        private final long id;
+        private final String foldedName;
+        private final double latitude;
+        private final double longitude;
+
+        Entry(long id, String name, Coordinates location) {
+            this.id = id;
+            foldedName = fold(name);
+            latitude = location.getLatitude();
+            longitude = location.getLongitude();
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= foldedName.length(); i++) grams.add(foldedName.substring(i, i + GRAM_LENGTH));
+            return grams;
+        }
+
+        /** @return 0 for an exact match, 1 for a prefix, 2 for a word prefix, 3 for any other match or -1 if no match. */
+        int rank(String foldedQuery) {
+            int position = foldedName.indexOf(foldedQuery);
+            if (position < 0) return -1;
+            if (position == 0) return foldedName.length() == foldedQuery.length() ? 0 : 1;
+            do {
+                if (!Character.isLetterOrDigit(foldedName.charAt(position - 1))) return 2;
+                position = foldedName.indexOf(foldedQuery, position + 1);
+            } while (position > 0);
+            return 3;
+        }
+
+        boolean isWithin(BoundingBox bbox) {
+            double left = bbox.getBottomCoordinates().getLongitude();
+            double right = bbox.getTopCoordinates().getLongitude();
+            if (latitude < bbox.getBottomCoordinates().getLatitude() || latitude > bbox.getTopCoordinates().getLatitude()) return false;
+            return left <= right ?
+                    longitude >= left && longitude <= right :
+                    longitude >= left || longitude <= right;
+        }
+    }
+
+    /** A POI matching a query. */
+    private static class Match {
+
+        private final Entry entry;
+        private final int rank;
+
+        Match(Entry entry, int rank) {
+            this.entry = entry;
+            this.rank = rank;
+        }
+
+        int getRank() {
+            return rank;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static com.github.danzx.zekke.util.GeoDistances.EARTH_RADIUS_IN_METERS;
+import static com.github.danzx.zekke.util.GeoDistances.degreesToMeters;
+import static com.github.danzx.zekke.util.GeoDistances.haversine;
+import static com.github.danzx.zekke.util.GeoDistances.metersToDegrees;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Waypoint;
+
+/**
+ * Uniform grid index of waypoints. Coordinates are kept in primitive arrays and each grid cell
+ * holds the slots of the waypoints located inside it so a bounding box query only visits the
+ * cells it overlaps. Safe for concurrent use; reads never block each other.
+ *
+ * @author Daniel Pedraza-Arcega
+ */
+class WaypointSpatialIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String area;
+    private final double cellSize;
+    private final long columns;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private Waypoint.Type[] types = new Waypoint.Type[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private List<Path>[] paths = newPathsArray(INITIAL_CAPACITY);
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+    private int slotCount;
+
+    /** @param cellSize the width and height of each grid cell in degrees. */
+    WaypointSpatialIndex(double cellSize) {
+        this(Waypoint.DEFAULT_AREA, cellSize);
+    }
+
+    /**
+     * @param area the area of the indexed waypoints.
+     * @param cellSize the width and height of each grid cell in degrees.
+     */
+    WaypointSpatialIndex(String area, double cellSize) {
+        this.area = requireNonNull(area);
+        if (cellSize <= 0 || cellSize > Coordinates.MAX_LATITUDE) throw new IllegalArgumentException("Invalid cell size: " + cellSize);
+        this.cellSize = cellSize;
+        columns = (long) Math.ceil((Coordinates.MAX_LONGITUDE - Coordinates.MIN_LONGITUDE) / cellSize) + 1;
+    }
+
+    /**
+     * Replaces the contents of this index.
+     *
+     * @param waypoints the new contents.
+     */
+    void replaceAll(Collection<Waypoint> waypoints) {
+        requireNonNull(waypoints);
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            cells.clear();
+            Arrays.fill(types, null);
+            Arrays.fill(names, null);
+            Arrays.fill(paths, null);
+            freeSlotCount = 0;
+            slotCount = 0;
+            waypoints.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a waypoint.
+     *
+     * @param waypoint a waypoint with id, type and location.
+     */
+    void put(Waypoint waypoint) {
+        requireNonNull(waypoint);
+        requireNonNull(waypoint.getId());
+        lock.writeLock().lock();
+        try {
+            delete(waypoint.getId());
+            insert(waypoint);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a waypoint.
+     *
+     * @param id the id of the waypoint.
+     * @return {@code true} if the waypoint was indexed; {@code false} otherwise.
+     */
+    boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return delete(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a waypoint by its id.
+     *
+     * @param id the id of the waypoint.
+     * @param onlyIdAndName if only the id and name should be set in the result.
+     * @return a new waypoint object or empty if the waypoint is not indexed.
+     */
+    Optional<Waypoint> get(long id, boolean onlyIdAndName) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? Optional.empty() : Optional.of(toWaypoint(slot, onlyIdAndName));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return the number of indexed waypoints. */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds waypoints.
+     *
+     * @param bbox if not {@code null} only waypoints within this rectangle are returned.
+     * @param type if not {@code null} only waypoints of this type are returned.
+     * @param limit if not {@code null} limits the results to this number.
+     * @param onlyIdAndName if only the id and name should be set in the results.
+     * @return a list of new waypoint objects or an empty list.
+     */
+    List<Waypoint> find(BoundingBox bbox, Waypoint.Type type, Integer limit, boolean onlyIdAndName) {
+        int maxResults = limit == null || limit <= 0 ? Integer.MAX_VALUE : limit;
+        List<Waypoint> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (bbox == null) collectAll(type, maxResults, onlyIdAndName, results);
+            else collectWithin(bbox, type, maxResults, onlyIdAndName, results);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Finds the nearest waypoints to a location. Grid cells are visited in rings around the cell
+     * of the location and the search stops as soon as no unvisited cell can hold a nearer
+     * waypoint than the ones already found.
+     *
+     * @param location the center of the search.
+     * @param maxDistance the maximum distance in meters.
+     * @param type if not {@code null} only waypoints of this type are returned.
+     * @param limit if not {@code null} limits the results to this number (the k in kNN).
+     * @return the neighbors ordered by distance or an empty list.
+     */
+    List<Neighbor> findNearest(Coordinates location, double maxDistance, Waypoint.Type type, Integer limit) {
+        requireNonNull(location);
+        if (maxDistance < 0) return new ArrayList<>();
+        NearestSearch search = new NearestSearch(location.getLatitude(), location.getLongitude(), maxDistance, type, limit);
+        lock.readLock().lock();
+        try {
+            search.run();
+            return search.sortedNeighbors();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectAll(Waypoint.Type type, int maxResults, boolean onlyIdAndName, List<Waypoint> results) {
+        for (int slot = 0; slot < slotCount && results.size() < maxResults; slot++) {
+            if (types[slot] != null && (type == null || types[slot] == type)) results.add(toWaypoint(slot, onlyIdAndName));
+        }
+    }
+
+    private void collectWithin(BoundingBox bbox, Waypoint.Type type, int maxResults, boolean onlyIdAndName, List<Waypoint> results) {
+        double bottom = bbox.getBottomCoordinates().getLatitude();
+        double top = bbox.getTopCoordinates().getLatitude();
+        double left = bbox.getBottomCoordinates().getLongitude();
+        double right = bbox.getTopCoordinates().getLongitude();
+        if (bottom > top) return;
+        long firstRow = row(bottom);
+        long lastRow = row(top);
+        boolean crossesAntimeridian = left > right;
+        long firstColumn = column(left);
+        long lastColumn = column(right);
+        long columnsToVisit = crossesAntimeridian ? columns - firstColumn + lastColumn + 1 : lastColumn - firstColumn + 1;
+        long cellsToVisit = (lastRow - firstRow + 1) * columnsToVisit;
+        if (cellsToVisit > cells.size()) {
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                long cellRow = entry.getKey() / columns;
+                long cellColumn = entry.getKey() % columns;
+                boolean inColumns = crossesAntimeridian ?
+                        cellColumn >= firstColumn || cellColumn <= lastColumn :
+                        cellColumn >= firstColumn && cellColumn <= lastColumn;
+                if (cellRow >= firstRow && cellRow <= lastRow && inColumns) {
+                    if (collectFromCell(entry.getValue(), bottom, top, left, right, type, maxResults, onlyIdAndName, results)) return;
+                }
+            }
+        } else {
+            for (long row = firstRow; row <= lastRow; row++) {
+                for (long i = 0; i < columnsToVisit; i++) {
+                    Cell cell = cells.get(row * columns + (firstColumn + i) % columns);
+                    if (cell != null && collectFromCell(cell, bottom, top, left, right, type, maxResults, onlyIdAndName, results)) return;
+                }
+            }
+        }
+    }
+
+    /** @return {@code true} when the maximum number of results has been reached. */
+    private boolean collectFromCell(Cell cell, double bottom, double top, double left, double right,
+            Waypoint.Type type, int maxResults, boolean onlyIdAndName, List<Waypoint> results) {
+        for (int i = 0; i < cell.size; i++) {
+            int slot = cell.slots[i];
+            if ((type == null || types[slot] == type) && contains(slot, bottom, top, left, right)) {
+                results.add(toWaypoint(slot, onlyIdAndName));
+                if (results.size() >= maxResults) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(int slot, double bottom, double top, double left, double right) {
+        double latitude = latitudes[slot];
+        double longitude = longitudes[slot];
+        if (latitude < bottom || latitude > top) return false;
+        return left <= right ?
+                longitude >= left && longitude <= right :
+                longitude >= left || longitude <= right;
+    }
+
+    private Waypoint toWaypoint(int slot, boolean onlyIdAndName) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(ids[slot]);
+        waypoint.setName(names[slot]);
+        if (!onlyIdAndName) {
+            waypoint.setArea(area);
+            waypoint.setType(types[slot]);
+            waypoint.setLocation(Coordinates.ofLatLng(latitudes[slot], longitudes[slot]));
+            waypoint.setPaths(paths[slot]);
+        }
+        return waypoint;
+    }
+
+    private void insert(Waypoint waypoint) {
+        Coordinates location = waypoint.getLocation();
+        int slot = nextFreeSlot();
+        ids[slot] = waypoint.getId();
+        latitudes[slot] = location.getLatitude();
+        longitudes[slot] = location.getLongitude();
+        types[slot] = requireNonNull(waypoint.getType());
+        names[slot] = waypoint.getName().orElse(null);
+        paths[slot] = waypoint.getPaths() == null ? null : new ArrayList<>(waypoint.getPaths());
+        slotsById.put(waypoint.getId(), slot);
+        cells.computeIfAbsent(cellKey(slot), key -> new Cell()).add(slot);
+    }
+
+    private boolean delete(long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) return false;
+        long key = cellKey(slot);
+        Cell cell = cells.get(key);
+        cell.remove(slot);
+        if (cell.size == 0) cells.remove(key);
+        types[slot] = null;
+        names[slot] = null;
+        paths[slot] = null;
+        if (freeSlotCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        freeSlots[freeSlotCount++] = slot;
+        return true;
+    }
+
+    private int nextFreeSlot() {
+        if (freeSlotCount > 0) return freeSlots[--freeSlotCount];
+        if (slotCount == ids.length) {
+            int newCapacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, newCapacity);
+            latitudes = Arrays.copyOf(latitudes, newCapacity);
+            longitudes = Arrays.copyOf(longitudes, newCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            paths = Arrays.copyOf(paths, newCapacity);
+        }
+        return slotCount++;
+    }
+
+    private long cellKey(int slot) {
+        return row(latitudes[slot]) * columns + column(longitudes[slot]);
+    }
+
+    private long row(double latitude) {
+        return (long) Math.floor((latitude - Coordinates.MIN_LATITUDE) / cellSize);
+    }
+
+    private long column(double longitude) {
+        return (long) Math.floor((longitude - Coordinates.MIN_LONGITUDE) / cellSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Path>[] newPathsArray(int capacity) {
+        return (List<Path>[]) new List<?>[capacity];
+    }
+
+    /** A waypoint and its distance to the location of a nearest neighbor search. */
+    static class Neighbor {
+        private final Waypoint waypoint;
+        private final double distance;
+
+        private Neighbor(Waypoint waypoint, double distance) {
+            this.waypoint = waypoint;
+            this.distance = distance;
+        }
+
+        Waypoint getWaypoint() {
+            return waypoint;
+        }
+
+        /** @return the distance in meters. */
+        double getDistance() {
+            return distance;
+        }
+    }
+
+    /** State of a single k-nearest neighbor search. Must be run holding the read lock. */
+    private class NearestSearch {
+        private final double latitude;
+        private final double longitude;
+        private final double maxDistance;
+        private final Waypoint.Type type;
+        private final int k;
+        private final long centerRow;
+        private final long centerColumn;
+        private final long maxRowOffset;
+        private final long minColumnOffset;
+        private final long maxColumnOffset;
+        private final PriorityQueue<Candidate> heap;
+
+        NearestSearch(double latitude, double longitude, double maxDistance, Waypoint.Type type, Integer limit) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.maxDistance = maxDistance;
+            this.type = type;
+            k = limit == null || limit <= 0 ? Integer.MAX_VALUE : limit;
+            centerRow = row(latitude);
+            centerColumn = column(longitude);
+            double radius = metersToDegrees(maxDistance);
+            maxRowOffset = (long) Math.ceil(radius / cellSize) + 1;
+            double cosMaxLatitude = Math.cos(Math.toRadians(Math.min(Coordinates.MAX_LATITUDE, Math.abs(latitude) + radius)));
+            double sinRadius = Math.sin(Math.toRadians(Math.min(radius, Coordinates.MAX_LATITUDE)));
+            long columnOffset = sinRadius >= cosMaxLatitude ?
+                    columns :
+                    (long) Math.ceil(Math.toDegrees(Math.asin(sinRadius / cosMaxLatitude)) / cellSize) + 1;
+            if (2 * columnOffset + 1 > columns) {
+                minColumnOffset = -(columns / 2);
+                maxColumnOffset = minColumnOffset + columns - 1;
+            } else {
+                minColumnOffset = -columnOffset;
+                maxColumnOffset = columnOffset;
+            }
+            heap = new PriorityQueue<>((a, b) -> Double.compare(b.distance, a.distance));
+        }
+
+        void run() {
+            long cellsInRange = (2 * maxRowOffset + 1) * (maxColumnOffset - minColumnOffset + 1);
+            if (cellsInRange > cells.size()) {
+                cells.values().forEach(this::visit);
+                return;
+            }
+            long maxRing = Math.max(maxRowOffset, Math.max(-minColumnOffset, maxColumnOffset));
+            for (long ring = 0; ring <= maxRing; ring++) {
+                if (ring > 0 && heap.size() == k && heap.peek().distance <= lowerBoundOutside(ring - 1)) return;
+                visitRing(ring);
+            }
+        }
+
+        List<Neighbor> sortedNeighbors() {
+            List<Neighbor> neighbors = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                Candidate candidate = heap.poll();
+                neighbors.add(new Neighbor(toWaypoint(candidate.slot, false), candidate.distance));
+            }
+            Collections.reverse(neighbors);
+            return neighbors;
+        }
+
+        private void visitRing(long ring) {
+            long rowOffsetLimit = Math.min(ring, maxRowOffset);
+            for (long rowOffset = -rowOffsetLimit; rowOffset <= rowOffsetLimit; rowOffset++) {
+                long row = centerRow + rowOffset;
+                if (row < 0 || row > row(Coordinates.MAX_LATITUDE)) continue;
+                if (Math.abs(rowOffset) == ring) {
+                    for (long columnOffset = Math.max(-ring, minColumnOffset); columnOffset <= Math.min(ring, maxColumnOffset); columnOffset++) {
+                        visit(row, columnOffset);
+                    }
+                } else {
+                    if (-ring >= minColumnOffset) visit(row, -ring);
+                    if (ring <= maxColumnOffset) visit(row, ring);
+                }
+            }
+        }
+
+        private void visit(long row, long columnOffset) {
+            Cell cell = cells.get(row * columns + Math.floorMod(centerColumn + columnOffset, columns));
+            if (cell != null) visit(cell);
+        }
+
+        private void visit(Cell cell) {
+            for (int i = 0; i < cell.size; i++) {
+                int slot = cell.slots[i];
+                if (type != null && types[slot] != type) continue;
+                double distance = haversine(latitude, longitude, latitudes[slot], longitudes[slot]);
+                if (distance > maxDistance) continue;
+                if (heap.size() < k) heap.add(new Candidate(slot, distance));
+                else if (distance < heap.peek().distance) {
+                    heap.poll();
+                    heap.add(new Candidate(slot, distance));
+                }
+            }
+        }
+
+        /** @return a lower bound of the distance to any waypoint outside the given ring. */
+        private double lowerBoundOutside(long ring) {
+            double latitudeBound = degreesToMeters(ring * cellSize);
+            if (ring >= Math.max(-minColumnOffset, maxColumnOffset) && maxColumnOffset - minColumnOffset + 1 == columns) return latitudeBound;
+            // One cell less to account for the partial column at the antimeridian
+            double deltaLongitude = Math.toRadians(Math.min(Math.max(0, ring - 1) * cellSize, Coordinates.MAX_LONGITUDE));
+            double maxLatitude = Math.min(Coordinates.MAX_LATITUDE, Math.abs(latitude) + (ring + 1) * cellSize);
+            double longitudeBound = 2 * EARTH_RADIUS_IN_METERS * Math.asin(Math.cos(Math.toRadians(maxLatitude)) * Math.sin(deltaLongitude / 2));
+            return Math.min(latitudeBound, longitudeBound);
+        }
+    }
+
+    /** A slot found by a nearest neighbor search. */
+    private static class Candidate {
+        private final int slot;
+        private final double distance;
+
+        Candidate(int slot, double distance) {
+            this.slot = slot;
+            this.distance = distance;
+        }
+    }
+
+    /** Growable list of slots. */
+    private static class Cell {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
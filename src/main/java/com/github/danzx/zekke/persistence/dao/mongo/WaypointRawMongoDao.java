@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.geoWithinBox;
+import static com.mongodb.client.model.Filters.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.mongo.config.MongoDbSettings;
+import com.github.danzx.zekke.persistence.dao.RawWaypointDao;
+import com.github.danzx.zekke.persistence.internal.mongo.Fields;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Repository;
+
+/**
+ * Raw waypoint DAO backed by the MongoDB driver. Documents are decoded as {@link RawBsonDocument}
+ * so they keep the bytes read from the wire. Queries use the read preference of the MongoDB
+ * settings like {@link com.github.danzx.zekke.persistence.dao.morphia.WaypointMorphiaCrudDao}.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Repository
+public class WaypointRawMongoDao implements RawWaypointDao {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointRawMongoDao.class);
+    private static final String COLLECTION_NAME = "waypoints";
+
+    private final MongoCollection<RawBsonDocument> waypointsCollection;
+
+    public @Inject WaypointRawMongoDao(MongoClient mongoClient, MongoDbSettings mongoSettings) {
+        requireNonNull(mongoClient);
+        requireNonNull(mongoSettings);
+        waypointsCollection = mongoClient.getDatabase(mongoSettings.getDatabase())
+                .getCollection(COLLECTION_NAME, RawBsonDocument.class)
+                .withReadPreference(mongoSettings.getReadPreference());
+    }
+
+    @Override
+    public Stream<RawBsonDocument> streamRawFiltered(WaypointFilterOptions filterOptions) {
+        log.debug("Raw filter: {}", filterOptions);
+        requireNonNull(filterOptions);
+        FindIterable<RawBsonDocument> documents = waypointsCollection.find(filterOf(filterOptions));
+        if (filterOptions.onlyIdAndName()) documents.projection(Projections.include(Fields.Waypoint.NAME));
+        filterOptions.getLimit().ifPresent(documents::limit);
+        MongoCursor<RawBsonDocument> cursor = documents.iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /** Same criteria as the Morphia DAO. */
+    private static Bson filterOf(WaypointFilterOptions filterOptions) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(eq(Fields.Waypoint.AREA, filterOptions.getArea()));
+        filterOptions.getBoundingBox().map(WaypointRawMongoDao::withinBox).ifPresent(filters::add);
+        if (filterOptions.getNameQuery().isPresent()) {
+            filters.add(regex(Fields.Waypoint.NAME, Pattern.compile(Pattern.quote(filterOptions.getNameQuery().get()), Pattern.CASE_INSENSITIVE)));
+            filters.add(eq(Fields.Waypoint.TYPE, Type.POI.name()));
+        } else filterOptions.getWaypointType().ifPresent(type -> filters.add(eq(Fields.Waypoint.TYPE, type.name())));
+        return and(filters);
+    }
+
+    private static Bson withinBox(BoundingBox bbox) {
+        return geoWithinBox(Fields.Waypoint.LOCATION, 
+                bbox.getBottomCoordinates().getLongitude(), bbox.getBottomCoordinates().getLatitude(),
+                bbox.getTopCoordinates().getLongitude(), bbox.getTopCoordinates().getLatitude());
+    }
+}
@@ -25,6 +25,7 @@ import com.github.danzx.zekke.persistence.dao.CrudDao;
 import com.github.danzx.zekke.persistence.internal.mongo.Fields;
 
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.query.FindOptions;
 import org.mongodb.morphia.query.Query;
 
 import org.slf4j.Logger;
@@ -77,7 +78,7 @@ abstract class BaseMorphiaCrudDao<E extends BaseEntity<ID>, ID extends Serializa
     public Optional<E> findById(ID id) {
         log.debug("Find {}, id: {}", collectionClass, id);
         requireNonNull(id);
-        return Optional.ofNullable(createQuery().field(Fields.Common.ID).equal(id).get());
+        return Optional.ofNullable(createQuery().field(Fields.Common.ID).equal(id).get(readOptions()));
     }
 
     /** @return a new query. */
@@ -85,6 +86,11 @@ abstract class BaseMorphiaCrudDao<E extends BaseEntity<ID>, ID extends Serializa
         return getDatastore().createQuery(collectionClass);
     }
 
+    /** @return new options for read-only queries, override to change their read preference. */
+    protected FindOptions readOptions() {
+        return new FindOptions();
+    }
+
     protected Class<E> getCollectionClass() {
         return collectionClass;
     }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.morphia;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.annotations.Field;
+import org.mongodb.morphia.annotations.Index;
+import org.mongodb.morphia.annotations.Indexes;
+import org.mongodb.morphia.mapping.MappedClass;
+import org.mongodb.morphia.query.Query;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on the mapped entities and checks that every waypoint query shape
+ * is answered by one of them. Indexes are built in the background by MongoDB and, unless the
+ * application must fail on collection scans, the whole process runs on its own thread so it
+ * doesn't hold the startup. Indexes found in MongoDB but not declared are only reported since they
+ * may have been created on purpose, e.g. for sharding.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class MorphiaIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MorphiaIndexManager.class);
+    private static final String ID_INDEX = "_id_";
+    private static final String COLLECTION_SCAN_STAGE = "COLLSCAN";
+    private static final BoundingBox SAMPLE_BBOX = BoundingBox.ofBottomTop(Coordinates.ofLatLng(0d, 0d), Coordinates.ofLatLng(1d, 1d));
+    private static final Coordinates SAMPLE_LOCATION = Coordinates.ofLatLng(0d, 0d);
+
+    private final Datastore datastore;
+    private final Morphia morphia;
+    private final WaypointMorphiaCrudDao waypointDao;
+    private final boolean failOnCollectionScan;
+    private final Executor executor;
+
+    public @Inject MorphiaIndexManager(Datastore datastore, 
+                                       Morphia morphia, 
+                                       WaypointMorphiaCrudDao waypointDao,
+                                       @Value("${mongo.indexes.fail_on_collection_scan}") boolean failOnCollectionScan) {
+        this(datastore, morphia, waypointDao, failOnCollectionScan, failOnCollectionScan ? Runnable::run : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mongo-indexes");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    MorphiaIndexManager(Datastore datastore, Morphia morphia, WaypointMorphiaCrudDao waypointDao, boolean failOnCollectionScan, Executor executor) {
+        this.datastore = requireNonNull(datastore);
+        this.morphia = requireNonNull(morphia);
+        this.waypointDao = requireNonNull(waypointDao);
+        this.failOnCollectionScan = failOnCollectionScan;
+        this.executor = requireNonNull(executor);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.execute(() -> {
+            try {
+                ensureIndexes();
+                reportUndeclaredIndexes();
+                verifyQueryPlans();
+            } catch (MongoException ex) {
+                log.error("Indexes could not be managed", ex);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) ((ExecutorService) executor).shutdownNow();
+    }
+
+    void ensureIndexes() {
+        log.info("Ensuring indexes in the background");
+        datastore.ensureIndexes(true);
+    }
+
+    /** Warns about the indexes of a mapped collection that none of its entities declares. */
+    void reportUndeclaredIndexes() {
+        for (MappedClass mappedClass : morphia.getMapper().getMappedClasses()) {
+            if (mappedClass.getEntityAnnotation() == null) continue;
+            Set<String> declared = declaredIndexNames(mappedClass.getClazz());
+            for (DBObject index : datastore.getCollection(mappedClass.getClazz()).getIndexInfo()) {
+                String name = nameOf((DBObject) index.get("key"));
+                if (!ID_INDEX.equals(index.get("name")) && !declared.contains(name)) {
+                    log.warn("Index {} of {} is not declared and slows down writes if unused", index.get("key"), mappedClass.getCollectionName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Explains every waypoint query shape.
+     * 
+     * @return the shapes that would scan the whole collection.
+     * @throws IllegalStateException if there are such shapes and the application must fail.
+     */
+    List<String> verifyQueryPlans() {
+        List<String> collectionScans = new ArrayList<>();
+        queryShapes().forEach((shape, query) -> {
+            try {
+                if (usesCollectionScan(query.get().explain())) collectionScans.add(shape);
+                else log.debug("Query {} uses an index", shape);
+            } catch (MongoException ex) {
+                log.warn("Query {} could not be planned: {}", shape, ex.getMessage());
+                collectionScans.add(shape);
+            }
+        });
+        if (collectionScans.isEmpty()) log.info("Every waypoint query uses an index");
+        else if (failOnCollectionScan) throw new IllegalStateException("Queries scan the whole collection: " + collectionScans);
+        else log.warn("Queries scan the whole collection: {}", collectionScans);
+        return collectionScans;
+    }
+
+    /** Bounding box, type and name filters in every combination the DAO builds them. */
+    private Map<String, Supplier<Query<Waypoint>>> queryShapes() {
+        List<WaypointFilterOptions> filterOptions = asList(
+                new WaypointFilterOptions.Builder().build(),
+                new WaypointFilterOptions.Builder().byType(Type.POI).build(),
+                new WaypointFilterOptions.Builder().withinBoundingBox(SAMPLE_BBOX).build(),
+                new WaypointFilterOptions.Builder().withinBoundingBox(SAMPLE_BBOX).byType(Type.POI).build(),
+                new WaypointFilterOptions.Builder().withNameContaining("a").build(),
+                new WaypointFilterOptions.Builder().withNameContaining("a").withinBoundingBox(SAMPLE_BBOX).build());
+        List<LocationWaypointFilterOptions> locationFilterOptions = asList(
+                LocationWaypointFilterOptions.Builder.nearLocation(SAMPLE_LOCATION).build(),
+                LocationWaypointFilterOptions.Builder.nearLocation(SAMPLE_LOCATION).byType(Type.POI).build());
+        Map<String, Supplier<Query<Waypoint>>> shapes = new LinkedHashMap<>();
+        filterOptions.forEach(options -> shapes.put(options.toString(), () -> waypointDao.createFilteredQuery(options)));
+        locationFilterOptions.forEach(options -> shapes.put(options.toString(), () -> waypointDao.createNearQuery(options)));
+        return shapes;
+    }
+
+    static boolean usesCollectionScan(Object plan) {
+        if (plan instanceof Map) {
+            Map<?, ?> stage = (Map<?, ?>) plan;
+            return COLLECTION_SCAN_STAGE.equals(stage.get("stage")) || usesCollectionScan(stage.values());
+        }
+        if (plan instanceof Collection) return ((Collection<?>) plan).stream().anyMatch(MorphiaIndexManager::usesCollectionScan);
+        return false;
+    }
+
+    /** Names as MongoDB does by default: each field followed by its index type. */
+    private static Set<String> declaredIndexNames(Class<?> entityClass) {
+        Indexes indexes = entityClass.getAnnotation(Indexes.class);
+        if (indexes == null) return emptySet();
+        return Stream.of(indexes.value())
+                .map(Index::fields)
+                .map(fields -> Stream.of(fields).map(MorphiaIndexManager::nameOf).collect(joining("_")))
+                .collect(toSet());
+    }
+
+    private static String nameOf(Field field) {
+        return field.value() + "_" + field.type().toIndexValue();
+    }
+
+    private static String nameOf(DBObject key) {
+        return key.keySet().stream()
+                .map(field -> {
+                    Object type = key.get(field);
+                    return field + "_" + (type instanceof Number ? ((Number) type).intValue() : type);
+                })
+                .collect(joining("_"));
+    }
+}
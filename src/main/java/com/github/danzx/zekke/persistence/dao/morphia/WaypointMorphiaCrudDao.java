@@ -15,29 +15,53 @@
  */
 package com.github.danzx.zekke.persistence.dao.morphia;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
+import com.github.danzx.zekke.data.filter.FilterOptions;
 import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
 import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
 import com.github.danzx.zekke.domain.BoundingBox;
 import com.github.danzx.zekke.domain.Coordinates;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointAreaVersion;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.mongo.config.MongoDbSettings;
 import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.persistence.internal.ChangeVersionTracker;
 import com.github.danzx.zekke.persistence.internal.mongo.Fields;
 import com.github.danzx.zekke.persistence.internal.mongo.MongoSequence;
 import com.github.danzx.zekke.persistence.internal.mongo.MongoSequenceManager;
 import com.github.danzx.zekke.transformer.Transformer;
 
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.ReadPreference;
+
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.UpdateOptions;
 import org.mongodb.morphia.geo.Point;
 import org.mongodb.morphia.query.FindOptions;
+import org.mongodb.morphia.query.MorphiaIterator;
 import org.mongodb.morphia.query.Query;
 import org.mongodb.morphia.query.Shape;
+import org.mongodb.morphia.query.UpdateOperations;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,7 +69,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 /**
- * Waypoint Morphia CRUD DAO.
+ * Waypoint Morphia CRUD DAO. Read-only queries use the read preference of the MongoDB settings
+ * so they can be answered by secondaries; writes and the change sync queries always go to the
+ * primary. Every write takes a new change version and every deletion leaves a tombstone so
+ * changes can be synced; versions are tracked until their write finishes, see
+ * {@link ChangeVersionTracker}. Queries are scoped to one area and the waypoint indexes lead with it, so each area is an index range of its
+ * own; {@code {area: 1, _id: 1}} is a suitable key to zone shard the collection by area.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -53,17 +82,26 @@ import org.springframework.stereotype.Repository;
 public class WaypointMorphiaCrudDao extends BaseMorphiaCrudDao<Waypoint, Long> implements WaypointDao {
 
     private static final Logger log = LoggerFactory.getLogger(WaypointMorphiaCrudDao.class);
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
 
+    private final Morphia morphia;
     private final MongoSequenceManager sequenceManager;
     private final Transformer<Coordinates, Point> coordinatesTransformer;
     private final Transformer<BoundingBox, Shape> boundingBoxTransformer;
+    private final ReadPreference readPreference;
+    private final ChangeVersionTracker versions;
 
     public @Inject WaypointMorphiaCrudDao(Datastore datastore, 
+                                          Morphia morphia,
+                                          MongoDbSettings mongoSettings,
                                           MongoSequenceManager sequenceManager, 
                                           Transformer<Coordinates, Point> coordinatesTransformer,
                                           Transformer<BoundingBox, Shape> boundingBoxTransformer) {
         super(datastore, Waypoint.class);
+        this.morphia = requireNonNull(morphia);
+        readPreference = requireNonNull(mongoSettings).getReadPreference();
         this.sequenceManager = requireNonNull(sequenceManager);
+        versions = new ChangeVersionTracker(sequenceManager, MongoSequence.WAYPOINT_VERSION);
         this.coordinatesTransformer = requireNonNull(coordinatesTransformer);
         this.boundingBoxTransformer = requireNonNull(boundingBoxTransformer);
     }
@@ -76,14 +114,76 @@ public class WaypointMorphiaCrudDao extends BaseMorphiaCrudDao<Waypoint, Long> i
             log.debug("New id: {}", id);
             waypoint.setId(id);
         }
-        super.saveOrUpdate(waypoint);
+        versions.write(1, version -> {
+            waypoint.setVersion(version);
+            super.saveOrUpdate(waypoint);
+            return waypoint;
+        });
+    }
+
+    /** {@inheritDoc} The tombstone is written after the waypoint is deleted. */
+    @Override
+    public boolean deleteById(Long id) {
+        boolean deleted = super.deleteById(id);
+        if (deleted) versions.write(1, version -> getDatastore().save(WaypointTombstone.of(id, version)));
+        return deleted;
+    }
+
+    /** {@inheritDoc} The versions of all the waypoints are reserved at once. */
+    @Override
+    public Map<Integer, String> insertAll(List<Waypoint> waypoints) {
+        requireNonNull(waypoints);
+        if (waypoints.isEmpty()) return emptyMap();
+        return versions.write(waypoints.size(), firstVersion -> insertAll(waypoints, firstVersion));
+    }
+
+    private Map<Integer, String> insertAll(List<Waypoint> waypoints, long firstVersion) {
+        BulkWriteOperation bulkInsert = getDatastore().getCollection(Waypoint.class).initializeUnorderedBulkOperation();
+        long version = firstVersion;
+        for (Waypoint waypoint : waypoints) {
+            if (waypoint.getId() == null) waypoint.setId(sequenceManager.getNextSequenceValue(MongoSequence.WAYPOINT_ID));
+            waypoint.setVersion(version++);
+            bulkInsert.insert(morphia.toDBObject(waypoint));
+        }
+        try {
+            bulkInsert.execute();
+            return emptyMap();
+        } catch (BulkWriteException ex) {
+            log.warn("{} of {} waypoints were not inserted", ex.getWriteErrors().size(), waypoints.size());
+            Map<Integer, String> failures = new HashMap<>();
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                log.warn("Waypoint {} was not inserted, code: {}, message: {}", error.getIndex(), error.getCode(), error.getMessage());
+                failures.put(error.getIndex(), messageKeyOf(error));
+            }
+            return failures;
+        }
+    }
+
+    private static String messageKeyOf(BulkWriteError error) {
+        return error.getCode() == DUPLICATE_KEY_ERROR_CODE ? "bulk.duplicate.key.error" : "bulk.insert.error";
     }
 
     @Override
     public List<Waypoint> findFiltered(WaypointFilterOptions filterOptions) {
         log.debug("Filter: {}", filterOptions);
         requireNonNull(filterOptions);
-        Query<Waypoint> query = createQuery();
+        Query<Waypoint> query = createFilteredQuery(filterOptions);
+        return query.asList(readOptions(filterOptions, filterOptions.fromPrimary()));
+    }
+
+    @Override
+    public Stream<Waypoint> streamFiltered(WaypointFilterOptions filterOptions) {
+        log.debug("Stream filter: {}", filterOptions);
+        requireNonNull(filterOptions);
+        Query<Waypoint> query = createFilteredQuery(filterOptions);
+        MorphiaIterator<Waypoint, Waypoint> cursor = query.fetch(readOptions(filterOptions, filterOptions.fromPrimary()));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /** Also used by {@link MorphiaIndexManager} to check the plans of the filtered queries. */
+    Query<Waypoint> createFilteredQuery(WaypointFilterOptions filterOptions) {
+        Query<Waypoint> query = createQuery().field(Fields.Waypoint.AREA).equal(filterOptions.getArea());
         filterOptions.getBoundingBox().ifPresent(bbox -> query.and(query.criteria(Fields.Waypoint.LOCATION).within(boundingBoxTransformer.convertAtoB(bbox))));
         if (filterOptions.getNameQuery().isPresent()) {
             String nameQuery = filterOptions.getNameQuery().get();
@@ -93,24 +193,136 @@ public class WaypointMorphiaCrudDao extends BaseMorphiaCrudDao<Waypoint, Long> i
             );
         } else filterOptions.getWaypointType().ifPresent(type -> query.and(query.criteria(Fields.Waypoint.TYPE).equal(type)));
         if (filterOptions.onlyIdAndName()) query.project(Fields.Waypoint.NAME, true);
-        return filterOptions.getLimit()
-                .map(limit -> new FindOptions().limit(limit))
-                .map(query::asList)
-                .orElseGet(query::asList);
+        return query;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> findAreas() {
+        return getDatastore().getCollection(Waypoint.class).distinct(Fields.Waypoint.AREA, readPreference);
+    }
+
+    /**
+     * {@inheritDoc} Read from the primary: the stable version only holds there, a secondary may
+     * be missing a change below it.
+     */
+    @Override
+    public List<Waypoint> findChangedSince(long version, int limit) {
+        log.debug("Changed since: {}, limit: {}", version, limit);
+        return createQuery()
+                .field(Fields.Waypoint.VERSION).greaterThan(version)
+                .order(Fields.Waypoint.VERSION)
+                .asList(primaryReadOptions().limit(limit));
+    }
+
+    /** {@inheritDoc} Read from the primary like {@link #findChangedSince(long, int)}. */
+    @Override
+    public List<WaypointTombstone> findDeletedSince(long version, int limit) {
+        log.debug("Deleted since: {}, limit: {}", version, limit);
+        return getDatastore().createQuery(WaypointTombstone.class)
+                .field(Fields.WaypointTombstone.VERSION).greaterThan(version)
+                .order(Fields.WaypointTombstone.VERSION)
+                .asList(primaryReadOptions().limit(limit));
+    }
+
+    @Override
+    public long findStableVersion() {
+        return versions.findStableVersion();
+    }
+
+    /**
+     * {@inheritDoc} Changes of unknown area bump every area that has a counter or waypoints. The
+     * counters are plain increments rather than change versions because writes may finish out
+     * of version order.
+     */
+    @Override
+    public void markChanged(Set<String> areas) {
+        requireNonNull(areas);
+        UpdateOperations<WaypointAreaVersion> increment = getDatastore().createUpdateOperations(WaypointAreaVersion.class)
+                .inc(Fields.WaypointAreaVersion.VERSION);
+        Collection<String> changed = areas;
+        if (areas.isEmpty()) {
+            getDatastore().update(getDatastore().createQuery(WaypointAreaVersion.class), increment, new UpdateOptions().multi(true));
+            changed = findAreas();
+        }
+        for (String area : changed) {
+            Query<WaypointAreaVersion> query = getDatastore().createQuery(WaypointAreaVersion.class).field(Fields.Common.ID).equal(area);
+            getDatastore().update(query, increment, new UpdateOptions().upsert(true));
+        }
+        sequenceManager.reserveSequenceValues(MongoSequence.WAYPOINT_CHANGES, 1);
+    }
+
+    @Override
+    public long findDataVersion() {
+        return sequenceManager.getCurrentSequenceValue(MongoSequence.WAYPOINT_CHANGES);
+    }
+
+    /** {@inheritDoc} Read from the primary so a change is never followed by an older version. */
+    @Override
+    public long findDataVersion(String area) {
+        WaypointAreaVersion areaVersion = getDatastore().get(WaypointAreaVersion.class, requireNonNull(area));
+        return areaVersion == null ? 0 : areaVersion.getVersion();
+    }
+
+    /** Gives a change version to the waypoints persisted before there were versions. */
+    @PostConstruct
+    public void assignMissingVersions() {
+        List<Waypoint> waypoints = createQuery().field(Fields.Waypoint.VERSION).doesNotExist().project(Fields.Common.ID, true).asList();
+        if (waypoints.isEmpty()) return;
+        int assigned = versions.write(waypoints.size(), firstVersion -> {
+            int updated = 0;
+            long version = firstVersion;
+            for (Waypoint waypoint : waypoints) {
+                Query<Waypoint> unversioned = createQuery()
+                        .field(Fields.Common.ID).equal(waypoint.getId())
+                        .field(Fields.Waypoint.VERSION).doesNotExist();
+                UpdateOperations<Waypoint> setVersion = getDatastore().createUpdateOperations(Waypoint.class).set(Fields.Waypoint.VERSION, version++);
+                updated += getDatastore().update(unversioned, setVersion).getUpdatedCount();
+            }
+            return updated;
+        });
+        if (assigned > 0) log.info("Assigned a change version to {} waypoints", assigned);
+    }
+
+    /** Puts the waypoints persisted before there were areas in the default area. */
+    @PostConstruct
+    public void assignMissingAreas() {
+        Query<Waypoint> withoutArea = createQuery().field(Fields.Waypoint.AREA).doesNotExist();
+        UpdateOperations<Waypoint> setArea = getDatastore().createUpdateOperations(Waypoint.class).set(Fields.Waypoint.AREA, Waypoint.DEFAULT_AREA);
+        int assigned = getDatastore().update(withoutArea, setArea).getUpdatedCount();
+        if (assigned > 0) log.info("Assigned the default area to {} waypoints", assigned);
     }
 
     @Override
     public List<Waypoint> findNearALocationFiltered(LocationWaypointFilterOptions filterOptions) {
         log.debug("Filter: {}", filterOptions);
         requireNonNull(filterOptions);
+        Query<Waypoint> query = createNearQuery(filterOptions);
+        return query.asList(readOptions(filterOptions, filterOptions.fromPrimary()));
+    }
+
+    /** Also used by {@link MorphiaIndexManager} to check the plans of the near queries. */
+    Query<Waypoint> createNearQuery(LocationWaypointFilterOptions filterOptions) {
         Query<Waypoint> query = createQuery()
+                .field(Fields.Waypoint.AREA).equal(filterOptions.getArea())
                 .field(Fields.Waypoint.LOCATION)
                 // A NullPointerException is thrown here but it seems to be working anyways WTF?
                 .near(coordinatesTransformer.convertAtoB(filterOptions.getLocation()), filterOptions.getMaxDistance().orElse(DEFAULT_MAX_DISTANCE));
         filterOptions.getWaypointType().ifPresent(type -> query.and(query.criteria(Fields.Waypoint.TYPE).equal(type)));
-        return filterOptions.getLimit()
-                .map(limit -> new FindOptions().limit(limit))
-                .map(query::asList)
-                .orElseGet(query::asList);
+        return query;
+    }
+
+    @Override
+    protected FindOptions readOptions() {
+        return new FindOptions().readPreference(readPreference);
+    }
+
+    private FindOptions readOptions(FilterOptions filterOptions, boolean fromPrimary) {
+        FindOptions options = fromPrimary ? primaryReadOptions() : readOptions();
+        return filterOptions.getLimit().map(options::limit).orElse(options);
+    }
+
+    private static FindOptions primaryReadOptions() {
+        return new FindOptions().readPreference(ReadPreference.primary());
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Hands out change versions from a sequence and keeps track of the writes that took them but
+ * haven't finished yet. Versions are taken before a write commits, so writes may become visible
+ * out of version order; {@link #findStableVersion()} tells readers up to which version every
+ * change is already visible so a sync cursor never moves past a change that shows up later.
+ * Only the writes of this process are tracked, so writes must go through a single instance.
+ * Safe for concurrent use.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class ChangeVersionTracker {
+
+    private final SequenceManager sequenceManager;
+    private final Sequence sequence;
+    /** Highest version each unfinished write allows readers to see, with repetitions. */
+    private final TreeMap<Long, Integer> pendingLimits = new TreeMap<>();
+    private long lastReserved;
+
+    public ChangeVersionTracker(SequenceManager sequenceManager, Sequence sequence) {
+        this.sequenceManager = requireNonNull(sequenceManager);
+        this.sequence = requireNonNull(sequence);
+    }
+
+    /**
+     * Reserves consecutive versions with a single call to the sequence manager and runs the given
+     * write with them. Readers won't see past the reserved versions until the write returns.
+     * 
+     * @param count how many versions the write needs.
+     * @param write the write; it receives the first reserved version.
+     * @param <T> the type of the result of the write.
+     * @return the result of the write.
+     */
+    public <T> T write(int count, LongFunction<T> write) {
+        requireNonNull(write);
+        // Until the versions are known the write can't have one lower than what was reserved before
+        long limit = begin();
+        try {
+            long first = sequenceManager.reserveSequenceValues(sequence, count);
+            limit = reserved(limit, first, first + count - 1);
+            return write.apply(first);
+        } finally {
+            end(limit);
+        }
+    }
+
+    /**
+     * @return the highest version such that every change of this process with a lower or equal
+     *         version is already visible.
+     */
+    public long findStableVersion() {
+        long current = sequenceManager.getCurrentSequenceValue(sequence);
+        synchronized (this) {
+            lastReserved = Math.max(lastReserved, current);
+            return pendingLimits.isEmpty() ? current : Math.min(current, pendingLimits.firstKey());
+        }
+    }
+
+    private synchronized long begin() {
+        pendingLimits.merge(lastReserved, 1, Integer::sum);
+        return lastReserved;
+    }
+
+    private synchronized long reserved(long previousLimit, long first, long last) {
+        end(previousLimit);
+        lastReserved = Math.max(lastReserved, last);
+        pendingLimits.merge(first - 1, 1, Integer::sum);
+        return first - 1;
+    }
+
+    private synchronized void end(long limit) {
+        pendingLimits.computeIfPresent(limit, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
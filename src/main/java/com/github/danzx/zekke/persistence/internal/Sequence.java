@@ -25,6 +25,6 @@ public interface Sequence {
     /** @return the identifier of this sequence. */
     String id();
 
-    /** @return the callable function to get the next value. */
-    String nextValueFunctionCall();
+    /** @return how many values are reserved from the datastore at once. */
+    int allocationSize();
 }
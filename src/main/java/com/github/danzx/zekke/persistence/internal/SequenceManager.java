@@ -26,7 +26,7 @@ public interface SequenceManager {
      * Gets the current value of the given sequence.
      * 
      * @param sequence a sequence.
-     * @return the current value.
+     * @return the current value or 0 if the sequence has no values yet.
      */
     long getCurrentSequenceValue(Sequence sequence);
 
@@ -38,6 +38,16 @@ public interface SequenceManager {
      */
     long getNextSequenceValue(Sequence sequence);
 
+    /**
+     * Reserves consecutive values of the given sequence straight from the datastore with a single
+     * atomic increment. Values reserved by later calls are always greater.
+     * 
+     * @param sequence a sequence.
+     * @param count how many values to reserve.
+     * @return the first reserved value.
+     */
+    long reserveSequenceValues(Sequence sequence, int count);
+
     /**
      * Sets a new value to the given sequence
      * 
@@ -22,7 +22,7 @@ package com.github.danzx.zekke.persistence.internal.mongo;
  */
 public class CommonOperators {
 
-    public static final String EVAL = "$eval";
+    public static final String INC = "$inc";
     public static final String SET = "$set";
 
     private CommonOperators() {
@@ -35,14 +35,28 @@ public class Fields {
     }
 
     public static class Waypoint extends Common {
+        public static final String AREA = "area";
         public static final String NAME = "name";
         public static final String TYPE = "type";
         public static final String LOCATION = "location";
         public static final String PATHS = "paths";
+        public static final String VERSION = "version";
 
         private Waypoint() {}
     }
 
+    public static class WaypointTombstone extends Common {
+        public static final String VERSION = "version";
+
+        private WaypointTombstone() {}
+    }
+
+    public static class WaypointAreaVersion extends Common {
+        public static final String VERSION = "version";
+
+        private WaypointAreaVersion() {}
+    }
+
     public static class Path extends Common {
         public static final String DISTANCE = "distance";
         public static final String TO_WAYPOINT = "to_waypoint";
@@ -55,12 +69,4 @@ public class Fields {
 
         private Sequence() {}
     }
-
-    public static class Function {
-        public static final String RESULT = "retval";
-
-        private Function() {
-            throw new AssertionError();
-        }
-    }
 }
@@ -15,28 +15,29 @@
  */
 package com.github.danzx.zekke.persistence.internal.mongo;
 
-import static com.github.danzx.zekke.util.Strings.quoted;
-
 import com.github.danzx.zekke.persistence.internal.Sequence;
 
 /**
- * MongoDB sequences stored in the sequence collection and implemented as JS functions.
+ * MongoDB sequences stored in the sequences collection.
  * 
  * @author Daniel Pedraza-Arcega
  */
 public enum MongoSequence implements Sequence {
 
-    WAYPOINT_ID;
+    WAYPOINT_ID(1_000),
+    /** Reserved straight from the database by each write, see {@link com.github.danzx.zekke.persistence.internal.ChangeVersionTracker}. */
+    WAYPOINT_VERSION(1),
+    /** Counts the changes of every waypoint once they are written. */
+    WAYPOINT_CHANGES(1);
 
     public static final String COLLECTION_NAME = "sequences";
-    private static final String NEXT_VALUE_FUNCTION_PATTERN = "getNextSequenceValue(%s)";
 
     private final String id;
-    private final String nextValueFunctionCall;
+    private final int allocationSize;
     
-    MongoSequence() {
+    MongoSequence(int allocationSize) {
         id = name().toLowerCase();
-        nextValueFunctionCall = String.format(NEXT_VALUE_FUNCTION_PATTERN, quoted(id));
+        this.allocationSize = allocationSize;
     }
 
     @Override
@@ -45,7 +46,7 @@ public enum MongoSequence implements Sequence {
     }
 
     @Override
-    public String nextValueFunctionCall() {
-        return nextValueFunctionCall;
+    public int allocationSize() {
+        return allocationSize;
     }
 }
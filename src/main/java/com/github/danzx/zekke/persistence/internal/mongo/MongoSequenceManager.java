@@ -17,12 +17,16 @@ package com.github.danzx.zekke.persistence.internal.mongo;
 
 import static java.util.Objects.requireNonNull;
 
-import static com.github.danzx.zekke.persistence.internal.mongo.CommonOperators.EVAL;
+import static com.github.danzx.zekke.persistence.internal.mongo.CommonOperators.INC;
 import static com.github.danzx.zekke.persistence.internal.mongo.CommonOperators.SET;
 import static com.github.danzx.zekke.persistence.internal.mongo.MongoSequence.COLLECTION_NAME;
 
 import static com.mongodb.client.model.Filters.eq;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.inject.Inject;
 
 import com.github.danzx.zekke.mongo.config.MongoDbSettings;
@@ -30,8 +34,10 @@ import com.github.danzx.zekke.persistence.internal.Sequence;
 import com.github.danzx.zekke.persistence.internal.SequenceManager;
 
 import com.mongodb.MongoClient;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
 
 import org.bson.Document;
 
@@ -41,7 +47,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 /**
- * Manages and retrieves sequences values using the sequences collection.
+ * Manages and retrieves sequences values using the sequences collection. Values are reserved in
+ * blocks of {@link Sequence#allocationSize()} with a single atomic increment and then handed out
+ * from memory, so most calls never reach the database. Values of a reserved block that are not
+ * used before shutdown are lost; sequences are unique and increasing but may have gaps. Each
+ * sequence has a lock of its own so refilling one never waits for another.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -49,22 +59,31 @@ import org.springframework.stereotype.Repository;
 public class MongoSequenceManager implements SequenceManager {
 
     private static final Logger log = LoggerFactory.getLogger(MongoSequenceManager.class);
+    private static final FindOneAndUpdateOptions RESERVE_OPTIONS = new FindOneAndUpdateOptions()
+            .upsert(true)
+            .returnDocument(ReturnDocument.AFTER);
 
-    private final MongoDatabase database;
     private final MongoCollection<Document> sequencesCollection;
+    private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
     
     public @Inject MongoSequenceManager(MongoClient mongoClient, MongoDbSettings mongoSettings) {
         requireNonNull(mongoClient);
         requireNonNull(mongoSettings);
-        database =  mongoClient.getDatabase(mongoSettings.getDatabase());
-        sequencesCollection = database.getCollection(COLLECTION_NAME);
+        // Sequence values must never be read from a lagging secondary
+        sequencesCollection = mongoClient.getDatabase(mongoSettings.getDatabase())
+                .getCollection(COLLECTION_NAME)
+                .withReadPreference(ReadPreference.primary());
     }
 
     @Override
     public long getCurrentSequenceValue(Sequence sequence) {
         log.debug("currval: {}", sequence);
         requireNonNull(sequence);
+        Block block = blocks.get(sequence.id());
+        if (block != null) return block.lastHandedOut();
         Document sequenceDocument = sequencesCollection.find(eq(Fields.Sequence.ID, sequence.id())).first();
+        if (sequenceDocument == null) return 0L;
         Number sequenceValue = sequenceDocument.get(Fields.Sequence.SEQ, Number.class);
         return sequenceValue.longValue();
     }
@@ -73,14 +92,75 @@ public class MongoSequenceManager implements SequenceManager {
     public long getNextSequenceValue(Sequence sequence) {
         log.debug("nextval: {}", sequence);
         requireNonNull(sequence);
-        Document returnDocument = database.runCommand(new Document(EVAL, sequence.nextValueFunctionCall()));
-        return returnDocument.get(Fields.Function.RESULT, Number.class).longValue();
+        while (true) {
+            Block block = blocks.get(sequence.id());
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.last) return value;
+            }
+            reserveBlock(sequence, block);
+        }
+    }
+
+    @Override
+    public long reserveSequenceValues(Sequence sequence, int count) {
+        log.debug("reserve: {} x{}", sequence, count);
+        requireNonNull(sequence);
+        if (count < 1) throw new IllegalArgumentException("count must be positive");
+        return increment(sequence, count) - count + 1;
     }
 
     @Override
     public void setSequenceValue(Sequence sequence, long newValue) {
         log.debug("setval: {}->{}", sequence, newValue);
         requireNonNull(sequence);
-        sequencesCollection.updateOne(eq(Fields.Sequence.ID, sequence.id()), new Document(SET, new Document(Fields.Sequence.SEQ, newValue)));
+        synchronized (lockOf(sequence)) {
+            sequencesCollection.updateOne(eq(Fields.Sequence.ID, sequence.id()), new Document(SET, new Document(Fields.Sequence.SEQ, newValue)));
+            blocks.remove(sequence.id());
+        }
+    }
+
+    /** Forgets every reserved block so the next values are reserved from the database again. */
+    void discardReservedBlocks() {
+        blocks.clear();
+    }
+
+    private void reserveBlock(Sequence sequence, Block exhaustedBlock) {
+        synchronized (lockOf(sequence)) {
+            // Another thread may have reserved a new block already
+            if (blocks.get(sequence.id()) != exhaustedBlock) return;
+            int size = sequence.allocationSize();
+            long last = increment(sequence, size);
+            log.debug("Reserved {} values of {}: [{}, {}]", size, sequence, last - size + 1, last);
+            blocks.put(sequence.id(), new Block(last - size + 1, last));
+        }
+    }
+
+    /** @return the value of the sequence after adding the given amount. */
+    private long increment(Sequence sequence, int amount) {
+        Document sequenceDocument = sequencesCollection.findOneAndUpdate(
+                eq(Fields.Sequence.ID, sequence.id()),
+                new Document(INC, new Document(Fields.Sequence.SEQ, amount)),
+                RESERVE_OPTIONS);
+        return sequenceDocument.get(Fields.Sequence.SEQ, Number.class).longValue();
+    }
+
+    private Object lockOf(Sequence sequence) {
+        return locks.computeIfAbsent(sequence.id(), id -> new Object());
+    }
+
+    /** Range of reserved values. */
+    private static class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        long lastHandedOut() {
+            return Math.min(next.get(), last + 1) - 1;
+        }
     }
 }
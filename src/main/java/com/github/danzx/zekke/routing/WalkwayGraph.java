@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.routing;
+
+import static com.github.danzx.zekke.util.GeoDistances.haversine;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.Waypoint;
+
+/**
+ * Immutable graph of waypoints connected by their paths. The adjacency is stored in compressed
+ * sparse row form: the edges of node {@code i} are {@code targets[offsets[i]..offsets[i + 1])}
+ * with their lengths at the same positions of {@code lengths}. Every path is walkable in both
+ * directions. Safe for concurrent use.
+ *
+ * @author Daniel Pedraza-Arcega
+ */
+public class WalkwayGraph {
+
+    private final Waypoint[] nodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Map<Long, Integer> nodesById;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] lengths;
+    /** Keeps the straight line heuristic admissible when some path is shorter than a straight line. */
+    private final double heuristicScale;
+
+    private WalkwayGraph(Collection<Waypoint> waypoints) {
+        int nodeCount = waypoints.size();
+        nodes = new Waypoint[nodeCount];
+        latitudes = new double[nodeCount];
+        longitudes = new double[nodeCount];
+        nodesById = new HashMap<>(nodeCount * 2);
+        int node = 0;
+        for (Waypoint waypoint : waypoints) {
+            nodes[node] = withoutPaths(waypoint);
+            latitudes[node] = waypoint.getLocation().getLatitude();
+            longitudes[node] = waypoint.getLocation().getLongitude();
+            nodesById.put(waypoint.getId(), node++);
+        }
+
+        EdgeList edges = new EdgeList();
+        node = 0;
+        for (Waypoint waypoint : waypoints) {
+            int from = node++;
+            if (waypoint.getPaths() == null) continue;
+            for (Path path : waypoint.getPaths()) {
+                Integer to = nodesById.get(path.getToWaypoint());
+                if (to == null || to == from) continue;
+                double length = path.getDistance() != null ? path.getDistance() : straightLineDistance(from, to);
+                edges.add(from, to, length);
+                edges.add(to, from, length);
+            }
+        }
+
+        offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edges.size; i++) offsets[edges.sources[i] + 1]++;
+        for (int i = 0; i < nodeCount; i++) offsets[i + 1] += offsets[i];
+        targets = new int[edges.size];
+        lengths = new double[edges.size];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        double scale = 1;
+        for (int i = 0; i < edges.size; i++) {
+            int position = next[edges.sources[i]]++;
+            targets[position] = edges.targets[i];
+            lengths[position] = edges.lengths[i];
+            double straightLine = straightLineDistance(edges.sources[i], edges.targets[i]);
+            if (straightLine > 0) scale = Math.min(scale, edges.lengths[i] / straightLine);
+        }
+        heuristicScale = scale;
+    }
+
+    /**
+     * Builds a graph.
+     * 
+     * @param waypoints every waypoint that can be part of a route. Paths to waypoints not in this
+     *        collection are ignored.
+     * @return a new graph.
+     */
+    public static WalkwayGraph of(Collection<Waypoint> waypoints) {
+        return new WalkwayGraph(requireNonNull(waypoints));
+    }
+
+    /** @return the number of waypoints in this graph. */
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * @param waypointId the id of a waypoint.
+     * @return if the waypoint is a node of this graph.
+     */
+    public boolean contains(long waypointId) {
+        return nodesById.containsKey(waypointId);
+    }
+
+    /** @return the number of directed edges in this graph; two per path. */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Finds the shortest route between two waypoints with A* using the straight line distance to
+     * the destination as heuristic.
+     * 
+     * @param fromWaypointId the id of the start waypoint.
+     * @param toWaypointId the id of the end waypoint.
+     * @return the shortest route or an empty optional if any waypoint is not in this graph or they
+     *         are not connected.
+     */
+    public Optional<Route> findShortestRoute(long fromWaypointId, long toWaypointId) {
+        Integer from = nodesById.get(fromWaypointId);
+        Integer to = nodesById.get(toWaypointId);
+        if (from == null || to == null) return Optional.empty();
+
+        double[] distances = new double[nodes.length];
+        int[] previous = new int[nodes.length];
+        boolean[] settled = new boolean[nodes.length];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        MinHeap open = new MinHeap();
+        distances[from] = 0;
+        open.push(from, estimate(from, to));
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            if (settled[node]) continue;
+            if (node == to) return Optional.of(toRoute(previous, to, distances[to]));
+            settled[node] = true;
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                int target = targets[edge];
+                if (settled[target]) continue;
+                double distance = distances[node] + lengths[edge];
+                if (distance < distances[target]) {
+                    distances[target] = distance;
+                    previous[target] = node;
+                    open.push(target, distance + estimate(target, to));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Route toRoute(int[] previous, int to, double distance) {
+        List<Waypoint> waypoints = new ArrayList<>();
+        for (int node = to; node != -1; node = previous[node]) waypoints.add(nodes[node]);
+        Collections.reverse(waypoints);
+        return new Route(waypoints, distance);
+    }
+
+    private double estimate(int node, int destination) {
+        return heuristicScale * straightLineDistance(node, destination);
+    }
+
+    private double straightLineDistance(int node1, int node2) {
+        return haversine(latitudes[node1], longitudes[node1], latitudes[node2], longitudes[node2]);
+    }
+
+    private static Waypoint withoutPaths(Waypoint waypoint) {
+        Waypoint copy = new Waypoint();
+        copy.setId(waypoint.getId());
+        copy.setName(waypoint.getName().orElse(null));
+        copy.setType(waypoint.getType());
+        copy.setLocation(waypoint.getLocation());
+        return copy;
+    }
+
+    /** Growable list of directed edges. */
+    private static class EdgeList {
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private double[] lengths = new double[16];
+        private int size;
+
+        void add(int source, int target, double length) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            lengths[size++] = length;
+        }
+    }
+
+    /** Binary min-heap of nodes keyed by priority. A node may be pushed more than once. */
+    private static class MinHeap {
+        private int[] nodes = new int[16];
+        private double[] keys = new double[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (keys[parent] <= key) break;
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
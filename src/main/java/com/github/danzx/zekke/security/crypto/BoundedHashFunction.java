@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs another hash function on a bounded executor so slow password hashes can only take as many
+ * CPUs as the executor has threads. Callers wait for their hash; when the executor is full the
+ * hash is rejected with a {@link java.util.concurrent.RejectedExecutionException}.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class BoundedHashFunction implements HashFunction {
+
+    private final HashFunction delegate;
+    private final ExecutorService executor;
+
+    public BoundedHashFunction(HashFunction delegate, ExecutorService executor) {
+        this.delegate = requireNonNull(delegate);
+        this.executor = requireNonNull(executor);
+    }
+
+    @Override
+    public String hash(String input) {
+        requireNonNull(input);
+        return await(() -> delegate.hash(input));
+    }
+
+    @Override
+    public boolean matches(String input, String hash) {
+        requireNonNull(input);
+        requireNonNull(hash);
+        return await(() -> delegate.matches(input, hash));
+    }
+
+    private <T> T await(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
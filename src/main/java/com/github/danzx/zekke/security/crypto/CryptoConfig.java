@@ -15,8 +15,18 @@
  */
 package com.github.danzx.zekke.security.crypto;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+
 import com.github.danzx.zekke.security.crypto.Sha2HashFunction.Algorithm;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -28,8 +38,41 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class CryptoConfig {
 
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+
+    /**
+     * Password hash function. Passwords hashed with SHA-256 before PBKDF2 are still accepted.
+     * 
+     * @param iterations the PBKDF2 iterations of new hashes.
+     * @param hashingExecutor the executor where hashes are made.
+     * @return the hash function.
+     */
     @Bean
-    public HashFunction sha256function() {
-        return Sha2HashFunction.of(Algorithm.SHA_256);
+    public HashFunction passwordHashFunction(
+            @Value("${crypto.pbkdf2.iterations}") int iterations,
+            @Named(PASSWORD_HASHING_EXECUTOR) ExecutorService hashingExecutor) {
+        return new BoundedHashFunction(new Pbkdf2HashFunction(iterations, Sha2HashFunction.of(Algorithm.SHA_256)), hashingExecutor);
+    }
+
+    /**
+     * Bounded executor for password hashes so a burst of logins can't take every CPU. When every
+     * thread is busy and the queue is full new hashes are rejected with a
+     * RejectedExecutionException.
+     * 
+     * @param poolSize the number of threads.
+     * @param queueSize the maximum number of waiting hashes.
+     * @return the executor.
+     */
+    @Bean(name = PASSWORD_HASHING_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(
+            @Value("${crypto.hashing.pool_size}") int poolSize,
+            @Value("${crypto.hashing.queue_size}") int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), threadFactory);
     }
 }
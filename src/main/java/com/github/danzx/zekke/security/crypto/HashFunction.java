@@ -15,6 +15,9 @@
  */
  package com.github.danzx.zekke.security.crypto;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
  /**
   * Cryptographic hash function protocol.
   * 
@@ -29,4 +32,15 @@ public interface HashFunction {
      * @return Base64 encoded hash representation of the given string.
      */
     String hash(String input);
+
+    /**
+     * Checks if the given string hashes to the given hash. Hashes are compared in constant time.
+     * 
+     * @param input a non null string.
+     * @param hash a hash made by this function.
+     * @return if the hash is of the given string.
+     */
+    default boolean matches(String input, String hash) {
+        return MessageDigest.isEqual(hash(input).getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PBKDF2 with HMAC SHA-256 password hashing. Every hash has a random salt and the number of
+ * iterations so the cost can be raised without invalidating older hashes. Hashes look like
+ * {@code pbkdf2-sha256$iterations$salt$key} with Base64 salt and key. Hashes in any other format
+ * are checked with the legacy function, if there is one. Each thread uses a key factory of its
+ * own so functions can be shared.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Pbkdf2HashFunction implements HashFunction {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String SEPARATOR = "$";
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_LENGTH = 256;
+
+    private final int iterations;
+    private final HashFunction legacyFunction;
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder base64encoder = Base64.getEncoder();
+    private final Base64.Decoder base64decoder = Base64.getDecoder();
+    private final ThreadLocal<SecretKeyFactory> keyFactory = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    /** @param iterations how many times the hash is applied; the higher the slower. */
+    public Pbkdf2HashFunction(int iterations) {
+        this(iterations, null);
+    }
+
+    /**
+     * @param iterations how many times the hash is applied; the higher the slower.
+     * @param legacyFunction the function of the hashes made before this one or {@code null}.
+     */
+    public Pbkdf2HashFunction(int iterations, HashFunction legacyFunction) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive");
+        this.iterations = iterations;
+        this.legacyFunction = legacyFunction;
+    }
+
+    @Override
+    public String hash(String input) {
+        requireNonNull(input);
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] key = deriveKey(input, salt, iterations);
+        return PREFIX + SEPARATOR + iterations + SEPARATOR + base64encoder.encodeToString(salt) + SEPARATOR + base64encoder.encodeToString(key);
+    }
+
+    /** {@inheritDoc} The hash is made again with its own salt and iterations. */
+    @Override
+    public boolean matches(String input, String hash) {
+        requireNonNull(input);
+        requireNonNull(hash);
+        String[] parts = hash.split("\\" + SEPARATOR);
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) return legacyFunction != null && legacyFunction.matches(input, hash);
+        try {
+            int hashIterations = Integer.parseInt(parts[1]);
+            byte[] salt = base64decoder.decode(parts[2]);
+            byte[] expectedKey = base64decoder.decode(parts[3]);
+            return hashIterations > 0 && MessageDigest.isEqual(deriveKey(input, salt, hashIterations), expectedKey);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private byte[] deriveKey(String input, byte[] salt, int iterations) {
+        PBEKeySpec keySpec = new PBEKeySpec(input.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return keyFactory.get().generateSecret(keySpec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+}
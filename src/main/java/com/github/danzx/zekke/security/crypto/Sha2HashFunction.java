@@ -24,16 +24,19 @@ import java.util.EnumMap;
 import java.util.Map;
 
 /**
- * Set of SHA-2 functions.
+ * Set of SHA-2 functions. Fast and unsalted, so they are only meant for data that isn't a
+ * password or to check passwords hashed before {@link Pbkdf2HashFunction}. Each thread uses a
+ * digest of its own so functions can be shared.
  * 
  * @author Daniel Pedraza-Arcega
  */
 public class Sha2HashFunction implements HashFunction {
 
-    private final MessageDigest digest;
-    private final Base64.Encoder base64encoder = Base64.getEncoder();
     private static final Map<Algorithm, Sha2HashFunction> FUNCTIONS = new EnumMap<>(Algorithm.class);
 
+    private final ThreadLocal<MessageDigest> digest;
+    private final Base64.Encoder base64encoder = Base64.getEncoder();
+
     /** Available SHA-2 algorithms. */
     public enum Algorithm { 
         SHA_256, SHA_384, SHA_512;
@@ -58,21 +61,27 @@ public class Sha2HashFunction implements HashFunction {
      */
     public static Sha2HashFunction of(Algorithm algorithm) {
         requireNonNull(algorithm);
-        return FUNCTIONS.computeIfAbsent(algorithm, Sha2HashFunction::new);
+        return FUNCTIONS.get(algorithm);
+    }
+
+    static {
+        for (Algorithm algorithm : Algorithm.values()) FUNCTIONS.put(algorithm, new Sha2HashFunction(algorithm));
     }
 
     private Sha2HashFunction(Algorithm algorithm) {
-        try {
-            digest = MessageDigest.getInstance(algorithm.toString());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        digest = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance(algorithm.toString());
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     @Override
     public String hash(String input) {
         requireNonNull(input);
-        byte[] hashBytes = digest.digest(input.getBytes());
+        byte[] hashBytes = digest.get().digest(input.getBytes());
         byte[] encodedHashBytes = base64encoder.encode(hashBytes);
         return new String(encodedHashBytes);
     }
@@ -33,10 +33,12 @@ public abstract class BaseJwtVerifier implements JwtVerifier {
 
     private final String issuer;
     private final SigningKeyHolder signingKeyHolder;
+    private final VerifiedJwtCache verifiedJwtCache;
 
-    public BaseJwtVerifier(String issuer, SigningKeyHolder signingKeyHolder) {
+    public BaseJwtVerifier(String issuer, SigningKeyHolder signingKeyHolder, VerifiedJwtCache verifiedJwtCache) {
         this.issuer = requireNonNull(issuer);
         this.signingKeyHolder = requireNonNull(signingKeyHolder);
+        this.verifiedJwtCache = requireNonNull(verifiedJwtCache);
     }
 
     protected void verifyIssuer(String issuer) throws JwtVerificationException {
@@ -69,4 +71,8 @@ public abstract class BaseJwtVerifier implements JwtVerifier {
     protected SigningKeyHolder getSigningKeyHolder() {
         return signingKeyHolder;
     }
+
+    protected VerifiedJwtCache getVerifiedJwtCache() {
+        return verifiedJwtCache;
+    }
 }
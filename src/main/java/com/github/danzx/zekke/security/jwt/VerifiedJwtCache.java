@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.jwt;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of already verified tokens so a token seen before costs a hash lookup instead of
+ * a signature check and a claims parse. Tokens are spread over segments by hash; each segment is
+ * an access ordered map under its own lock that evicts its least recently used token when it's
+ * full, so the cache never holds more than its maximum size and requests with different tokens
+ * rarely wait for each other. Expired tokens are dropped when they are read. Safe for concurrent
+ * use.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class VerifiedJwtCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedJwtCache.class);
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final Clock clock;
+    private final Segment[] segments;
+
+    /** @param maxSize the maximum number of tokens to keep; 0 disables the cache. */
+    public VerifiedJwtCache(int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedJwtCache(int maxSize, Clock clock) {
+        if (maxSize < 0) throw new IllegalArgumentException("maxSize must not be negative");
+        this.clock = requireNonNull(clock);
+        int segmentCount = maxSize == 0 ? 0 : Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) segments[i] = new Segment(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+    }
+
+    /**
+     * @param compactJws a compacted JWT.
+     * @return the subject of the token if it was verified before and hasn't expired; otherwise
+     *         {@code null}.
+     */
+    public String getSubject(String compactJws) {
+        if (segments.length == 0) return null;
+        Segment segment = segmentOf(compactJws);
+        synchronized (segment) {
+            VerifiedToken token = segment.get(compactJws);
+            if (token == null) return null;
+            if (token.isExpired(clock.millis())) {
+                segment.remove(compactJws);
+                return null;
+            }
+            return token.subject;
+        }
+    }
+
+    /**
+     * Stores a verified token.
+     * 
+     * @param compactJws a compacted JWT whose signature and issuer are valid.
+     * @param subject the subject of the token.
+     * @param expirationTime when the token expires or {@code null} if it doesn't.
+     */
+    public void put(String compactJws, String subject, Instant expirationTime) {
+        requireNonNull(compactJws);
+        requireNonNull(subject);
+        if (segments.length == 0) return;
+        long expiresAt = expirationTime == null ? Long.MAX_VALUE : expirationTime.toEpochMilli();
+        Segment segment = segmentOf(compactJws);
+        synchronized (segment) {
+            segment.put(compactJws, new VerifiedToken(subject, expiresAt));
+        }
+    }
+
+    /** @return the number of cached tokens. */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /** Spreads the hash like HashMap does so similar tokens don't share a segment. */
+    private Segment segmentOf(String compactJws) {
+        int hash = compactJws.hashCode();
+        hash ^= hash >>> 16;
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    private static class Segment extends LinkedHashMap<String, VerifiedToken> {
+
+        private static final long serialVersionUID = 6209742263462094551L;
+
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            if (size() <= maxSize) return false;
+            log.debug("Verified JWT cache is full, evicting least recently used token");
+            return true;
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final String subject;
+        private final long expiresAt;
+
+        VerifiedToken(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
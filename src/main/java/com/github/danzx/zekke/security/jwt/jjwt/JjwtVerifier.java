@@ -17,12 +17,15 @@ package com.github.danzx.zekke.security.jwt.jjwt;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.Date;
+
 import javax.inject.Inject;
 
 import com.github.danzx.zekke.domain.User;
 import com.github.danzx.zekke.security.jwt.BaseJwtVerifier;
 import com.github.danzx.zekke.security.jwt.JwtVerificationException;
 import com.github.danzx.zekke.security.jwt.SigningKeyHolder;
+import com.github.danzx.zekke.security.jwt.VerifiedJwtCache;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -46,8 +49,10 @@ public class JjwtVerifier extends BaseJwtVerifier {
 
     private static final Logger log = LoggerFactory.getLogger(JjwtVerifier.class);
 
-    public @Inject JjwtVerifier(@Value("${jwt.issuer}") String issuer, SigningKeyHolder signingKeyHolder) {
-        super(issuer, signingKeyHolder);
+    public @Inject JjwtVerifier(@Value("${jwt.issuer}") String issuer, 
+                                SigningKeyHolder signingKeyHolder,
+                                @Value("${jwt.verification_cache.size}") int verificationCacheSize) {
+        super(issuer, signingKeyHolder, new VerifiedJwtCache(verificationCacheSize));
     }
 
     @Override
@@ -55,6 +60,13 @@ public class JjwtVerifier extends BaseJwtVerifier {
         log.debug("JWT: {}, expectedRole: {}", compactJws, role);
         requireNonNull(compactJws);
         requireNonNull(role);
+        String subject = getVerifiedJwtCache().getSubject(compactJws);
+        if (subject == null) subject = parseSubject(compactJws);
+        else log.debug("JWT found in cache");
+        verifyUserPrivileges(role, subject);
+    }
+
+    private String parseSubject(String compactJws) throws JwtVerificationException {
         Jws<Claims> claims = null;
         try {
             claims = Jwts.parser().setSigningKey(getSigningKeyHolder().getKey()).parseClaimsJws(compactJws);
@@ -70,6 +82,8 @@ public class JjwtVerifier extends BaseJwtVerifier {
                 .build();
         }
         verifyIssuer(claims.getBody().getIssuer());
-        verifyUserPrivileges(role, claims.getBody().getSubject());
+        Date expiration = claims.getBody().getExpiration();
+        getVerifiedJwtCache().put(compactJws, claims.getBody().getSubject(), expiration == null ? null : expiration.toInstant());
+        return claims.getBody().getSubject();
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service;
+
+import java.util.Optional;
+
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.Waypoint;
+
+/**
+ * Walking directions business logic service.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public interface RouteService {
+
+    /**
+     * Finds the shortest walkable route between two waypoints of the default area.
+     * 
+     * @param fromWaypointId the id of the start waypoint.
+     * @param toWaypointId the id of the end waypoint.
+     * @return the optional route; empty if any waypoint does not exist or they are not connected.
+     */
+    default Optional<Route> findShortestRoute(long fromWaypointId, long toWaypointId) {
+        return findShortestRoute(Waypoint.DEFAULT_AREA, fromWaypointId, toWaypointId);
+    }
+
+    /**
+     * Finds the shortest walkable route between two waypoints of an area.
+     * 
+     * @param area the area of both waypoints.
+     * @param fromWaypointId the id of the start waypoint.
+     * @param toWaypointId the id of the end waypoint.
+     * @return the optional route; empty if any waypoint does not exist in the area or they are not
+     *         connected.
+     */
+    Optional<Route> findShortestRoute(String area, long fromWaypointId, long toWaypointId);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.danzx.zekke.domain.Waypoint;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a waypoint is persisted or deleted so that anything derived from the waypoints
+ * collection can be refreshed.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class WaypointChangeEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = -3158920173652447302L;
+
+    public enum Change { SAVED, DELETED }
+
+    private final transient Waypoint waypoint;
+    private final transient Waypoint previous;
+    private final Change change;
+
+    /**
+     * @param source the object on which the event initially occurred.
+     * @param waypoint the waypoint that changed. Deleted waypoints may only have its id.
+     * @param change what happened to the waypoint.
+     */
+    public WaypointChangeEvent(Object source, Waypoint waypoint, Change change) {
+        this(source, waypoint, null, change);
+    }
+
+    /**
+     * @param source the object on which the event initially occurred.
+     * @param waypoint the waypoint that changed. Deleted waypoints may only have its id.
+     * @param previous the waypoint before the change; {@code null} if it's new or unknown.
+     * @param change what happened to the waypoint.
+     */
+    public WaypointChangeEvent(Object source, Waypoint waypoint, Waypoint previous, Change change) {
+        super(source);
+        this.waypoint = requireNonNull(waypoint);
+        this.previous = previous;
+        this.change = requireNonNull(change);
+    }
+
+    public Waypoint getWaypoint() {
+        return waypoint;
+    }
+
+    /** @return the waypoint before the change if it is known. */
+    public Optional<Waypoint> getPrevious() {
+        return Optional.ofNullable(previous);
+    }
+
+    /**
+     * @return the areas the change touched: the area of a saved waypoint and the one it left, if
+     *         any. Deletions only know their area from the previous waypoint so it's empty when
+     *         there is none.
+     */
+    public Set<String> getAreas() {
+        Set<String> areas = new LinkedHashSet<>(2);
+        if (change == Change.SAVED) areas.add(waypoint.getArea());
+        if (previous != null) areas.add(previous.getArea());
+        return areas;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    @Override
+    public String toString() {
+        return "{ change:" + change + ", waypoint:" + waypoint + ", previous:" + previous + " }";
+    }
+}
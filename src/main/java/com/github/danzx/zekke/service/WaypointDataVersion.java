@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.cache.SegmentedLruCache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the waypoints collection. It changes every time a waypoint is persisted or deleted
+ * so anything derived from the waypoints, like an HTTP response, can tell whether it is stale
+ * without reading the collection. Each area also has its own version that only changes with the
+ * waypoints of the area. Versions are stored with the waypoints so every instance agrees on them;
+ * they are kept in memory for a short TTL and dropped as soon as this instance changes a
+ * waypoint, so changes made by other instances take up to the TTL to show.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class WaypointDataVersion {
+
+    private static final Object ALL_AREAS = new Object();
+    private static final int MAX_CACHED_AREAS = 1024;
+
+    private final WaypointDao dao;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final SegmentedLruCache<Object, CachedVersion> versions = new SegmentedLruCache<>("waypoint_data_versions", MAX_CACHED_AREAS);
+
+    /**
+     * @param dao where the versions are stored.
+     * @param ttlMillis how long a version is kept in memory; 0 reads it on every call.
+     */
+    public @Inject WaypointDataVersion(WaypointDao dao, @Value("${waypoint.data_version.ttl_millis}") long ttlMillis) {
+        this(dao, ttlMillis, Clock.systemUTC());
+    }
+
+    WaypointDataVersion(WaypointDao dao, long ttlMillis, Clock clock) {
+        if (ttlMillis < 0) throw new IllegalArgumentException("ttlMillis must not be negative");
+        this.dao = requireNonNull(dao);
+        this.ttlMillis = ttlMillis;
+        this.clock = requireNonNull(clock);
+    }
+
+    /** @return the current version of every waypoint. */
+    public String current() {
+        return current(ALL_AREAS, dao::findDataVersion);
+    }
+
+    /**
+     * @param area an area.
+     * @return the current version of the waypoints of the area.
+     */
+    public String current(String area) {
+        requireNonNull(area);
+        return current(area, () -> dao.findDataVersion(area));
+    }
+
+    /** Drops the versions the change made stale; they are read again on the next call. */
+    @EventListener
+    public void onWaypointChange(WaypointChangeEvent event) {
+        Set<String> areas = event.getAreas();
+        if (areas.isEmpty()) versions.clear();
+        else versions.removeIf(key -> key == ALL_AREAS || areas.contains(key));
+    }
+
+    private String current(Object key, LongSupplier loader) {
+        long now = clock.millis();
+        CachedVersion cached = versions.get(key);
+        if (cached != null && now < cached.expiresAt) return cached.version;
+        long generation = versions.generation();
+        String version = Long.toString(loader.getAsLong(), Character.MAX_RADIX);
+        if (ttlMillis > 0) versions.put(key, new CachedVersion(version, now + ttlMillis), generation);
+        return version;
+    }
+
+    private static class CachedVersion {
+
+        private final String version;
+        private final long expiresAt;
+
+        CachedVersion(String version, long expiresAt) {
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -16,9 +16,13 @@
 package com.github.danzx.zekke.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import com.github.danzx.zekke.constraint.NotNullId;
@@ -26,6 +30,9 @@ import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions
 import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointChangeSet;
+
+import org.bson.RawBsonDocument;
 
 /**
  * Waypoint business logic service.
@@ -45,6 +52,16 @@ public interface WaypointService {
      */
     void persist(@NotNull @Valid Waypoint waypoint);
 
+    /**
+     * Persists several new waypoints into the underlying datastore at once. The waypoints must be
+     * already validated.
+     * 
+     * @param waypoints the elements to persist.
+     * @return the error message key of each waypoint that couldn't be persisted mapped by its
+     *         position in the given list or an empty map.
+     */
+    Map<Integer, String> persistAll(@NotNull List<Waypoint> waypoints);
+
     /**
      * Finds a waypoint by its id.
      * 
@@ -53,6 +70,15 @@ public interface WaypointService {
      */
     Optional<Waypoint> findWaypointById(long id);
 
+    /**
+     * Finds a waypoint by its id without blocking the calling thread.
+     * 
+     * @param id an id.
+     * @return the stage that completes with the optional waypoint.
+     * @throws java.util.concurrent.RejectedExecutionException if there is no room for the read.
+     */
+    CompletionStage<Optional<Waypoint>> findWaypointByIdAsync(long id);
+
     /**
      * Filters waypoints with several options.
      * 
@@ -61,6 +87,32 @@ public interface WaypointService {
      */
     List<Waypoint> findWaypoints(@NotNull WaypointFilterOptions filterOptions);
 
+    /**
+     * Filters waypoints with several options without blocking the calling thread.
+     * 
+     * @param filterOptions the filter options.
+     * @return the stage that completes with a list of waypoints or an empty list.
+     * @throws java.util.concurrent.RejectedExecutionException if there is no room for the read.
+     */
+    CompletionStage<List<Waypoint>> findWaypointsAsync(@NotNull WaypointFilterOptions filterOptions);
+
+    /**
+     * Filters waypoints with several options without loading them all in memory.
+     * 
+     * @param filterOptions the filter options.
+     * @return a stream of waypoints or an empty stream that must be closed after use.
+     */
+    Stream<Waypoint> streamWaypoints(@NotNull WaypointFilterOptions filterOptions);
+
+    /**
+     * Filters waypoints with several options returning them as stored, without mapping them to
+     * domain objects.
+     * 
+     * @param filterOptions the filter options.
+     * @return a stream of raw BSON documents or an empty stream that must be closed after use.
+     */
+    Stream<RawBsonDocument> streamWaypointDocuments(@NotNull WaypointFilterOptions filterOptions);
+
     /**
      * Finds waypoints near a location and filters them with several options.
      * 
@@ -69,6 +121,25 @@ public interface WaypointService {
      */
     List<Waypoint> findWaypointsNearALocation(@NotNull LocationWaypointFilterOptions filterOptions);
 
+    /**
+     * Finds waypoints near a location and filters them with several options without blocking the
+     * calling thread.
+     * 
+     * @param filterOptions the filter options.
+     * @return the stage that completes with a list of waypoints or an empty list.
+     * @throws java.util.concurrent.RejectedExecutionException if there is no room for the read.
+     */
+    CompletionStage<List<Waypoint>> findWaypointsNearALocationAsync(@NotNull LocationWaypointFilterOptions filterOptions);
+
+    /**
+     * Finds the waypoints saved and deleted after a change version, oldest change first.
+     * 
+     * @param version the change version of the last change the caller has, 0 for every change.
+     * @param limit how many changes to find at most.
+     * @return a page of changes, possibly empty.
+     */
+    WaypointChangeSet findChangesSince(@Min(0) long version, @Min(1) int limit);
+
     /**
      * Deletes the given waypoint from the underlying datastore.
      *  
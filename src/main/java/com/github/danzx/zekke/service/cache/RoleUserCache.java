@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongFunction;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.User.Role;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the users behind each {@link Role} in memory. There is one user per role so the cache
+ * holds a fixed handful of entries; each one is loaded again once it is older than the TTL or
+ * when {@link #reload(Role)} is called. {@link #refresh(Role)} reloads too, but at most once per
+ * minimum reload interval, so callers that cannot trust the cached user (e.g. a failed login)
+ * don't hit the database on every call. Safe for concurrent use.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class RoleUserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleUserCache.class);
+
+    private final LongFunction<Optional<User>> loader;
+    private final long ttlMillis;
+    private final long minReloadIntervalMillis;
+    private final Clock clock;
+    private final ConcurrentMap<Role, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param loader finds a user by its id.
+     * @param ttlSeconds how long a loaded user is kept; 0 loads it on every call.
+     * @param minReloadIntervalSeconds how long {@link #refresh(Role)} keeps a freshly loaded user;
+     *        0 reloads it on every call.
+     */
+    public RoleUserCache(LongFunction<Optional<User>> loader, long ttlSeconds, long minReloadIntervalSeconds) {
+        this(loader, ttlSeconds, minReloadIntervalSeconds, Clock.systemUTC());
+    }
+
+    RoleUserCache(LongFunction<Optional<User>> loader, long ttlSeconds, long minReloadIntervalSeconds, Clock clock) {
+        if (ttlSeconds < 0) throw new IllegalArgumentException("ttlSeconds must not be negative");
+        if (minReloadIntervalSeconds < 0) throw new IllegalArgumentException("minReloadIntervalSeconds must not be negative");
+        this.loader = requireNonNull(loader);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.minReloadIntervalMillis = minReloadIntervalSeconds * 1000;
+        this.clock = requireNonNull(clock);
+    }
+
+    /** Loads the users of every role. */
+    public void loadAll() {
+        EnumSet.allOf(Role.class).forEach(this::reload);
+    }
+
+    /**
+     * @param role a role.
+     * @return the cached user of the given role or a freshly loaded one if it expired.
+     */
+    public Optional<User> get(Role role) {
+        Entry entry = entries.get(requireNonNull(role));
+        if (entry == null || entry.isExpired(clock.millis())) return reload(role);
+        return entry.user;
+    }
+
+    /**
+     * Loads the user of the given role again unless it was loaded within the minimum reload
+     * interval, in which case the cached user is returned.
+     * 
+     * @param role a role.
+     * @return the loaded or recently loaded user.
+     */
+    public Optional<User> refresh(Role role) {
+        Entry entry = entries.get(requireNonNull(role));
+        if (entry == null || !entry.isRecent(clock.millis(), minReloadIntervalMillis)) return reload(role);
+        return entry.user;
+    }
+
+    /**
+     * Loads the user of the given role again, replacing the cached one.
+     * 
+     * @param role a role.
+     * @return the loaded user.
+     */
+    public Optional<User> reload(Role role) {
+        Optional<User> user = loader.apply(role.getUserId());
+        entries.put(role, new Entry(user, clock.millis(), ttlMillis));
+        log.debug("Loaded user of role {}, found: {}", role, user.isPresent());
+        return user;
+    }
+
+    private static class Entry {
+
+        private final Optional<User> user;
+        private final long loadedAt;
+        private final long expiresAt;
+
+        Entry(Optional<User> user, long loadedAt, long ttlMillis) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+            this.expiresAt = loadedAt + ttlMillis;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        boolean isRecent(long now, long intervalMillis) {
+            return now < loadedAt + intervalMillis;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.function.Predicate;
+
+import com.github.danzx.zekke.metrics.CacheStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache with a probation and a protected segment. New entries start in probation and
+ * move to the protected segment when they are hit again, so a burst of one-off lookups only
+ * evicts other one-off entries instead of the ones every client keeps asking for. When the
+ * protected segment is full its least recently used entry goes back to probation. Safe for
+ * concurrent use.
+ * 
+ * @param <K> the key type.
+ * @param <V> the value type.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class SegmentedLruCache<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedLruCache.class);
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final String name;
+    private final int maxSize;
+    private final int maxProtectedSize;
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param name the name of the cache in its statistics.
+     * @param maxSize the maximum number of entries to keep; 0 disables the cache.
+     */
+    public SegmentedLruCache(String name, int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("maxSize must not be negative");
+        this.name = requireNonNull(name);
+        this.maxSize = maxSize;
+        maxProtectedSize = (int) (maxSize * PROTECTED_RATIO);
+    }
+
+    /**
+     * @param key a key.
+     * @return the cached value or {@code null}.
+     */
+    public synchronized V get(K key) {
+        V value = protectedSegment.get(key);
+        if (value == null) {
+            value = probation.remove(key);
+            if (value != null) protect(key, value);
+        }
+        if (value == null) misses++;
+        else hits++;
+        return value;
+    }
+
+    /**
+     * @return a number that changes on every {@link #clear()} and {@link #removeIf(Predicate)}. Read it before loading a value and
+     *         pass it to {@link #put(Object, Object, long)}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a value unless the cache was cleared since the value started being loaded; in that
+     * case the value may be stale and it's not stored.
+     * 
+     * @param key the key.
+     * @param value the value.
+     * @param generation what {@link #generation()} returned before the value started being loaded.
+     * @return if the value was stored.
+     */
+    public synchronized boolean put(K key, V value, long generation) {
+        requireNonNull(key);
+        requireNonNull(value);
+        if (maxSize == 0 || generation != this.generation) return false;
+        if (protectedSegment.containsKey(key)) protectedSegment.put(key, value);
+        else probation.put(key, value);
+        if (probation.size() + protectedSegment.size() > maxSize) evict();
+        return true;
+    }
+
+    /** Removes every entry. */
+    public synchronized void clear() {
+        generation++;
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * Removes the entries whose key matches a filter. Values being loaded when this is called are
+     * not stored, whatever their key.
+     * 
+     * @param filter the keys to remove.
+     */
+    public synchronized void removeIf(Predicate<? super K> filter) {
+        requireNonNull(filter);
+        generation++;
+        probation.keySet().removeIf(filter);
+        protectedSegment.keySet().removeIf(filter);
+    }
+
+    /** @return the number of cached entries. */
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /** @return the statistics of this cache. */
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, size(), hits, misses, evictions);
+    }
+
+    private void protect(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > maxProtectedSize) {
+            K leastRecentlyUsed = protectedSegment.keySet().iterator().next();
+            probation.put(leastRecentlyUsed, protectedSegment.remove(leastRecentlyUsed));
+        }
+    }
+
+    /** Evicts the least recently used entry in probation or, if there is none, the protected one. */
+    private void evict() {
+        LinkedHashMap<K, V> segment = probation.isEmpty() ? protectedSegment : probation;
+        K leastRecentlyUsed = segment.keySet().iterator().next();
+        log.debug("Cache {} is full, evicting {}", name, leastRecentlyUsed);
+        segment.remove(leastRecentlyUsed);
+        evictions++;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Comparator.comparingDouble;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.function.UnaryOperator.identity;
+import static java.util.stream.Collectors.toList;
+
+import static com.github.danzx.zekke.util.GeoDistances.degreesToMeters;
+import static com.github.danzx.zekke.util.GeoDistances.haversine;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.metrics.CacheStats;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+
+/**
+ * Caches the results of waypoint queries so identical queries from many clients are answered
+ * once. Queries are normalized on a grid before they are looked up so nearby viewports share an
+ * entry: bounding boxes grow to the grid lines around them and near locations snap to the closest
+ * grid point with a search distance that grows to cover the snap. The normalized query is what is
+ * loaded and cached, without the original limit, and every answer is cut from it by the original
+ * filters. Near answers are ordered by distance like the DAO orders them; other answers keep the
+ * order of the normalized query, so when the DAO defines no order a limited answer may hold other
+ * waypoints than the uncached query would. Entries hold at most a fixed number of waypoints: a
+ * normalized query that finds more is not cached and the original query is loaded instead.
+ * Queries are loaded from the primary to be cached: entries live until the next change of their
+ * area and a lagging secondary may not have that change yet. Cached waypoints are shared by
+ * every answer and must not be modified.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class WaypointQueryCache {
+
+    public static final String NAME = "waypoint_queries";
+
+    private static final double MAX_LATITUDE = 90;
+    private static final double MAX_LONGITUDE = 180;
+    private static final int AREA_KEY_INDEX = 1;
+
+    private final SegmentedLruCache<List<Object>, List<Waypoint>> cache;
+    private final boolean enabled;
+    private final int maxEntryWaypoints;
+    private final double gridSize;
+    private final int gridMeters;
+
+    /**
+     * @param maxSize the maximum number of queries to keep; 0 disables the cache.
+     * @param maxEntryWaypoints the maximum number of waypoints a query may find to be cached.
+     * @param gridSize the side of a grid cell in degrees.
+     */
+    public WaypointQueryCache(int maxSize, int maxEntryWaypoints, double gridSize) {
+        if (maxEntryWaypoints < 1) throw new IllegalArgumentException("maxEntryWaypoints must be positive");
+        if (gridSize <= 0) throw new IllegalArgumentException("gridSize must be positive");
+        cache = new SegmentedLruCache<>(NAME, maxSize);
+        enabled = maxSize > 0;
+        this.maxEntryWaypoints = maxEntryWaypoints;
+        this.gridSize = gridSize;
+        gridMeters = (int) Math.ceil(degreesToMeters(gridSize));
+    }
+
+    /**
+     * @param filterOptions the filters.
+     * @param loader loads the waypoints of a normalized query.
+     * @return the waypoints that match the filters.
+     */
+    public List<Waypoint> find(WaypointFilterOptions filterOptions, Function<WaypointFilterOptions, List<Waypoint>> loader) {
+        if (!enabled || isWholeArea(filterOptions)) return loader.apply(filterOptions);
+        return find(filterOptions, normalize(filterOptions), loader);
+    }
+
+    /**
+     * @param filterOptions the filters.
+     * @param loader loads the waypoints of a normalized query asynchronously.
+     * @return the waypoints that match the filters; completed already when they were cached.
+     */
+    public CompletionStage<List<Waypoint>> findAsync(WaypointFilterOptions filterOptions, 
+            Function<WaypointFilterOptions, CompletionStage<List<Waypoint>>> loader) {
+        if (!enabled || isWholeArea(filterOptions)) return loader.apply(filterOptions);
+        return findAsync(filterOptions, normalize(filterOptions), loader);
+    }
+
+    /**
+     * @param filterOptions the filters.
+     * @param loader loads the waypoints of a normalized query.
+     * @return the waypoints that match the filters ordered by distance.
+     */
+    public List<Waypoint> findNear(LocationWaypointFilterOptions filterOptions, Function<LocationWaypointFilterOptions, List<Waypoint>> loader) {
+        if (!enabled) return loader.apply(filterOptions);
+        return find(filterOptions, normalize(filterOptions), loader);
+    }
+
+    /**
+     * @param filterOptions the filters.
+     * @param loader loads the waypoints of a normalized query asynchronously.
+     * @return the waypoints that match the filters ordered by distance; completed already when
+     *         they were cached.
+     */
+    public CompletionStage<List<Waypoint>> findNearAsync(LocationWaypointFilterOptions filterOptions, 
+            Function<LocationWaypointFilterOptions, CompletionStage<List<Waypoint>>> loader) {
+        if (!enabled) return loader.apply(filterOptions);
+        return findAsync(filterOptions, normalize(filterOptions), loader);
+    }
+
+    /** Drops every cached query. Queries being loaded when this is called are not cached. */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Drops the cached queries of an area. Queries of any area being loaded when this is called
+     * are not cached.
+     * 
+     * @param area an area.
+     */
+    public void invalidate(String area) {
+        requireNonNull(area);
+        cache.removeIf(key -> area.equals(key.get(AREA_KEY_INDEX)));
+    }
+
+    /** @return the statistics of this cache. */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private <O> List<Waypoint> find(O filterOptions, NormalizedQuery<O> query, Function<O, List<Waypoint>> loader) {
+        List<Waypoint> waypoints = cache.get(query.key);
+        if (waypoints != null) return query.answer.apply(waypoints);
+        long generation = cache.generation();
+        List<Waypoint> loaded = loader.apply(query.filterOptions);
+        if (loaded.size() > maxEntryWaypoints) return query.exact ? loaded : loader.apply(filterOptions);
+        waypoints = unmodifiableList(loaded);
+        cache.put(query.key, waypoints, generation);
+        return query.answer.apply(waypoints);
+    }
+
+    private <O> CompletionStage<List<Waypoint>> findAsync(O filterOptions, NormalizedQuery<O> query, Function<O, CompletionStage<List<Waypoint>>> loader) {
+        List<Waypoint> cached = cache.get(query.key);
+        if (cached != null) return completedFuture(query.answer.apply(cached));
+        long generation = cache.generation();
+        return loader.apply(query.filterOptions).thenCompose(loaded -> {
+            if (loaded.size() > maxEntryWaypoints) return query.exact ? completedFuture(loaded) : loader.apply(filterOptions);
+            List<Waypoint> waypoints = unmodifiableList(loaded);
+            cache.put(query.key, waypoints, generation);
+            return completedFuture(query.answer.apply(waypoints));
+        });
+    }
+
+    /** Unlimited queries without bounding box read a whole area, which the cache doesn't keep. */
+    private boolean isWholeArea(WaypointFilterOptions filterOptions) {
+        return !filterOptions.getBoundingBox().isPresent() && !filterOptions.getLimit().isPresent();
+    }
+
+    /**
+     * Queries without bounding box can't be shared with others so they are cached as they are.
+     * Normalized queries find one waypoint more than an entry holds to tell when they are too big.
+     */
+    private NormalizedQuery<WaypointFilterOptions> normalize(WaypointFilterOptions filterOptions) {
+        Waypoint.Type type = filterOptions.getWaypointType().orElse(null);
+        String nameQuery = filterOptions.getNameQuery().orElse(null);
+        if (!filterOptions.getBoundingBox().isPresent()) {
+            List<Object> key = asList("all", filterOptions.getArea(), type, nameQuery, filterOptions.onlyIdAndName(), filterOptions.getLimit().orElse(null));
+            WaypointFilterOptions.Builder fromPrimary = new WaypointFilterOptions.Builder()
+                    .inArea(filterOptions.getArea())
+                    .byType(type)
+                    .withNameContaining(nameQuery)
+                    .limitResulsTo(filterOptions.getLimit().orElse(null))
+                    .fromPrimary();
+            if (filterOptions.onlyIdAndName()) fromPrimary.onlyIdAndName();
+            return new NormalizedQuery<>(key, fromPrimary.build(), identity(), true);
+        }
+        BoundingBox bbox = filterOptions.getBoundingBox().get();
+        long south = (long) Math.floor(bbox.getBottomCoordinates().getLatitude() / gridSize);
+        long west = (long) Math.floor(bbox.getBottomCoordinates().getLongitude() / gridSize);
+        long north = (long) Math.ceil(bbox.getTopCoordinates().getLatitude() / gridSize);
+        long east = (long) Math.ceil(bbox.getTopCoordinates().getLongitude() / gridSize);
+        WaypointFilterOptions.Builder normalized = new WaypointFilterOptions.Builder()
+                .inArea(filterOptions.getArea())
+                .withinBoundingBox(BoundingBox.ofBottomTop(gridPoint(south, west), gridPoint(north, east)))
+                .limitResulsTo(maxEntryWaypoints + 1)
+                .fromPrimary();
+        filterOptions.getWaypointType().ifPresent(normalized::byType);
+        filterOptions.getNameQuery().ifPresent(normalized::withNameContaining);
+        List<Object> key = asList("bbox", filterOptions.getArea(), type, nameQuery, south, west, north, east);
+        return new NormalizedQuery<>(key, normalized.build(), waypoints -> waypoints.stream()
+                .filter(waypoint -> waypoint.getLocation() != null && bbox.contains(waypoint.getLocation()))
+                .limit(filterOptions.getLimit().orElse(Integer.MAX_VALUE))
+                .map(filterOptions.onlyIdAndName() ? WaypointQueryCache::idAndName : UnaryOperator.<Waypoint>identity())
+                .collect(toList()),
+                false);
+    }
+
+    /**
+     * The snapped location is at most half a cell diagonal away, which is less than a cell side,
+     * so growing the distance by one cell finds every waypoint the original query would find.
+     */
+    private NormalizedQuery<LocationWaypointFilterOptions> normalize(LocationWaypointFilterOptions filterOptions) {
+        Coordinates location = filterOptions.getLocation();
+        long latitude = Math.round(location.getLatitude() / gridSize);
+        long longitude = Math.round(location.getLongitude() / gridSize);
+        int maxDistance = filterOptions.getMaxDistance().orElse(WaypointDao.DEFAULT_MAX_DISTANCE);
+        int searchDistance = ((maxDistance + gridMeters - 1) / gridMeters + 1) * gridMeters;
+        LocationWaypointFilterOptions.Builder normalized = LocationWaypointFilterOptions.Builder.nearLocation(gridPoint(latitude, longitude))
+                .inArea(filterOptions.getArea())
+                .maximumSearchDistance(searchDistance)
+                .limitResulsTo(maxEntryWaypoints + 1)
+                .fromPrimary();
+        filterOptions.getWaypointType().ifPresent(normalized::byType);
+        List<Object> key = asList("near", filterOptions.getArea(), filterOptions.getWaypointType().orElse(null), latitude, longitude, searchDistance);
+        return new NormalizedQuery<>(key, normalized.build(), waypoints -> waypoints.stream()
+                .map(waypoint -> new Neighbor(waypoint, distance(location, waypoint.getLocation())))
+                .filter(neighbor -> neighbor.distance <= maxDistance)
+                .sorted(comparingDouble(neighbor -> neighbor.distance))
+                .limit(filterOptions.getLimit().orElse(Integer.MAX_VALUE))
+                .map(neighbor -> neighbor.waypoint)
+                .collect(toList()),
+                false);
+    }
+
+    private Coordinates gridPoint(long latitude, long longitude) {
+        return Coordinates.ofLatLng(
+                Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude * gridSize)), 
+                Math.max(-MAX_LONGITUDE, Math.min(MAX_LONGITUDE, longitude * gridSize)));
+    }
+
+    private static double distance(Coordinates from, Coordinates to) {
+        return haversine(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+
+    /** Same fields a projected query loads. */
+    private static Waypoint idAndName(Waypoint waypoint) {
+        Waypoint projected = new Waypoint();
+        projected.setId(waypoint.getId());
+        projected.setName(waypoint.getName().orElse(null));
+        return projected;
+    }
+
+    /**
+     * A cache key, the query to load on a miss, how to answer the original query from it and
+     * whether it is the original query.
+     */
+    private static class NormalizedQuery<O> {
+
+        private final List<Object> key;
+        private final O filterOptions;
+        private final UnaryOperator<List<Waypoint>> answer;
+        private final boolean exact;
+
+        NormalizedQuery(List<Object> key, O filterOptions, UnaryOperator<List<Waypoint>> answer, boolean exact) {
+            this.key = key;
+            this.filterOptions = filterOptions;
+            this.answer = answer;
+            this.exact = exact;
+        }
+    }
+
+    private static class Neighbor {
+
+        private final Waypoint waypoint;
+        private final double distance;
+
+        Neighbor(Waypoint waypoint, double distance) {
+            this.waypoint = waypoint;
+            this.distance = distance;
+        }
+    }
+}
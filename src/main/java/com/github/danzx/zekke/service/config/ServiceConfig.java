@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service configuration.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Configuration
+public class ServiceConfig {
+
+    public static final String WAYPOINT_IO_EXECUTOR = "waypointIoExecutor";
+
+    /**
+     * Bounded executor for blocking waypoint reads so asynchronous requests don't hold container
+     * threads. When every thread is busy and the queue is full new tasks are rejected with a
+     * RejectedExecutionException.
+     * 
+     * @param poolSize the number of threads.
+     * @param queueSize the maximum number of waiting tasks.
+     * @return the executor.
+     */
+    @Bean(name = WAYPOINT_IO_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService waypointIoExecutor(
+            @Value("${waypoint.async.pool_size}") int poolSize,
+            @Value("${waypoint.async.queue_size}") int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "waypoint-io-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), threadFactory);
+    }
+}
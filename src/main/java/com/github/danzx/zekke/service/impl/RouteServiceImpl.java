@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.routing.WalkwayGraph;
+import com.github.danzx.zekke.service.RouteService;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Route service that keeps a walkway graph in memory for each area. A graph is built from every
+ * waypoint of its area on first use and rebuilt lazily after a waypoint of the area changes.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Service
+public class RouteServiceImpl implements RouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteServiceImpl.class);
+
+    private final WaypointDao dao;
+    private final ConcurrentMap<String, WalkwayGraph> graphs = new ConcurrentHashMap<>();
+
+    public @Inject RouteServiceImpl(WaypointDao dao) {
+        this.dao = requireNonNull(dao);
+    }
+
+    @Override
+    public Optional<Route> findShortestRoute(String area, long fromWaypointId, long toWaypointId) {
+        log.debug("findShortestRoute ({}): {} -> {}", area, fromWaypointId, toWaypointId);
+        return graph(area).findShortestRoute(fromWaypointId, toWaypointId);
+    }
+
+    /**
+     * Discards the graph of the area of the changed waypoint and any graph that has it, since it
+     * may have moved from another area or be a deleted waypoint without area.
+     */
+    @EventListener
+    public synchronized void onWaypointChange(WaypointChangeEvent event) {
+        log.debug("Walkway graph invalidated by {}", event);
+        Waypoint waypoint = event.getWaypoint();
+        if (event.getChange() == WaypointChangeEvent.Change.SAVED) graphs.remove(waypoint.getArea());
+        graphs.values().removeIf(graph -> graph.contains(waypoint.getId()));
+    }
+
+    /** Graphs without waypoints are not kept so unknown areas take no memory. */
+    private WalkwayGraph graph(String area) {
+        WalkwayGraph current = graphs.get(area);
+        if (current != null) return current;
+        synchronized (this) {
+            current = graphs.get(area);
+            if (current == null) {
+                List<Waypoint> waypoints = dao.findFiltered(new WaypointFilterOptions.Builder().inArea(area).build());
+                current = WalkwayGraph.of(waypoints);
+                if (current.nodeCount() > 0) graphs.put(area, current);
+                log.info("Walkway graph of area {} built: {} waypoints, {} edges", area, current.nodeCount(), current.edgeCount());
+            }
+            return current;
+        }
+    }
+}
@@ -17,9 +17,9 @@ package com.github.danzx.zekke.service.impl;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.Objects;
 import java.util.Optional;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 import com.github.danzx.zekke.domain.User;
@@ -27,15 +27,18 @@ import com.github.danzx.zekke.persistence.dao.UserDao;
 import com.github.danzx.zekke.security.crypto.HashFunction;
 import com.github.danzx.zekke.service.ServiceException;
 import com.github.danzx.zekke.service.UserService;
+import com.github.danzx.zekke.service.cache.RoleUserCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 /**
- * Default User service implementation.
+ * Default User service implementation. Role users are kept in memory so a login costs a hash
+ * comparison and no database round trip.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -44,12 +47,24 @@ public class UserServiceImpl implements UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
 
-    private final UserDao userDao;
+    private final RoleUserCache roleUsers;
     private final HashFunction hashFunction;
 
-    public @Inject UserServiceImpl(UserDao userDao, HashFunction hashFunction) {
-        this.userDao = requireNonNull(userDao);
-        this.hashFunction = hashFunction;
+    public @Inject UserServiceImpl(UserDao userDao, HashFunction hashFunction,
+            @Value("${user.role_cache.ttl_seconds}") long roleCacheTtlSeconds,
+            @Value("${user.role_cache.min_reload_seconds}") long roleCacheMinReloadSeconds) {
+        this(new RoleUserCache(requireNonNull(userDao)::findById, roleCacheTtlSeconds, roleCacheMinReloadSeconds), hashFunction);
+    }
+
+    UserServiceImpl(RoleUserCache roleUsers, HashFunction hashFunction) {
+        this.roleUsers = requireNonNull(roleUsers);
+        this.hashFunction = requireNonNull(hashFunction);
+    }
+
+    /** Loads the role users at startup. */
+    @PostConstruct
+    public void loadRoleUsers() {
+        roleUsers.loadAll();
     }
 
     @Override
@@ -61,11 +76,13 @@ public class UserServiceImpl implements UserService {
                 .messageKey("user.not_admin.error")
                 .build();
         }
-        Optional<User> adminUser = userDao.findById(adminRole.getUserId());
-        String encodedPassword = hashFunction.hash(user.getPassword().get());
-        return adminUser
-                .flatMap(User::getPassword)
-                .map(adminPassword -> Objects.equals(encodedPassword, adminPassword))
-                .orElseThrow(() -> new ServiceException.Builder().messageKey("admin.not.found").build());
+        String password = user.getPassword().get();
+        Optional<String> cachedPassword = roleUsers.get(adminRole).flatMap(User::getPassword);
+        if (cachedPassword.isPresent() && hashFunction.matches(password, cachedPassword.get())) return true;
+        // The admin may have changed since it was cached; reloads are rate-limited so repeated
+        // failed logins don't hit the database every time
+        Optional<String> adminPassword = roleUsers.refresh(adminRole).flatMap(User::getPassword);
+        if (!adminPassword.isPresent()) throw new ServiceException.Builder().messageKey("admin.not.found").build();
+        return !adminPassword.equals(cachedPassword) && hashFunction.matches(password, adminPassword.get());
     }
 }
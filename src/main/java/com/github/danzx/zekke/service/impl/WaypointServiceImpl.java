@@ -16,26 +16,52 @@
 package com.github.danzx.zekke.service.impl;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
 import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
 import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.WaypointChangeSet;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.metrics.MetricsRegistry;
+import com.github.danzx.zekke.persistence.dao.RawWaypointDao;
 import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
 import com.github.danzx.zekke.service.WaypointService;
+import com.github.danzx.zekke.service.cache.WaypointQueryCache;
+import com.github.danzx.zekke.service.config.ServiceConfig;
+
+import org.bson.RawBsonDocument;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 /**
- * Default Waypoint service implementation.
+ * Default Waypoint service implementation. Filtered and near queries are answered from a
+ * {@link WaypointQueryCache} whose queries of an area are dropped whenever a waypoint of the area
+ * is persisted or deleted. Updates and deletions read the stored waypoint first so the change
+ * events carry every area they touch. The
+ * cache is off while the in-memory waypoint index is on because the index already answers those
+ * queries without reaching the database.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -45,15 +71,53 @@ public class WaypointServiceImpl implements WaypointService {
     private static final Logger log = LoggerFactory.getLogger(WaypointServiceImpl.class);
 
     private final WaypointDao dao;
+    private final RawWaypointDao rawDao;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor ioExecutor;
+    private final WaypointQueryCache queryCache;
+
+    public @Inject WaypointServiceImpl(WaypointDao dao, RawWaypointDao rawDao, ApplicationEventPublisher eventPublisher,
+            @Named(ServiceConfig.WAYPOINT_IO_EXECUTOR) Executor ioExecutor, MetricsRegistry metricsRegistry,
+            @Value("${waypoint.memory_index.enabled}") boolean memoryIndexEnabled,
+            @Value("${waypoint.query_cache.size}") int queryCacheSize,
+            @Value("${waypoint.query_cache.max_entry_waypoints}") int queryCacheMaxEntryWaypoints,
+            @Value("${waypoint.query_cache.grid_size}") double queryCacheGridSize) {
+        this(dao, rawDao, eventPublisher, ioExecutor,
+                new WaypointQueryCache(memoryIndexEnabled ? 0 : queryCacheSize, queryCacheMaxEntryWaypoints, queryCacheGridSize));
+        if (memoryIndexEnabled) log.info("Waypoint query cache is off, the in-memory index answers waypoint queries");
+        metricsRegistry.registerCache(queryCache::stats);
+    }
 
-    public @Inject WaypointServiceImpl(WaypointDao dao) {
+    WaypointServiceImpl(WaypointDao dao, RawWaypointDao rawDao, ApplicationEventPublisher eventPublisher, Executor ioExecutor, WaypointQueryCache queryCache) {
         this.dao = requireNonNull(dao);
+        this.rawDao = requireNonNull(rawDao);
+        this.eventPublisher = requireNonNull(eventPublisher);
+        this.ioExecutor = requireNonNull(ioExecutor);
+        this.queryCache = requireNonNull(queryCache);
     }
 
     @Override
     public void persist(Waypoint waypoint) {
         log.debug("persistWaypoint: {}", waypoint);
+        Waypoint previous = waypoint.getId() == null ? null : dao.findById(waypoint.getId()).orElse(null);
         dao.saveOrUpdate(waypoint);
+        publishChange(new WaypointChangeEvent(this, waypoint, previous, WaypointChangeEvent.Change.SAVED));
+    }
+
+    @Override
+    public Map<Integer, String> persistAll(List<Waypoint> waypoints) {
+        log.debug("persistAll: {} waypoints", waypoints.size());
+        Map<Integer, String> failures = dao.insertAll(waypoints);
+        List<WaypointChangeEvent> events = new ArrayList<>(waypoints.size() - failures.size());
+        Set<String> areas = new LinkedHashSet<>();
+        for (int i = 0; i < waypoints.size(); i++) {
+            if (failures.containsKey(i)) continue;
+            events.add(new WaypointChangeEvent(this, waypoints.get(i), WaypointChangeEvent.Change.SAVED));
+            areas.add(waypoints.get(i).getArea());
+        }
+        if (!events.isEmpty()) recordChange(areas);
+        events.forEach(eventPublisher::publishEvent);
+        return failures;
     }
 
     @Override
@@ -62,21 +126,105 @@ public class WaypointServiceImpl implements WaypointService {
         return dao.findById(id);
     }
 
+    @Override
+    public CompletionStage<Optional<Waypoint>> findWaypointByIdAsync(long id) {
+        log.debug("findWaypointByIdAsync: {}", id);
+        return dao.findByIdAsync(id, ioExecutor);
+    }
+
     @Override
     public List<Waypoint> findWaypoints(WaypointFilterOptions filterOptions) {
         log.debug("findWaypoints: {}", filterOptions);
-        return dao.findFiltered(filterOptions);
+        return queryCache.find(filterOptions, dao::findFiltered);
+    }
+
+    @Override
+    public CompletionStage<List<Waypoint>> findWaypointsAsync(WaypointFilterOptions filterOptions) {
+        log.debug("findWaypointsAsync: {}", filterOptions);
+        return queryCache.findAsync(filterOptions, options -> dao.findFilteredAsync(options, ioExecutor));
+    }
+
+    @Override
+    public Stream<Waypoint> streamWaypoints(WaypointFilterOptions filterOptions) {
+        log.debug("streamWaypoints: {}", filterOptions);
+        return dao.streamFiltered(filterOptions);
+    }
+
+    @Override
+    public Stream<RawBsonDocument> streamWaypointDocuments(WaypointFilterOptions filterOptions) {
+        log.debug("streamWaypointDocuments: {}", filterOptions);
+        return rawDao.streamRawFiltered(filterOptions);
     }
 
     @Override
     public List<Waypoint> findWaypointsNearALocation(LocationWaypointFilterOptions filterOptions) {
         log.debug("findWaypointsNearALocation: {}", filterOptions);
-        return dao.findNearALocationFiltered(filterOptions);
+        return queryCache.findNear(filterOptions, dao::findNearALocationFiltered);
+    }
+
+    @Override
+    public CompletionStage<List<Waypoint>> findWaypointsNearALocationAsync(LocationWaypointFilterOptions filterOptions) {
+        log.debug("findWaypointsNearALocationAsync: {}", filterOptions);
+        return queryCache.findNearAsync(filterOptions, options -> dao.findNearALocationFilteredAsync(options, ioExecutor));
+    }
+
+    /**
+     * {@inheritDoc} Saves and deletions are merged by version; the latest change of each waypoint
+     * wins. Changes above the stable version are held back until the writes before them finish.
+     */
+    @Override
+    public WaypointChangeSet findChangesSince(long version, int limit) {
+        log.debug("findChangesSince: {}, limit: {}", version, limit);
+        // Read before the changes so every change up to it is already visible to the queries
+        long stableVersion = dao.findStableVersion();
+        List<Waypoint> saved = dao.findChangedSince(version, limit + 1).stream()
+                .filter(waypoint -> waypoint.getVersion() <= stableVersion)
+                .collect(toList());
+        List<WaypointTombstone> deleted = dao.findDeletedSince(version, limit + 1).stream()
+                .filter(tombstone -> tombstone.getVersion() <= stableVersion)
+                .collect(toList());
+        Map<Long, Waypoint> upserts = new LinkedHashMap<>();
+        Set<Long> deletions = new LinkedHashSet<>();
+        long cursor = version;
+        int savedIndex = 0;
+        int deletedIndex = 0;
+        while (savedIndex + deletedIndex < limit && (savedIndex < saved.size() || deletedIndex < deleted.size())) {
+            boolean nextIsSave = deletedIndex == deleted.size() || 
+                    (savedIndex < saved.size() && saved.get(savedIndex).getVersion() < deleted.get(deletedIndex).getVersion());
+            if (nextIsSave) {
+                Waypoint waypoint = saved.get(savedIndex++);
+                deletions.remove(waypoint.getId());
+                upserts.put(waypoint.getId(), waypoint);
+                cursor = waypoint.getVersion();
+            } else {
+                WaypointTombstone tombstone = deleted.get(deletedIndex++);
+                upserts.remove(tombstone.getId());
+                deletions.add(tombstone.getId());
+                cursor = tombstone.getVersion();
+            }
+        }
+        boolean hasMore = savedIndex < saved.size() || deletedIndex < deleted.size();
+        return new WaypointChangeSet(new ArrayList<>(upserts.values()), new ArrayList<>(deletions), cursor, hasMore);
     }
 
     @Override
     public boolean delete(Waypoint waypoint) {
         log.debug("deleteWaypoint: {}", waypoint);
-        return dao.deleteById(waypoint.getId());
+        Waypoint previous = dao.findById(waypoint.getId()).orElse(null);
+        boolean deleted = dao.deleteById(waypoint.getId());
+        if (deleted) publishChange(new WaypointChangeEvent(this, waypoint, previous, WaypointChangeEvent.Change.DELETED));
+        return deleted;
+    }
+
+    private void publishChange(WaypointChangeEvent event) {
+        recordChange(event.getAreas());
+        eventPublisher.publishEvent(event);
+    }
+
+    /** Changes of unknown area drop every cached query. */
+    private void recordChange(Set<String> areas) {
+        dao.markChanged(areas);
+        if (areas.isEmpty()) queryCache.invalidateAll();
+        else areas.forEach(queryCache::invalidate);
     }
 }
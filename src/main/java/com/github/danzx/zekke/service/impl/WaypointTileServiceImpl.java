@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.impl;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Objects;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.service.WaypointTileService;
+import com.github.danzx.zekke.tile.MvtEncoder;
+import com.github.danzx.zekke.tile.TileCache;
+import com.github.danzx.zekke.tile.TileKey;
+import com.github.danzx.zekke.tile.VectorTile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Waypoint tile service that encodes tiles as Mapbox Vector Tiles and keeps them in a bounded
+ * cache until a waypoint in them changes. Tiles of different areas are cached apart. Tiles are
+ * loaded from the primary: a secondary may not have the change that invalidated them yet.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Validated @Service
+public class WaypointTileServiceImpl implements WaypointTileService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointTileServiceImpl.class);
+
+    private final WaypointDao dao;
+    private final TileCache cache;
+    private final MvtEncoder encoder = new MvtEncoder();
+
+    public @Inject WaypointTileServiceImpl(WaypointDao dao, @Value("${waypoint.tiles.cache_size}") int cacheSize) {
+        this.dao = requireNonNull(dao);
+        cache = new TileCache(cacheSize);
+    }
+
+    @Override
+    public VectorTile getTile(TileKey key) {
+        VectorTile tile = cache.get(key);
+        if (tile != null) return tile;
+        long generation = cache.generation();
+        List<Waypoint> waypoints = dao.findFiltered(new WaypointFilterOptions.Builder()
+                .inArea(key.getArea())
+                .withinBoundingBox(key.getBoundingBox())
+                .fromPrimary()
+                .build());
+        tile = VectorTile.of(encoder.encode(key, waypoints));
+        List<Long> waypointIds = waypoints.stream().map(Waypoint::getId).filter(Objects::nonNull).collect(toList());
+        if (cache.put(key, tile, waypointIds, generation)) log.debug("Tile {} cached with {} waypoints", key, waypoints.size());
+        return tile;
+    }
+
+    @EventListener
+    public void onWaypointChange(WaypointChangeEvent event) {
+        Waypoint waypoint = event.getWaypoint();
+        if (event.getChange() == WaypointChangeEvent.Change.DELETED) cache.invalidate(waypoint.getId(), null);
+        else cache.invalidate(waypoint.getId(), waypoint.getArea(), waypoint.getLocation());
+    }
+
+    /** @return the number of cached tiles. */
+    int cachedTiles() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+/**
+ * Encodes waypoints as a Mapbox Vector Tile (specification 2.1). POIs go to the
+ * {@value #POI_LAYER} layer with their name and walkways to the {@value #WALKWAY_LAYER} layer;
+ * every feature is a point whose id is the waypoint id. Layers without waypoints are left out so
+ * an empty tile is encoded as no bytes at all.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class MvtEncoder {
+
+    public static final String POI_LAYER = "pois";
+    public static final String WALKWAY_LAYER = "walkways";
+    public static final String NAME_KEY = "name";
+    public static final int EXTENT = 4096;
+
+    private static final int VERSION = 2;
+    private static final int POINT = 1;
+    private static final int MOVE_TO_ONE_POINT = 1 | 1 << 3;
+
+    private static final int TILE_LAYERS = 3;
+    private static final int LAYER_NAME = 1;
+    private static final int LAYER_FEATURES = 2;
+    private static final int LAYER_KEYS = 3;
+    private static final int LAYER_VALUES = 4;
+    private static final int LAYER_EXTENT = 5;
+    private static final int LAYER_VERSION = 15;
+    private static final int FEATURE_ID = 1;
+    private static final int FEATURE_TAGS = 2;
+    private static final int FEATURE_TYPE = 3;
+    private static final int FEATURE_GEOMETRY = 4;
+    private static final int VALUE_STRING = 1;
+
+    /**
+     * @param key the tile to encode.
+     * @param waypoints the waypoints within the tile.
+     * @return the encoded tile.
+     */
+    public byte[] encode(TileKey key, List<Waypoint> waypoints) {
+        requireNonNull(key);
+        requireNonNull(waypoints);
+        LayerBuilder pois = new LayerBuilder(POI_LAYER);
+        LayerBuilder walkways = new LayerBuilder(WALKWAY_LAYER);
+        for (Waypoint waypoint : waypoints) {
+            Coordinates location = waypoint.getLocation();
+            if (location == null) continue;
+            int x = (int) Math.round((TileKey.tileX(location.getLongitude(), key.getZoom()) - key.getX()) * EXTENT);
+            int y = (int) Math.round((TileKey.tileY(location.getLatitude(), key.getZoom()) - key.getY()) * EXTENT);
+            if (waypoint.getType() == Type.POI) pois.addPoint(waypoint.getId(), waypoint.getName().orElse(null), x, y);
+            else walkways.addPoint(waypoint.getId(), null, x, y);
+        }
+        ProtobufWriter tile = new ProtobufWriter();
+        if (!pois.isEmpty()) tile.writeMessage(TILE_LAYERS, pois.build());
+        if (!walkways.isEmpty()) tile.writeMessage(TILE_LAYERS, walkways.build());
+        return tile.toByteArray();
+    }
+
+    private static class LayerBuilder {
+
+        private final String name;
+        private final List<ProtobufWriter> features = new ArrayList<>();
+        private final Map<String, Integer> nameValues = new LinkedHashMap<>();
+
+        LayerBuilder(String name) {
+            this.name = name;
+        }
+
+        void addPoint(Long id, String waypointName, int x, int y) {
+            ProtobufWriter feature = new ProtobufWriter();
+            if (id != null) feature.writeUInt(FEATURE_ID, id);
+            if (waypointName != null) {
+                Integer valueIndex = nameValues.computeIfAbsent(waypointName, value -> nameValues.size());
+                feature.writePackedUInts(FEATURE_TAGS, 0, valueIndex);
+            }
+            feature.writeUInt(FEATURE_TYPE, POINT);
+            feature.writePackedUInts(FEATURE_GEOMETRY, MOVE_TO_ONE_POINT, ProtobufWriter.zigzag(x), ProtobufWriter.zigzag(y));
+            features.add(feature);
+        }
+
+        boolean isEmpty() {
+            return features.isEmpty();
+        }
+
+        ProtobufWriter build() {
+            ProtobufWriter layer = new ProtobufWriter()
+                    .writeUInt(LAYER_VERSION, VERSION)
+                    .writeString(LAYER_NAME, name);
+            for (ProtobufWriter feature : features) layer.writeMessage(LAYER_FEATURES, feature);
+            if (!nameValues.isEmpty()) layer.writeString(LAYER_KEYS, NAME_KEY);
+            for (String value : nameValues.keySet()) layer.writeMessage(LAYER_VALUES, new ProtobufWriter().writeString(VALUE_STRING, value));
+            return layer.writeUInt(LAYER_EXTENT, EXTENT);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal Protocol Buffers writer with just what vector tiles need.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+class ProtobufWriter {
+
+    private static final int VARINT = 0;
+    private static final int LENGTH_DELIMITED = 2;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    /** Writes an unsigned integer field. */
+    ProtobufWriter writeUInt(int field, long value) {
+        writeKey(field, VARINT);
+        writeVarint(value);
+        return this;
+    }
+
+    /** Writes a string field. */
+    ProtobufWriter writeString(int field, String value) {
+        return writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes an embedded message field. */
+    ProtobufWriter writeMessage(int field, ProtobufWriter message) {
+        return writeBytes(field, message.toByteArray());
+    }
+
+    /** Writes a packed repeated unsigned integer field. */
+    ProtobufWriter writePackedUInts(int field, int... values) {
+        ProtobufWriter packed = new ProtobufWriter();
+        for (int value : values) packed.writeVarint(value & 0xFFFFFFFFL);
+        return writeBytes(field, packed.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        return buffer.toByteArray();
+    }
+
+    /** @return the zigzag encoding of the given value so small negative numbers stay small. */
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private ProtobufWriter writeBytes(int field, byte[] bytes) {
+        writeKey(field, LENGTH_DELIMITED);
+        writeVarint(bytes.length);
+        buffer.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    private void writeKey(int field, int wireType) {
+        writeVarint(field << 3 | wireType);
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+}
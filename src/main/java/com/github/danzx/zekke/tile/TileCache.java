@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of encoded tiles. When the cache is full the least recently used tile makes room
+ * for a new one. The cache remembers which waypoints each tile has so a change to a waypoint only
+ * drops the tiles where the waypoint was and where it is now. Safe for concurrent use.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class TileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TileCache.class);
+
+    private final int maxSize;
+    private final LinkedHashMap<TileKey, Entry> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<TileKey>> tilesByWaypoint = new HashMap<>();
+    private long generation;
+
+    /** @param maxSize the maximum number of tiles to keep; 0 disables the cache. */
+    public TileCache(int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("maxSize must not be negative");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param key a tile key.
+     * @return the cached tile or {@code null}.
+     */
+    public synchronized VectorTile get(TileKey key) {
+        Entry entry = tiles.get(key);
+        return entry == null ? null : entry.tile;
+    }
+
+    /**
+     * @return a number that changes on every invalidation. Read it before building a tile and
+     *         pass it to {@link #put(TileKey, VectorTile, Collection, long)}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a tile unless a waypoint changed since the tile started being built; in that case the
+     * tile may be stale and it's not stored.
+     * 
+     * @param key the tile key.
+     * @param tile the tile.
+     * @param waypointIds the ids of the waypoints in the tile.
+     * @param generation what {@link #generation()} returned before the tile started being built.
+     * @return if the tile was stored.
+     */
+    public synchronized boolean put(TileKey key, VectorTile tile, Collection<Long> waypointIds, long generation) {
+        requireNonNull(key);
+        requireNonNull(tile);
+        requireNonNull(waypointIds);
+        if (maxSize == 0 || generation != this.generation) return false;
+        remove(key);
+        tiles.put(key, new Entry(tile, waypointIds));
+        for (Long id : waypointIds) tilesByWaypoint.computeIfAbsent(id, unused -> new HashSet<>()).add(key);
+        if (tiles.size() > maxSize) {
+            TileKey leastRecentlyUsed = tiles.keySet().iterator().next();
+            log.debug("Tile cache is full, evicting least recently used tile {}", leastRecentlyUsed);
+            remove(leastRecentlyUsed);
+        }
+        return true;
+    }
+
+    /**
+     * Drops every tile that has the given waypoint and every tile of the default area that
+     * contains the given location.
+     * 
+     * @param waypointId the id of the waypoint that changed.
+     * @param location where the waypoint is now or {@code null} if it was deleted.
+     * @return the number of dropped tiles.
+     */
+    public int invalidate(Long waypointId, Coordinates location) {
+        return invalidate(waypointId, Waypoint.DEFAULT_AREA, location);
+    }
+
+    /**
+     * Drops every tile that has the given waypoint and every tile of the given area that contains
+     * the given location.
+     * 
+     * @param waypointId the id of the waypoint that changed.
+     * @param area the area where the waypoint is now.
+     * @param location where the waypoint is now or {@code null} if it was deleted.
+     * @return the number of dropped tiles.
+     */
+    public synchronized int invalidate(Long waypointId, String area, Coordinates location) {
+        generation++;
+        int removed = 0;
+        Set<TileKey> keys = waypointId == null ? null : tilesByWaypoint.get(waypointId);
+        if (keys != null) {
+            for (TileKey key : keys.toArray(new TileKey[keys.size()])) {
+                if (remove(key)) removed++;
+            }
+        }
+        if (location != null) {
+            for (int zoom = 0; zoom <= TileKey.MAX_ZOOM; zoom++) {
+                if (remove(TileKey.containing(area, location, zoom))) removed++;
+            }
+        }
+        log.debug("Invalidated {} tiles for waypoint {}", removed, waypointId);
+        return removed;
+    }
+
+    /** @return the number of cached tiles. */
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    private boolean remove(TileKey key) {
+        Entry entry = tiles.remove(key);
+        if (entry == null) return false;
+        for (Long id : entry.waypointIds) {
+            Set<TileKey> keys = tilesByWaypoint.get(id);
+            if (keys == null) continue;
+            keys.remove(key);
+            if (keys.isEmpty()) tilesByWaypoint.remove(id);
+        }
+        return true;
+    }
+
+    private static class Entry {
+
+        private final VectorTile tile;
+        private final Long[] waypointIds;
+
+        Entry(VectorTile tile, Collection<Long> waypointIds) {
+            this.tile = tile;
+            this.waypointIds = waypointIds.toArray(new Long[waypointIds.size()]);
+        }
+    }
+}
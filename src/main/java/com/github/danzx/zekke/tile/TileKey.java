@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+
+/**
+ * Web Mercator tile address: zoom level, column (x) from the west and row (y) from the north, in
+ * the map of an area.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class TileKey {
+
+    public static final int MAX_ZOOM = 22;
+
+    /** Web Mercator does not reach the poles. */
+    static final double MAX_LATITUDE = 85.0511287798066;
+
+    private final String area;
+    private final int zoom;
+    private final int x;
+    private final int y;
+
+    private TileKey(String area, int zoom, int x, int y) {
+        this.area = area;
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Factory method for tiles of the default area.
+     * 
+     * @param zoom the zoom level, from 0 to {@link #MAX_ZOOM}.
+     * @param x the column, from 0 to 2<sup>zoom</sup> - 1.
+     * @param y the row, from 0 to 2<sup>zoom</sup> - 1.
+     * @return a new tile key.
+     * @throws IllegalArgumentException if the tile doesn't exist.
+     */
+    public static TileKey of(int zoom, int x, int y) {
+        return of(Waypoint.DEFAULT_AREA, zoom, x, y);
+    }
+
+    /**
+     * Factory method.
+     * 
+     * @param area the area whose waypoints are in the tile.
+     * @param zoom the zoom level, from 0 to {@link #MAX_ZOOM}.
+     * @param x the column, from 0 to 2<sup>zoom</sup> - 1.
+     * @param y the row, from 0 to 2<sup>zoom</sup> - 1.
+     * @return a new tile key.
+     * @throws IllegalArgumentException if the tile doesn't exist.
+     */
+    public static TileKey of(String area, int zoom, int x, int y) {
+        requireNonNull(area);
+        if (!isValid(zoom, x, y)) throw new IllegalArgumentException("There is no tile " + zoom + '/' + x + '/' + y);
+        return new TileKey(area, zoom, x, y);
+    }
+
+    /**
+     * @param zoom the zoom level.
+     * @param x the column.
+     * @param y the row.
+     * @return if the tile exists.
+     */
+    public static boolean isValid(int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MAX_ZOOM) return false;
+        int tiles = 1 << zoom;
+        return x >= 0 && x < tiles && y >= 0 && y < tiles;
+    }
+
+    /**
+     * @param location a location.
+     * @param zoom the zoom level.
+     * @return the tile of the default area that contains the given location at the given zoom
+     *         level.
+     */
+    public static TileKey containing(Coordinates location, int zoom) {
+        return containing(Waypoint.DEFAULT_AREA, location, zoom);
+    }
+
+    /**
+     * @param area an area.
+     * @param location a location.
+     * @param zoom the zoom level.
+     * @return the tile of the given area that contains the given location at the given zoom level.
+     */
+    public static TileKey containing(String area, Coordinates location, int zoom) {
+        requireNonNull(location);
+        int maxIndex = (1 << zoom) - 1;
+        int x = (int) Math.floor(tileX(location.getLongitude(), zoom));
+        int y = (int) Math.floor(tileY(location.getLatitude(), zoom));
+        return of(area, zoom, Math.max(0, Math.min(maxIndex, x)), Math.max(0, Math.min(maxIndex, y)));
+    }
+
+    /** @return the area covered by this tile. */
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.ofBottomTop(
+                Coordinates.ofLatLng(latitude(y + 1, zoom), longitude(x, zoom)),
+                Coordinates.ofLatLng(latitude(y, zoom), longitude(x + 1, zoom)));
+    }
+
+    public String getArea() {
+        return area;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /** @return the fractional column of the given longitude at the given zoom level. */
+    static double tileX(double longitude, int zoom) {
+        return (longitude + 180) / 360 * (1 << zoom);
+    }
+
+    /** @return the fractional row of the given latitude at the given zoom level. */
+    static double tileY(double latitude, int zoom) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * (1 << zoom);
+    }
+
+    private static double longitude(int x, int zoom) {
+        return (double) x / (1 << zoom) * 360 - 180;
+    }
+
+    private static double latitude(int y, int zoom) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * y / (1 << zoom)))));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        TileKey other = (TileKey) obj;
+        return area.equals(other.area) && zoom == other.zoom && x == other.x && y == other.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(area, zoom, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return zoom + "/" + x + '/' + y;
+    }
+}
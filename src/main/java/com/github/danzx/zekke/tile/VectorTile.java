@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * An encoded tile tagged by its contents.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class VectorTile {
+
+    private static final int TAG_BYTES = 12;
+
+    private final byte[] data;
+    private final String tag;
+
+    private VectorTile(byte[] data, String tag) {
+        this.data = data;
+        this.tag = tag;
+    }
+
+    /**
+     * Factory method.
+     * 
+     * @param data the encoded tile; it's not copied so it must not be modified afterwards.
+     * @return a new tile whose tag is a digest of the given data.
+     */
+    public static VectorTile of(byte[] data) {
+        requireNonNull(data);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return new VectorTile(data, Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, TAG_BYTES)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /** @return the encoded tile; don't modify it. */
+    public byte[] getData() {
+        return data;
+    }
+
+    /** @return a tag that is the same for tiles with the same data. */
+    public String getTag() {
+        return tag;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        VectorTile other = (VectorTile) obj;
+        return Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return "{ tag:" + tag + ", size:" + data.length + " }";
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.util;
+
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.min;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
+
+/**
+ * Great-circle distance utilities.
+ *
+ * @author Daniel Pedraza-Arcega
+ */
+public class GeoDistances {
+
+    /** Same radius MongoDB uses for spherical geometry. */
+    public static final double EARTH_RADIUS_IN_METERS = 6_378_100;
+
+    private GeoDistances() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Calculates the haversine distance between two points.
+     *
+     * @param latitude1 the latitude of the first point in degrees.
+     * @param longitude1 the longitude of the first point in degrees.
+     * @param latitude2 the latitude of the second point in degrees.
+     * @param longitude2 the longitude of the second point in degrees.
+     * @return the distance in meters.
+     */
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinHalfDeltaLatitude = sin(toRadians(latitude2 - latitude1) / 2);
+        double sinHalfDeltaLongitude = sin(toRadians(longitude2 - longitude1) / 2);
+        double a = sinHalfDeltaLatitude * sinHalfDeltaLatitude +
+                cos(toRadians(latitude1)) * cos(toRadians(latitude2)) * sinHalfDeltaLongitude * sinHalfDeltaLongitude;
+        return 2 * EARTH_RADIUS_IN_METERS * asin(min(1, sqrt(a)));
+    }
+
+    /**
+     * @param meters a distance in meters.
+     * @return the angle in degrees a great-circle arc of the given length spans.
+     */
+    public static double metersToDegrees(double meters) {
+        return Math.toDegrees(meters / EARTH_RADIUS_IN_METERS);
+    }
+
+    /**
+     * @param degrees an angle in degrees.
+     * @return the length in meters of a great-circle arc spanning the given angle.
+     */
+    public static double degreesToMeters(double degrees) {
+        return toRadians(degrees) * EARTH_RADIUS_IN_METERS;
+    }
+}
@@ -19,6 +19,10 @@ import static java.lang.Character.toLowerCase;
 import static java.lang.Character.toUpperCase;
 import static java.util.Objects.requireNonNull;
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 /**
  * Various string utilities.
  *
@@ -35,6 +39,7 @@ public class Strings {
 
     private static final char DOUBLE_QUOTES = '"';
     private static final char UNDERSCORE = '_';
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
 
     private Strings() {
         throw new AssertionError();
@@ -117,4 +122,17 @@ public class Strings {
     public static String hidden(String s) {
         return s == null ? NULL : HIDDEN;
     }
+
+    /**
+     * Removes accents and case so strings can be compared the way a person searches them, e.g.
+     * "Área" and "AREA" both become "area".
+     * 
+     * @param s a string.
+     * @return the given string in lower case and without diacritical marks.
+     */
+    public static String fold(String s) {
+        if (s == null) return s;
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll(EMPTY).toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes entities as CBOR or Smile with the mappers in {@link MediaTypeObjectMappers}.
+ * JSON is left to the Jackson JSON provider.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Provider
+@Consumes({ MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+@Produces({ MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+public class BinaryJacksonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    private @Context MediaTypeObjectMappers objectMappers;
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return MediaTypeObjectMappers.isBinary(mediaType) && !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type,
+                           Type genericType,
+                           Annotation[] annotations,
+                           MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders,
+                           InputStream entityStream) throws IOException, WebApplicationException {
+        ObjectMapper objectMapper = objectMappers.forMediaType(mediaType);
+        return objectMapper.readValue(entityStream, objectMapper.constructType(genericType));
+    }
+
+    /** Streaming outputs and raw bytes are written by their own providers. */
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return MediaTypeObjectMappers.isBinary(mediaType) && 
+                !StreamingOutput.class.isAssignableFrom(type) && 
+                type != byte[].class;
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t,
+                        Class<?> type,
+                        Type genericType,
+                        Annotation[] annotations,
+                        MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException, WebApplicationException {
+        ObjectMapper objectMapper = objectMappers.forMediaType(mediaType);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(entityStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writerFor(objectMapper.constructType(genericType)).writeValue(generator, t);
+        }
+    }
+
+    public void setObjectMappers(MediaTypeObjectMappers objectMappers) {
+        this.objectMappers = objectMappers;
+    }
+}
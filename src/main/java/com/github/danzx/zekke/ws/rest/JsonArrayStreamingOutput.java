@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes a stream of elements as an array, one element at a time, so the whole collection is
+ * never held in memory. The array is written in the format of the mapper's factory (JSON, CBOR,
+ * Smile...). The stream is closed once written.
+ * 
+ * @param <T> the type of the elements.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class JsonArrayStreamingOutput<T> implements StreamingOutput {
+
+    private final Stream<T> elements;
+    private final ObjectMapper objectMapper;
+
+    public JsonArrayStreamingOutput(Stream<T> elements, ObjectMapper objectMapper) {
+        this.elements = requireNonNull(elements);
+        this.objectMapper = requireNonNull(objectMapper);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<T> toWrite = elements; 
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<T> iterator = toWrite.iterator();
+            while (iterator.hasNext()) writer.writeValue(generator, iterator.next());
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Variant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The Jackson ObjectMapper of each media type the waypoint endpoints can write: JSON and the
+ * binary CBOR and Smile formats. Binary formats skip text number and string parsing on the
+ * client and read into the same models.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class MediaTypeObjectMappers {
+
+    /** Supported representations, JSON first so it's chosen when the client has no preference. */
+    public static final List<Variant> VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE,
+            MediaTypes.APPLICATION_CBOR_TYPE,
+            MediaTypes.APPLICATION_SMILE_TYPE).build();
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    /**
+     * @param jsonMapper the JSON mapper.
+     * @param cborMapper a mapper created with a CBORFactory.
+     * @param smileMapper a mapper created with a SmileFactory.
+     */
+    public MediaTypeObjectMappers(ObjectMapper jsonMapper, ObjectMapper cborMapper, ObjectMapper smileMapper) {
+        this.jsonMapper = requireNonNull(jsonMapper);
+        this.cborMapper = requireNonNull(cborMapper);
+        this.smileMapper = requireNonNull(smileMapper);
+    }
+
+    /**
+     * @param mediaType a media type.
+     * @return the mapper of the given media type or {@code null} if it's not supported or it's a
+     *         wildcard.
+     */
+    public ObjectMapper forMediaType(MediaType mediaType) {
+        if (mediaType == null) return null;
+        if (sameType(MediaTypes.APPLICATION_CBOR_TYPE, mediaType)) return cborMapper;
+        if (sameType(MediaTypes.APPLICATION_SMILE_TYPE, mediaType)) return smileMapper;
+        if (sameType(MediaType.APPLICATION_JSON_TYPE, mediaType)) return jsonMapper;
+        return null;
+    }
+
+    /**
+     * @param mediaType a media type.
+     * @return if the given media type is one of the binary formats.
+     */
+    public static boolean isBinary(MediaType mediaType) {
+        return mediaType != null && 
+                (sameType(MediaTypes.APPLICATION_CBOR_TYPE, mediaType) || sameType(MediaTypes.APPLICATION_SMILE_TYPE, mediaType));
+    }
+
+    /** Compares type and subtype ignoring parameters like charset. */
+    private static boolean sameType(MediaType expected, MediaType actual) {
+        return expected.getType().equalsIgnoreCase(actual.getType()) && expected.getSubtype().equalsIgnoreCase(actual.getSubtype());
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.github.danzx.zekke.ws.rest;
 
+import static java.util.Collections.singletonMap;
+
 import javax.ws.rs.core.MediaType;
 
 /**
@@ -26,8 +28,18 @@ import javax.ws.rs.core.MediaType;
  */
 public class MediaTypes {
 
+    public final static String APPLICATION_CBOR = "application/cbor";
+    public final static MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
     public final static String APPLICATION_JSON_PATCH = "application/json+patch";
     public final static MediaType APPLICATION_JSON_PATCH_TYPE = new MediaType("application", "json+patch");
+    public final static String APPLICATION_NDJSON = "application/x-ndjson";
+    public final static MediaType APPLICATION_NDJSON_TYPE = new MediaType("application", "x-ndjson");
+    public final static String APPLICATION_SMILE = "application/x-jackson-smile";
+    public final static MediaType APPLICATION_SMILE_TYPE = new MediaType("application", "x-jackson-smile");
+    public final static String APPLICATION_VND_MAPBOX_VECTOR_TILE = "application/vnd.mapbox-vector-tile";
+    public final static MediaType APPLICATION_VND_MAPBOX_VECTOR_TILE_TYPE = new MediaType("application", "vnd.mapbox-vector-tile");
+    public final static String TEXT_PLAIN_PROMETHEUS = "text/plain; version=0.0.4";
+    public final static MediaType TEXT_PLAIN_PROMETHEUS_TYPE = new MediaType("text", "plain", singletonMap("version", "0.0.4"));
 
     private MediaTypes() {
         throw new AssertionError();
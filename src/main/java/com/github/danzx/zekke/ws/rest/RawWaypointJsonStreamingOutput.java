@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import com.github.danzx.zekke.persistence.internal.mongo.Fields;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.io.ByteBufferBsonInput;
+
+/**
+ * Writes stored waypoint documents straight to a JSON array with the shape of the public models,
+ * reading each field from the BSON bytes as it is written. {@code _id} becomes {@code id}, the
+ * GeoJSON point becomes a latitude/longitude pair and null fields are omitted, like the models
+ * serialized by Jackson. No domain objects or models are created. The stream is closed once
+ * written.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class RawWaypointJsonStreamingOutput implements StreamingOutput {
+
+    /** Public model whose JSON shape is written. */
+    public enum Representation {
+        TYPED_WAYPOINT(true, true), 
+        POI(true, false), 
+        WALKWAY(false, false);
+
+        private final boolean withName;
+        private final boolean withTypeAndPaths;
+
+        private Representation(boolean withName, boolean withTypeAndPaths) {
+            this.withName = withName;
+            this.withTypeAndPaths = withTypeAndPaths;
+        }
+    }
+
+    private final Stream<RawBsonDocument> documents;
+    private final JsonFactory jsonFactory;
+    private final Representation representation;
+
+    public RawWaypointJsonStreamingOutput(Stream<RawBsonDocument> documents, JsonFactory jsonFactory, Representation representation) {
+        this.documents = requireNonNull(documents);
+        this.jsonFactory = requireNonNull(jsonFactory);
+        this.representation = requireNonNull(representation);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (Stream<RawBsonDocument> toWrite = documents; 
+             JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<RawBsonDocument> iterator = toWrite.iterator();
+            while (iterator.hasNext()) writeWaypoint(iterator.next(), generator);
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeWaypoint(RawBsonDocument document, JsonGenerator generator) throws IOException {
+        try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(document.getByteBuffer()))) {
+            generator.writeStartObject();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String field = reader.readName();
+                if (reader.getCurrentBsonType() == BsonType.NULL) reader.skipValue();
+                else if (Fields.Waypoint.ID.equals(field)) generator.writeNumberField("id", readLong(reader));
+                else if (Fields.Waypoint.LOCATION.equals(field)) writeLocation(reader, generator);
+                else if (Fields.Waypoint.NAME.equals(field) && representation.withName) generator.writeStringField("name", reader.readString());
+                else if (Fields.Waypoint.TYPE.equals(field) && representation.withTypeAndPaths) generator.writeStringField("type", reader.readString());
+                else if (Fields.Waypoint.PATHS.equals(field) && representation.withTypeAndPaths) writePaths(reader, generator);
+                else if (Fields.Waypoint.AREA.equals(field) && representation.withTypeAndPaths) generator.writeStringField("area", reader.readString());
+                else reader.skipValue();
+            }
+            reader.readEndDocument();
+            generator.writeEndObject();
+        }
+    }
+
+    /** GeoJSON points store the longitude first. */
+    private static void writeLocation(BsonReader reader, JsonGenerator generator) throws IOException {
+        double longitude = 0;
+        double latitude = 0;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if ("coordinates".equals(reader.readName())) {
+                reader.readStartArray();
+                reader.readBsonType();
+                longitude = readDouble(reader);
+                reader.readBsonType();
+                latitude = readDouble(reader);
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) reader.skipValue();
+                reader.readEndArray();
+            } else reader.skipValue();
+        }
+        reader.readEndDocument();
+        generator.writeObjectFieldStart("location");
+        generator.writeNumberField("latitude", latitude);
+        generator.writeNumberField("longitude", longitude);
+        generator.writeEndObject();
+    }
+
+    private static void writePaths(BsonReader reader, JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("paths");
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            generator.writeStartObject();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String field = reader.readName();
+                if (reader.getCurrentBsonType() == BsonType.NULL) reader.skipValue();
+                else if (Fields.Path.TO_WAYPOINT.equals(field)) generator.writeNumberField("toWaypoint", readLong(reader));
+                else if (Fields.Path.DISTANCE.equals(field)) generator.writeNumberField("distance", readDouble(reader));
+                else reader.skipValue();
+            }
+            reader.readEndDocument();
+            generator.writeEndObject();
+        }
+        reader.readEndArray();
+        generator.writeEndArray();
+    }
+
+    private static long readLong(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT64: return reader.readInt64();
+            case INT32: return reader.readInt32();
+            case DOUBLE: return (long) reader.readDouble();
+            default: throw new IllegalStateException("Expected an integer but was " + reader.getCurrentBsonType());
+        }
+    }
+
+    private static double readDouble(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOUBLE: return reader.readDouble();
+            case INT32: return reader.readInt32();
+            case INT64: return reader.readInt64();
+            default: throw new IllegalStateException("Expected a number but was " + reader.getCurrentBsonType());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.metrics.CacheStats;
+import com.github.danzx.zekke.metrics.MetricsRegistry;
+import com.github.danzx.zekke.metrics.PrometheusTextFormat;
+import com.github.danzx.zekke.metrics.TimerSnapshot;
+import com.github.danzx.zekke.ws.rest.MediaTypes;
+import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics endpoint.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+@Path(V_1 + "/metrics")
+@RequireRoleAccess(roleRequired = User.Role.ADMIN)
+public class MetricsEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+    private final MetricsRegistry metricsRegistry;
+
+    public @Inject MetricsEndpoint(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = requireNonNull(metricsRegistry);
+    }
+
+    /**
+     * Latency percentiles and throughput of every endpoint, DAO, JWT and transformer operation.
+     * 
+     * @return the timers sorted by category and operation.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<TimerSnapshot> getMetrics() {
+        log.info("GET /metrics");
+        return metricsRegistry.snapshot();
+    }
+
+    /**
+     * The same metrics in Prometheus text format, followed by the cache statistics.
+     * 
+     * @return one summary per category and one metric per cache statistic.
+     */
+    @GET
+    @Produces(MediaTypes.TEXT_PLAIN_PROMETHEUS)
+    public String getPrometheusMetrics() {
+        log.info("GET /metrics -- Prometheus");
+        return PrometheusTextFormat.write(metricsRegistry.snapshot()) + PrometheusTextFormat.writeCaches(metricsRegistry.cacheSnapshot());
+    }
+
+    /**
+     * Hits, misses and evictions of every cache.
+     * 
+     * @return the caches sorted by name.
+     */
+    @GET
+    @Path("caches")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<CacheStats> getCacheMetrics() {
+        log.info("GET /metrics/caches");
+        return metricsRegistry.cacheSnapshot();
+    }
+}
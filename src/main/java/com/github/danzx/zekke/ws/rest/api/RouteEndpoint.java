@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
+
+import java.util.List;
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.message.MessageSource;
+import com.github.danzx.zekke.message.impl.MessageSourceFactory;
+import com.github.danzx.zekke.service.RouteService;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.cache.ETagged;
+import com.github.danzx.zekke.ws.rest.model.ErrorMessage;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.model.WaypointRoute;
+import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Walking directions endpoint. Only authenticated user can use this endpoint
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+@Path(V_1 + "/routes")
+@RequireRoleAccess(roleRequired = User.Role.ANONYMOUS)
+@ETagged
+public class RouteEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteEndpoint.class);
+
+    private final MessageSource messageSource = MessageSourceFactory.defaultSource();
+
+    private final RouteService routeService;
+    private final Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+
+    public @Inject RouteEndpoint(RouteService routeService, Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer) {
+        this.routeService = requireNonNull(routeService);
+        this.waypointToTypedWaypointTransformer = requireNonNull(waypointToTypedWaypointTransformer);
+    }
+
+    /**
+     * Shortest walking route between two waypoints.
+     * 
+     * @param area the area of both waypoints, the default area if not present.
+     * @param from the id of the start waypoint.
+     * @param to the id of the end waypoint.
+     * @param clientLocales "Accept-Language" header.
+     * @return the route or 404 Not Found if any waypoint does not exist or they are not connected.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getRoute(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
+            @NotNull @QueryParam("from") Long from,
+            @NotNull @QueryParam("to") Long to,
+            @NotNull @HeaderParam("Accept-Language") List<Locale> clientLocales) {
+        log.info("GET /routes?area={}&from={}&to={} -- Accept-Languages={}", area, from, to, clientLocales);
+        return routeService.findShortestRoute(area, from, to)
+                .map(this::toWaypointRoute)
+                .map(route -> Response.ok(route).build())
+                .orElseGet(() -> routeNotFoundResponse(clientLocales.stream().findFirst().orElse(Locale.ROOT)));
+    }
+
+    private WaypointRoute toWaypointRoute(Route route) {
+        WaypointRoute waypointRoute = new WaypointRoute();
+        waypointRoute.setDistance(route.getDistance());
+        waypointRoute.setWaypoints(waypointToTypedWaypointTransformer.convertListAtoListB(route.getWaypoints()));
+        return waypointRoute;
+    }
+
+    private Response routeNotFoundResponse(Locale clientLocale) {
+        Response.Status status = Response.Status.NOT_FOUND;
+        ErrorMessage errorMessage = new ErrorMessage.Builder()
+                .statusCode(status.getStatusCode())
+                .type(ErrorMessage.Type.NOT_FOUND)
+                .detailMessage(messageSource.getMessage("route.not.found.error", clientLocale))
+                .build();
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(errorMessage)
+                .build();
+    }
+}
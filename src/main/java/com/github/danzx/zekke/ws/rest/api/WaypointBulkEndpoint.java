@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.message.MessageSource;
+import com.github.danzx.zekke.message.impl.MessageSourceFactory;
+import com.github.danzx.zekke.service.WaypointService;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.MediaTypes;
+import com.github.danzx.zekke.ws.rest.model.BulkImportReport;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Waypoint bulk import endpoint. Only admins can use this endpoint.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+@Path(V_1 + "/waypoints/bulk")
+@RequireRoleAccess(roleRequired = User.Role.ADMIN)
+public class WaypointBulkEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointBulkEndpoint.class);
+
+    private final MessageSource messageSource = MessageSourceFactory.defaultSource();
+
+    private final WaypointService waypointService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+    private final int batchSize;
+
+    public @Inject WaypointBulkEndpoint(WaypointService waypointService,
+            ObjectMapper objectMapper,
+            Validator validator,
+            Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            @Value("${waypoint.bulk.batch_size}") int batchSize) {
+        this.waypointService = requireNonNull(waypointService);
+        this.objectMapper = requireNonNull(objectMapper);
+        this.validator = requireNonNull(validator);
+        this.waypointToTypedWaypointTransformer = requireNonNull(waypointToTypedWaypointTransformer);
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates several waypoints at once. The body is either a JSON array of TypedWaypoint or one
+     * TypedWaypoint per line (NDJSON) and it's read one item at a time. Invalid items are skipped
+     * and reported; the rest are persisted in batches. Malformed JSON stops the import but the
+     * batches persisted until then are kept.
+     * 
+     * @param body the TypedWaypoints to create, without ids.
+     * @param clientLocales "Accept-Language" header.
+     * @return how many waypoints were imported and why the rest weren't.
+     * @throws IOException if the body cannot be read.
+     */
+    @POST
+    @Consumes({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_NDJSON })
+    @Produces(MediaType.APPLICATION_JSON)
+    public BulkImportReport importWaypoints(
+            @NotNull InputStream body,
+            @NotNull @HeaderParam("Accept-Language") List<Locale> clientLocales) throws IOException {
+        log.info("POST /waypoints/bulk -- Accept-Languages={}", clientLocales);
+        Import currentImport = new Import(clientLocales.stream().findFirst().orElse(Locale.ROOT));
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean isArray = token == JsonToken.START_ARRAY;
+            if (isArray) token = parser.nextToken();
+            while (token != null && token != JsonToken.END_ARRAY) {
+                currentImport.add(objectMapper.readTree(parser));
+                token = parser.nextToken();
+            }
+        } catch (JsonParseException ex) {
+            throw JsonMappingException.from(ex.getProcessor(), ex.getOriginalMessage(), ex);
+        }
+        return currentImport.finish();
+    }
+
+    /** The state of a single request. */
+    private class Import {
+
+        private final Locale clientLocale;
+        private final List<Waypoint> batch = new ArrayList<>(batchSize);
+        private final List<Integer> batchIndexes = new ArrayList<>(batchSize);
+        private final List<BulkImportReport.Failure> failures = new ArrayList<>();
+        private int received;
+        private int imported;
+
+        Import(Locale clientLocale) {
+            this.clientLocale = clientLocale;
+        }
+
+        void add(JsonNode item) {
+            int index = received++;
+            TypedWaypoint typedWaypoint;
+            try {
+                typedWaypoint = objectMapper.treeToValue(item, TypedWaypoint.class);
+            } catch (JsonProcessingException ex) {
+                log.debug("Item {} is not a waypoint", index, ex);
+                failures.add(BulkImportReport.Failure.of(index, messageSource.getMessage("json.mapping.error", clientLocale)));
+                return;
+            }
+            if (typedWaypoint.getId() != null) {
+                failures.add(BulkImportReport.Failure.of(index, messageSource.getMessage("bulk.id.present.error", clientLocale)));
+                return;
+            }
+            String violations = violationsOf(typedWaypoint);
+            Waypoint waypoint = null;
+            if (violations.isEmpty()) {
+                waypoint = waypointToTypedWaypointTransformer.convertBtoA(typedWaypoint);
+                violations = violationsOf(waypoint);
+            }
+            if (!violations.isEmpty()) {
+                failures.add(BulkImportReport.Failure.of(index, violations));
+                return;
+            }
+            batch.add(waypoint);
+            batchIndexes.add(index);
+            if (batch.size() == batchSize) flush();
+        }
+
+        BulkImportReport finish() {
+            flush();
+            BulkImportReport report = new BulkImportReport();
+            report.setReceived(received);
+            report.setImported(imported);
+            failures.sort(comparingInt(BulkImportReport.Failure::getIndex));
+            report.setFailures(failures);
+            log.info("Imported {} of {} waypoints", imported, received);
+            return report;
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) return;
+            Map<Integer, String> batchFailures = waypointService.persistAll(batch);
+            imported += batch.size() - batchFailures.size();
+            batchFailures.forEach((position, messageKey) -> failures.add(BulkImportReport.Failure.of(batchIndexes.get(position), messageSource.getMessage(messageKey, clientLocale))));
+            batch.clear();
+            batchIndexes.clear();
+        }
+
+        private <T> String violationsOf(T object) {
+            Set<ConstraintViolation<T>> violations = validator.validate(object);
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath().toString().isEmpty() ? 
+                            violation.getMessage() : 
+                            violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(joining(", "));
+        }
+    }
+}
@@ -22,12 +22,16 @@ import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import javax.inject.Inject;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
@@ -35,8 +39,17 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.github.danzx.zekke.constraint.NullId;
 import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
@@ -46,35 +59,52 @@ import com.github.danzx.zekke.domain.Coordinates;
 import com.github.danzx.zekke.domain.User;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointChangeSet;
 import com.github.danzx.zekke.message.MessageSource;
 import com.github.danzx.zekke.message.impl.MessageSourceFactory;
 import com.github.danzx.zekke.service.WaypointService;
 import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.JsonArrayStreamingOutput;
+import com.github.danzx.zekke.ws.rest.MediaTypeObjectMappers;
 import com.github.danzx.zekke.ws.rest.MediaTypes;
 import com.github.danzx.zekke.ws.rest.PATCH;
+import com.github.danzx.zekke.ws.rest.RawWaypointJsonStreamingOutput;
+import com.github.danzx.zekke.ws.rest.RawWaypointJsonStreamingOutput.Representation;
+import com.github.danzx.zekke.ws.rest.cache.ETagged;
 import com.github.danzx.zekke.ws.rest.model.ErrorMessage;
 import com.github.danzx.zekke.ws.rest.model.Poi;
 import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
 import com.github.danzx.zekke.ws.rest.model.Walkway;
+import com.github.danzx.zekke.ws.rest.model.WaypointChanges;
 import com.github.danzx.zekke.ws.rest.patch.ObjectPatch;
 import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+import com.github.danzx.zekke.ws.rest.snapshot.ContentCoding;
+import com.github.danzx.zekke.ws.rest.snapshot.WaypointSnapshot;
+import com.github.danzx.zekke.ws.rest.snapshot.WaypointSnapshots;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
- * Waypoints endpoint. Only authenticated user can use this endpoint
+ * Waypoints endpoint. Only authenticated user can use this endpoint. Reads that answer with a
+ * list or a single waypoint are asynchronous: the request is suspended while the datastore is read
+ * in the service executor. Listings stay synchronous because they are written as they are read.
  * 
  * @author Daniel Pedraza-Arcega
  */
 @Component
 @Path(V_1 + "/waypoints")
 @RequireRoleAccess(roleRequired = User.Role.ANONYMOUS)
+@ETagged
 public class WaypointEndpoint {
 
     private static final Logger log = LoggerFactory.getLogger(WaypointEndpoint.class);
+    private static final int MAX_CHANGES = 1000;
+    /** Jersey only adds Accept to Vary when there is no Vary header yet. */
+    private static final String SNAPSHOT_VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
 
     private final MessageSource messageSource = MessageSourceFactory.defaultSource();
 
@@ -82,200 +112,266 @@ public class WaypointEndpoint {
     private final Transformer<Waypoint, Poi> waypointToPoiTransformer;
     private final Transformer<Waypoint, Walkway> waypointToWalkwayTransformer;
     private final Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+    private final MediaTypeObjectMappers objectMappers;
+    private final WaypointSnapshots snapshots;
+    private final boolean rawReads;
 
     public @Inject WaypointEndpoint(WaypointService waypointService,
             Transformer<Waypoint, Poi> waypointToPoiTransformer,
             Transformer<Waypoint, Walkway> waypointToWalkwayTransformer,
-            Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer) {
+            Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            MediaTypeObjectMappers objectMappers,
+            WaypointSnapshots snapshots,
+            @Value("${waypoint.raw_reads.enabled}") boolean rawReads) {
         this.waypointService = requireNonNull(waypointService);
         this.waypointToPoiTransformer = requireNonNull(waypointToPoiTransformer);
         this.waypointToWalkwayTransformer = requireNonNull(waypointToWalkwayTransformer);
         this.waypointToTypedWaypointTransformer = requireNonNull(waypointToTypedWaypointTransformer);
+        this.objectMappers = requireNonNull(objectMappers);
+        this.snapshots = requireNonNull(snapshots);
+        this.rawReads = rawReads;
     }
 
     /**
      * TypedWaypoint collection.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param bbox If present, finds all the waypoints within a rectangle specified by a latitude
      *        and longitude pair being the first the bottom left coordinates and the second the
      *        upper right coordinates. Example: '12.23,32.681;15.234,37.65'
      * @param limit Limits the results to the given number.
-     * @return a list of TypedWaypoint or an empty list.
+     * @param request the request, to negotiate the representation.
+     * @param headers the request headers, to negotiate the content coding.
+     * @return an array of TypedWaypoint, possibly empty, written as the waypoints are read.
      */
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<TypedWaypoint> getTypedWaypoints(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public Response getTypedWaypoints(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @Valid @QueryParam("bbox") BoundingBox bbox,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints?bbox={}&limit={}", bbox, limit);
+            @QueryParam("limit") Integer limit,
+            @Context Request request,
+            @Context HttpHeaders headers) {
+        log.info("GET /waypoints?area={}&bbox={}&limit={}", area, bbox, limit);
         WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder()
+                .inArea(area)
                 .withinBoundingBox(bbox)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypoints(filterOptions);
-        return waypointToTypedWaypointTransformer.convertListAtoListB(waypoints);
+        return streamingOutput(filterOptions, waypointToTypedWaypointTransformer, Representation.TYPED_WAYPOINT, request, headers);
     }
 
     /**
      * POIs collection.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param bbox If present, finds all the waypoints within a rectangle specified by a latitude
      *        and longitude pair being the first the bottom left coordinates and the second the
      *        upper right coordinates. Example: '12.23,32.681;15.234,37.65'
      * @param queryStr If present, filter by POI names that contain this string.
      * @param limit Limits the results to the given number.
-     * @return a list of POIs or an empty list.
+     * @param request the request, to negotiate the representation.
+     * @param headers the request headers, to negotiate the content coding.
+     * @return an array of POIs, possibly empty, written as the waypoints are read.
      */
     @GET
     @Path("/pois")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<Poi> getPois(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public Response getPois(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @Valid @QueryParam("bbox") BoundingBox bbox,
             @QueryParam("query") String queryStr,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/pois?bbox={}&query={}&limit={}", bbox, queryStr, limit);
+            @QueryParam("limit") Integer limit,
+            @Context Request request,
+            @Context HttpHeaders headers) {
+        log.info("GET /waypoints/pois?area={}&bbox={}&query={}&limit={}", area, bbox, queryStr, limit);
         WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder()
+                .inArea(area)
                 .byType(Type.POI)
                 .withinBoundingBox(bbox)
                 .withNameContaining(queryStr)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypoints(filterOptions);
-        return waypointToPoiTransformer.convertListAtoListB(waypoints);
+        return streamingOutput(filterOptions, waypointToPoiTransformer, Representation.POI, request, headers);
     }
 
     /**
      * Walkways collection.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param bbox If present, finds all the waypoints within a rectangle specified by a latitude
      *        and longitude pair being the first the bottom left coordinates and the second the
      *        upper right coordinates. Example: '12.23,32.681;15.234,37.65'
      * @param limit Limits the results to the given number.
-     * @return a list of walkways or an empty list.
+     * @param request the request, to negotiate the representation.
+     * @param headers the request headers, to negotiate the content coding.
+     * @return an array of walkways, possibly empty, written as the waypoints are read.
      */
     @GET
     @Path("/walkways")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<Walkway> getWalkways(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public Response getWalkways(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @Valid @QueryParam("bbox") BoundingBox bbox,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/walkways?bbox={}&limit={}", bbox, limit);
+            @QueryParam("limit") Integer limit,
+            @Context Request request,
+            @Context HttpHeaders headers) {
+        log.info("GET /waypoints/walkways?area={}&bbox={}&limit={}", area, bbox, limit);
         WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder()
+                .inArea(area)
                 .byType(Type.WALKWAY)
                 .withinBoundingBox(bbox)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypoints(filterOptions);
-        return waypointToWalkwayTransformer.convertListAtoListB(waypoints);
+        return streamingOutput(filterOptions, waypointToWalkwayTransformer, Representation.WALKWAY, request, headers);
+    }
+
+    /**
+     * Waypoint changes, for clients that keep a copy of the waypoints and sync it.
+     * 
+     * @param since the cursor of the last page the client applied or 0 to get every waypoint.
+     * @param limit Limits the changes to the given number, at most {@value #MAX_CHANGES}.
+     * @return the waypoints saved and the ids of the waypoints deleted after the cursor.
+     */
+    @GET
+    @Path("/changes")
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public WaypointChanges getChanges(
+            @Min(0) @DefaultValue("0") @QueryParam("since") long since,
+            @Min(1) @QueryParam("limit") Integer limit) {
+        log.info("GET /waypoints/changes?since={}&limit={}", since, limit);
+        WaypointChangeSet changeSet = waypointService.findChangesSince(since, limit == null ? MAX_CHANGES : Math.min(limit, MAX_CHANGES));
+        WaypointChanges changes = new WaypointChanges();
+        changes.setUpserts(waypointToTypedWaypointTransformer.convertListAtoListB(changeSet.getUpserts()));
+        changes.setDeletions(changeSet.getDeletions());
+        changes.setCursor(changeSet.getCursor());
+        changes.setHasMore(changeSet.hasMore());
+        return changes;
     }
 
     /**
      * POI name completion.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param bbox If present, finds all the waypoints within a rectangle specified by a latitude
      *        and longitude pair being the first the bottom left coordinates and the second the
      *        upper right coordinates. Example: '12.23,32.681;15.234,37.65'
      * @param queryStr If present, filter by POI names that contain this string.
      * @param limit Limits the results to the given number.
-     * @return a list of POIs with only its name and id or an empty list.
+     * @param asyncResponse resumed with a list of POIs with only its name and id or an empty list.
      */
     @GET
     @Path("/pois/names")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<Poi> getPoiSuggestions(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public void getPoiSuggestions(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @Valid @QueryParam("bbox") BoundingBox bbox, 
             @QueryParam("query") String queryStr,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/pois/names?bbox={}&query={}&limit={}", bbox);
+            @QueryParam("limit") Integer limit,
+            @Suspended AsyncResponse asyncResponse) {
+        log.info("GET /waypoints/pois/names?area={}&bbox={}&query={}&limit={}", area, bbox, queryStr, limit);
         WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder()
+                .inArea(area)
                 .byType(Type.POI)
                 .withinBoundingBox(bbox)
                 .withNameContaining(queryStr)
                 .onlyIdAndName()
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypoints(filterOptions);
-        return waypointToPoiTransformer.convertListAtoListB(waypoints);
+        resumeWhenComplete(asyncResponse, waypointService.findWaypointsAsync(filterOptions)
+                .thenApply(waypointToPoiTransformer::convertListAtoListB));
     }
 
     /**
      * Near TypedWaypoints.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param location The center point to use. Example: '11.432,53.645'
      * @param distance Limits the results to those waypoints that are at most the specified distance
      *        from the center point.
      * @param limit Limits the results to the given number.
-     * @return a list of TypedWaypoint or an empty list.
+     * @param asyncResponse resumed with a list of TypedWaypoint or an empty list.
      */
     @GET
     @Path("/near")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<TypedWaypoint> getNearTypedWaypoints(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public void getNearTypedWaypoints(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @NotNull @Valid @QueryParam("location") Coordinates location,
             @QueryParam("distance") Integer distance,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/near?location={}&distance={}&limit={}", location, distance, limit);
+            @QueryParam("limit") Integer limit,
+            @Suspended AsyncResponse asyncResponse) {
+        log.info("GET /waypoints/near?area={}&location={}&distance={}&limit={}", area, location, distance, limit);
         LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder
                 .nearLocation(location)
+                .inArea(area)
                 .maximumSearchDistance(distance)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypointsNearALocation(filterOptions);
-        return waypointToTypedWaypointTransformer.convertListAtoListB(waypoints);
+        resumeWhenComplete(asyncResponse, waypointService.findWaypointsNearALocationAsync(filterOptions)
+                .thenApply(waypointToTypedWaypointTransformer::convertListAtoListB));
     }
 
     /**
      * Near POIs.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param location The center point to use. Example: '11.432,53.645'
      * @param distance Limits the results to those waypoints that are at most the specified distance
      *        from the center point.
      * @param limit Limits the results to the given number.
-     * @return a list of POIs or an empty list.
+     * @param asyncResponse resumed with a list of POIs or an empty list.
      */
     @GET
     @Path("/pois/near")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<Poi> getNearPois(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public void getNearPois(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @NotNull @Valid @QueryParam("location") Coordinates location,
             @QueryParam("distance") Integer distance,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/pois/near?location={}&distance={}&limit={}", location, distance, limit);
+            @QueryParam("limit") Integer limit,
+            @Suspended AsyncResponse asyncResponse) {
+        log.info("GET /waypoints/pois/near?area={}&location={}&distance={}&limit={}", area, location, distance, limit);
         LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder
                 .nearLocation(location)
+                .inArea(area)
                 .byType(Type.POI)
                 .maximumSearchDistance(distance)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypointsNearALocation(filterOptions);
-        return waypointToPoiTransformer.convertListAtoListB(waypoints);
+        resumeWhenComplete(asyncResponse, waypointService.findWaypointsNearALocationAsync(filterOptions)
+                .thenApply(waypointToPoiTransformer::convertListAtoListB));
     }
 
     /**
      * Near Walkways.
      * 
+     * @param area the area of the waypoints, the default area if not present.
      * @param location The center point to use. Example: '11.432,53.645'
      * @param distance Limits the results to those waypoints that are at most the specified distance
      *        from the center point.
      * @param limit Limits the results to the given number.
-     * @return a list of walkways or an empty list.
+     * @param asyncResponse resumed with a list of walkways or an empty list.
      */
     @GET
     @Path("/walways/near")
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<Walkway> getNearWalways(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public void getNearWalways(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
             @NotNull @Valid @QueryParam("location") Coordinates location,
             @QueryParam("distance") Integer distance,
-            @QueryParam("limit") Integer limit) {
-        log.info("GET /waypoints/walkways?location={}&distance={}&limit={}", location, distance, limit);
+            @QueryParam("limit") Integer limit,
+            @Suspended AsyncResponse asyncResponse) {
+        log.info("GET /waypoints/walkways?area={}&location={}&distance={}&limit={}", area, location, distance, limit);
         LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder
                 .nearLocation(location)
+                .inArea(area)
                 .byType(Type.WALKWAY)
                 .maximumSearchDistance(distance)
                 .limitResulsTo(limit)
                 .build();
-        List<Waypoint> waypoints = waypointService.findWaypointsNearALocation(filterOptions);
-        return waypointToWalkwayTransformer.convertListAtoListB(waypoints);
+        resumeWhenComplete(asyncResponse, waypointService.findWaypointsNearALocationAsync(filterOptions)
+                .thenApply(waypointToWalkwayTransformer::convertListAtoListB));
     }
 
     /**
@@ -283,19 +379,21 @@ public class WaypointEndpoint {
      * 
      * @param id an id.
      * @param clientLocales "Accept-Language" header.
-     * @return a TypedWaypoint or 404 Not Found.
+     * @param asyncResponse resumed with a TypedWaypoint or 404 Not Found.
      */
     @GET
     @Path("/{id}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getWaypoint(
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    public void getWaypoint(
             @NotNull @PathParam("id") Long id,
-            @NotNull @HeaderParam("Accept-Language") List<Locale> clientLocales) {
+            @NotNull @HeaderParam("Accept-Language") List<Locale> clientLocales,
+            @Suspended AsyncResponse asyncResponse) {
         log.info("GET /waypoints/{} -- Accept-Languages={}", id, clientLocales);
-        return waypointService.findWaypointById(id)
-                .map(waypointToTypedWaypointTransformer::convertAtoB)
-                .map(typedWaypoint -> Response.ok(typedWaypoint).build())
-                .orElseGet(() -> notFoundResponse(clientLocales.stream().findFirst().orElse(Locale.ROOT)));
+        resumeWhenComplete(asyncResponse, waypointService.findWaypointByIdAsync(id)
+                .thenApply(optWaypoint -> optWaypoint
+                        .map(waypointToTypedWaypointTransformer::convertAtoB)
+                        .map(typedWaypoint -> Response.ok(typedWaypoint).build())
+                        .orElseGet(() -> notFoundResponse(clientLocales.stream().findFirst().orElse(Locale.ROOT)))));
     }
 
     /**
@@ -305,8 +403,8 @@ public class WaypointEndpoint {
      * @return the same TypedWaypoint with an id.
      */
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
     @RequireRoleAccess(roleRequired = User.Role.ADMIN)
     public TypedWaypoint newWaypoint(@NotNull @NullId @Valid TypedWaypoint typedWaypoint) {
         log.info("POST /waypoints -- body: {}", typedWaypoint);
@@ -348,7 +446,7 @@ public class WaypointEndpoint {
     @PATCH
     @Path("/{id}")
     @Consumes(MediaTypes.APPLICATION_JSON_PATCH)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({ MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE })
     @RequireRoleAccess(roleRequired = User.Role.ADMIN)
     public Response patchWaypoint(
             @NotNull @PathParam("id") Long id,
@@ -369,6 +467,55 @@ public class WaypointEndpoint {
             .orElseGet(() -> notFoundResponse(clientLocales.stream().findFirst().orElse(Locale.ROOT)));
     }
 
+    /**
+     * Writes the waypoints in the representation the client prefers. Unfiltered JSON listings are
+     * answered from their snapshot when it's current. Raw reads write the stored documents
+     * straight to JSON so they are only used for JSON. Name queries always go through the DAO so
+     * they keep its ranking.
+     */
+    private <T> Response streamingOutput(WaypointFilterOptions filterOptions, Transformer<Waypoint, T> transformer, Representation representation, Request request, HttpHeaders headers) {
+        Variant variant = request.selectVariant(MediaTypeObjectMappers.VARIANTS);
+        MediaType mediaType = variant == null ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+        if (!MediaTypeObjectMappers.isBinary(mediaType) && isUnfiltered(filterOptions)) {
+            Optional<WaypointSnapshot> snapshot = snapshots.find(filterOptions.getArea(), representation);
+            if (snapshot.isPresent()) return snapshotResponse(snapshot.get(), headers);
+        }
+        ObjectMapper objectMapper = objectMappers.forMediaType(mediaType);
+        StreamingOutput output;
+        if (rawReads && !MediaTypeObjectMappers.isBinary(mediaType) && !filterOptions.getNameQuery().isPresent()) {
+            output = new RawWaypointJsonStreamingOutput(waypointService.streamWaypointDocuments(filterOptions), objectMapper.getFactory(), representation);
+        } else output = new JsonArrayStreamingOutput<>(waypointService.streamWaypoints(filterOptions).map(transformer::convertAtoB), objectMapper);
+        return Response.ok(output, mediaType).build();
+    }
+
+    private static boolean isUnfiltered(WaypointFilterOptions filterOptions) {
+        return !filterOptions.getBoundingBox().isPresent() && 
+                !filterOptions.getNameQuery().isPresent() && 
+                !filterOptions.getLimit().isPresent();
+    }
+
+    /** The body is the shared array of the snapshot, already compressed. */
+    private static Response snapshotResponse(WaypointSnapshot snapshot, HttpHeaders headers) {
+        ContentCoding coding = ContentCoding.preferred(headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = snapshot.encodedWith(coding);
+        Response.ResponseBuilder response = Response.ok(body, MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.CONTENT_LENGTH, body.length)
+                .header(HttpHeaders.VARY, SNAPSHOT_VARY);
+        if (coding != ContentCoding.IDENTITY) response.header(HttpHeaders.CONTENT_ENCODING, coding.getName());
+        return response.build();
+    }
+
+    /**
+     * Resumes the suspended response once the stage completes. Failures are resumed unwrapped so
+     * they reach the exception mappers.
+     */
+    private static void resumeWhenComplete(AsyncResponse asyncResponse, CompletionStage<?> stage) {
+        stage.whenComplete((entity, failure) -> {
+            if (failure == null) asyncResponse.resume(entity);
+            else asyncResponse.resume(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+        });
+    }
+
     private Response notFoundResponse(Locale clientLocale) {
         Response.Status status = Response.Status.NOT_FOUND;
         ErrorMessage errorMessage = new ErrorMessage.Builder()
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
+
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+import com.github.danzx.zekke.ws.rest.sse.WaypointEventBroadcaster;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.SseFeature;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Waypoint server-sent events endpoint. Clients learn about waypoint changes as they happen
+ * instead of polling.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+@Path(V_1 + "/waypoints/events")
+@RequireRoleAccess(roleRequired = User.Role.ANONYMOUS)
+public class WaypointEventEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointEventEndpoint.class);
+
+    private final WaypointEventBroadcaster broadcaster;
+
+    public @Inject WaypointEventEndpoint(WaypointEventBroadcaster broadcaster) {
+        this.broadcaster = requireNonNull(broadcaster);
+    }
+
+    /**
+     * Waypoint changes stream.
+     * 
+     * @param area only the waypoints saved in this area are sent, the default area if not present.
+     * @param bbox If present, only the waypoints saved within a rectangle specified by a latitude
+     *        and longitude pair being the first the bottom left coordinates and the second the
+     *        upper right coordinates are sent. Example: '12.23,32.681;15.234,37.65'
+     * @param type If present, only the waypoints saved with this type are sent.
+     * @return a stream of 'saved' events with a TypedWaypoint and 'deleted' events with an id.
+     */
+    @GET
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    public EventOutput getEvents(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
+            @Valid @QueryParam("bbox") BoundingBox bbox,
+            @QueryParam("type") Type type) {
+        log.info("GET /waypoints/events?area={}&bbox={}&type={}", area, bbox, type);
+        return broadcaster.subscribe(new EventOutput(), area, bbox, type);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.github.danzx.zekke.ws.rest.ApiVersions.V_1;
+
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.service.WaypointTileService;
+import com.github.danzx.zekke.tile.TileKey;
+import com.github.danzx.zekke.tile.VectorTile;
+import com.github.danzx.zekke.ws.rest.MediaTypes;
+import com.github.danzx.zekke.ws.rest.security.RequireRoleAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Waypoint vector tiles endpoint. Each tile has its own ETag so a change to a waypoint only
+ * invalidates the tiles where the waypoint was or is.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+@Path(V_1 + "/waypoints/tiles")
+@RequireRoleAccess(roleRequired = User.Role.ANONYMOUS)
+public class WaypointTileEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointTileEndpoint.class);
+
+    private final WaypointTileService tileService;
+
+    public @Inject WaypointTileEndpoint(WaypointTileService tileService) {
+        this.tileService = requireNonNull(tileService);
+    }
+
+    /**
+     * Waypoints vector tile.
+     * 
+     * @param area the area of the waypoints.
+     * @param zoom the zoom level, from 0 to 22.
+     * @param x the tile column from the west.
+     * @param y the tile row from the north.
+     * @param request the request, to evaluate If-None-Match.
+     * @return a Mapbox Vector Tile with the POIs and walkways in the tile, 304 Not Modified or 404
+     *         Not Found if the tile doesn't exist.
+     */
+    @GET
+    @Path("/{z}/{x}/{y}")
+    @Produces(MediaTypes.APPLICATION_VND_MAPBOX_VECTOR_TILE)
+    public Response getTile(
+            @DefaultValue(Waypoint.DEFAULT_AREA) @QueryParam("area") String area,
+            @PathParam("z") int zoom,
+            @PathParam("x") int x,
+            @PathParam("y") int y,
+            @Context Request request) {
+        log.info("GET /waypoints/tiles/{}/{}/{}?area={}", zoom, x, y, area);
+        if (!TileKey.isValid(zoom, x, y)) throw new NotFoundException();
+        VectorTile tile = tileService.getTile(TileKey.of(area, zoom, x, y));
+        EntityTag etag = new EntityTag(tile.getTag());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) return notModified.cacheControl(cacheControl()).build();
+        return Response.ok(tile.getData()).tag(etag).cacheControl(cacheControl()).build();
+    }
+
+    /** Caches may keep tiles but must check they are still current before using them. */
+    private static CacheControl cacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+}
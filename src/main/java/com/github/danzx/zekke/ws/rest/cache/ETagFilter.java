@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.cache;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.service.WaypointDataVersion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tags GET responses with the version of the waypoints collection and answers matching
+ * If-None-Match requests with 304 Not Modified before the endpoint runs. The tag also depends on
+ * the Accept and Accept-Encoding headers so each representation and content coding of a resource
+ * gets its own tag. Resources with an {@code area} query parameter are tagged with the version of
+ * that area so changes elsewhere don't invalidate them; the rest use the version of every waypoint.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@ETagged
+@Provider
+@Priority(Priorities.USER)
+public class ETagFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ETagFilter.class);
+    private static final String ETAG_PROPERTY = ETagFilter.class.getName() + ".etag";
+    private static final String ANY_ETAG = "*";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String AREA_PARAM = "area";
+    private static final ConcurrentMap<Method, Boolean> AREA_SCOPED_METHODS = new ConcurrentHashMap<>();
+
+    private @Context WaypointDataVersion dataVersion;
+    private @Context ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) return;
+        EntityTag etag = currentETag(requestContext);
+        if (matches(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), etag)) {
+            log.debug("Not modified: {}", etag);
+            requestContext.abortWith(Response.notModified(etag).cacheControl(cacheControl()).build());
+        } else requestContext.setProperty(ETAG_PROPERTY, etag);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        Object etag = requestContext.getProperty(ETAG_PROPERTY);
+        if (etag == null || responseContext.getStatus() != Response.Status.OK.getStatusCode()) return;
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, cacheControl());
+    }
+
+    private EntityTag currentETag(ContainerRequestContext requestContext) {
+        String accept = requestContext.getHeaderString(HttpHeaders.ACCEPT);
+        String acceptEncoding = requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+        return new EntityTag(currentDataVersion(requestContext) + '-' + Integer.toHexString(Objects.hash(accept, acceptEncoding)));
+    }
+
+    private String currentDataVersion(ContainerRequestContext requestContext) {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        if (method == null || !AREA_SCOPED_METHODS.computeIfAbsent(method, ETagFilter::hasAreaParam)) return dataVersion.current();
+        String area = requestContext.getUriInfo().getQueryParameters().getFirst(AREA_PARAM);
+        return dataVersion.current(area == null ? Waypoint.DEFAULT_AREA : area);
+    }
+
+    private static boolean hasAreaParam(Method method) {
+        for (Annotation[] annotations : method.getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof QueryParam && AREA_PARAM.equals(((QueryParam) annotation).value())) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Weak comparison, as If-None-Match requires. */
+    private static boolean matches(String ifNoneMatch, EntityTag etag) {
+        if (ifNoneMatch == null) return false;
+        String expected = '"' + etag.getValue() + '"';
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_ETAG_PREFIX)) tag = tag.substring(WEAK_ETAG_PREFIX.length());
+            if (ANY_ETAG.equals(tag) || expected.equals(tag)) return true;
+        }
+        return false;
+    }
+
+    /** Caches may keep responses but must check they are still current before using them. */
+    private static CacheControl cacheControl() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+
+    public void setDataVersion(WaypointDataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    public void setResourceInfo(ResourceInfo resourceInfo) {
+        this.resourceInfo = resourceInfo;
+    }
+}
@@ -21,32 +21,67 @@ import com.github.danzx.zekke.transformer.Transformer;
 import com.github.danzx.zekke.ws.rest.model.Poi;
 import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
 import com.github.danzx.zekke.ws.rest.model.Walkway;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2PoiTransformer;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2TypedWaypointTransformer;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2WalkwayTransformer;
 
 import ma.glasnost.orika.MapperFacade;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * RESTful model transformer configuration.
+ * RESTful model transformer configuration. The implementation is chosen with the
+ * {@code transformer.implementation} property: {@code direct} (default) for hand-written
+ * transformers or {@code orika} for reflective Orika mappings.
  * 
  * @author Daniel Pedraza-Arcega
  */
 @Configuration
 public class ModelTransformerConfig {
 
-    @Bean
-    public Transformer<Waypoint, Poi> waypointToPoiTransformer(MapperFacade mapperFacade) {
-        return new WaypointOrikaTransformer<>(mapperFacade, Poi.class);
-    }
+    private static final String IMPLEMENTATION_PROPERTY = "transformer.implementation";
+
+    /** Hand-written transformers. */
+    @Configuration
+    @ConditionalOnProperty(name = IMPLEMENTATION_PROPERTY, havingValue = "direct", matchIfMissing = true)
+    public static class DirectTransformerConfig {
+
+        @Bean
+        public Transformer<Waypoint, Poi> waypointToPoiTransformer() {
+            return new Waypoint2PoiTransformer();
+        }
+
+        @Bean
+        public Transformer<Waypoint, Walkway> waypointToWalkwayTransformer() {
+            return new Waypoint2WalkwayTransformer();
+        }
 
-    @Bean
-    public Transformer<Waypoint, Walkway> waypointToWalkwayTransformer(MapperFacade mapperFacade) {
-        return new WaypointOrikaTransformer<>(mapperFacade, Walkway.class);
+        @Bean
+        public Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer() {
+            return new Waypoint2TypedWaypointTransformer();
+        }
     }
 
-    @Bean
-    public Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer(MapperFacade mapperFacade) {
-        return new WaypointOrikaTransformer<>(mapperFacade, TypedWaypoint.class);
+    /** Orika transformers. */
+    @Configuration
+    @ConditionalOnProperty(name = IMPLEMENTATION_PROPERTY, havingValue = "orika")
+    public static class OrikaTransformerConfig {
+
+        @Bean
+        public Transformer<Waypoint, Poi> waypointToPoiTransformer(MapperFacade mapperFacade) {
+            return new WaypointOrikaTransformer<>(mapperFacade, Poi.class);
+        }
+
+        @Bean
+        public Transformer<Waypoint, Walkway> waypointToWalkwayTransformer(MapperFacade mapperFacade) {
+            return new WaypointOrikaTransformer<>(mapperFacade, Walkway.class);
+        }
+
+        @Bean
+        public Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer(MapperFacade mapperFacade) {
+            return new WaypointOrikaTransformer<>(mapperFacade, TypedWaypoint.class);
+        }
     }
 }
@@ -16,14 +16,19 @@
 package com.github.danzx.zekke.ws.rest.config;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import com.github.danzx.zekke.ws.rest.MediaTypeObjectMappers;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 /**
- * Jackson ObjectMapper configuration.
+ * Jackson ObjectMapper configuration. The binary mappers share the JSON mapper settings.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -32,8 +37,25 @@ public class ObjectMapperConfig {
 
     @Bean
     public ObjectMapper objectMapperCustomizer() {
+        return objectMapperBuilder().build();
+    }
+
+    @Bean
+    public MediaTypeObjectMappers mediaTypeObjectMappers(ObjectMapper objectMapper) {
+        return new MediaTypeObjectMappers(
+                objectMapper,
+                binaryObjectMapper(new CBORFactory()),
+                binaryObjectMapper(new SmileFactory()));
+    }
+
+    private static ObjectMapper binaryObjectMapper(JsonFactory factory) {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapperBuilder().configure(objectMapper);
+        return objectMapper;
+    }
+
+    private static Jackson2ObjectMapperBuilder objectMapperBuilder() {
         return new Jackson2ObjectMapperBuilder()
-                .serializationInclusion(Include.NON_NULL)
-                .build();
+                .serializationInclusion(Include.NON_NULL);
     }
 }
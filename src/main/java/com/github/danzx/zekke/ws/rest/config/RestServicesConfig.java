@@ -17,20 +17,30 @@ package com.github.danzx.zekke.ws.rest.config;
 
 import javax.ws.rs.ApplicationPath;
 
+import com.github.danzx.zekke.ws.rest.BinaryJacksonProvider;
 import com.github.danzx.zekke.ws.rest.api.ErrorEndpoint;
 import com.github.danzx.zekke.ws.rest.api.JwtAuthenticationEndpoint;
+import com.github.danzx.zekke.ws.rest.api.MetricsEndpoint;
+import com.github.danzx.zekke.ws.rest.api.RouteEndpoint;
+import com.github.danzx.zekke.ws.rest.api.WaypointBulkEndpoint;
 import com.github.danzx.zekke.ws.rest.api.WaypointEndpoint;
+import com.github.danzx.zekke.ws.rest.api.WaypointEventEndpoint;
+import com.github.danzx.zekke.ws.rest.api.WaypointTileEndpoint;
+import com.github.danzx.zekke.ws.rest.cache.ETagFilter;
 import com.github.danzx.zekke.ws.rest.errormapper.AppExceptionMapper;
 import com.github.danzx.zekke.ws.rest.errormapper.ConstraintViolationExceptionMapper;
 import com.github.danzx.zekke.ws.rest.errormapper.GenericExceptionMapper;
 import com.github.danzx.zekke.ws.rest.errormapper.InvalidPathParamExceptionMapper;
 import com.github.danzx.zekke.ws.rest.errormapper.JsonMappingExceptionMapper;
+import com.github.danzx.zekke.ws.rest.errormapper.RejectedExecutionExceptionMapper;
 import com.github.danzx.zekke.ws.rest.errormapper.ResourceNotFoundExceptionMapper;
+import com.github.danzx.zekke.ws.rest.metrics.ResourceMetricsListener;
 import com.github.danzx.zekke.ws.rest.patch.jsonpatch.JsonPatchReader;
 import com.github.danzx.zekke.ws.rest.security.jwt.filter.JwtAuthenticationFilter;
 
 import org.glassfish.jersey.CommonProperties;
 import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
 import org.springframework.stereotype.Component;
@@ -48,6 +58,7 @@ public class RestServicesConfig extends ResourceConfig {
         // Disable auto discovery because some default mappers mess up with this application's
         property(CommonProperties.FEATURE_AUTO_DISCOVERY_DISABLE, true);
         register(JacksonFeature.class);
+        register(SseFeature.class);
 
         /*
          * There is a limitation in Jersey's classpath scanning that raises a
@@ -56,14 +67,20 @@ public class RestServicesConfig extends ResourceConfig {
          */
         registerEndpoints();
         registerExceptionMappers();
-        registerBodyReaders();
+        registerBodyProviders();
         registerFilters();
+        registerListeners();
     }
 
     private void registerEndpoints() {
         register(ErrorEndpoint.class);
         register(JwtAuthenticationEndpoint.class);
+        register(MetricsEndpoint.class);
+        register(RouteEndpoint.class);
+        register(WaypointBulkEndpoint.class);
         register(WaypointEndpoint.class);
+        register(WaypointEventEndpoint.class);
+        register(WaypointTileEndpoint.class);
     }
 
     private void registerExceptionMappers() {
@@ -72,14 +89,21 @@ public class RestServicesConfig extends ResourceConfig {
         register(GenericExceptionMapper.class);
         register(InvalidPathParamExceptionMapper.class);
         register(JsonMappingExceptionMapper.class);
+        register(RejectedExecutionExceptionMapper.class);
         register(ResourceNotFoundExceptionMapper.class);
     }
 
-    private void registerBodyReaders() {
+    private void registerBodyProviders() {
+        register(BinaryJacksonProvider.class);
         register(JsonPatchReader.class);
     }
 
     private void registerFilters() {
         register(JwtAuthenticationFilter.class);
+        register(ETagFilter.class);
+    }
+
+    private void registerListeners() {
+        register(ResourceMetricsListener.class);
     }
 }
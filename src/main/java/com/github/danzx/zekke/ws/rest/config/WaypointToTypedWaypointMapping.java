@@ -16,6 +16,7 @@
 package com.github.danzx.zekke.ws.rest.config;
 
 import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.ws.rest.model.Path;
 import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
 import ma.glasnost.orika.CustomMapper;
 import ma.glasnost.orika.MapperFactory;
@@ -24,7 +25,7 @@ import net.rakugakibox.spring.boot.orika.OrikaMapperFactoryConfigurer;
 import org.springframework.stereotype.Component;
 
 /**
- * Waypoint to TypedWalkway Orika mapping config.
+ * Waypoint to TypedWalkway (and their paths) Orika mapping config.
  * 
  * @author Daniel Pedraza-Arcega
  */
@@ -33,6 +34,9 @@ public class WaypointToTypedWaypointMapping implements OrikaMapperFactoryConfigu
 
     @Override
     public void configure(MapperFactory mapperFactory) {
+        mapperFactory.classMap(com.github.danzx.zekke.domain.Path.class, Path.class)
+            .byDefault()
+            .register();
         mapperFactory.classMap(Waypoint.class, TypedWaypoint.class)
             .exclude("name")
             .customize(new CustomMapper<Waypoint, TypedWaypoint>() {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+import com.github.danzx.zekke.metrics.MetricsRegistry;
+import com.github.danzx.zekke.metrics.Timer;
+
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Times every request that matched a resource method, from the moment Jersey receives it until
+ * the response is fully written, so streamed responses are measured too. Timers are named after
+ * the endpoint class and method.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Provider
+public class ResourceMetricsListener implements ApplicationEventListener {
+
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+    private @Context MetricsRegistry metricsRegistry;
+
+    @Override
+    public void onEvent(ApplicationEvent event) { }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        long start = System.nanoTime();
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) record(event, start);
+        };
+    }
+
+    private void record(RequestEvent event, long start) {
+        ResourceMethod resourceMethod = event.getUriInfo().getMatchedResourceMethod();
+        if (resourceMethod == null) return;
+        timerFor(resourceMethod.getInvocable().getHandlingMethod()).recordSince(start);
+    }
+
+    private Timer timerFor(Method method) {
+        Timer timer = timers.get(method);
+        return timer != null ? timer : timers.computeIfAbsent(method, 
+                m -> metricsRegistry.timer(MetricsRegistry.HTTP_CATEGORY, m.getDeclaringClass().getSimpleName() + '.' + m.getName()));
+    }
+
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.model;
+
+import java.util.List;
+
+/**
+ * Bulk import response object.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class BulkImportReport {
+
+    private int received;
+    private int imported;
+    private List<Failure> failures;
+
+    /** @return how many items were read from the request body. */
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    /** @return how many items were persisted. */
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    @Override
+    public String toString() {
+        return "{ received=" + received + ", imported=" + imported + ", failures=" + failures + " }";
+    }
+
+    /** An item that couldn't be imported. */
+    public static class Failure {
+
+        private int index;
+        private String message;
+
+        public static Failure of(int index, String message) {
+            Failure failure = new Failure();
+            failure.index = index;
+            failure.message = message;
+            return failure;
+        }
+
+        /** @return the zero-based position of the item in the request body. */
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "{ index=" + index + ", message=" + message + " }";
+        }
+    }
+}
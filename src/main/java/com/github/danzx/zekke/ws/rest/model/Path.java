@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.model;
+
+import java.util.Objects;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Path request/response object.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Path {
+
+    @NotNull private Long toWaypoint;
+    @DecimalMin("0") private Double distance;
+
+    public Long getToWaypoint() {
+        return toWaypoint;
+    }
+
+    public void setToWaypoint(Long toWaypoint) {
+        this.toWaypoint = toWaypoint;
+    }
+
+    /** @return the length of this path in meters or null if it should be measured in a straight line. */
+    public Double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(Double distance) {
+        this.distance = distance;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+        Path other = (Path) obj;
+        return Objects.equals(toWaypoint, other.toWaypoint) && 
+               Objects.equals(distance, other.distance);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(toWaypoint, distance);
+    }
+
+    @Override
+    public String toString() {
+        return "{ toWaypoint=" + toWaypoint + ", distance=" + distance + " }";
+    }
+}
@@ -15,6 +15,9 @@
  */
 package com.github.danzx.zekke.ws.rest.model;
 
+import java.util.List;
+
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 import com.github.danzx.zekke.domain.Waypoint.Type;
@@ -30,6 +33,10 @@ public class TypedWaypoint extends BaseWaypoint {
 
     private String name;
 
+    @Valid private List<Path> paths;
+
+    private String area;
+
     public Type getType() {
         return type;
     }
@@ -46,8 +53,25 @@ public class TypedWaypoint extends BaseWaypoint {
         this.name = name;
     }
 
+    public List<Path> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<Path> paths) {
+        this.paths = paths;
+    }
+
+    /** @return the area of the waypoint or null to use the default area. */
+    public String getArea() {
+        return area;
+    }
+
+    public void setArea(String area) {
+        this.area = area;
+    }
+
     @Override
     public String toString() {
-        return "{ id=" + getId() + ", name=" + name + ", location=" + getLocation() + ", type=" + type + " }";
+        return "{ id=" + getId() + ", name=" + name + ", location=" + getLocation() + ", type=" + type + ", paths=" + paths + ", area=" + area + " }";
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.model;
+
+import java.util.List;
+
+/**
+ * A page of waypoint changes for clients that keep a copy of the waypoints.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class WaypointChanges {
+
+    private List<TypedWaypoint> upserts;
+    private List<Long> deletions;
+    private long cursor;
+    private boolean hasMore;
+
+    /** @return the waypoints to add or replace. */
+    public List<TypedWaypoint> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<TypedWaypoint> upserts) {
+        this.upserts = upserts;
+    }
+
+    /** @return the ids of the waypoints to remove. */
+    public List<Long> getDeletions() {
+        return deletions;
+    }
+
+    public void setDeletions(List<Long> deletions) {
+        this.deletions = deletions;
+    }
+
+    /** @return the value of {@code since} to get the next page. */
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    /** @return if there are more changes after the cursor. */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "{ upserts=" + upserts + ", deletions=" + deletions + ", cursor=" + cursor + ", hasMore=" + hasMore + " }";
+    }
+}
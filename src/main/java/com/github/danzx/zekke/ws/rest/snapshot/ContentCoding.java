@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.snapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP content codings a snapshot is kept in.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public enum ContentCoding {
+    IDENTITY("identity"), 
+    GZIP("gzip"), 
+    DEFLATE("deflate");
+
+    private static final String ANY_CODING = "*";
+    private static final String X_GZIP = "x-gzip";
+
+    private final String name;
+
+    private ContentCoding(String name) {
+        this.name = name;
+    }
+
+    /** @return the name used in Accept-Encoding and Content-Encoding headers. */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Picks the coding of a response from the values of the Accept-Encoding header. Gzip is
+     * preferred over deflate when both are acceptable. Identity is used when neither is.
+     * 
+     * @param acceptEncodings the Accept-Encoding header values, may be {@code null}.
+     * @return the preferred coding.
+     */
+    public static ContentCoding preferred(List<String> acceptEncodings) {
+        if (acceptEncodings == null) return IDENTITY;
+        Map<String, Float> qualities = new HashMap<>();
+        for (String header : acceptEncodings) {
+            for (String element : header.split(",")) parse(element, qualities);
+        }
+        if (isAcceptable(qualities, GZIP.name, X_GZIP)) return GZIP;
+        if (isAcceptable(qualities, DEFLATE.name)) return DEFLATE;
+        return IDENTITY;
+    }
+
+    private static void parse(String element, Map<String, Float> qualities) {
+        String[] parts = element.split(";");
+        String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+        if (coding.isEmpty()) return;
+        float quality = 1f;
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    quality = Float.parseFloat(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    quality = 0f;
+                }
+            }
+        }
+        qualities.put(coding, quality);
+    }
+
+    /** The first coding name present wins, then the wildcard. */
+    private static boolean isAcceptable(Map<String, Float> qualities, String... names) {
+        Float quality = null;
+        for (int i = 0; i < names.length && quality == null; i++) quality = qualities.get(names[i]);
+        if (quality == null) quality = qualities.get(ANY_CODING);
+        return quality != null && quality > 0f;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.snapshot;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A serialized response body kept in every {@link ContentCoding}, compressed once with the best
+ * compression so it can be written as is to any number of clients. The arrays are shared, never
+ * modify them.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class WaypointSnapshot {
+
+    private final String version;
+    private final Map<ContentCoding, byte[]> bodies;
+
+    private WaypointSnapshot(String version, Map<ContentCoding, byte[]> bodies) {
+        this.version = version;
+        this.bodies = bodies;
+    }
+
+    /**
+     * @param version the version of the waypoints collection the body was read at.
+     * @param body the uncompressed body.
+     * @return a new snapshot with the body compressed in every coding.
+     */
+    public static WaypointSnapshot of(String version, byte[] body) {
+        requireNonNull(version);
+        requireNonNull(body);
+        Map<ContentCoding, byte[]> bodies = new EnumMap<>(ContentCoding.class);
+        bodies.put(ContentCoding.IDENTITY, body);
+        bodies.put(ContentCoding.GZIP, compress(body, ContentCoding.GZIP));
+        bodies.put(ContentCoding.DEFLATE, compress(body, ContentCoding.DEFLATE));
+        return new WaypointSnapshot(version, bodies);
+    }
+
+    /** @return the version of the waypoints collection the body was read at. */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @param coding a content coding.
+     * @return the body in the given coding.
+     */
+    public byte[] encodedWith(ContentCoding coding) {
+        return bodies.get(requireNonNull(coding));
+    }
+
+    private static byte[] compress(byte[] body, ContentCoding coding) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try {
+            if (coding == ContentCoding.GZIP) gzip(body, compressed);
+            else deflate(body, compressed);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void gzip(byte[] body, OutputStream compressed) throws IOException {
+        try (GZIPOutputStream output = new BestGzipOutputStream(compressed)) {
+            output.write(body);
+        }
+    }
+
+    private static void deflate(byte[] body, OutputStream compressed) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream output = new DeflaterOutputStream(compressed, deflater)) {
+            output.write(body);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** GZIPOutputStream has no constructor taking the compression level. */
+    private static class BestGzipOutputStream extends GZIPOutputStream {
+
+        BestGzipOutputStream(OutputStream output) throws IOException {
+            super(output);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.snapshot;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.service.WaypointDataVersion;
+import com.github.danzx.zekke.service.WaypointService;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.JsonArrayStreamingOutput;
+import com.github.danzx.zekke.ws.rest.RawWaypointJsonStreamingOutput.Representation;
+import com.github.danzx.zekke.ws.rest.model.Poi;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.model.Walkway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the JSON of the unfiltered waypoint listings serialized and compressed so the requests
+ * every client makes at launch are answered by copying bytes. Snapshots are rebuilt in the
+ * background after every waypoint change and are only handed out while they match the current
+ * version of their area in {@link WaypointDataVersion}; until then the listings are read as usual.
+ * Each area has its own snapshots and a change only rebuilds the ones of the areas it touched.
+ * Changes of unknown area make every snapshot stale and they are rebuilt when requested again.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class WaypointSnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointSnapshots.class);
+    /** {@code []} */
+    private static final int EMPTY_ARRAY_LENGTH = 2;
+
+    private final WaypointService waypointService;
+    private final Transformer<Waypoint, Poi> waypointToPoiTransformer;
+    private final Transformer<Waypoint, Walkway> waypointToWalkwayTransformer;
+    private final Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+    private final ObjectMapper objectMapper;
+    private final WaypointDataVersion dataVersion;
+    private final Executor executor;
+    private final Set<String> rebuildsScheduled = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Map<Representation, WaypointSnapshot>> snapshotsByArea = new ConcurrentHashMap<>();
+
+    public @Inject WaypointSnapshots(WaypointService waypointService,
+            Transformer<Waypoint, Poi> waypointToPoiTransformer,
+            Transformer<Waypoint, Walkway> waypointToWalkwayTransformer,
+            Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            ObjectMapper objectMapper,
+            WaypointDataVersion dataVersion) {
+        this(waypointService, waypointToPoiTransformer, waypointToWalkwayTransformer, waypointToTypedWaypointTransformer, objectMapper, dataVersion, 
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "waypoint-snapshots");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    WaypointSnapshots(WaypointService waypointService,
+            Transformer<Waypoint, Poi> waypointToPoiTransformer,
+            Transformer<Waypoint, Walkway> waypointToWalkwayTransformer,
+            Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            ObjectMapper objectMapper,
+            WaypointDataVersion dataVersion,
+            Executor executor) {
+        this.waypointService = requireNonNull(waypointService);
+        this.waypointToPoiTransformer = requireNonNull(waypointToPoiTransformer);
+        this.waypointToWalkwayTransformer = requireNonNull(waypointToWalkwayTransformer);
+        this.waypointToTypedWaypointTransformer = requireNonNull(waypointToTypedWaypointTransformer);
+        this.objectMapper = requireNonNull(objectMapper);
+        this.dataVersion = requireNonNull(dataVersion);
+        this.executor = requireNonNull(executor);
+    }
+
+    /**
+     * Finds the current snapshot of an unfiltered listing. When there is none, a rebuild is
+     * scheduled.
+     * 
+     * @param area the area of the listing.
+     * @param representation the representation of the listing.
+     * @return the snapshot if it matches the current version of the waypoints or an empty optional.
+     */
+    public Optional<WaypointSnapshot> find(String area, Representation representation) {
+        requireNonNull(representation);
+        Map<Representation, WaypointSnapshot> snapshots = snapshotsByArea.get(requireNonNull(area));
+        WaypointSnapshot snapshot = snapshots == null ? null : snapshots.get(representation);
+        if (snapshot != null && snapshot.getVersion().equals(dataVersion.current(area))) return Optional.of(snapshot);
+        scheduleRebuild(area);
+        return Optional.empty();
+    }
+
+    @EventListener
+    public void onWaypointChange(WaypointChangeEvent event) {
+        event.getAreas().forEach(this::scheduleRebuild);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) ((ExecutorService) executor).shutdownNow();
+    }
+
+    /**
+     * Changes while a rebuild runs schedule another one, so at most one is waiting at any time for
+     * each area.
+     */
+    private void scheduleRebuild(String area) {
+        if (!rebuildsScheduled.add(area)) return;
+        try {
+            executor.execute(() -> rebuild(area));
+        } catch (RejectedExecutionException ex) {
+            rebuildsScheduled.remove(area);
+            log.warn("Waypoint snapshot rebuild rejected", ex);
+        }
+    }
+
+    /**
+     * Snapshots are tagged with the version read before the waypoints, never a newer one. Both
+     * are read from the primary: a lagging secondary could hand out waypoints older than the tag.
+     */
+    private void rebuild(String area) {
+        rebuildsScheduled.remove(area);
+        String version = dataVersion.current(area);
+        try {
+            Map<Representation, WaypointSnapshot> rebuilt = new EnumMap<>(Representation.class);
+            rebuilt.put(Representation.TYPED_WAYPOINT, snapshot(version, area, null, waypointToTypedWaypointTransformer));
+            rebuilt.put(Representation.POI, snapshot(version, area, Type.POI, waypointToPoiTransformer));
+            rebuilt.put(Representation.WALKWAY, snapshot(version, area, Type.WALKWAY, waypointToWalkwayTransformer));
+            if (isEmpty(rebuilt.get(Representation.TYPED_WAYPOINT))) snapshotsByArea.remove(area);
+            else snapshotsByArea.put(area, rebuilt);
+            log.info("Waypoint snapshots of area {} rebuilt at version {}", area, version);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Couldn't rebuild waypoint snapshots of area " + area, ex);
+        }
+    }
+
+    /** Areas without waypoints are not kept so unknown areas take no memory. */
+    private static boolean isEmpty(WaypointSnapshot snapshot) {
+        return snapshot.encodedWith(ContentCoding.IDENTITY).length <= EMPTY_ARRAY_LENGTH;
+    }
+
+    private <T> WaypointSnapshot snapshot(String version, String area, Type type, Transformer<Waypoint, T> transformer) throws IOException {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().inArea(area).byType(type).fromPrimary().build();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new JsonArrayStreamingOutput<>(waypointService.streamWaypoints(filterOptions).map(transformer::convertAtoB), objectMapper).write(body);
+        return WaypointSnapshot.of(version, body.toByteArray());
+    }
+}
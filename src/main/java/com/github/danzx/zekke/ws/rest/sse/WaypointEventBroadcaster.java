@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.sse;
+
+import static java.util.Collections.singletonMap;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends waypoint changes to server-sent event subscribers. Each change is serialized once on a
+ * background thread and queued to the subscribers whose filters accept it; every subscriber has
+ * its own bounded queue that writer threads drain, so a slow subscriber never delays the others
+ * and is disconnected when its queue is full. A comment is sent periodically to keep connections
+ * open through proxies and to find the clients that went away.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+@Component
+public class WaypointEventBroadcaster {
+
+    static final String SAVED_EVENT = "saved";
+    static final String DELETED_EVENT = "deleted";
+    static final String LEFT_EVENT = "left";
+
+    private static final Logger log = LoggerFactory.getLogger(WaypointEventBroadcaster.class);
+    private static final OutboundEvent HEARTBEAT = new OutboundEvent.Builder().comment("heartbeat").build();
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int queueSize;
+    private final Executor executor;
+    private final Executor writerExecutor;
+
+    public @Inject WaypointEventBroadcaster(Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            ObjectMapper objectMapper,
+            @Value("${waypoint.events.max_subscribers}") int maxSubscribers,
+            @Value("${waypoint.events.queue_size}") int queueSize,
+            @Value("${waypoint.events.heartbeat_seconds}") long heartbeatSeconds) {
+        this(waypointToTypedWaypointTransformer, objectMapper, maxSubscribers, queueSize, 
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "waypoint-events");
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                // Threads only live while subscribers have events pending
+                Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "waypoint-events-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+        ((ScheduledExecutorService) executor).scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    WaypointEventBroadcaster(Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer,
+            ObjectMapper objectMapper,
+            int maxSubscribers,
+            int queueSize,
+            Executor executor,
+            Executor writerExecutor) {
+        if (queueSize < 1) throw new IllegalArgumentException("queueSize must be positive");
+        this.waypointToTypedWaypointTransformer = requireNonNull(waypointToTypedWaypointTransformer);
+        this.objectMapper = requireNonNull(objectMapper);
+        this.maxSubscribers = maxSubscribers;
+        this.queueSize = queueSize;
+        this.executor = requireNonNull(executor);
+        this.writerExecutor = requireNonNull(writerExecutor);
+    }
+
+    /**
+     * Subscribes an output to the waypoint changes. Subscribers get a {@code left} event when a
+     * waypoint they were sent is saved outside their filters and a {@code deleted} event when it's
+     * deleted; deletions of waypoints whose previous state is unknown are sent to every subscriber.
+     * 
+     * @param output where the events are written.
+     * @param area only waypoints saved in this area are sent.
+     * @param bbox if not {@code null} only waypoints saved within this rectangle are sent.
+     * @param type if not {@code null} only waypoints saved with this type are sent.
+     * @return the given output.
+     * @throws RejectedExecutionException if there are too many subscribers already.
+     */
+    public EventOutput subscribe(EventOutput output, String area, BoundingBox bbox, Type type) {
+        requireNonNull(output);
+        requireNonNull(area);
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new RejectedExecutionException("Too many waypoint event subscribers");
+        }
+        subscriptions.add(new Subscription(output, area, bbox, type, queueSize));
+        log.debug("Subscribed to waypoint events, area: {}, bbox: {}, type: {}", area, bbox, type);
+        return output;
+    }
+
+    @EventListener
+    public void onWaypointChange(WaypointChangeEvent event) {
+        if (subscriptions.isEmpty()) return;
+        try {
+            executor.execute(() -> broadcast(event));
+        } catch (RejectedExecutionException ex) {
+            log.warn("Waypoint event not broadcast", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) ((ExecutorService) executor).shutdownNow();
+        if (writerExecutor instanceof ExecutorService) ((ExecutorService) writerExecutor).shutdownNow();
+        for (Subscription subscription : subscriptions) unsubscribe(subscription);
+    }
+
+    /** @return the number of subscribers. */
+    int subscribers() {
+        return subscribers.get();
+    }
+
+    void heartbeat() {
+        for (Subscription subscription : subscriptions) enqueue(subscription, HEARTBEAT);
+    }
+
+    private void broadcast(WaypointChangeEvent event) {
+        OutboundEvent saved;
+        OutboundEvent removed;
+        try {
+            saved = event.getChange() == WaypointChangeEvent.Change.SAVED ? savedEvent(event.getWaypoint()) : null;
+            removed = removedEvent(event);
+        } catch (JsonProcessingException ex) {
+            log.error("Couldn't serialize waypoint event", ex);
+            return;
+        }
+        Waypoint previous = event.getPrevious().orElse(null);
+        for (Subscription subscription : subscriptions) {
+            boolean acceptedBefore = previous != null && subscription.accepts(previous);
+            if (saved == null) {
+                if (previous == null || acceptedBefore) enqueue(subscription, removed);
+            } else if (subscription.accepts(event.getWaypoint())) enqueue(subscription, saved);
+            else if (acceptedBefore) enqueue(subscription, removed);
+        }
+    }
+
+    /** The data is already JSON so it's written as plain text. */
+    private OutboundEvent savedEvent(Waypoint waypoint) throws JsonProcessingException {
+        OutboundEvent.Builder builder = new OutboundEvent.Builder().mediaType(MediaType.TEXT_PLAIN_TYPE);
+        if (waypoint.getVersion() != null) builder.id(waypoint.getVersion().toString());
+        return builder.name(SAVED_EVENT)
+                .data(String.class, objectMapper.writeValueAsString(waypointToTypedWaypointTransformer.convertAtoB(waypoint)))
+                .build();
+    }
+
+    /** What subscribers that can no longer see the waypoint get. */
+    private OutboundEvent removedEvent(WaypointChangeEvent event) throws JsonProcessingException {
+        return new OutboundEvent.Builder().mediaType(MediaType.TEXT_PLAIN_TYPE)
+                .name(event.getChange() == WaypointChangeEvent.Change.DELETED ? DELETED_EVENT : LEFT_EVENT)
+                .data(String.class, objectMapper.writeValueAsString(singletonMap("id", event.getWaypoint().getId())))
+                .build();
+    }
+
+    private void enqueue(Subscription subscription, OutboundEvent event) {
+        if (!subscription.pending.offer(event)) {
+            log.info("Waypoint event subscriber too slow, disconnecting it");
+            unsubscribe(subscription);
+            return;
+        }
+        if (!subscription.draining.compareAndSet(false, true)) return;
+        try {
+            writerExecutor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException ex) {
+            subscription.draining.set(false);
+            log.warn("Waypoint events not written", ex);
+        }
+    }
+
+    /** Events queued after the last poll but before draining is released are drained again here. */
+    private void drain(Subscription subscription) {
+        do {
+            OutboundEvent event;
+            while ((event = subscription.pending.poll()) != null) {
+                if (!write(subscription, event)) return;
+            }
+            subscription.draining.set(false);
+        } while (!subscription.pending.isEmpty() && subscription.draining.compareAndSet(false, true));
+    }
+
+    private boolean write(Subscription subscription, OutboundEvent event) {
+        if (subscription.output.isClosed()) {
+            unsubscribe(subscription);
+            return false;
+        }
+        try {
+            subscription.output.write(event);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Waypoint event subscriber gone: {}", ex.getMessage());
+            unsubscribe(subscription);
+            return false;
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (!subscriptions.remove(subscription)) return;
+        subscribers.decrementAndGet();
+        subscription.pending.clear();
+        try {
+            subscription.output.close();
+        } catch (IOException ex) {
+            log.debug("Couldn't close waypoint event output", ex);
+        }
+    }
+
+    /** A subscriber, its filters and the events waiting to be written to it. */
+    private static class Subscription {
+
+        private final EventOutput output;
+        private final String area;
+        private final BoundingBox bbox;
+        private final Type type;
+        private final BlockingQueue<OutboundEvent> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(EventOutput output, String area, BoundingBox bbox, Type type, int queueSize) {
+            this.output = output;
+            this.area = area;
+            this.bbox = bbox;
+            this.type = type;
+            pending = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        boolean accepts(Waypoint waypoint) {
+            return area.equals(waypoint.getArea()) && 
+                    (type == null || type == waypoint.getType()) && 
+                    (bbox == null || (waypoint.getLocation() != null && bbox.contains(waypoint.getLocation())));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.transformer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.model.BaseWaypoint;
+
+/**
+ * Base waypoint to model transformer that copies the fields every model has. Null fields are
+ * not copied, like the Orika mappings with {@code orika.mapNulls=false}.
+ * 
+ * @author Daniel Pedraza-Arcega
+ *
+ * @param <B> the model type.
+ */
+abstract class BaseWaypointModelTransformer<B extends BaseWaypoint> implements Transformer<Waypoint, B> {
+
+    @Override
+    public B convertAtoB(Waypoint source) {
+        if (source == null) return null;
+        B target = newModel();
+        target.setId(source.getId());
+        target.setLocation(source.getLocation());
+        copyToModel(source, target);
+        return target;
+    }
+
+    @Override
+    public Waypoint convertBtoA(B source) {
+        if (source == null) return null;
+        Waypoint target = new Waypoint();
+        target.setId(source.getId());
+        if (source.getLocation() != null) target.setLocation(source.getLocation());
+        copyToWaypoint(source, target);
+        return target;
+    }
+
+    @Override
+    public List<B> convertListAtoListB(List<Waypoint> sourceList) {
+        requireNonNull(sourceList);
+        List<B> targetList = new ArrayList<>(sourceList.size());
+        for (Waypoint source : sourceList) targetList.add(convertAtoB(source));
+        return targetList;
+    }
+
+    @Override
+    public List<Waypoint> convertListBtoListA(List<B> sourceList) {
+        requireNonNull(sourceList);
+        List<Waypoint> targetList = new ArrayList<>(sourceList.size());
+        for (B source : sourceList) targetList.add(convertBtoA(source));
+        return targetList;
+    }
+
+    /** @return a new empty model. */
+    protected abstract B newModel();
+
+    /**
+     * Copies the fields specific to the model.
+     * 
+     * @param source the waypoint.
+     * @param target the model with id and location already set.
+     */
+    protected abstract void copyToModel(Waypoint source, B target);
+
+    /**
+     * Copies the fields specific to the model.
+     * 
+     * @param source the model.
+     * @param target the waypoint with id and location already set.
+     */
+    protected abstract void copyToWaypoint(B source, Waypoint target);
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.ws.rest.model.Path;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+
+/**
+ * Transforms Waypoints to TypedWaypoints and viceversa.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Waypoint2TypedWaypointTransformer extends BaseWaypointModelTransformer<TypedWaypoint> {
+
+    @Override
+    protected TypedWaypoint newModel() {
+        return new TypedWaypoint();
+    }
+
+    @Override
+    protected void copyToModel(Waypoint source, TypedWaypoint target) {
+        target.setName(source.getName().orElse(null));
+        target.setType(source.getType());
+        if (source.getPaths() != null) target.setPaths(toModelPaths(source.getPaths()));
+        target.setArea(source.getArea());
+    }
+
+    @Override
+    protected void copyToWaypoint(TypedWaypoint source, Waypoint target) {
+        target.setName(source.getName());
+        if (source.getType() != null) target.setType(source.getType());
+        target.setPaths(source.getPaths() == null ? null : toDomainPaths(source.getPaths()));
+        if (source.getArea() != null) target.setArea(source.getArea());
+    }
+
+    private static List<Path> toModelPaths(List<com.github.danzx.zekke.domain.Path> sourcePaths) {
+        List<Path> targetPaths = new ArrayList<>(sourcePaths.size());
+        for (com.github.danzx.zekke.domain.Path source : sourcePaths) targetPaths.add(source == null ? null : toModelPath(source));
+        return targetPaths;
+    }
+
+    private static Path toModelPath(com.github.danzx.zekke.domain.Path source) {
+        Path target = new Path();
+        target.setToWaypoint(source.getToWaypoint());
+        target.setDistance(source.getDistance());
+        return target;
+    }
+
+    private static List<com.github.danzx.zekke.domain.Path> toDomainPaths(List<Path> sourcePaths) {
+        List<com.github.danzx.zekke.domain.Path> targetPaths = new ArrayList<>(sourcePaths.size());
+        for (Path source : sourcePaths) targetPaths.add(source == null ? null : com.github.danzx.zekke.domain.Path.to(source.getToWaypoint(), source.getDistance()));
+        return targetPaths;
+    }
+}
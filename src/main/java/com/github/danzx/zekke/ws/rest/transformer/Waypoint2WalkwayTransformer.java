@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.transformer;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.ws.rest.model.Walkway;
+
+/**
+ * Transforms Waypoints to walkways and viceversa.
+ * 
+ * @author Daniel Pedraza-Arcega
+ */
+public class Waypoint2WalkwayTransformer extends BaseWaypointModelTransformer<Walkway> {
+
+    @Override
+    protected Walkway newModel() {
+        return new Walkway();
+    }
+
+    @Override
+    protected void copyToModel(Waypoint source, Walkway target) { }
+
+    @Override
+    protected void copyToWaypoint(Walkway source, Waypoint target) {
+        target.setType(Type.WALKWAY);
+    }
+}
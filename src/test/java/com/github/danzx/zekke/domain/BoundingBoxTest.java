@@ -77,6 +77,16 @@ public class BoundingBoxTest {
         assertThatThrownBy(() -> BoundingBox.fromString("sdfsdf")).isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    public void shouldContainCoordinatesInsideOrOnTheEdges() {
+        BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(19.0, -98.3), Coordinates.ofLatLng(19.1, -98.2));
+
+        assertThat(bbox.contains(Coordinates.ofLatLng(19.05, -98.25))).isTrue();
+        assertThat(bbox.contains(Coordinates.ofLatLng(19.0, -98.2))).isTrue();
+        assertThat(bbox.contains(Coordinates.ofLatLng(19.11, -98.25))).isFalse();
+        assertThat(bbox.contains(Coordinates.ofLatLng(19.05, -98.31))).isFalse();
+    }
+
     private static BoundingBox newBoundingBox() {
         return BoundingBox.ofBottomTop(
                 Coordinates.ofLatLng(19.054492, -98.283176), 
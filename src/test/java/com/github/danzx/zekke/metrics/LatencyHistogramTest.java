@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportZerosWhenEmpty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getMean()).isZero();
+        assertThat(snapshot.getValueAtQuantile(.99)).isZero();
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) histogram.record(value * 1_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(100_000);
+        assertThat(snapshot.getMax()).isEqualTo(100_000_000);
+        assertThat(snapshot.getMean()).isCloseTo(50_000_500, within(1d));
+        assertThat((double) snapshot.getValueAtQuantile(.5)).isCloseTo(50_000_000, within(1_500_000d));
+        assertThat((double) snapshot.getValueAtQuantile(.95)).isCloseTo(95_000_000, within(2_850_000d));
+        assertThat((double) snapshot.getValueAtQuantile(.99)).isCloseTo(99_000_000, within(2_970_000d));
+        assertThat(snapshot.getValueAtQuantile(1)).isEqualTo(100_000_000);
+    }
+
+    @Test
+    public void shouldRecordSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getValueAtQuantile(.5)).isEqualTo(3);
+        assertThat(snapshot.getValueAtQuantile(1)).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldClampOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getValueAtQuantile(0)).isZero();
+        assertThat(snapshot.getMax()).isEqualTo(LatencyHistogram.MAX_VALUE);
+        assertThat(snapshot.getValueAtQuantile(1)).isEqualTo(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldBucketBoundariesBeContiguous() {
+        for (int index = 1; index <= LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE); index++) {
+            long lowest = LatencyHistogram.highestValueAt(index - 1) + 1;
+            assertThat(LatencyHistogram.indexOf(lowest)).isEqualTo(index);
+            assertThat(LatencyHistogram.indexOf(LatencyHistogram.highestValueAt(index))).isEqualTo(index);
+        }
+    }
+
+    @Test
+    public void shouldRecordConcurrently() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int value = 0; value < 10_000; value++) histogram.record(value);
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertThat(histogram.snapshot().getCount()).isEqualTo(40_000);
+    }
+
+    @Test
+    public void shouldRejectInvalidQuantiles() {
+        Throwable thrown = catchThrowable(() -> new LatencyHistogram().snapshot().getValueAtQuantile(1.5));
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.transformer.orika.WaypointOrikaTransformer;
+import com.github.danzx.zekke.security.jwt.JwtFactory;
+import com.github.danzx.zekke.security.jwt.SigningKeyHolder;
+import com.github.danzx.zekke.security.jwt.jjwt.JjwtFactory;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.ws.rest.model.Poi;
+
+import ma.glasnost.orika.MapperFacade;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+public class MetricsBeanPostProcessorTest extends BaseMockitoTest {
+
+    private @Mock MapperFacade mapperFacade;
+
+    private MetricsRegistry registry;
+    private MetricsBeanPostProcessor postProcessor;
+
+    @Before
+    public void setUp() {
+        registry = new MetricsRegistry();
+        postProcessor = new MetricsBeanPostProcessor(registry);
+    }
+
+    @Test
+    public void shouldTimeTransformersKeepingTheirConcreteType() {
+        Waypoint waypoint = new Waypoint();
+        Poi poi = new Poi();
+        when(mapperFacade.map(waypoint, Poi.class)).thenReturn(poi);
+        Object bean = postProcessor.postProcessAfterInitialization(new WaypointOrikaTransformer<>(mapperFacade, Poi.class), "waypointToPoiTransformer");
+
+        assertThat(bean).isInstanceOf(WaypointOrikaTransformer.class);
+        @SuppressWarnings("unchecked")
+        WaypointOrikaTransformer<Poi> transformer = (WaypointOrikaTransformer<Poi>) bean;
+        assertThat(transformer.convertAtoB(waypoint)).isSameAs(poi);
+        verify(mapperFacade).map(waypoint, Poi.class);
+        assertThat(registry.snapshot())
+            .extracting(TimerSnapshot::getCategory, TimerSnapshot::getOperation, TimerSnapshot::getCount)
+            .containsOnly(tuple(MetricsRegistry.TRANSFORMER_CATEGORY, "waypointToPoiTransformer.convertAtoB", 1L));
+    }
+
+    @Test
+    public void shouldTimeJwtFactories() {
+        JjwtFactory factory = new JjwtFactory(1L, "testIssuer", new SigningKeyHolder("keys/test1.key"));
+        JwtFactory bean = (JwtFactory) postProcessor.postProcessAfterInitialization(factory, "jjwtFactory");
+
+        assertThat(bean.newToken(User.Role.ANONYMOUS)).isNotEmpty();
+        assertThat(bean.toString()).isNotEmpty();
+        assertThat(registry.snapshot())
+            .extracting(TimerSnapshot::getOperation)
+            .containsOnly("jjwtFactory.newToken");
+    }
+
+    @Test
+    public void shouldLeaveOtherBeansAlone() {
+        Object bean = new Object();
+
+        assertThat(postProcessor.postProcessBeforeInitialization(bean, "bean")).isSameAs(bean);
+        assertThat(postProcessor.postProcessAfterInitialization(bean, "bean")).isSameAs(bean);
+        assertThat(registry.snapshot()).isEmpty();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    private AtomicLong nanoClock;
+    private MetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        nanoClock = new AtomicLong();
+        registry = new MetricsRegistry(nanoClock::get);
+    }
+
+    @Test
+    public void shouldReuseTimers() {
+        assertThat(registry.timer("dao", "find")).isSameAs(registry.timer("dao", "find"));
+        assertThat(registry.timer("dao", "find")).isNotSameAs(registry.timer("http", "find"));
+    }
+
+    @Test
+    public void shouldSnapshotTimersSortedWithThroughput() {
+        registry.timer("http", "b").record(TimeUnit.MILLISECONDS.toNanos(4));
+        registry.timer("dao", "a").record(TimeUnit.MILLISECONDS.toNanos(2));
+        registry.timer("http", "a").record(TimeUnit.MILLISECONDS.toNanos(1));
+        registry.timer("http", "a").record(TimeUnit.MILLISECONDS.toNanos(3));
+        nanoClock.set(TimeUnit.SECONDS.toNanos(2));
+
+        List<TimerSnapshot> snapshots = registry.snapshot();
+
+        assertThat(snapshots)
+            .extracting(TimerSnapshot::getCategory, TimerSnapshot::getOperation, TimerSnapshot::getCount)
+            .containsExactly(tuple("dao", "a", 1L), tuple("http", "a", 2L), tuple("http", "b", 1L));
+        TimerSnapshot httpA = snapshots.get(1);
+        assertThat(httpA.getThroughput()).isEqualTo(1);
+        assertThat(httpA.getTotalMillis()).isEqualTo(4);
+        assertThat(httpA.getMeanMillis()).isEqualTo(2);
+        assertThat(httpA.getP50Millis()).isCloseTo(1, within(.03));
+        assertThat(httpA.getP99Millis()).isCloseTo(3, within(.09));
+        assertThat(httpA.getMaxMillis()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldSnapshotCachesSortedByName() {
+        registry.registerCache(() -> new CacheStats("b", 1, 2, 3, 4));
+        registry.registerCache(() -> new CacheStats("a", 5, 6, 7, 8));
+
+        assertThat(registry.cacheSnapshot())
+            .extracting(CacheStats::getName, CacheStats::getSize, CacheStats::getHits)
+            .containsExactly(tuple("a", 5, 6L), tuple("b", 1, 2L));
+    }
+}
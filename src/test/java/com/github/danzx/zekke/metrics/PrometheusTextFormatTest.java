@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.metrics;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PrometheusTextFormatTest {
+
+    @Test
+    public void shouldWriteOneSummaryPerCategory() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("dao", "waypointDao.findById").record(TimeUnit.MILLISECONDS.toNanos(2));
+        registry.timer("http", "WaypointEndpoint.getPois").record(TimeUnit.MILLISECONDS.toNanos(1));
+        registry.timer("http", "RouteEndpoint.\"route\"").record(0);
+
+        String text = PrometheusTextFormat.write(registry.snapshot());
+
+        assertThat(text.split("\n")).containsExactly(
+                "# HELP zekke_dao_duration_seconds Duration of dao calls.",
+                "# TYPE zekke_dao_duration_seconds summary",
+                "zekke_dao_duration_seconds{operation=\"waypointDao.findById\",quantile=\"0.5\"} 0.002000000",
+                "zekke_dao_duration_seconds{operation=\"waypointDao.findById\",quantile=\"0.95\"} 0.002000000",
+                "zekke_dao_duration_seconds{operation=\"waypointDao.findById\",quantile=\"0.99\"} 0.002000000",
+                "zekke_dao_duration_seconds_sum{operation=\"waypointDao.findById\"} 0.002000000",
+                "zekke_dao_duration_seconds_count{operation=\"waypointDao.findById\"} 1",
+                "# HELP zekke_http_duration_seconds Duration of http calls.",
+                "# TYPE zekke_http_duration_seconds summary",
+                "zekke_http_duration_seconds{operation=\"RouteEndpoint.\\\"route\\\"\",quantile=\"0.5\"} 0.000000000",
+                "zekke_http_duration_seconds{operation=\"RouteEndpoint.\\\"route\\\"\",quantile=\"0.95\"} 0.000000000",
+                "zekke_http_duration_seconds{operation=\"RouteEndpoint.\\\"route\\\"\",quantile=\"0.99\"} 0.000000000",
+                "zekke_http_duration_seconds_sum{operation=\"RouteEndpoint.\\\"route\\\"\"} 0.000000000",
+                "zekke_http_duration_seconds_count{operation=\"RouteEndpoint.\\\"route\\\"\"} 1",
+                "zekke_http_duration_seconds{operation=\"WaypointEndpoint.getPois\",quantile=\"0.5\"} 0.001000000",
+                "zekke_http_duration_seconds{operation=\"WaypointEndpoint.getPois\",quantile=\"0.95\"} 0.001000000",
+                "zekke_http_duration_seconds{operation=\"WaypointEndpoint.getPois\",quantile=\"0.99\"} 0.001000000",
+                "zekke_http_duration_seconds_sum{operation=\"WaypointEndpoint.getPois\"} 0.001000000",
+                "zekke_http_duration_seconds_count{operation=\"WaypointEndpoint.getPois\"} 1");
+    }
+
+    @Test
+    public void shouldWriteOneMetricPerCacheStatistic() {
+        String text = PrometheusTextFormat.writeCaches(asList(new CacheStats("queries", 1, 2, 3, 4)));
+
+        assertThat(text.split("\n")).containsExactly(
+                "# HELP zekke_cache_size Entries in the cache.",
+                "# TYPE zekke_cache_size gauge",
+                "zekke_cache_size{cache=\"queries\"} 1",
+                "# HELP zekke_cache_hits_total Lookups that found an entry.",
+                "# TYPE zekke_cache_hits_total counter",
+                "zekke_cache_hits_total{cache=\"queries\"} 2",
+                "# HELP zekke_cache_misses_total Lookups that didn't find an entry.",
+                "# TYPE zekke_cache_misses_total counter",
+                "zekke_cache_misses_total{cache=\"queries\"} 3",
+                "# HELP zekke_cache_evictions_total Entries evicted to make room.",
+                "# TYPE zekke_cache_evictions_total counter",
+                "zekke_cache_evictions_total{cache=\"queries\"} 4");
+        assertThat(PrometheusTextFormat.writeCaches(emptyList())).isEmpty();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+public class InMemoryIndexedWaypointDaoTest extends BaseMockitoTest {
+
+    private static final BoundingBox BBOX = BoundingBox.ofBottomTop(Coordinates.ofLatLng(19.0, -98.3), Coordinates.ofLatLng(19.1, -98.2));
+
+    private @Mock WaypointDao delegate;
+
+    private InMemoryIndexedWaypointDao dao;
+    private Waypoint poi;
+
+    @Before
+    public void setUp() {
+        poi = newWaypoint(1L, "Library", Type.POI, 19.05, -98.25);
+        when(delegate.findAreas()).thenReturn(asList(Waypoint.DEFAULT_AREA));
+        when(delegate.findFiltered(any())).thenReturn(asList(poi));
+        dao = new InMemoryIndexedWaypointDao(delegate, 0.005);
+        dao.reload();
+    }
+
+    @Test
+    public void shouldAnswerBoundingBoxQueriesFromTheIndex() {
+        WaypointFilterOptions options = new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).byType(Type.POI).build();
+        assertThat(dao.findFiltered(options)).containsOnly(poi);
+        verify(delegate).findAreas();
+        verify(delegate).findFiltered(any());
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void shouldAnswerAsyncQueriesOnTheCallingThread() {
+        WaypointFilterOptions options = new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).byType(Type.POI).build();
+        Executor rejectingExecutor = task -> { throw new RejectedExecutionException(); };
+        assertThat(dao.findFilteredAsync(options, rejectingExecutor).toCompletableFuture().getNow(null)).containsOnly(poi);
+    }
+
+    @Test
+    public void shouldAnswerNameQueriesFromTheIndex() {
+        WaypointFilterOptions options = new WaypointFilterOptions.Builder().withNameContaining("LIB").onlyIdAndName().build();
+        assertThat(dao.findFiltered(options))
+            .extracting(Waypoint::getId, Waypoint::getName)
+            .containsOnly(tuple(1L, Optional.of("Library")));
+        verify(delegate).findAreas();
+        verify(delegate).findFiltered(any());
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void shouldKeepNameIndexUpToDate() {
+        Waypoint renamed = newWaypoint(1L, "Área de comida", Type.POI, 19.05, -98.25);
+        dao.saveOrUpdate(renamed);
+        WaypointFilterOptions options = new WaypointFilterOptions.Builder().withNameContaining("area").build();
+        assertThat(dao.findFiltered(options)).containsOnly(renamed);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withNameContaining("lib").build())).isEmpty();
+
+        dao.deleteById(1L);
+        assertThat(dao.findFiltered(options)).isEmpty();
+    }
+
+    @Test
+    public void shouldStreamBoundingBoxQueriesFromTheIndex() {
+        WaypointFilterOptions options = new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).build();
+        assertThat(dao.streamFiltered(options)).containsOnly(poi);
+        verify(delegate, never()).streamFiltered(any());
+    }
+
+    @Test
+    public void shouldAnswerNearQueriesFromTheIndex() {
+        Waypoint walkway = newWaypoint(2L, null, Type.WALKWAY, 19.0501, -98.2501);
+        dao.saveOrUpdate(walkway);
+        LocationWaypointFilterOptions options = LocationWaypointFilterOptions.Builder.nearLocation(Coordinates.ofLatLng(19.0502, -98.2502)).build();
+        assertThat(dao.findNearALocationFiltered(options)).containsExactly(walkway, poi);
+        verify(delegate, never()).findNearALocationFiltered(any());
+    }
+
+    @Test
+    public void shouldIndexSavedWaypoints() {
+        Waypoint walkway = newWaypoint(2L, null, Type.WALKWAY, 19.06, -98.26);
+        dao.saveOrUpdate(walkway);
+        verify(delegate).saveOrUpdate(walkway);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).build())).containsOnly(poi, walkway);
+    }
+
+    @Test
+    public void shouldIndexOnlyTheInsertedWaypoints() {
+        Waypoint inserted = newWaypoint(2L, null, Type.WALKWAY, 19.06, -98.26);
+        Waypoint failed = newWaypoint(3L, "Gym", Type.POI, 19.07, -98.27);
+        when(delegate.insertAll(asList(inserted, failed))).thenReturn(singletonMap(1, "bulk.duplicate.key.error"));
+        assertThat(dao.insertAll(asList(inserted, failed))).containsOnlyKeys(1);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).build())).containsOnly(poi, inserted);
+    }
+
+    @Test
+    public void shouldLeaveChangeQueriesToTheDelegate() {
+        List<WaypointTombstone> tombstones = asList(WaypointTombstone.of(3L, 8L));
+        when(delegate.findChangedSince(5L, 10)).thenReturn(asList(poi));
+        when(delegate.findDeletedSince(5L, 10)).thenReturn(tombstones);
+        when(delegate.findStableVersion()).thenReturn(8L);
+
+        assertThat(dao.findChangedSince(5L, 10)).containsExactly(poi);
+        assertThat(dao.findDeletedSince(5L, 10)).isEqualTo(tombstones);
+        assertThat(dao.findStableVersion()).isEqualTo(8L);
+    }
+
+    @Test
+    public void shouldLeaveDataVersionsToTheDelegate() {
+        when(delegate.findDataVersion()).thenReturn(4L);
+        when(delegate.findDataVersion("north")).thenReturn(2L);
+
+        dao.markChanged(singleton("north"));
+
+        verify(delegate).markChanged(singleton("north"));
+        assertThat(dao.findDataVersion()).isEqualTo(4L);
+        assertThat(dao.findDataVersion("north")).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldRemoveDeletedWaypointsFromTheIndex() {
+        when(delegate.deleteById(poi.getId())).thenReturn(true);
+        assertThat(dao.deleteById(poi.getId())).isTrue();
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).build())).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepEachAreaInItsOwnIndexes() {
+        Waypoint otherCampus = newWaypoint(2L, "Library annex", Type.POI, 19.05, -98.25);
+        otherCampus.setArea("north");
+        dao.saveOrUpdate(otherCampus);
+
+        assertThat(dao.findAreas()).containsExactly(Waypoint.DEFAULT_AREA, "north");
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withinBoundingBox(BBOX).build())).containsOnly(poi);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().inArea("north").withinBoundingBox(BBOX).build())).containsOnly(otherCampus);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().inArea("north").withNameContaining("lib").build())).containsOnly(otherCampus);
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().inArea("south").build())).isEmpty();
+    }
+
+    @Test
+    public void shouldMoveWaypointsThatChangeArea() {
+        Waypoint moved = newWaypoint(1L, "Library", Type.POI, 19.05, -98.25);
+        moved.setArea("north");
+        dao.saveOrUpdate(moved);
+
+        assertThat(dao.findFiltered(new WaypointFilterOptions.Builder().withNameContaining("lib").build())).isEmpty();
+        assertThat(dao.findNearALocationFiltered(LocationWaypointFilterOptions.Builder.nearLocation(Coordinates.ofLatLng(19.05, -98.25)).build())).isEmpty();
+        assertThat(dao.findNearALocationFiltered(LocationWaypointFilterOptions.Builder.nearLocation(Coordinates.ofLatLng(19.05, -98.25)).inArea("north").build()))
+            .containsOnly(moved);
+    }
+
+    private static Waypoint newWaypoint(long id, String name, Type type, double latitude, double longitude) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName(name);
+        waypoint.setType(type);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        return waypoint;
+    }
+}
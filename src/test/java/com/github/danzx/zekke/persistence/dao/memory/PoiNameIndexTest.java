@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static java.util.Arrays.asList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoiNameIndexTest {
+
+    private PoiNameIndex index;
+
+    @Before
+    public void setUp() {
+        index = new PoiNameIndex();
+        index.replaceAll(asList(
+                newWaypoint(1L, "Área de comida", Type.POI, 19.05, -98.25),
+                newWaypoint(2L, "Cancha de beisbol", Type.POI, 19.06, -98.26),
+                newWaypoint(3L, "Biblioteca", Type.POI, 19.07, -98.27),
+                newWaypoint(4L, "Área", Type.POI, 19.08, -98.28),
+                newWaypoint(5L, "Estacionamiento del área norte", Type.POI, 19.09, -98.29),
+                newWaypoint(6L, "Explanada", Type.POI, 19.10, -98.30),
+                newWaypoint(7L, null, Type.WALKWAY, 19.05, -98.25)));
+    }
+
+    @Test
+    public void shouldIndexOnlyNamedPois() {
+        assertThat(index.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void shouldIgnoreAccentsAndCase() {
+        assertThat(index.find("AREA", null, null)).containsOnly(1L, 4L, 5L);
+        assertThat(index.find("béis", null, null)).containsOnly(2L);
+    }
+
+    @Test
+    public void shouldRankExactThenPrefixThenWordPrefixThenContains() {
+        index.put(newWaypoint(8L, "Subárea", Type.POI, 19.11, -98.31));
+        assertThat(index.find("área", null, null)).containsExactly(4L, 1L, 5L, 8L);
+    }
+
+    @Test
+    public void shouldMatchQueriesShorterThanATrigram() {
+        assertThat(index.find("ex", null, null)).containsExactly(6L);
+        assertThat(index.find("a", null, null)).hasSize(6);
+    }
+
+    @Test
+    public void shouldReturnTopResultsOnly() {
+        assertThat(index.find("a", null, 2)).containsExactly(4L, 1L);
+    }
+
+    @Test
+    public void shouldFilterByBoundingBox() {
+        BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(19.075, -98.295), Coordinates.ofLatLng(19.095, -98.275));
+        assertThat(index.find("area", bbox, null)).containsExactly(4L, 5L);
+    }
+
+    @Test
+    public void shouldReturnEmptyWhenNoNameMatches() {
+        assertThat(index.find("gimnasio", null, null)).isEmpty();
+        assertThat(index.find("aza", null, null)).isEmpty();
+    }
+
+    @Test
+    public void shouldUpdateAndRemoveNames() {
+        index.put(newWaypoint(3L, "Biblioteca central", Type.POI, 19.07, -98.27));
+        assertThat(index.find("central", null, null)).containsExactly(3L);
+        index.put(newWaypoint(3L, null, Type.WALKWAY, 19.07, -98.27));
+        assertThat(index.find("biblio", null, null)).isEmpty();
+        index.remove(1L);
+        assertThat(index.find("comida", null, null)).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private static Waypoint newWaypoint(long id, String name, Type type, double latitude, double longitude) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName(name);
+        waypoint.setType(type);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        return waypoint;
+    }
+}
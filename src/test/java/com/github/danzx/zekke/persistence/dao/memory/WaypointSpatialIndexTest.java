@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.memory;
+
+import static com.github.danzx.zekke.util.GeoDistances.haversine;
+
+import static java.util.Arrays.asList;
+import static java.util.Comparator.comparingDouble;
+import static java.util.stream.Collectors.toList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.persistence.dao.memory.WaypointSpatialIndex.Neighbor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WaypointSpatialIndexTest {
+
+    private static final BoundingBox BBOX = BoundingBox.ofBottomTop(Coordinates.ofLatLng(19.0, -98.3), Coordinates.ofLatLng(19.1, -98.2));
+
+    private final Waypoint poi = newWaypoint(1L, "Library", Type.POI, 19.05, -98.25);
+    private final Waypoint walkway = newWaypoint(2L, null, Type.WALKWAY, 19.051, -98.251);
+    private final Waypoint outside = newWaypoint(3L, "Far away", Type.POI, 20.0, -99.0);
+    private final Waypoint eastOfAntimeridian = newWaypoint(4L, "East", Type.POI, 0.0, -179.5);
+    private final Waypoint westOfAntimeridian = newWaypoint(5L, "West", Type.POI, 0.0, 179.5);
+
+    private WaypointSpatialIndex index;
+
+    @Before
+    public void setUp() {
+        index = new WaypointSpatialIndex(0.005);
+        index.replaceAll(asList(poi, walkway, outside, eastOfAntimeridian, westOfAntimeridian));
+    }
+
+    @Test
+    public void shouldFindWaypointsWithinBoundingBox() {
+        assertThat(index.find(BBOX, null, null, false)).containsOnly(poi, walkway);
+    }
+
+    @Test
+    public void shouldFindWaypointsWithinBoundingBoxAndType() {
+        assertThat(index.find(BBOX, Type.WALKWAY, null, false)).containsOnly(walkway);
+    }
+
+    @Test
+    public void shouldFindAllWaypointsWhenNoBoundingBox() {
+        assertThat(index.find(null, null, null, false)).hasSize(5);
+        assertThat(index.find(null, Type.WALKWAY, null, false)).containsOnly(walkway);
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        assertThat(index.find(null, null, 2, false)).hasSize(2);
+        assertThat(index.find(BBOX, null, 1, false)).hasSize(1);
+    }
+
+    @Test
+    public void shouldFindWaypointsWithinBoundingBoxThatCrossesTheAntimeridian() {
+        BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(-1.0, 179.0), Coordinates.ofLatLng(1.0, -179.0));
+        assertThat(index.find(bbox, null, null, false)).containsOnly(eastOfAntimeridian, westOfAntimeridian);
+    }
+
+    @Test
+    public void shouldFindWaypointsWithinLargeBoundingBox() {
+        BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(-89.0, -179.0), Coordinates.ofLatLng(89.0, 179.0));
+        assertThat(index.find(bbox, Type.POI, null, false)).containsOnly(poi, outside);
+    }
+
+    @Test
+    public void shouldProjectOnlyIdAndName() {
+        List<Waypoint> results = index.find(BBOX, Type.POI, null, true);
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getId()).isEqualTo(poi.getId());
+        assertThat(results.get(0).getName()).isEqualTo(poi.getName());
+        assertThat(results.get(0).getType()).isNull();
+        assertThat(results.get(0).getLocation()).isNull();
+    }
+
+    @Test
+    public void shouldReplaceWaypointWhenPutExistingId() {
+        Waypoint moved = newWaypoint(poi.getId(), "Library", Type.POI, 20.0, -99.0);
+        index.put(moved);
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.find(BBOX, null, null, false)).containsOnly(walkway);
+    }
+
+    @Test
+    public void shouldRemoveWaypointAndReuseItsSlot() {
+        assertThat(index.remove(walkway.getId())).isTrue();
+        assertThat(index.remove(walkway.getId())).isFalse();
+        assertThat(index.find(BBOX, null, null, false)).containsOnly(poi);
+
+        Waypoint newWaypoint = newWaypoint(6L, null, Type.WALKWAY, 19.06, -98.26);
+        index.put(newWaypoint);
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.find(BBOX, null, null, false)).containsOnly(poi, newWaypoint);
+    }
+
+    @Test
+    public void shouldGrowWhenCapacityIsExceeded() {
+        index.replaceAll(asList());
+        for (long id = 1; id <= 500; id++) index.put(newWaypoint(id, null, Type.WALKWAY, 19.0 + id / 10_000.0, -98.25));
+        assertThat(index.size()).isEqualTo(500);
+        assertThat(index.find(BBOX, null, null, false)).hasSize(500);
+    }
+
+    @Test
+    public void shouldFindNearestWaypointsOrderedByDistance() {
+        List<Neighbor> neighbors = index.findNearest(Coordinates.ofLatLng(19.0511, -98.2511), 500, null, null);
+        assertThat(neighbors).extracting(Neighbor::getWaypoint).containsExactly(walkway, poi);
+        assertThat(neighbors.get(0).getDistance()).isLessThan(neighbors.get(1).getDistance());
+        assertThat(neighbors.get(1).getDistance()).isCloseTo(haversine(19.0511, -98.2511, 19.05, -98.25), within(1e-6));
+    }
+
+    @Test
+    public void shouldFindNearestWaypointsByTypeAndLimit() {
+        Coordinates location = Coordinates.ofLatLng(19.0511, -98.2511);
+        assertThat(index.findNearest(location, 500, Type.POI, null)).extracting(Neighbor::getWaypoint).containsExactly(poi);
+        assertThat(index.findNearest(location, 500, null, 1)).extracting(Neighbor::getWaypoint).containsExactly(walkway);
+    }
+
+    @Test
+    public void shouldNotFindNearestWaypointsBeyondMaxDistance() {
+        assertThat(index.findNearest(Coordinates.ofLatLng(19.0511, -98.2511), 10, null, null)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindNearestWaypointsAcrossTheAntimeridian() {
+        assertThat(index.findNearest(Coordinates.ofLatLng(0.0, 179.9), 100_000, null, null))
+            .extracting(Neighbor::getWaypoint)
+            .containsExactly(westOfAntimeridian, eastOfAntimeridian);
+    }
+
+    @Test
+    public void shouldFindTheSameNearestWaypointsAsABruteForceSearch() {
+        Random random = new Random(42);
+        List<Waypoint> waypoints = new ArrayList<>();
+        double[][] points = new double[2_000][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] { 19.0 + random.nextDouble() * 0.1, -98.3 + random.nextDouble() * 0.1 };
+            waypoints.add(newWaypoint(i, null, Type.WALKWAY, points[i][0], points[i][1]));
+        }
+        index.replaceAll(waypoints);
+        for (int i = 0; i < 50; i++) {
+            double latitude = 19.0 + random.nextDouble() * 0.1;
+            double longitude = -98.3 + random.nextDouble() * 0.1;
+            int k = 1 + random.nextInt(20);
+            double maxDistance = 100 + random.nextInt(5_000);
+            List<Long> expected = IntStream.range(0, points.length)
+                    .filter(id -> haversine(latitude, longitude, points[id][0], points[id][1]) <= maxDistance)
+                    .boxed()
+                    .sorted(comparingDouble(id -> haversine(latitude, longitude, points[id][0], points[id][1])))
+                    .limit(k)
+                    .map(Long::valueOf)
+                    .collect(toList());
+            Coordinates location = Coordinates.ofLatLng(latitude, longitude);
+            assertThat(index.findNearest(location, maxDistance, null, k)).extracting(neighbor -> neighbor.getWaypoint().getId()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenCellSizeIsInvalid() {
+        assertThatThrownBy(() -> new WaypointSpatialIndex(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Waypoint newWaypoint(long id, String name, Type type, double latitude, double longitude) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName(name);
+        waypoint.setType(type);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        return waypoint;
+    }
+}
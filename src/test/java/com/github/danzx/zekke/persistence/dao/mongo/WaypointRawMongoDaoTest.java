@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.mongo;
+
+import static java.util.stream.Collectors.toList;
+
+import static com.github.danzx.zekke.domain.BoundingBox.ofBottomTop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.persistence.dao.morphia.WaypointMorphiaCrudDao;
+import com.github.danzx.zekke.persistence.internal.mongo.Fields;
+import com.github.danzx.zekke.test.mongo.BaseSpringMongoTest;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+import org.bson.RawBsonDocument;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class WaypointRawMongoDaoTest extends BaseSpringMongoTest {
+
+    @Inject private WaypointRawMongoDao rawDao;
+    @Inject private WaypointMorphiaCrudDao waypointDao;
+
+    @Test
+    @Parameters(method = "waypointFilters")
+    public void shouldStreamTheSameWaypointsAsTheMorphiaDao(WaypointFilterOptions filterOptions) {
+        List<Long> expected = waypointDao.findFiltered(filterOptions).stream().map(Waypoint::getId).collect(toList());
+        try (Stream<RawBsonDocument> stream = rawDao.streamRawFiltered(filterOptions)) {
+            List<Long> actual = stream.map(document -> document.getInt64(Fields.Waypoint.ID).getValue()).collect(toList());
+            assertThat(actual).hasSameSizeAs(expected).containsOnlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void shouldProjectIdAndName() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).onlyIdAndName().build();
+        try (Stream<RawBsonDocument> stream = rawDao.streamRawFiltered(filterOptions)) {
+            assertThat(stream.collect(toList()))
+                .isNotEmpty()
+                .allMatch(document -> !document.containsKey(Fields.Waypoint.LOCATION) && !document.containsKey(Fields.Waypoint.TYPE));
+        }
+    }
+
+    public Object[] waypointFilters() {
+        return new Object[] {
+            new WaypointFilterOptions.Builder().build(),
+            new WaypointFilterOptions.Builder().byType(Type.WALKWAY).build(),
+            new WaypointFilterOptions.Builder().withNameContaining("ARA").build(),
+            new WaypointFilterOptions.Builder().limitResulsTo(2).build(),
+            new WaypointFilterOptions.Builder()
+                .withinBoundingBox(ofBottomTop(Coordinates.ofLatLng(19.437943, -104.018555), Coordinates.ofLatLng(21.373642, -100.832520)))
+                .byType(Type.POI)
+                .build()
+        };
+    }
+}
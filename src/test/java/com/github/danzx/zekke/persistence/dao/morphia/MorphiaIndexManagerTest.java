@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.morphia;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.query.Query;
+
+public class MorphiaIndexManagerTest extends BaseMockitoTest {
+
+    private static final Map<String, Object> INDEX_PLAN = plan(new BasicDBObject("stage", "FETCH").append("inputStage", new BasicDBObject("stage", "IXSCAN")));
+    private static final Map<String, Object> COLLECTION_SCAN_PLAN = plan(new BasicDBObject("stage", "COLLSCAN"));
+
+    private @Mock Datastore datastore;
+    private @Mock WaypointMorphiaCrudDao waypointDao;
+    private @Mock DBCollection collection;
+    private @Mock Query<Waypoint> filteredQuery;
+    private @Mock Query<Waypoint> nearQuery;
+
+    private Morphia morphia;
+
+    @Before
+    public void setUp() {
+        morphia = new Morphia().map(Waypoint.class);
+        when(datastore.getCollection(any())).thenReturn(collection);
+        when(collection.getIndexInfo()).thenReturn(asList(
+                new BasicDBObject("name", "_id_").append("key", new BasicDBObject("_id", 1)),
+                new BasicDBObject("name", "location_2dsphere").append("key", new BasicDBObject("location", "2dsphere"))));
+        when(waypointDao.createFilteredQuery(any())).thenReturn(filteredQuery);
+        when(waypointDao.createNearQuery(any())).thenReturn(nearQuery);
+        when(filteredQuery.explain()).thenReturn(INDEX_PLAN);
+        when(nearQuery.explain()).thenReturn(INDEX_PLAN);
+    }
+
+    @Test
+    public void shouldEnsureIndexesInTheBackground() {
+        newIndexManager(false).start();
+
+        verify(datastore).ensureIndexes(true);
+        verify(collection).getIndexInfo();
+    }
+
+    @Test
+    public void shouldFindNoCollectionScansWhenEveryQueryUsesAnIndex() {
+        assertThat(newIndexManager(false).verifyQueryPlans()).isEmpty();
+    }
+
+    @Test
+    public void shouldReportQueriesThatScanTheWholeCollection() {
+        when(nearQuery.explain()).thenReturn(COLLECTION_SCAN_PLAN);
+
+        assertThat(newIndexManager(false).verifyQueryPlans()).hasSize(2).allMatch(shape -> shape.contains("location"));
+    }
+
+    @Test
+    public void shouldFailOnCollectionScansWhenRequired() {
+        when(filteredQuery.explain()).thenReturn(COLLECTION_SCAN_PLAN);
+
+        assertThat(catchThrowable(() -> newIndexManager(true).start())).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldFindCollectionScansInAnyBranchOfThePlan() {
+        BasicDBObject or = new BasicDBObject("stage", "OR").append("inputStages", asList(new BasicDBObject("stage", "IXSCAN"), new BasicDBObject("stage", "COLLSCAN")));
+
+        assertThat(MorphiaIndexManager.usesCollectionScan(plan(or))).isTrue();
+        assertThat(MorphiaIndexManager.usesCollectionScan(INDEX_PLAN)).isFalse();
+    }
+
+    private MorphiaIndexManager newIndexManager(boolean failOnCollectionScan) {
+        return new MorphiaIndexManager(datastore, morphia, waypointDao, failOnCollectionScan, Runnable::run);
+    }
+
+    private static Map<String, Object> plan(BasicDBObject winningPlan) {
+        return singletonMap("queryPlanner", new BasicDBObject("winningPlan", winningPlan));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.dao.morphia;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.mongo.config.MongoDbSettings;
+import com.github.danzx.zekke.persistence.internal.mongo.MongoSequence;
+import com.github.danzx.zekke.persistence.internal.mongo.MongoSequenceManager;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.transformer.Transformer;
+
+import com.mongodb.ReadPreference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.Morphia;
+import org.mongodb.morphia.geo.Point;
+import org.mongodb.morphia.query.FieldEnd;
+import org.mongodb.morphia.query.FindOptions;
+import org.mongodb.morphia.query.Query;
+import org.mongodb.morphia.query.Shape;
+
+/** Queries against a replica set whose secondary lags behind the primary. */
+public class WaypointMorphiaCrudDaoReplicaTest extends BaseMockitoTest {
+
+    private static final long STABLE_VERSION = 7L;
+    private static final List<Long> PRIMARY_VERSIONS = asList(5L, 6L, 7L);
+    /** Version 6 committed after 7 and hasn't reached the secondary yet. */
+    private static final List<Long> SECONDARY_VERSIONS = asList(5L, 7L);
+
+    private @Mock Datastore datastore;
+    private @Mock Morphia morphia;
+    private @Mock MongoSequenceManager sequenceManager;
+    private @Mock Transformer<Coordinates, Point> coordinatesTransformer;
+    private @Mock Transformer<BoundingBox, Shape> boundingBoxTransformer;
+    private @Mock Query<Waypoint> waypointQuery;
+    private @Mock Query<WaypointTombstone> tombstoneQuery;
+    private @Mock FieldEnd<Query<Waypoint>> waypointVersionField;
+    private @Mock FieldEnd<Query<WaypointTombstone>> tombstoneVersionField;
+
+    private WaypointMorphiaCrudDao dao;
+
+    @Before
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void setUp() {
+        when(sequenceManager.getCurrentSequenceValue(MongoSequence.WAYPOINT_VERSION)).thenReturn(STABLE_VERSION);
+        when(datastore.createQuery(Waypoint.class)).thenReturn(waypointQuery);
+        when(waypointQuery.field(anyString())).thenReturn((FieldEnd) waypointVersionField);
+        when(waypointVersionField.greaterThan(anyObject())).thenReturn(waypointQuery);
+        when(waypointVersionField.equal(anyObject())).thenReturn(waypointQuery);
+        when(waypointQuery.order(anyString())).thenReturn(waypointQuery);
+        when(waypointQuery.asList(any(FindOptions.class))).thenAnswer(invocation -> 
+                replicaRead(invocation.getArgumentAt(0, FindOptions.class), this::newWaypoint));
+        when(datastore.createQuery(WaypointTombstone.class)).thenReturn(tombstoneQuery);
+        when(tombstoneQuery.field(anyString())).thenReturn((FieldEnd) tombstoneVersionField);
+        when(tombstoneVersionField.greaterThan(anyObject())).thenReturn(tombstoneQuery);
+        when(tombstoneQuery.order(anyString())).thenReturn(tombstoneQuery);
+        when(tombstoneQuery.asList(any(FindOptions.class))).thenAnswer(invocation -> 
+                replicaRead(invocation.getArgumentAt(0, FindOptions.class), version -> WaypointTombstone.of(version, version)));
+        MongoDbSettings settings = MongoDbSettings.builderFromDatabase("zekke").withReadPreference("secondaryPreferred").build();
+        dao = new WaypointMorphiaCrudDao(datastore, morphia, settings, sequenceManager, coordinatesTransformer, boundingBoxTransformer);
+    }
+
+    @Test
+    public void shouldNotSkipChangesBelowTheStableVersion() {
+        assertThat(dao.findStableVersion()).isEqualTo(STABLE_VERSION);
+        assertThat(dao.findChangedSince(4L, 10)).extracting(Waypoint::getVersion).containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    public void shouldNotSkipDeletionsBelowTheStableVersion() {
+        assertThat(dao.findStableVersion()).isEqualTo(STABLE_VERSION);
+        assertThat(dao.findDeletedSince(4L, 10)).extracting(WaypointTombstone::getVersion).containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    public void shouldReadFilteredWaypointsFromThePrimaryWhenAsked() {
+        WaypointFilterOptions.Builder filterOptions = new WaypointFilterOptions.Builder();
+
+        assertThat(dao.findFiltered(filterOptions.build())).extracting(Waypoint::getVersion).containsExactly(5L, 7L);
+        assertThat(dao.findFiltered(filterOptions.fromPrimary().build())).extracting(Waypoint::getVersion).containsExactly(5L, 6L, 7L);
+    }
+
+    /** Any read that may go to a secondary sees its lagging state. */
+    private static <T> List<T> replicaRead(FindOptions options, LongFunction<T> entityOfVersion) {
+        boolean primary = options.getReadPreference() == null || ReadPreference.primary().equals(options.getReadPreference());
+        return (primary ? PRIMARY_VERSIONS : SECONDARY_VERSIONS).stream()
+                .limit(options.getLimit() > 0 ? options.getLimit() : Integer.MAX_VALUE)
+                .map(entityOfVersion::apply)
+                .collect(toList());
+    }
+
+    private Waypoint newWaypoint(long version) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(version);
+        waypoint.setVersion(version);
+        return waypoint;
+    }
+}
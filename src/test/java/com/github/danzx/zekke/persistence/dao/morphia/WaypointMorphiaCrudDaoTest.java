@@ -17,6 +17,7 @@ package com.github.danzx.zekke.persistence.dao.morphia;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toList;
 
 import static com.github.danzx.zekke.domain.BoundingBox.ofBottomTop;
@@ -28,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -36,6 +38,7 @@ import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
 import com.github.danzx.zekke.domain.Coordinates;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointTombstone;
 import com.github.danzx.zekke.test.mongo.BaseSpringMongoTest;
 
 import junitparams.JUnitParamsRunner;
@@ -110,6 +113,82 @@ public class WaypointMorphiaCrudDaoTest extends BaseSpringMongoTest {
         assertThat(waypoint.get()).isEqualTo(newWalkway);
     }
 
+    @Test
+    public void shouldInsertAllAndReportOnlyTheFailedOnes() {
+        Waypoint newPoi = newWaypoint(null, "Somewhere", Type.POI, 55.3691, -70.1439);
+        Waypoint duplicated = newWaypoint(CDMX_ID, "Duplicated", Type.POI, 19.054492, -98.283176);
+        Waypoint newWalkway = newWaypoint(null, null, Type.WALKWAY, 55.3692, -70.144);
+
+        Map<Integer, String> failures = waypointDao.insertAll(asList(newPoi, duplicated, newWalkway));
+
+        assertThat(failures).containsOnlyKeys(1).containsEntry(1, "bulk.duplicate.key.error");
+        assertThat(waypointDao.findById(newPoi.getId())).contains(newPoi);
+        assertThat(waypointDao.findById(newWalkway.getId())).contains(newWalkway);
+        assertThat(waypointDao.findById(CDMX_ID)).contains(DATA.get(CDMX_ID));
+    }
+
+    @Test
+    public void shouldGiveEachWriteAGreaterVersion() {
+        Waypoint first = newWaypoint(null, "Somewhere", Type.POI, 55.3691, -70.1439);
+        Waypoint second = newWaypoint(null, null, Type.WALKWAY, 55.3692, -70.144);
+        waypointDao.saveOrUpdate(first);
+        long firstVersion = first.getVersion();
+        waypointDao.insertAll(asList(second));
+        waypointDao.saveOrUpdate(first);
+
+        assertThat(second.getVersion()).isGreaterThan(firstVersion);
+        assertThat(first.getVersion()).isGreaterThan(second.getVersion());
+        assertThat(waypointDao.findChangedSince(firstVersion, 10)).extracting(Waypoint::getId).containsExactly(second.getId(), first.getId());
+        assertThat(waypointDao.findChangedSince(firstVersion, 1)).extracting(Waypoint::getId).containsExactly(second.getId());
+        assertThat(waypointDao.findStableVersion()).isEqualTo(first.getVersion());
+    }
+
+    @Test
+    public void shouldGiveTheWaypointsOfABatchConsecutiveVersions() {
+        Waypoint first = newWaypoint(null, "Somewhere", Type.POI, 55.3691, -70.1439);
+        Waypoint second = newWaypoint(null, null, Type.WALKWAY, 55.3692, -70.144);
+        waypointDao.insertAll(asList(first, second));
+
+        assertThat(second.getVersion()).isEqualTo(first.getVersion() + 1);
+    }
+
+    @Test
+    public void shouldCountTheChangesOfEachArea() {
+        long all = waypointDao.findDataVersion();
+        long north = waypointDao.findDataVersion("north");
+        long south = waypointDao.findDataVersion("south");
+
+        waypointDao.markChanged(singleton("north"));
+
+        assertThat(waypointDao.findDataVersion()).isEqualTo(all + 1);
+        assertThat(waypointDao.findDataVersion("north")).isEqualTo(north + 1);
+        assertThat(waypointDao.findDataVersion("south")).isEqualTo(south);
+    }
+
+    @Test
+    public void shouldLeaveATombstoneWhenDeleting() {
+        Waypoint waypoint = newWaypoint(null, "Somewhere", Type.POI, 55.3691, -70.1439);
+        waypointDao.saveOrUpdate(waypoint);
+        assertThat(waypointDao.deleteById(waypoint.getId())).isTrue();
+        assertThat(waypointDao.deleteById(NOT_EXITING_WAYPOINT)).isFalse();
+
+        List<WaypointTombstone> tombstones = waypointDao.findDeletedSince(waypoint.getVersion(), 10);
+
+        assertThat(tombstones).extracting(WaypointTombstone::getId).containsExactly(waypoint.getId());
+        assertThat(tombstones.get(0).getVersion()).isGreaterThan(waypoint.getVersion());
+        assertThat(waypointDao.findChangedSince(waypoint.getVersion() - 1, 10)).isEmpty();
+    }
+
+    @Test
+    public void shouldAssignVersionsToUnversionedWaypoints() {
+        waypointDao.assignMissingVersions();
+
+        List<Waypoint> changed = waypointDao.findChangedSince(0L, DATA.size());
+
+        assertThat(changed).hasSameSizeAs(DATA.values()).containsOnlyElementsOf(DATA.values());
+        assertThat(changed).extracting(Waypoint::getVersion).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
     @Test
     public void shouldUpdateExistingWaypoint() {
         Waypoint waypointToUpdate = waypointDao.findById(CDMX_ID).get();
@@ -128,6 +207,15 @@ public class WaypointMorphiaCrudDaoTest extends BaseSpringMongoTest {
         assertThat(actual).isNotNull().hasSameSizeAs(expected).containsOnlyElementsOf(expected);
     }
 
+    @Test
+    @Parameters(method = "waypointFiltersAndFilteredResults")
+    public void shouldStreamWaypointsFiltered(WaypointFilterOptions filterOptions, List<Waypoint> expected) {
+        try (Stream<Waypoint> stream = waypointDao.streamFiltered(filterOptions)) {
+            List<Waypoint> actual = stream.collect(toList());
+            assertThat(actual).isNotNull().hasSameSizeAs(expected).containsOnlyElementsOf(expected);
+        }
+    }
+
     @Test
     @Parameters(method = "waypointLocationFiltersAndFilteredResults")
     public void shouldFindWaypointNearALocationFiltered(LocationWaypointFilterOptions filterOptions, List<Waypoint> expected) {
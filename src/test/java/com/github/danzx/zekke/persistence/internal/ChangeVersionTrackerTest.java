@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.persistence.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class ChangeVersionTrackerTest {
+
+    private static final Sequence VERSIONS = new Sequence() {
+        @Override
+        public String id() {
+            return "versions";
+        }
+
+        @Override
+        public int allocationSize() {
+            return 1;
+        }
+    };
+
+    private final InMemorySequenceManager sequenceManager = new InMemorySequenceManager();
+    private final ChangeVersionTracker tracker = new ChangeVersionTracker(sequenceManager, VERSIONS);
+
+    @Test
+    public void shouldReserveTheVersionsOfAWriteAtOnce() {
+        long first = tracker.write(5, version -> version);
+        long next = tracker.write(1, version -> version);
+
+        assertThat(first).isEqualTo(1L);
+        assertThat(next).isEqualTo(6L);
+        assertThat(sequenceManager.reservations.get()).isEqualTo(2);
+        assertThat(tracker.findStableVersion()).isEqualTo(6L);
+    }
+
+    @Test
+    public void shouldNotGoPastAnUnfinishedWrite() throws Exception {
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Long> slowWrite = CompletableFuture.supplyAsync(() -> tracker.write(1, version -> {
+            reserved.countDown();
+            await(release);
+            return version;
+        }));
+        reserved.await();
+        long fastVersion = tracker.write(1, version -> version);
+
+        assertThat(tracker.findStableVersion()).isLessThan(fastVersion).isEqualTo(0L);
+        release.countDown();
+        assertThat(slowWrite.get()).isEqualTo(1L);
+        assertThat(tracker.findStableVersion()).isEqualTo(fastVersion);
+    }
+
+    @Test
+    public void shouldFinishWritesThatFail() {
+        try {
+            tracker.write(1, version -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+
+        assertThat(tracker.findStableVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldNotLetASyncingReaderSkipChangesOfConcurrentWriters() throws Exception {
+        int writers = 8;
+        int writesPerWriter = 200;
+        NavigableSet<Long> committed = new ConcurrentSkipListSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < writesPerWriter; j++) {
+                    int count = ThreadLocalRandom.current().nextInt(1, 4);
+                    tracker.write(count, first -> {
+                        if (ThreadLocalRandom.current().nextInt(10) == 0) Thread.yield();
+                        for (long version = first; version < first + count; version++) committed.add(version);
+                        return null;
+                    });
+                }
+            }));
+        }
+
+        Set<Long> seen = new HashSet<>();
+        long cursor = 0;
+        while (!futures.stream().allMatch(Future::isDone)) cursor = sync(cursor, committed, seen);
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+        sync(cursor, committed, seen);
+
+        assertThat(seen).hasSameSizeAs(committed).containsAll(committed);
+    }
+
+    /** Reads like the change endpoint does: stable version first, then the changes after the cursor. */
+    private long sync(long cursor, NavigableSet<Long> committed, Set<Long> seen) {
+        long stableVersion = tracker.findStableVersion();
+        for (long version : committed.tailSet(cursor, false)) {
+            if (version > stableVersion) break;
+            seen.add(version);
+            cursor = version;
+        }
+        return cursor;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class InMemorySequenceManager implements SequenceManager {
+
+        private final AtomicLong value = new AtomicLong();
+        private final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public long getCurrentSequenceValue(Sequence sequence) {
+            return value.get();
+        }
+
+        @Override
+        public long getNextSequenceValue(Sequence sequence) {
+            return reserveSequenceValues(sequence, 1);
+        }
+
+        @Override
+        public long reserveSequenceValues(Sequence sequence, int count) {
+            reservations.incrementAndGet();
+            return value.addAndGet(count) - count + 1;
+        }
+
+        @Override
+        public void setSequenceValue(Sequence sequence, long newValue) {
+            value.set(newValue);
+        }
+    }
+}
@@ -17,10 +17,24 @@ package com.github.danzx.zekke.persistence.internal.mongo;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.inject.Inject;
 
+import com.github.danzx.zekke.mongo.config.MongoDbSettings;
 import com.github.danzx.zekke.test.mongo.BaseSpringMongoTest;
 
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+import org.bson.Document;
+
 import org.junit.Test;
 
 public class MongoSequenceManagerTest extends BaseSpringMongoTest {
@@ -28,6 +42,8 @@ public class MongoSequenceManagerTest extends BaseSpringMongoTest {
     private static final MongoSequence TEST_SEQUENCE = MongoSequence.WAYPOINT_ID;
 
     @Inject private MongoSequenceManager sequenceManager;
+    @Inject private MongoClient mongoClient;
+    @Inject private MongoDbSettings mongoSettings;
 
     @Override
     public void before() throws Exception {
@@ -54,4 +70,50 @@ public class MongoSequenceManagerTest extends BaseSpringMongoTest {
         long currentValue = sequenceManager.getNextSequenceValue(TEST_SEQUENCE);
         assertThat(currentValue).isEqualTo(9L);
     }
+
+    @Test
+    public void shouldHandOutValuesFromReservedBlock() {
+        assertThat(sequenceManager.getNextSequenceValue(TEST_SEQUENCE)).isEqualTo(9L);
+        assertThat(sequenceManager.getNextSequenceValue(TEST_SEQUENCE)).isEqualTo(10L);
+        assertThat(sequenceManager.getCurrentSequenceValue(TEST_SEQUENCE)).isEqualTo(10L);
+        assertThat(sequencesCollection().find().first().get(Fields.Sequence.SEQ, Number.class).longValue())
+            .isEqualTo(8L + TEST_SEQUENCE.allocationSize());
+    }
+
+    @Test
+    public void shouldReserveValuesAtOnce() {
+        assertThat(sequenceManager.reserveSequenceValues(MongoSequence.WAYPOINT_VERSION, 5)).isEqualTo(1L);
+        assertThat(sequenceManager.reserveSequenceValues(MongoSequence.WAYPOINT_VERSION, 1)).isEqualTo(6L);
+        assertThat(sequenceManager.getCurrentSequenceValue(MongoSequence.WAYPOINT_VERSION)).isEqualTo(6L);
+    }
+
+    @Test
+    public void shouldReserveNewBlockWhenValueIsSet() {
+        sequenceManager.getNextSequenceValue(TEST_SEQUENCE);
+        sequenceManager.setSequenceValue(TEST_SEQUENCE, 666L);
+        assertThat(sequenceManager.getNextSequenceValue(TEST_SEQUENCE)).isEqualTo(667L);
+    }
+
+    @Test
+    public void shouldNotRepeatValuesWhenCalledConcurrently() throws Exception {
+        int threads = 8;
+        int valuesPerThread = TEST_SEQUENCE.allocationSize();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                List<Long> values = new ArrayList<>();
+                for (int j = 0; j < valuesPerThread; j++) values.add(sequenceManager.getNextSequenceValue(TEST_SEQUENCE));
+                return values;
+            }));
+        }
+        Set<Long> allValues = new HashSet<>();
+        for (Future<List<Long>> future : futures) allValues.addAll(future.get());
+        executor.shutdown();
+        assertThat(allValues).hasSize(threads * valuesPerThread);
+    }
+
+    private MongoCollection<Document> sequencesCollection() {
+        return mongoClient.getDatabase(mongoSettings.getDatabase()).getCollection(MongoSequence.COLLECTION_NAME);
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.routing;
+
+import static java.util.Arrays.asList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+import org.junit.Test;
+
+public class WalkwayGraphTest {
+
+    @Test
+    public void shouldFindShortestRoute() {
+        // 1 -- 2 -- 3 is shorter than 1 -- 4 -- 3 because of the declared distances
+        WalkwayGraph graph = WalkwayGraph.of(asList(
+                newWaypoint(1L, Type.POI, 19.0, -98.0, Path.to(2L, 10d), Path.to(4L, 10d)),
+                newWaypoint(2L, Type.WALKWAY, 19.0001, -98.0001, Path.to(3L, 10d)),
+                newWaypoint(3L, Type.POI, 19.0002, -98.0, Path.to(4L, 15d)),
+                newWaypoint(4L, Type.WALKWAY, 19.0001, -97.9999)));
+
+        Route route = graph.findShortestRoute(1L, 3L).get();
+        assertThat(route.getWaypoints()).extracting(Waypoint::getId).containsExactly(1L, 2L, 3L);
+        assertThat(route.getDistance()).isEqualTo(20d);
+        assertThat(route.getWaypoints()).allMatch(waypoint -> waypoint.getPaths() == null);
+    }
+
+    @Test
+    public void shouldWalkPathsInBothDirections() {
+        WalkwayGraph graph = WalkwayGraph.of(asList(
+                newWaypoint(1L, Type.POI, 19.0, -98.0, Path.to(2L, 10d)),
+                newWaypoint(2L, Type.WALKWAY, 19.0001, -98.0001)));
+
+        assertThat(graph.edgeCount()).isEqualTo(2);
+        assertThat(graph.findShortestRoute(2L, 1L).get().getWaypoints()).extracting(Waypoint::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void shouldUseStraightLineDistanceWhenPathHasNoDistance() {
+        WalkwayGraph graph = WalkwayGraph.of(asList(
+                newWaypoint(1L, Type.POI, 0.0, 0.0, Path.to(2L, null)),
+                newWaypoint(2L, Type.POI, 0.0, 0.001)));
+
+        assertThat(graph.findShortestRoute(1L, 2L).get().getDistance()).isCloseTo(111.3, within(0.1));
+    }
+
+    @Test
+    public void shouldRouteToItself() {
+        WalkwayGraph graph = WalkwayGraph.of(asList(newWaypoint(1L, Type.POI, 0.0, 0.0)));
+
+        Route route = graph.findShortestRoute(1L, 1L).get();
+        assertThat(route.getWaypoints()).extracting(Waypoint::getId).containsExactly(1L);
+        assertThat(route.getDistance()).isZero();
+    }
+
+    @Test
+    public void shouldNotFindRouteWhenWaypointsAreNotConnectedOrDoNotExist() {
+        WalkwayGraph graph = WalkwayGraph.of(asList(
+                newWaypoint(1L, Type.POI, 19.0, -98.0, Path.to(99L, 10d)),
+                newWaypoint(2L, Type.POI, 19.0001, -98.0001)));
+
+        assertThat(graph.edgeCount()).isZero();
+        assertThat(graph.findShortestRoute(1L, 2L)).isEmpty();
+        assertThat(graph.findShortestRoute(1L, 99L)).isEmpty();
+    }
+
+    @Test
+    public void shouldFindTheSameDistancesAsDijkstra() {
+        Random random = new Random(7);
+        int size = 300;
+        double[][] lengths = new double[size][size];
+        List<Waypoint> waypoints = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            List<Path> paths = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                int to = random.nextInt(size);
+                // Some paths are shorter than a straight line to check the heuristic stays admissible
+                double length = random.nextDouble() * 500;
+                paths.add(Path.to((long) to, length));
+                if (to != i && (lengths[i][to] == 0 || length < lengths[i][to])) lengths[i][to] = lengths[to][i] = length;
+            }
+            waypoints.add(newWaypoint(i, Type.WALKWAY, 19.0 + random.nextDouble() * 0.01, -98.0 + random.nextDouble() * 0.01, paths.toArray(new Path[0])));
+        }
+        WalkwayGraph graph = WalkwayGraph.of(waypoints);
+        for (int i = 0; i < 30; i++) {
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+            double expected = dijkstra(lengths, from, to);
+            if (Double.isInfinite(expected)) assertThat(graph.findShortestRoute(from, to)).isEmpty();
+            else assertThat(graph.findShortestRoute(from, to).get().getDistance()).isCloseTo(expected, within(1e-9));
+        }
+    }
+
+    private static double dijkstra(double[][] lengths, int from, int to) {
+        int size = lengths.length;
+        double[] distances = new double[size];
+        boolean[] done = new boolean[size];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[from] = 0;
+        for (int iteration = 0; iteration < size; iteration++) {
+            int node = -1;
+            for (int i = 0; i < size; i++) if (!done[i] && (node == -1 || distances[i] < distances[node])) node = i;
+            if (Double.isInfinite(distances[node])) break;
+            done[node] = true;
+            for (int i = 0; i < size; i++) {
+                if (lengths[node][i] > 0) distances[i] = Math.min(distances[i], distances[node] + lengths[node][i]);
+            }
+        }
+        return distances[to];
+    }
+
+    private static Waypoint newWaypoint(long id, Type type, double latitude, double longitude, Path... paths) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setType(type);
+        if (type == Type.POI) waypoint.setName("POI " + id);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        if (paths.length > 0) waypoint.setPaths(asList(paths));
+        return waypoint;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+public class BoundedHashFunctionTest extends BaseMockitoTest {
+
+    private @Mock HashFunction delegate;
+
+    private ThreadPoolExecutor executor;
+    private BoundedHashFunction hashFunction;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        hashFunction = new BoundedHashFunction(delegate, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldHashOnTheExecutor() {
+        when(delegate.hash("lol")).thenAnswer(invocation -> Thread.currentThread().getName());
+        when(delegate.matches("lol", "hash")).thenReturn(true);
+
+        assertThat(hashFunction.hash("lol")).isNotEqualTo(Thread.currentThread().getName());
+        assertThat(hashFunction.matches("lol", "hash")).isTrue();
+    }
+
+    @Test
+    public void shouldRejectHashesWhenTheExecutorIsFull() throws Exception {
+        executor.shutdownNow();
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        hashFunction = new BoundedHashFunction(delegate, executor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.hash("slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        CompletableFuture<String> slowHash = CompletableFuture.supplyAsync(() -> hashFunction.hash("slow"));
+        started.await();
+
+        assertThat(catchThrowable(() -> hashFunction.hash("lol"))).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(slowHash.get()).isEqualTo("hash");
+    }
+
+    @Test
+    public void shouldRethrowWhatTheDelegateThrows() {
+        when(delegate.hash("lol")).thenThrow(new IllegalArgumentException());
+
+        assertThat(catchThrowable(() -> hashFunction.hash("lol"))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.github.danzx.zekke.security.crypto.Sha2HashFunction.Algorithm;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class Pbkdf2HashFunctionTest {
+
+    private static final int ITERATIONS = 1_000;
+
+    private final Pbkdf2HashFunction hashFunction = new Pbkdf2HashFunction(ITERATIONS, Sha2HashFunction.of(Algorithm.SHA_256));
+
+    @Test
+    public void shouldSaltEveryHash() {
+        String hash = hashFunction.hash("lol");
+
+        assertThat(hash).startsWith("pbkdf2-sha256$1000$").isNotEqualTo(hashFunction.hash("lol"));
+    }
+
+    @Test
+    public void shouldMatchOnlyTheHashedString() {
+        String hash = hashFunction.hash("lol");
+
+        assertThat(hashFunction.matches("lol", hash)).isTrue();
+        assertThat(hashFunction.matches("lul", hash)).isFalse();
+    }
+
+    @Test
+    public void shouldMatchHashesMadeWithOtherIterations() {
+        assertThat(hashFunction.matches("lol", new Pbkdf2HashFunction(10).hash("lol"))).isTrue();
+    }
+
+    @Test
+    public void shouldMatchLegacyHashes() {
+        assertThat(hashFunction.matches("lol", "BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=")).isTrue();
+        assertThat(new Pbkdf2HashFunction(ITERATIONS).matches("lol", "BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=")).isFalse();
+    }
+
+    @Test
+    @Parameters({ "pbkdf2-sha256$abc$c2FsdA==$a2V5", "pbkdf2-sha256$0$c2FsdA==$a2V5", "pbkdf2-sha256$10$%%%$a2V5" })
+    public void shouldNotMatchMalformedHashes(String hash) {
+        assertThat(hashFunction.matches("lol", hash)).isFalse();
+    }
+
+    @Test
+    public void shouldNotAcceptNonPositiveIterations() {
+        assertThat(catchThrowable(() -> new Pbkdf2HashFunction(0))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -15,8 +15,12 @@
  */
 package com.github.danzx.zekke.security.crypto;
 
+import static java.util.stream.Collectors.toSet;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.stream.IntStream;
+
 import com.github.danzx.zekke.security.crypto.Sha2HashFunction.Algorithm;
 import org.junit.Test;
 
@@ -26,4 +30,20 @@ public class Sha2HashFunctionTest {
     public void shouldHashString() {
         assertThat(Sha2HashFunction.of(Algorithm.SHA_256).hash("lol")).isNotBlank().isEqualTo("BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=");
     }
+
+    @Test
+    public void shouldHashConcurrently() {
+        Sha2HashFunction hashFunction = Sha2HashFunction.of(Algorithm.SHA_256);
+
+        assertThat(IntStream.range(0, 10_000).parallel().mapToObj(i -> hashFunction.hash("lol")).collect(toSet()))
+            .containsOnly("BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=");
+    }
+
+    @Test
+    public void shouldMatchItsOwnHashes() {
+        Sha2HashFunction hashFunction = Sha2HashFunction.of(Algorithm.SHA_256);
+
+        assertThat(hashFunction.matches("lol", "BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=")).isTrue();
+        assertThat(hashFunction.matches("lul", "BxI+H0gjVsQV9oRAejuHI+ELLLvAuPzWKCxJ03ycGrw=")).isFalse();
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class VerifiedJwtCacheTest {
+
+    private static final Instant NOW = Instant.parse("2017-07-01T12:00:00Z");
+
+    @Test
+    public void shouldReturnSubjectOfCachedToken() {
+        VerifiedJwtCache cache = new VerifiedJwtCache(10, Clock.fixed(NOW, ZoneOffset.UTC));
+        cache.put("token", "ADMIN", NOW.plusSeconds(60));
+        assertThat(cache.getSubject("token")).isEqualTo("ADMIN");
+        assertThat(cache.getSubject("other")).isNull();
+    }
+
+    @Test
+    public void shouldDropExpiredTokens() {
+        VerifiedJwtCache cache = new VerifiedJwtCache(10, Clock.fixed(NOW, ZoneOffset.UTC));
+        cache.put("expired", "ADMIN", NOW);
+        cache.put("forever", "ANONYMOUS", null);
+        assertThat(cache.getSubject("expired")).isNull();
+        assertThat(cache.getSubject("forever")).isEqualTo("ANONYMOUS");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotOverflowWithConcurrentPuts() throws Exception {
+        int maxSize = 1000;
+        int threads = 8;
+        VerifiedJwtCache cache = new VerifiedJwtCache(maxSize, Clock.fixed(NOW, ZoneOffset.UTC));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            String prefix = "token" + thread + '-';
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < maxSize; i++) {
+                    cache.put(prefix + i, "ADMIN", null);
+                    cache.getSubject(prefix + (i / 2));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) writer.get();
+        executor.shutdown();
+
+        assertThat(cache.size()).isLessThanOrEqualTo(maxSize).isGreaterThan(maxSize / 2);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTokenWhenFull() {
+        VerifiedJwtCache cache = new VerifiedJwtCache(2, Clock.fixed(NOW, ZoneOffset.UTC));
+        cache.put("token1", "ADMIN", NOW.plusSeconds(60));
+        cache.put("token2", "ADMIN", NOW.plusSeconds(60));
+        cache.getSubject("token1");
+        cache.put("token3", "ADMIN", NOW.plusSeconds(60));
+        assertThat(cache.getSubject("token1")).isEqualTo("ADMIN");
+        assertThat(cache.getSubject("token2")).isNull();
+        assertThat(cache.getSubject("token3")).isEqualTo("ADMIN");
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        VerifiedJwtCache cache = new VerifiedJwtCache(0);
+        cache.put("token", "ADMIN", null);
+        assertThat(cache.getSubject("token")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -43,7 +43,7 @@ public class JjwtVerifierTest {
         JjwtFactory jwtFactory = new JjwtFactory(expirationTimeInMinutes, issuer, KEY_HOLDER_1);
         User.Role role = User.Role.ADMIN;
         String token = jwtFactory.newToken(role);
-        JjwtVerifier jwtVerifier = new JjwtVerifier(issuer, KEY_HOLDER_1);
+        JjwtVerifier jwtVerifier = new JjwtVerifier(issuer, KEY_HOLDER_1, 100);
         try {
             jwtVerifier.verify(token, role);
         } catch (JwtVerificationException ex) {
@@ -51,6 +51,26 @@ public class JjwtVerifierTest {
         }
     }
 
+    @Test
+    public void shouldCheckRoleOfCachedToken() throws Exception {
+        String issuer = "testIssuer";
+        JjwtFactory jwtFactory = new JjwtFactory(1L, issuer, KEY_HOLDER_1);
+        String token = jwtFactory.newToken(User.Role.ANONYMOUS);
+        JjwtVerifier jwtVerifier = new JjwtVerifier(issuer, KEY_HOLDER_1, 100);
+        jwtVerifier.verify(token, User.Role.ANONYMOUS);
+        jwtVerifier.verify(token, User.Role.ANONYMOUS);
+        assertThatThrownBy(() -> jwtVerifier.verify(token, User.Role.ADMIN)).isInstanceOf(JwtVerificationException.class);
+    }
+
+    @Test
+    public void shouldNotCacheInvalidToken() {
+        JjwtFactory jwtFactory = new JjwtFactory(1L, "testIssuer", KEY_HOLDER_2);
+        String token = jwtFactory.newToken(User.Role.ADMIN);
+        JjwtVerifier jwtVerifier = new JjwtVerifier("testIssuer", KEY_HOLDER_1, 100);
+        assertThatThrownBy(() -> jwtVerifier.verify(token, User.Role.ADMIN)).isInstanceOf(JwtVerificationException.class);
+        assertThatThrownBy(() -> jwtVerifier.verify(token, User.Role.ADMIN)).isInstanceOf(JwtVerificationException.class);
+    }
+
     @Test
     @Parameters(method = "verificationParams")
     public void shouldVerifyTokenThrowJwtVerificationException(String factoryIssuer,
@@ -62,7 +82,7 @@ public class JjwtVerifierTest {
                                                                User.Role verificationSubject) {
         JjwtFactory jwtFactory = new JjwtFactory(1L, factoryIssuer, factoryKeyHolder);
         String token = jwtFactory.createToken(Instant.now(), expirationTime, issuerSubject);
-        JjwtVerifier jwtVerifier = new JjwtVerifier(verifierIssuer, verifierKeyHolder);
+        JjwtVerifier jwtVerifier = new JjwtVerifier(verifierIssuer, verifierKeyHolder, 100);
         assertThatThrownBy(() -> jwtVerifier.verify(token, verificationSubject)).isInstanceOf(JwtVerificationException.class);
     }
 
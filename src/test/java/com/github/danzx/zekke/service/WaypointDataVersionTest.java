@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WaypointDataVersionTest {
+
+    private static final long TTL_MILLIS = 1000;
+
+    private WaypointDao dao;
+    private Clock clock;
+    private WaypointDataVersion dataVersion;
+
+    @Before
+    public void setUp() {
+        dao = mock(WaypointDao.class);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        dataVersion = new WaypointDataVersion(dao, TTL_MILLIS, clock);
+    }
+
+    @Test
+    public void shouldReadTheStoredVersionsAgainOnlyOnceExpired() {
+        when(dao.findDataVersion("north")).thenReturn(1L, 2L);
+
+        String first = dataVersion.current("north");
+        when(clock.millis()).thenReturn(TTL_MILLIS - 1);
+        String cached = dataVersion.current("north");
+        when(clock.millis()).thenReturn(TTL_MILLIS);
+        String reread = dataVersion.current("north");
+
+        assertThat(cached).isEqualTo(first);
+        assertThat(reread).isNotEqualTo(first);
+        verify(dao, times(2)).findDataVersion("north");
+    }
+
+    @Test
+    public void shouldReadTheChangedAreasAgainAfterALocalChange() {
+        when(dao.findDataVersion()).thenReturn(1L, 2L);
+        when(dao.findDataVersion("north")).thenReturn(1L, 2L);
+        when(dao.findDataVersion("south")).thenReturn(1L, 2L);
+        String all = dataVersion.current();
+        String north = dataVersion.current("north");
+        String south = dataVersion.current("south");
+
+        dataVersion.onWaypointChange(new WaypointChangeEvent(this, waypointIn("north"), WaypointChangeEvent.Change.SAVED));
+
+        assertThat(dataVersion.current()).isNotEqualTo(all);
+        assertThat(dataVersion.current("north")).isNotEqualTo(north);
+        assertThat(dataVersion.current("south")).isEqualTo(south);
+    }
+
+    @Test
+    public void shouldReadEveryAreaAgainAfterAChangeOfUnknownArea() {
+        when(dao.findDataVersion("south")).thenReturn(1L, 2L);
+        String south = dataVersion.current("south");
+
+        dataVersion.onWaypointChange(new WaypointChangeEvent(this, new Waypoint(), WaypointChangeEvent.Change.DELETED));
+
+        assertThat(dataVersion.current("south")).isNotEqualTo(south);
+    }
+
+    private static Waypoint waypointIn(String area) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setArea(area);
+        return waypoint;
+    }
+}
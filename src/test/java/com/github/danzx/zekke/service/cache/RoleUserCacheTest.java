@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.danzx.zekke.domain.User;
+import com.github.danzx.zekke.domain.User.Role;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RoleUserCacheTest {
+
+    private static final long TTL_SECONDS = 300;
+    private static final long MIN_RELOAD_SECONDS = 10;
+
+    private final List<Long> loadedIds = new ArrayList<>();
+    private Clock clock;
+    private RoleUserCache cache;
+
+    @Before
+    public void setup() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        cache = new RoleUserCache(this::load, TTL_SECONDS, MIN_RELOAD_SECONDS, clock);
+    }
+
+    @Test
+    public void shouldLoadEveryRoleUser() {
+        cache.loadAll();
+
+        assertThat(loadedIds).containsOnly(Role.ANONYMOUS.getUserId(), Role.ADMIN.getUserId());
+        assertThat(cache.get(Role.ADMIN)).isPresent();
+        assertThat(loadedIds).hasSize(Role.values().length);
+    }
+
+    @Test
+    public void shouldLoadOnFirstGet() {
+        assertThat(cache.get(Role.ADMIN).get().getId()).isEqualTo(Role.ADMIN.getUserId());
+        assertThat(loadedIds).containsExactly(Role.ADMIN.getUserId());
+    }
+
+    @Test
+    public void shouldLoadAgainWhenExpired() {
+        cache.get(Role.ADMIN);
+        when(clock.millis()).thenReturn(TTL_SECONDS * 1000 - 1);
+        cache.get(Role.ADMIN);
+        when(clock.millis()).thenReturn(TTL_SECONDS * 1000);
+        cache.get(Role.ADMIN);
+
+        assertThat(loadedIds).containsExactly(Role.ADMIN.getUserId(), Role.ADMIN.getUserId());
+    }
+
+    @Test
+    public void shouldLoadOnEveryGetWhenTtlIsZero() {
+        cache = new RoleUserCache(this::load, 0, MIN_RELOAD_SECONDS, clock);
+        cache.get(Role.ADMIN);
+        cache.get(Role.ADMIN);
+
+        assertThat(loadedIds).hasSize(2);
+    }
+
+    @Test
+    public void shouldReplaceCachedUserOnReload() {
+        cache.get(Role.ADMIN);
+        cache.reload(Role.ADMIN);
+        cache.get(Role.ADMIN);
+
+        assertThat(loadedIds).hasSize(2);
+    }
+
+    @Test
+    public void shouldNotRefreshWithinMinReloadInterval() {
+        cache.get(Role.ADMIN);
+        when(clock.millis()).thenReturn(MIN_RELOAD_SECONDS * 1000 - 1);
+        cache.refresh(Role.ADMIN);
+        when(clock.millis()).thenReturn(MIN_RELOAD_SECONDS * 1000);
+        cache.refresh(Role.ADMIN);
+        cache.refresh(Role.ADMIN);
+
+        assertThat(loadedIds).hasSize(2);
+    }
+
+    private Optional<User> load(long id) {
+        loadedIds.add(id);
+        User user = new User();
+        user.setId(id);
+        return Optional.of(user);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.github.danzx.zekke.metrics.CacheStats;
+
+import org.junit.Test;
+
+public class SegmentedLruCacheTest {
+
+    @Test
+    public void shouldGetWhatWasPut() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 2);
+
+        assertThat(cache.put("a", "A", cache.generation())).isTrue();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    public void shouldEvictEntriesOnProbationBeforeEntriesHitAgain() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 3);
+        cache.put("a", "A", cache.generation());
+        cache.get("a");
+        cache.put("b", "B", cache.generation());
+        cache.put("c", "C", cache.generation());
+        cache.put("d", "D", cache.generation());
+        cache.put("e", "E", cache.generation());
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNull();
+        assertThat(cache.get("e")).isEqualTo("E");
+    }
+
+    @Test
+    public void shouldNotPutValuesLoadedBeforeClearing() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 2);
+        long generation = cache.generation();
+        cache.clear();
+
+        assertThat(cache.put("a", "A", generation)).isFalse();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    public void shouldRemoveOnlyMatchingEntries() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 3);
+        cache.put("a1", "A", cache.generation());
+        cache.get("a1");
+        cache.put("a2", "A", cache.generation());
+        cache.put("b1", "B", cache.generation());
+        long generation = cache.generation();
+
+        cache.removeIf(key -> key.startsWith("a"));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("b1")).isEqualTo("B");
+        assertThat(cache.put("b2", "B", generation)).isFalse();
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 0);
+
+        assertThat(cache.put("a", "A", cache.generation())).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void shouldCountHitsMissesAndEvictions() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>("test", 1);
+        cache.put("a", "A", cache.generation());
+        cache.get("a");
+        cache.put("b", "B", cache.generation());
+        cache.get("a");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getName()).isEqualTo("test");
+        assertThat(stats.getSize()).isEqualTo(1);
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getEvictions()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(.5);
+    }
+
+    @Test
+    public void shouldNotAcceptNegativeSizes() {
+        assertThat(catchThrowable(() -> new SegmentedLruCache<>("test", -1))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.cache;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import com.github.danzx.zekke.data.filter.waypoint.LocationWaypointFilterOptions;
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WaypointQueryCacheTest {
+
+    private static final int MAX_ENTRY_WAYPOINTS = 2;
+    private static final double GRID_SIZE = 0.01;
+
+    private WaypointQueryCache cache;
+    private Waypoint inside;
+    private Waypoint outside;
+    private List<WaypointFilterOptions> loadedFilterOptions;
+    private List<LocationWaypointFilterOptions> loadedLocationFilterOptions;
+
+    @Before
+    public void setUp() {
+        cache = new WaypointQueryCache(10, MAX_ENTRY_WAYPOINTS, GRID_SIZE);
+        inside = poi(1L, 19.054, -98.283);
+        outside = poi(2L, 19.058, -98.283);
+        loadedFilterOptions = new ArrayList<>();
+        loadedLocationFilterOptions = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldShareEntryBetweenBoundingBoxesInTheSameCells() {
+        List<Waypoint> first = cache.find(bboxQuery(19.051, -98.289, 19.055, -98.281).build(), this::load);
+        List<Waypoint> second = cache.find(bboxQuery(19.052, -98.288, 19.054, -98.282).build(), this::load);
+
+        assertThat(loadedFilterOptions).hasSize(1);
+        assertThat(loadedFilterOptions.get(0).getBoundingBox()).contains(
+                BoundingBox.ofBottomTop(Coordinates.ofLatLng(19.05, -98.29), Coordinates.ofLatLng(19.06, -98.28)));
+        assertThat(loadedFilterOptions.get(0).getLimit()).contains(MAX_ENTRY_WAYPOINTS + 1);
+        assertThat(first).containsExactly(inside);
+        assertThat(second).containsExactly(inside);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldApplyTheOriginalLimitAndProjection() {
+        List<Waypoint> waypoints = cache.find(bboxQuery(19.05, -98.29, 19.06, -98.28).limitResulsTo(1).onlyIdAndName().build(), this::load);
+
+        assertThat(waypoints).hasSize(1);
+        assertThat(waypoints.get(0).getId()).isEqualTo(1L);
+        assertThat(waypoints.get(0).getName()).isEqualTo(inside.getName());
+        assertThat(waypoints.get(0).getLocation()).isNull();
+    }
+
+    @Test
+    public void shouldCacheQueriesWithoutBoundingBoxAsTheyAre() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(5).build();
+
+        cache.find(filterOptions, this::load);
+        cache.find(new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(5).build(), this::load);
+        cache.find(new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(6).build(), this::load);
+
+        assertThat(loadedFilterOptions).hasSize(2);
+        WaypointFilterOptions loaded = loadedFilterOptions.get(0);
+        assertThat(loaded.getWaypointType()).contains(Type.POI);
+        assertThat(loaded.getLimit()).contains(5);
+        assertThat(loaded.getBoundingBox()).isEmpty();
+    }
+
+    @Test
+    public void shouldLoadCachedQueriesFromThePrimary() {
+        cache.find(bboxQuery(19.051, -98.289, 19.055, -98.281).build(), this::load);
+        cache.find(new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(5).build(), this::load);
+        cache.findNear(LocationWaypointFilterOptions.Builder.nearLocation(inside.getLocation()).build(), this::loadNear);
+
+        assertThat(loadedFilterOptions).hasSize(2).allMatch(WaypointFilterOptions::fromPrimary);
+        assertThat(loadedLocationFilterOptions).hasSize(1).allMatch(LocationWaypointFilterOptions::fromPrimary);
+    }
+
+    @Test
+    public void shouldNotCacheWholeAreas() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).build();
+
+        cache.find(filterOptions, this::load);
+        cache.find(filterOptions, this::load);
+
+        assertThat(loadedFilterOptions).containsExactly(filterOptions, filterOptions);
+        assertThat(cache.stats().getMisses()).isZero();
+    }
+
+    @Test
+    public void shouldLoadTheOriginalQueryWhenTheNormalizedOneFindsTooManyWaypoints() {
+        Waypoint third = poi(3L, 19.0545, -98.283);
+        WaypointFilterOptions filterOptions = bboxQuery(19.053, -98.284, 19.055, -98.282).limitResulsTo(1).build();
+        Function<WaypointFilterOptions, List<Waypoint>> loader = options -> {
+            loadedFilterOptions.add(options);
+            return options == filterOptions ? asList(inside) : asList(inside, third, outside);
+        };
+
+        List<Waypoint> first = cache.find(filterOptions, loader);
+        List<Waypoint> second = cache.find(filterOptions, loader);
+
+        assertThat(first).containsExactly(inside);
+        assertThat(second).containsExactly(inside);
+        assertThat(loadedFilterOptions).hasSize(4).containsSequence(filterOptions).filteredOn(options -> options == filterOptions).hasSize(2);
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    public void shouldNotCacheNearQueriesThatFindTooManyWaypoints() throws Exception {
+        LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder.nearLocation(Coordinates.ofLatLng(19.0575, -98.2831)).limitResulsTo(1).build();
+        Function<LocationWaypointFilterOptions, CompletionStage<List<Waypoint>>> loader = options -> {
+            loadedLocationFilterOptions.add(options);
+            return completedFuture(options == filterOptions ? asList(outside) : asList(inside, outside, poi(3L, 19.0545, -98.283)));
+        };
+
+        List<Waypoint> waypoints = cache.findNearAsync(filterOptions, loader).toCompletableFuture().get();
+
+        assertThat(waypoints).containsExactly(outside);
+        assertThat(loadedLocationFilterOptions).hasSize(2).last().isSameAs(filterOptions);
+        assertThat(loadedLocationFilterOptions.get(0).getLimit()).contains(MAX_ENTRY_WAYPOINTS + 1);
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    public void shouldKeepAreasApart() {
+        cache.find(bboxQuery(19.05, -98.29, 19.06, -98.28).build(), this::load);
+        cache.find(bboxQuery(19.05, -98.29, 19.06, -98.28).inArea("north").build(), this::load);
+
+        assertThat(loadedFilterOptions).extracting(WaypointFilterOptions::getArea).containsExactly(Waypoint.DEFAULT_AREA, "north");
+    }
+
+    @Test
+    public void shouldInvalidateOnlyTheQueriesOfAnArea() {
+        WaypointFilterOptions defaultArea = bboxQuery(19.05, -98.29, 19.06, -98.28).build();
+        WaypointFilterOptions north = bboxQuery(19.05, -98.29, 19.06, -98.28).inArea("north").build();
+        cache.find(defaultArea, this::load);
+        cache.find(north, this::load);
+
+        cache.invalidate("north");
+        cache.find(defaultArea, this::load);
+        cache.find(north, this::load);
+
+        assertThat(loadedFilterOptions).extracting(WaypointFilterOptions::getArea).containsExactly(Waypoint.DEFAULT_AREA, "north", "north");
+    }
+
+    @Test
+    public void shouldFindNearWaypointsOrderedByDistanceToTheOriginalLocation() {
+        Coordinates location = Coordinates.ofLatLng(19.0575, -98.2831);
+
+        List<Waypoint> waypoints = cache.findNear(LocationWaypointFilterOptions.Builder.nearLocation(location).maximumSearchDistance(500).build(), this::loadNear);
+        cache.findNear(LocationWaypointFilterOptions.Builder.nearLocation(Coordinates.ofLatLng(19.0581, -98.2829)).maximumSearchDistance(500).build(), this::loadNear);
+        List<Waypoint> limited = cache.findNear(LocationWaypointFilterOptions.Builder.nearLocation(location).maximumSearchDistance(100).build(), this::loadNear);
+
+        assertThat(waypoints).containsExactly(outside, inside);
+        assertThat(limited).containsExactly(outside);
+        assertThat(loadedLocationFilterOptions).hasSize(1);
+        assertThat(loadedLocationFilterOptions.get(0).getLocation()).isEqualTo(Coordinates.ofLatLng(19.06, -98.28));
+        assertThat(loadedLocationFilterOptions.get(0).getMaxDistance()).hasValueSatisfying(distance -> assertThat(distance).isGreaterThan(500));
+    }
+
+    @Test
+    public void shouldCacheAsyncQueriesWhenTheyComplete() {
+        CompletableFuture<List<Waypoint>> pending = new CompletableFuture<>();
+        WaypointFilterOptions filterOptions = bboxQuery(19.05, -98.29, 19.06, -98.28).build();
+
+        cache.findAsync(filterOptions, options -> pending);
+        assertThat(cache.stats().getSize()).isZero();
+        pending.complete(asList(inside, outside));
+
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+        assertThat(cache.findAsync(filterOptions, options -> completedFuture(null)).toCompletableFuture().join()).containsExactly(inside, outside);
+    }
+
+    @Test
+    public void shouldNotCacheQueriesLoadedWhileInvalidating() {
+        CompletableFuture<List<Waypoint>> pending = new CompletableFuture<>();
+
+        cache.findAsync(bboxQuery(19.05, -98.29, 19.06, -98.28).build(), options -> pending);
+        cache.invalidateAll();
+        pending.complete(asList(inside, outside));
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    public void shouldPassQueriesThroughWhenDisabled() {
+        cache = new WaypointQueryCache(0, MAX_ENTRY_WAYPOINTS, GRID_SIZE);
+        WaypointFilterOptions filterOptions = bboxQuery(19.051, -98.289, 19.055, -98.281).build();
+
+        cache.find(filterOptions, this::load);
+        cache.find(filterOptions, this::load);
+
+        assertThat(loadedFilterOptions).containsExactly(filterOptions, filterOptions);
+    }
+
+    private List<Waypoint> load(WaypointFilterOptions filterOptions) {
+        loadedFilterOptions.add(filterOptions);
+        return asList(inside, outside);
+    }
+
+    private List<Waypoint> loadNear(LocationWaypointFilterOptions filterOptions) {
+        loadedLocationFilterOptions.add(filterOptions);
+        return asList(inside, outside);
+    }
+
+    private static WaypointFilterOptions.Builder bboxQuery(double bottomLatitude, double bottomLongitude, double topLatitude, double topLongitude) {
+        return new WaypointFilterOptions.Builder()
+                .withinBoundingBox(BoundingBox.ofBottomTop(Coordinates.ofLatLng(bottomLatitude, bottomLongitude), Coordinates.ofLatLng(topLatitude, topLongitude)));
+    }
+
+    private static Waypoint poi(long id, double latitude, double longitude) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName("POI " + id);
+        waypoint.setType(Type.POI);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        return waypoint;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+public class RouteServiceImplTest extends BaseMockitoTest {
+
+    private @Mock WaypointDao dao;
+
+    private @InjectMocks RouteServiceImpl service;
+
+    private Waypoint poi1;
+    private Waypoint poi2;
+
+    @Before
+    public void setUp() {
+        poi1 = newPoi(1L, 19.0, -98.0);
+        poi2 = newPoi(2L, 19.001, -98.0);
+        poi1.setPaths(singletonList(Path.to(2L, 120d)));
+        when(dao.findFiltered(any())).thenReturn(asList(poi1, poi2));
+    }
+
+    @Test
+    public void shouldFindShortestRoute() {
+        assertThat(service.findShortestRoute(1L, 2L)).isPresent().hasValueSatisfying(route -> {
+            assertThat(route.getDistance()).isEqualTo(120d);
+            assertThat(route.getWaypoints()).extracting(Waypoint::getId).containsExactly(1L, 2L);
+        });
+    }
+
+    @Test
+    public void shouldBuildGraphOnlyOnceUntilAWaypointChanges() {
+        service.findShortestRoute(1L, 2L);
+        service.findShortestRoute(2L, 1L);
+        verify(dao, times(1)).findFiltered(any());
+
+        service.onWaypointChange(new WaypointChangeEvent(this, poi1, WaypointChangeEvent.Change.SAVED));
+        service.findShortestRoute(1L, 2L);
+        verify(dao, times(2)).findFiltered(any());
+    }
+
+    @Test
+    public void shouldKeepOneGraphPerArea() {
+        Waypoint other = newPoi(3L, 20.0, -99.0);
+        other.setArea("north");
+        when(dao.findFiltered(any())).thenAnswer(invocation -> {
+            WaypointFilterOptions filterOptions = (WaypointFilterOptions) invocation.getArguments()[0];
+            return "north".equals(filterOptions.getArea()) ? singletonList(other) : asList(poi1, poi2);
+        });
+
+        assertThat(service.findShortestRoute("north", 1L, 2L)).isEmpty();
+        assertThat(service.findShortestRoute(1L, 2L)).isPresent();
+
+        service.onWaypointChange(new WaypointChangeEvent(this, other, WaypointChangeEvent.Change.SAVED));
+        service.findShortestRoute(1L, 2L);
+        verify(dao, times(2)).findFiltered(any());
+    }
+
+    @Test
+    public void shouldNotFindRouteWhenWaypointDoesNotExist() {
+        assertThat(service.findShortestRoute(1L, 3L)).isEmpty();
+    }
+
+    private static Waypoint newPoi(long id, double latitude, double longitude) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName("POI " + id);
+        waypoint.setType(Type.POI);
+        waypoint.setLocation(Coordinates.ofLatLng(latitude, longitude));
+        return waypoint;
+    }
+}
@@ -20,6 +20,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Method;
@@ -42,25 +44,30 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
 @RunWith(JUnitParamsRunner.class)
 public class UserServiceImplTest extends BaseMockitoValidationTest {
 
     private static final String HASHED_PASSWORD = "hashedpassword";
-    private static final String HASHED_VAL = "hashedstring";
     private static final String PASSWORD_VAL = "password";
+    private static final String NEW_HASHED_PASSWORD = "newhashedpassword";
+    private static final String NEW_PASSWORD_VAL = "newpassword";
+    private static final long ROLE_CACHE_TTL_SECONDS = 300;
+    private static final long ROLE_CACHE_MIN_RELOAD_SECONDS = 0;
 
     private @Mock UserDao userDao;
     private @Mock HashFunction hashFunction;
 
-    private @InjectMocks UserServiceImpl service;
+    private UserServiceImpl service;
 
     @Before
     public void setup() {
-        when(hashFunction.hash(anyString())).thenReturn(HASHED_VAL);
-        when(hashFunction.hash(PASSWORD_VAL)).thenReturn(HASHED_PASSWORD);
+        when(userDao.findById(anyLong())).thenReturn(Optional.empty());
+        when(hashFunction.matches(anyString(), anyString())).thenReturn(false);
+        when(hashFunction.matches(PASSWORD_VAL, HASHED_PASSWORD)).thenReturn(true);
+        when(hashFunction.matches(NEW_PASSWORD_VAL, NEW_HASHED_PASSWORD)).thenReturn(true);
+        service = new UserServiceImpl(userDao, hashFunction, ROLE_CACHE_TTL_SECONDS, ROLE_CACHE_MIN_RELOAD_SECONDS);
     }
 
     @Test
@@ -85,6 +92,44 @@ public class UserServiceImplTest extends BaseMockitoValidationTest {
         assertThat(service.isAdminRegistered(user)).isEqualTo(result);
     }
 
+    @Test
+    public void isAdminRegisteredShouldNotLoadAdminAgainWhenPasswordMatches() {
+        User adminInDao = newUser(Role.ADMIN, HASHED_PASSWORD);
+        when(userDao.findById(adminInDao.getId())).thenReturn(Optional.of(adminInDao));
+        service.loadRoleUsers();
+
+        User admin = newUser(Role.ADMIN, PASSWORD_VAL);
+        assertThat(service.isAdminRegistered(admin)).isTrue();
+        assertThat(service.isAdminRegistered(admin)).isTrue();
+        verify(userDao, times(1)).findById(adminInDao.getId());
+    }
+
+    @Test
+    public void isAdminRegisteredShouldLoadAdminAgainWhenPasswordChanged() {
+        User adminInDao = newUser(Role.ADMIN, HASHED_PASSWORD);
+        when(userDao.findById(adminInDao.getId())).thenReturn(Optional.of(adminInDao));
+        service.loadRoleUsers();
+        User changedAdminInDao = newUser(Role.ADMIN, NEW_HASHED_PASSWORD);
+        when(userDao.findById(adminInDao.getId())).thenReturn(Optional.of(changedAdminInDao));
+
+        assertThat(service.isAdminRegistered(newUser(Role.ADMIN, NEW_PASSWORD_VAL))).isTrue();
+        assertThat(service.isAdminRegistered(newUser(Role.ADMIN, NEW_PASSWORD_VAL))).isTrue();
+        assertThat(service.isAdminRegistered(newUser(Role.ADMIN, PASSWORD_VAL))).isFalse();
+        verify(userDao, times(3)).findById(adminInDao.getId());
+    }
+
+    @Test
+    public void isAdminRegisteredShouldNotLoadAdminOnEveryFailedLogin() {
+        service = new UserServiceImpl(userDao, hashFunction, ROLE_CACHE_TTL_SECONDS, 60);
+        User adminInDao = newUser(Role.ADMIN, HASHED_PASSWORD);
+        when(userDao.findById(adminInDao.getId())).thenReturn(Optional.of(adminInDao));
+        service.loadRoleUsers();
+
+        assertThat(service.isAdminRegistered(newUser(Role.ADMIN, NEW_PASSWORD_VAL))).isFalse();
+        assertThat(service.isAdminRegistered(newUser(Role.ADMIN, NEW_PASSWORD_VAL))).isFalse();
+        verify(userDao, times(1)).findById(adminInDao.getId());
+    }
+
     @Test
     @Parameters(method = "invalidUsersAndViolations")
     public void isAdminRegisteredShouldFailValidation(User user, int numberOfViolations) throws Exception {
@@ -15,12 +15,24 @@
  */
 package com.github.danzx.zekke.service.impl;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Method;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.validation.ConstraintViolation;
 
@@ -30,24 +42,45 @@ import com.github.danzx.zekke.domain.BoundingBox;
 import com.github.danzx.zekke.domain.Coordinates;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointChangeSet;
+import com.github.danzx.zekke.domain.WaypointTombstone;
+import com.github.danzx.zekke.persistence.dao.RawWaypointDao;
 import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.service.cache.WaypointQueryCache;
 import com.github.danzx.zekke.test.mockito.BaseMockitoValidationTest;
 
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import org.springframework.context.ApplicationEventPublisher;
+
 @RunWith(JUnitParamsRunner.class)
 public class WaypointServiceImplTest extends BaseMockitoValidationTest {
 
+    private static final int MAX_ENTRY_WAYPOINTS = 100;
+    private static final double GRID_SIZE = 0.001;
+
     private @Mock WaypointDao dao;
+    private @Mock RawWaypointDao rawDao;
+    private @Mock ApplicationEventPublisher eventPublisher;
+    private @Mock Executor ioExecutor;
     
-    private @InjectMocks WaypointServiceImpl service;
+    private WaypointServiceImpl service;
+
+    @Before
+    public void setUp() {
+        service = new WaypointServiceImpl(dao, rawDao, eventPublisher, ioExecutor, new WaypointQueryCache(0, MAX_ENTRY_WAYPOINTS, GRID_SIZE));
+        when(dao.findStableVersion()).thenReturn(Long.MAX_VALUE);
+        when(dao.findById(anyLong())).thenReturn(Optional.empty());
+    }
 
     @Test
     public void shouldFailValidationWhenPersistNull() throws Exception {
@@ -83,6 +116,49 @@ public class WaypointServiceImplTest extends BaseMockitoValidationTest {
         verify(dao).saveOrUpdate(walkway); 
     }
 
+    @Test
+    public void shouldPublishChangeEventWhenPersist() {
+        Waypoint walkway = new Waypoint();
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.24, 53.545));
+        service.persist(walkway);
+
+        ArgumentCaptor<WaypointChangeEvent> captor = ArgumentCaptor.forClass(WaypointChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getWaypoint()).isSameAs(walkway);
+        assertThat(captor.getValue().getChange()).isEqualTo(WaypointChangeEvent.Change.SAVED);
+    }
+
+    @Test
+    public void shouldPublishThePreviousWaypointWhenPersistAnUpdate() {
+        Waypoint previous = new Waypoint();
+        previous.setId(2L);
+        previous.setArea("north");
+        Waypoint updated = new Waypoint();
+        updated.setId(2L);
+        when(dao.findById(2L)).thenReturn(Optional.of(previous));
+
+        service.persist(updated);
+
+        ArgumentCaptor<WaypointChangeEvent> captor = ArgumentCaptor.forClass(WaypointChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getPrevious()).containsSame(previous);
+        assertThat(captor.getValue().getAreas()).containsExactly(Waypoint.DEFAULT_AREA, "north");
+    }
+
+    @Test
+    public void shouldPublishChangeEventOnlyForPersistedWaypointsWhenPersistAll() {
+        Waypoint persisted = new Waypoint();
+        Waypoint failed = new Waypoint();
+        when(dao.insertAll(asList(persisted, failed))).thenReturn(singletonMap(1, "bulk.duplicate.key.error"));
+
+        assertThat(service.persistAll(asList(persisted, failed))).containsOnlyKeys(1);
+        ArgumentCaptor<WaypointChangeEvent> captor = ArgumentCaptor.forClass(WaypointChangeEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertThat(captor.getValue().getWaypoint()).isSameAs(persisted);
+        verify(dao).markChanged(singleton(Waypoint.DEFAULT_AREA));
+    }
+
     @Test
     @Parameters(method = "invalidWaypointsToDelete")
     public void shouldFailValidationWhenDeleteInvalidWaypoint(Waypoint waypoint) throws Exception {
@@ -105,6 +181,52 @@ public class WaypointServiceImplTest extends BaseMockitoValidationTest {
         verify(dao).deleteById(id);
     } 
 
+    @Test
+    public void shouldPublishChangeEventOnlyWhenDeleted() {
+        Waypoint w = new Waypoint();
+        w.setId(2L);
+        service.delete(w);
+        verify(eventPublisher, never()).publishEvent(any(WaypointChangeEvent.class));
+
+        when(dao.deleteById(2L)).thenReturn(true);
+        service.delete(w);
+        ArgumentCaptor<WaypointChangeEvent> captor = ArgumentCaptor.forClass(WaypointChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getChange()).isEqualTo(WaypointChangeEvent.Change.DELETED);
+    }
+
+    @Test
+    public void shouldPublishTheAreaOfTheDeletedWaypoint() {
+        Waypoint stored = new Waypoint();
+        stored.setId(2L);
+        stored.setArea("north");
+        Waypoint w = new Waypoint();
+        w.setId(2L);
+        when(dao.findById(2L)).thenReturn(Optional.of(stored));
+        when(dao.deleteById(2L)).thenReturn(true);
+
+        service.delete(w);
+
+        ArgumentCaptor<WaypointChangeEvent> captor = ArgumentCaptor.forClass(WaypointChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getAreas()).containsExactly("north");
+        verify(dao).markChanged(singleton("north"));
+    }
+
+    @Test
+    public void shouldForwardToStreamFiltered() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.WALKWAY).build();
+        service.streamWaypoints(filterOptions);
+        verify(dao).streamFiltered(filterOptions);
+    }
+
+    @Test
+    public void shouldForwardToStreamRawFiltered() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).build();
+        service.streamWaypointDocuments(filterOptions);
+        verify(rawDao).streamRawFiltered(filterOptions);
+    }
+
     @Test
     public void shouldForwardFindById() {
         long id = 2L;
@@ -112,6 +234,41 @@ public class WaypointServiceImplTest extends BaseMockitoValidationTest {
         verify(dao).findById(id);
     }
 
+    @Test
+    public void shouldForwardFindByIdAsyncWithTheIoExecutor() {
+        long id = 2L;
+        service.findWaypointByIdAsync(id);
+        verify(dao).findByIdAsync(id, ioExecutor);
+    }
+
+    @Test
+    public void shouldForwardToFindFilteredAsyncWithTheIoExecutor() {
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).build();
+        service.findWaypointsAsync(filterOptions);
+        verify(dao).findFilteredAsync(filterOptions, ioExecutor);
+    }
+
+    @Test
+    public void shouldFindWaypointsAsyncFailValidationWhenFilterOptionsIsNull() throws Exception {
+        Method method = WaypointServiceImpl.class.getMethod("findWaypointsAsync", WaypointFilterOptions.class);
+        Object[] parameterValues = { null };
+        Set<ConstraintViolation<WaypointServiceImpl>> violations = validator().forExecutables().validateParameters(
+                service,
+                method,
+                parameterValues
+        );
+        assertThat(violations).isNotNull().isNotEmpty().hasSize(1);
+    }
+
+    @Test
+    public void shouldForwardToFindNearAsyncWithTheIoExecutor() {
+        LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder
+                .nearLocation(Coordinates.ofLatLng(12.24, 53.545))
+                .build();
+        service.findWaypointsNearALocationAsync(filterOptions);
+        verify(dao).findNearALocationFilteredAsync(filterOptions, ioExecutor);
+    }
+
     @Test
     public void shouldForwardToFindFiltered() {
         Coordinates c1 = Coordinates.ofLatLng(12.24, 53.545);
@@ -140,6 +297,36 @@ public class WaypointServiceImplTest extends BaseMockitoValidationTest {
         assertThat(violations).isNotNull().isNotEmpty().hasSize(1);
     }
 
+    @Test
+    public void shouldAnswerRepeatedQueriesFromTheCacheUntilAWaypointIsPersisted() {
+        service = new WaypointServiceImpl(dao, rawDao, eventPublisher, ioExecutor, new WaypointQueryCache(10, MAX_ENTRY_WAYPOINTS, GRID_SIZE));
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(20).build();
+        when(dao.findFiltered(any(WaypointFilterOptions.class))).thenReturn(emptyList());
+
+        service.findWaypoints(filterOptions);
+        service.findWaypoints(filterOptions);
+        verify(dao, times(1)).findFiltered(any(WaypointFilterOptions.class));
+
+        service.persist(new Waypoint());
+        service.findWaypoints(filterOptions);
+        verify(dao, times(2)).findFiltered(any(WaypointFilterOptions.class));
+    }
+
+    @Test
+    public void shouldKeepCachedQueriesOfOtherAreasWhenAWaypointIsPersisted() {
+        service = new WaypointServiceImpl(dao, rawDao, eventPublisher, ioExecutor, new WaypointQueryCache(10, MAX_ENTRY_WAYPOINTS, GRID_SIZE));
+        WaypointFilterOptions filterOptions = new WaypointFilterOptions.Builder().byType(Type.POI).limitResulsTo(20).build();
+        when(dao.findFiltered(any(WaypointFilterOptions.class))).thenReturn(emptyList());
+        Waypoint elsewhere = new Waypoint();
+        elsewhere.setArea("north");
+
+        service.findWaypoints(filterOptions);
+        service.persist(elsewhere);
+        service.findWaypoints(filterOptions);
+
+        verify(dao, times(1)).findFiltered(any(WaypointFilterOptions.class));
+    }
+
     @Test
     public void shouldForwardToFindNearWhenFindNearWaypoints() {
         LocationWaypointFilterOptions filterOptions = LocationWaypointFilterOptions.Builder
@@ -164,6 +351,86 @@ public class WaypointServiceImplTest extends BaseMockitoValidationTest {
         assertThat(violations).isNotNull().isNotEmpty().hasSize(1);
     }
 
+    @Test
+    public void shouldMergeSavesAndDeletionsByVersion() {
+        Waypoint recreated = versionedWaypoint(1L, 7L);
+        Waypoint saved = versionedWaypoint(2L, 3L);
+        when(dao.findChangedSince(2L, 11)).thenReturn(asList(saved, recreated));
+        when(dao.findDeletedSince(2L, 11)).thenReturn(asList(WaypointTombstone.of(1L, 4L), WaypointTombstone.of(3L, 5L)));
+
+        WaypointChangeSet changes = service.findChangesSince(2L, 10);
+
+        assertThat(changes.getUpserts()).containsExactly(saved, recreated);
+        assertThat(changes.getDeletions()).containsExactly(3L);
+        assertThat(changes.getCursor()).isEqualTo(7L);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    public void shouldStopAtTheLimitAndPointTheCursorToTheLastChange() {
+        Waypoint saved = versionedWaypoint(2L, 3L);
+        Waypoint later = versionedWaypoint(4L, 9L);
+        when(dao.findChangedSince(0L, 3)).thenReturn(asList(saved, later));
+        when(dao.findDeletedSince(0L, 3)).thenReturn(asList(WaypointTombstone.of(1L, 4L)));
+
+        WaypointChangeSet changes = service.findChangesSince(0L, 2);
+
+        assertThat(changes.getUpserts()).containsExactly(saved);
+        assertThat(changes.getDeletions()).containsExactly(1L);
+        assertThat(changes.getCursor()).isEqualTo(4L);
+        assertThat(changes.hasMore()).isTrue();
+    }
+
+    @Test
+    public void shouldHoldBackChangesAfterTheStableVersion() {
+        Waypoint saved = versionedWaypoint(2L, 3L);
+        Waypoint unsettled = versionedWaypoint(4L, 9L);
+        when(dao.findStableVersion()).thenReturn(5L);
+        when(dao.findChangedSince(0L, 11)).thenReturn(asList(saved, unsettled));
+        when(dao.findDeletedSince(0L, 11)).thenReturn(asList(WaypointTombstone.of(1L, 4L), WaypointTombstone.of(3L, 6L)));
+
+        WaypointChangeSet changes = service.findChangesSince(0L, 10);
+
+        assertThat(changes.getUpserts()).containsExactly(saved);
+        assertThat(changes.getDeletions()).containsExactly(1L);
+        assertThat(changes.getCursor()).isEqualTo(4L);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    public void shouldKeepTheCursorWhenThereAreNoChanges() {
+        when(dao.findChangedSince(42L, 101)).thenReturn(emptyList());
+        when(dao.findDeletedSince(42L, 101)).thenReturn(emptyList());
+
+        WaypointChangeSet changes = service.findChangesSince(42L, 100);
+
+        assertThat(changes.getUpserts()).isEmpty();
+        assertThat(changes.getDeletions()).isEmpty();
+        assertThat(changes.getCursor()).isEqualTo(42L);
+        assertThat(changes.hasMore()).isFalse();
+    }
+
+    @Test
+    public void shouldFindChangesSinceFailValidationWhenVersionOrLimitAreOutOfRange() throws Exception {
+        Method method = WaypointServiceImpl.class.getMethod("findChangesSince", long.class, int.class);
+        Object[] parameterValues = { -1L, 0 };
+        Set<ConstraintViolation<WaypointServiceImpl>> violations = validator().forExecutables().validateParameters(
+                service,
+                method,
+                parameterValues
+        );
+        assertThat(violations).isNotNull().isNotEmpty().hasSize(2);
+    }
+
+    private static Waypoint versionedWaypoint(long id, long version) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setType(Type.WALKWAY);
+        waypoint.setLocation(Coordinates.ofLatLng(12.24, 53.545));
+        waypoint.setVersion(version);
+        return waypoint;
+    }
+
     public Object[] invalidWaypointsToDelete() {
         Waypoint w1 = new Waypoint();
         w1.setType(Type.POI);
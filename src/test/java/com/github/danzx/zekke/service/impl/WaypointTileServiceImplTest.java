@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.service.impl;
+
+import static java.util.Collections.singletonList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.tile.TileKey;
+import com.github.danzx.zekke.tile.VectorTile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+public class WaypointTileServiceImplTest extends BaseMockitoTest {
+
+    private static final Coordinates LOCATION = Coordinates.ofLatLng(19.0543, -98.2832);
+    private static final TileKey TILE = TileKey.containing(LOCATION, 16);
+
+    private @Mock WaypointDao dao;
+
+    private WaypointTileServiceImpl service;
+    private Waypoint poi;
+
+    @Before
+    public void setUp() {
+        service = new WaypointTileServiceImpl(dao, 10);
+        poi = new Waypoint();
+        poi.setId(1L);
+        poi.setName("Área");
+        poi.setType(Type.POI);
+        poi.setLocation(LOCATION);
+        when(dao.findFiltered(any())).thenReturn(singletonList(poi));
+    }
+
+    @Test
+    public void shouldBuildTileFromTheWaypointsWithinIt() {
+        VectorTile tile = service.getTile(TILE);
+
+        ArgumentCaptor<WaypointFilterOptions> filterOptions = ArgumentCaptor.forClass(WaypointFilterOptions.class);
+        verify(dao).findFiltered(filterOptions.capture());
+        assertThat(filterOptions.getValue().getBoundingBox()).contains(TILE.getBoundingBox());
+        assertThat(tile.getData()).isNotEmpty();
+    }
+
+    @Test
+    public void shouldLoadTilesFromThePrimary() {
+        service.getTile(TILE);
+
+        ArgumentCaptor<WaypointFilterOptions> filterOptions = ArgumentCaptor.forClass(WaypointFilterOptions.class);
+        verify(dao).findFiltered(filterOptions.capture());
+        assertThat(filterOptions.getValue().fromPrimary()).isTrue();
+    }
+
+    @Test
+    public void shouldServeCachedTile() {
+        VectorTile tile = service.getTile(TILE);
+
+        assertThat(service.getTile(TILE)).isSameAs(tile);
+        verify(dao, times(1)).findFiltered(any());
+        assertThat(service.cachedTiles()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRebuildTileAfterOneOfItsWaypointsChanges() {
+        VectorTile tile = service.getTile(TILE);
+        Waypoint moved = new Waypoint();
+        moved.setId(1L);
+        moved.setName("Área");
+        moved.setType(Type.POI);
+        moved.setLocation(Coordinates.ofLatLng(0d, 0d));
+        service.onWaypointChange(new WaypointChangeEvent(this, moved, WaypointChangeEvent.Change.SAVED));
+        when(dao.findFiltered(any())).thenReturn(singletonList(new Waypoint()));
+
+        assertThat(service.cachedTiles()).isZero();
+        assertThat(service.getTile(TILE).getTag()).isNotEqualTo(tile.getTag());
+    }
+
+    @Test
+    public void shouldKeepTilesOfUnrelatedWaypoints() {
+        service.getTile(TILE);
+        Waypoint deleted = new Waypoint();
+        deleted.setId(2L);
+        service.onWaypointChange(new WaypointChangeEvent(this, deleted, WaypointChangeEvent.Change.DELETED));
+
+        assertThat(service.cachedTiles()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBuildTileFromTheWaypointsOfItsArea() {
+        service.getTile(TileKey.containing("north", LOCATION, 16));
+
+        ArgumentCaptor<WaypointFilterOptions> filterOptions = ArgumentCaptor.forClass(WaypointFilterOptions.class);
+        verify(dao).findFiltered(filterOptions.capture());
+        assertThat(filterOptions.getValue().getArea()).isEqualTo("north");
+    }
+}
@@ -13,19 +13,16 @@
  */
 package com.github.danzx.zekke.test.mongo;
 
-import static com.github.danzx.zekke.persistence.internal.mongo.CommonOperators.EVAL;
-import static com.github.danzx.zekke.persistence.internal.mongo.CommonOperators.SET;
-
 import javax.inject.Inject;
 
 import com.github.danzx.zekke.mongo.config.MongoDbSettings;
-import com.github.danzx.zekke.persistence.internal.mongo.Fields;
+import com.github.danzx.zekke.persistence.internal.mongo.MongoSequenceManager;
+import com.github.danzx.zekke.persistence.internal.mongo.ReservedBlocks;
 import com.github.danzx.zekke.test.spring.BaseSpringIntegrationTest;
 
 import com.mongodb.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.model.UpdateOptions;
 
 import org.bson.Document;
 
@@ -39,21 +36,18 @@ public abstract class BaseSpringMongoTest extends BaseSpringIntegrationTest {
     @Inject private MongoClient mongoClient;
     @Inject private Datastore datastore;
     @Inject private MongoDbSettings mongoSettings;
+    @Inject private MongoSequenceManager sequenceManager;
 
     private MongoDatabase database;
 
     @Before
     public void before() throws Exception {
         database = mongoClient.getDatabase(mongoSettings.getDatabase());
-        for (DatabaseFunction function : DatabaseFunction.values()) {
-            initFunction(database, function);
-        }
         for (DatabaseCollection collection : DatabaseCollection.values()) {
             initCollection(database, collection);
         }
-
-        database.runCommand(new Document(EVAL, "db.loadServerScripts()"));
         datastore.ensureIndexes();
+        ReservedBlocks.discard(sequenceManager);
     }
 
     @After
@@ -61,13 +55,6 @@ public abstract class BaseSpringMongoTest extends BaseSpringIntegrationTest {
         database.drop();
     }
 
-    private void initFunction(MongoDatabase database, DatabaseFunction function) {
-        database.getCollection("system.js").updateOne(
-                new Document(Fields.Common.ID, function.functionName()),
-                new Document(SET, function.document()),
-                new UpdateOptions().upsert(true));
-    }
-
     private void initCollection(MongoDatabase database, DatabaseCollection collection) {
         MongoCollection<Document> mongoCollection = database.getCollection(collection.collectionName());
         mongoCollection.insertMany(collection.documents());
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+
+import org.junit.Test;
+
+public class MvtEncoderTest {
+
+    private final MvtEncoder encoder = new MvtEncoder();
+
+    @Test
+    public void shouldEncodeEmptyTileAsNoBytes() {
+        assertThat(encoder.encode(TileKey.of(0, 0, 0), emptyList())).isEmpty();
+    }
+
+    @Test
+    public void shouldEncodeWalkwayAsPointFeature() {
+        byte[] expected = bytes(
+                0x1A, 0x1C,                                             // layer, 28 bytes
+                0x78, 0x02,                                             // version 2
+                0x0A, 0x08, 'w', 'a', 'l', 'k', 'w', 'a', 'y', 's',     // name
+                0x12, 0x0B,                                             // feature, 11 bytes
+                0x08, 0x01,                                             // id 1
+                0x18, 0x01,                                             // type POINT
+                0x22, 0x05, 0x09, 0x80, 0x20, 0x80, 0x20,               // MoveTo(2048, 2048)
+                0x28, 0x80, 0x20);                                      // extent 4096
+
+        assertThat(encoder.encode(TileKey.of(0, 0, 0), singletonList(newWaypoint(1L, null, Type.WALKWAY, 0, 0)))).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldPutPoisInTheirOwnLayerWithSharedNames() {
+        List<Waypoint> waypoints = asList(
+                newWaypoint(1L, "Área", Type.POI, 19.0543, -98.2832),
+                newWaypoint(2L, null, Type.WALKWAY, 19.0544, -98.2831),
+                newWaypoint(3L, "Área", Type.POI, 19.0545, -98.2830),
+                newWaypoint(4L, "Biblioteca", Type.POI, 19.0546, -98.2829));
+
+        Map<Integer, List<Object>> tile = decode(encoder.encode(TileKey.containing(waypoints.get(0).getLocation(), 14), waypoints));
+
+        assertThat(tile.get(3)).hasSize(2);
+        Map<Integer, List<Object>> pois = decode((byte[]) tile.get(3).get(0));
+        assertThat(string(pois.get(1).get(0))).isEqualTo(MvtEncoder.POI_LAYER);
+        assertThat(pois.get(2)).hasSize(3);
+        assertThat(pois.get(3)).extracting(MvtEncoderTest::string).containsExactly(MvtEncoder.NAME_KEY);
+        assertThat(pois.get(4)).extracting(value -> string(decode((byte[]) value).get(1).get(0))).containsExactly("Área", "Biblioteca");
+        Map<Integer, List<Object>> thirdPoi = decode((byte[]) pois.get(2).get(1));
+        assertThat(thirdPoi.get(1)).containsExactly(3L);
+        assertThat((byte[]) thirdPoi.get(2).get(0)).isEqualTo(bytes(0, 0));
+
+        Map<Integer, List<Object>> walkways = decode((byte[]) tile.get(3).get(1));
+        assertThat(string(walkways.get(1).get(0))).isEqualTo(MvtEncoder.WALKWAY_LAYER);
+        assertThat(walkways.get(2)).hasSize(1);
+        assertThat(walkways.get(3)).isNull();
+    }
+
+    @Test
+    public void shouldPlacePointsRelativeToTheTile() {
+        Waypoint walkway = newWaypoint(1L, null, Type.WALKWAY, 19.0543, -98.2832);
+        TileKey key = TileKey.containing(walkway.getLocation(), 16);
+
+        Map<Integer, List<Object>> layer = decode((byte[]) decode(encoder.encode(key, singletonList(walkway))).get(3).get(0));
+        byte[] geometry = (byte[]) decode((byte[]) layer.get(2).get(0)).get(4).get(0);
+        List<Long> commands = varints(geometry);
+
+        assertThat(commands).hasSize(3);
+        assertThat(commands.get(0)).isEqualTo(9L);
+        assertThat(unzigzag(commands.get(1))).isBetween(0L, (long) MvtEncoder.EXTENT);
+        assertThat(unzigzag(commands.get(2))).isBetween(0L, (long) MvtEncoder.EXTENT);
+    }
+
+    private static Waypoint newWaypoint(long id, String name, Type type, double lat, double lng) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName(name);
+        waypoint.setType(type);
+        waypoint.setLocation(Coordinates.ofLatLng(lat, lng));
+        return waypoint;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+        return bytes;
+    }
+
+    private static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Decodes the varint and length delimited fields of a message by field number. */
+    private static Map<Integer, List<Object>> decode(byte[] message) {
+        Map<Integer, List<Object>> fields = new HashMap<>();
+        int[] position = { 0 };
+        while (position[0] < message.length) {
+            long key = readVarint(message, position);
+            Object value;
+            if ((key & 7) == 0) value = readVarint(message, position);
+            else {
+                int length = (int) readVarint(message, position);
+                byte[] bytes = new byte[length];
+                System.arraycopy(message, position[0], bytes, 0, length);
+                position[0] += length;
+                value = bytes;
+            }
+            fields.computeIfAbsent((int) (key >>> 3), field -> new ArrayList<>()).add(value);
+        }
+        return fields;
+    }
+
+    private static List<Long> varints(byte[] packed) {
+        List<Long> values = new ArrayList<>();
+        int[] position = { 0 };
+        while (position[0] < packed.length) values.add(readVarint(packed, position));
+        return values;
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.danzx.zekke.domain.Coordinates;
+
+import org.junit.Test;
+
+public class TileCacheTest {
+
+    private static final Coordinates LOCATION = Coordinates.ofLatLng(19.0543, -98.2832);
+    private static final TileKey TILE = TileKey.containing(LOCATION, 16);
+    private static final TileKey PARENT_TILE = TileKey.containing(LOCATION, 15);
+    private static final TileKey OTHER_TILE = TileKey.of(16, 0, 0);
+    private static final VectorTile DATA = VectorTile.of(new byte[] { 1, 2, 3 });
+
+    @Test
+    public void shouldGetWhatWasPut() {
+        TileCache cache = new TileCache(2);
+
+        assertThat(cache.put(TILE, DATA, singletonList(1L), cache.generation())).isTrue();
+        assertThat(cache.get(TILE)).isSameAs(DATA);
+        assertThat(cache.get(OTHER_TILE)).isNull();
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTile() {
+        TileCache cache = new TileCache(2);
+        cache.put(TILE, DATA, singletonList(1L), cache.generation());
+        cache.put(PARENT_TILE, DATA, singletonList(1L), cache.generation());
+        cache.get(TILE);
+        cache.put(OTHER_TILE, DATA, singletonList(2L), cache.generation());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(PARENT_TILE)).isNull();
+        assertThat(cache.get(TILE)).isSameAs(DATA);
+        assertThat(cache.get(OTHER_TILE)).isSameAs(DATA);
+    }
+
+    @Test
+    public void shouldInvalidateTilesWhereTheWaypointWas() {
+        TileCache cache = new TileCache(10);
+        cache.put(TILE, DATA, asList(1L, 2L), cache.generation());
+        cache.put(OTHER_TILE, DATA, singletonList(2L), cache.generation());
+
+        assertThat(cache.invalidate(1L, null)).isEqualTo(1);
+        assertThat(cache.get(TILE)).isNull();
+        assertThat(cache.get(OTHER_TILE)).isSameAs(DATA);
+    }
+
+    @Test
+    public void shouldInvalidateTilesWhereTheWaypointIsNow() {
+        TileCache cache = new TileCache(10);
+        cache.put(TILE, DATA, singletonList(1L), cache.generation());
+        cache.put(PARENT_TILE, DATA, singletonList(1L), cache.generation());
+        cache.put(OTHER_TILE, DATA, singletonList(2L), cache.generation());
+
+        assertThat(cache.invalidate(3L, LOCATION)).isEqualTo(2);
+        assertThat(cache.get(OTHER_TILE)).isSameAs(DATA);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotStoreTilesBuiltBeforeAnInvalidation() {
+        TileCache cache = new TileCache(10);
+        long generation = cache.generation();
+        cache.invalidate(1L, LOCATION);
+
+        assertThat(cache.put(TILE, DATA, singletonList(1L), generation)).isFalse();
+        assertThat(cache.get(TILE)).isNull();
+    }
+
+    @Test
+    public void shouldNotStoreWhenDisabled() {
+        TileCache cache = new TileCache(0);
+
+        assertThat(cache.put(TILE, DATA, singletonList(1L), cache.generation())).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.tile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class TileKeyTest {
+
+    @Test
+    public void shouldTheWholeWorldFitInTheZoomZeroTile() {
+        BoundingBox bbox = TileKey.of(0, 0, 0).getBoundingBox();
+
+        assertThat(bbox.getBottomCoordinates().getLatitude()).isCloseTo(-TileKey.MAX_LATITUDE, within(1e-9));
+        assertThat(bbox.getBottomCoordinates().getLongitude()).isEqualTo(-180d);
+        assertThat(bbox.getTopCoordinates().getLatitude()).isCloseTo(TileKey.MAX_LATITUDE, within(1e-9));
+        assertThat(bbox.getTopCoordinates().getLongitude()).isEqualTo(180d);
+    }
+
+    @Test
+    public void shouldTileContainTheLocationItWasFoundFor() {
+        Coordinates location = Coordinates.ofLatLng(19.0543, -98.2832);
+        for (int zoom = 0; zoom <= TileKey.MAX_ZOOM; zoom++) {
+            BoundingBox bbox = TileKey.containing(location, zoom).getBoundingBox();
+            assertThat(location.getLatitude()).isBetween(bbox.getBottomCoordinates().getLatitude(), bbox.getTopCoordinates().getLatitude());
+            assertThat(location.getLongitude()).isBetween(bbox.getBottomCoordinates().getLongitude(), bbox.getTopCoordinates().getLongitude());
+        }
+    }
+
+    @Test
+    public void shouldFindKnownTile() {
+        assertThat(TileKey.containing(Coordinates.ofLatLng(19.0543, -98.2832), 16)).isEqualTo(TileKey.of(16, 14876, 29233));
+    }
+
+    @Test
+    public void shouldClampLocationsOnTheEdges() {
+        assertThat(TileKey.containing(Coordinates.ofLatLng(-90d, 180d), 2)).isEqualTo(TileKey.of(2, 3, 3));
+    }
+
+    @Test
+    @Parameters({ "-1, 0, 0", "23, 0, 0", "1, 2, 0", "1, 0, 2", "1, -1, 0" })
+    public void shouldNotCreateNonExistentTiles(int zoom, int x, int y) {
+        assertThat(TileKey.isValid(zoom, x, y)).isFalse();
+        assertThat(catchThrowable(() -> TileKey.of(zoom, x, y))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldBeEqualWhenSameAddress() {
+        assertThat(TileKey.of(3, 2, 1)).isEqualTo(TileKey.of(3, 2, 1)).isNotEqualTo(TileKey.of(3, 1, 2));
+        assertThat(TileKey.of(3, 2, 1).hashCode()).isEqualTo(TileKey.of(3, 2, 1).hashCode());
+        assertThat(TileKey.of(3, 2, 1)).hasToString("3/2/1");
+    }
+
+    @Test
+    public void shouldTellTilesOfDifferentAreasApart() {
+        assertThat(TileKey.of("north", 3, 2, 1)).isNotEqualTo(TileKey.of(3, 2, 1)).isEqualTo(TileKey.of("north", 3, 2, 1));
+        assertThat(TileKey.of(3, 2, 1).getArea()).isEqualTo(Waypoint.DEFAULT_AREA);
+    }
+}
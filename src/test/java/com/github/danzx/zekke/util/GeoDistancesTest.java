@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.util;
+
+import static com.github.danzx.zekke.util.GeoDistances.degreesToMeters;
+import static com.github.danzx.zekke.util.GeoDistances.haversine;
+import static com.github.danzx.zekke.util.GeoDistances.metersToDegrees;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class GeoDistancesTest {
+
+    @Test
+    public void shouldHaversineBeZeroWhenSamePoint() {
+        assertThat(haversine(19.054492, -98.283176, 19.054492, -98.283176)).isZero();
+    }
+
+    @Test
+    public void shouldCalculateHaversineDistance() {
+        // Mexico City to Puebla
+        assertThat(haversine(19.432608, -99.133209, 19.041440, -98.206273)).isCloseTo(106_700, within(500d));
+    }
+
+    @Test
+    public void shouldCalculateHaversineDistanceAcrossTheAntimeridian() {
+        assertThat(haversine(0, 179.5, 0, -179.5)).isCloseTo(degreesToMeters(1), within(0.001));
+    }
+
+    @Test
+    public void shouldConvertBetweenMetersAndDegrees() {
+        assertThat(metersToDegrees(degreesToMeters(2.5))).isCloseTo(2.5, within(1e-9));
+    }
+}
@@ -22,6 +22,7 @@ import static com.github.danzx.zekke.util.Strings.NEW_LINE;
 import static com.github.danzx.zekke.util.Strings.NULL;
 import static com.github.danzx.zekke.util.Strings.TAB;
 import static com.github.danzx.zekke.util.Strings.allCapsToCamelCase;
+import static com.github.danzx.zekke.util.Strings.fold;
 import static com.github.danzx.zekke.util.Strings.hidden;
 import static com.github.danzx.zekke.util.Strings.isNullOrBlank;
 import static com.github.danzx.zekke.util.Strings.quoted;
@@ -129,6 +130,27 @@ public class StringsTest {
         assertThat(hidden(null)).isNotBlank().isEqualTo(NULL);
     }
 
+    @Test
+    @Parameters(method = "stringsToFold")
+    public void shouldFoldAccentsAndCase(String s, String expected) {
+        assertThat(fold(s)).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldNotFoldWhenNullIsGiven() {
+        assertThat(fold(null)).isNull();
+    }
+
+    protected Object[] stringsToFold() {
+        return new Object[][] {
+            {"Área", "area"},
+            {"Cancha de Béisbol", "cancha de beisbol"},
+            {"PIÑATA", "pinata"},
+            {"Güero", "guero"},
+            {EMPTY, EMPTY}
+        };
+    }
+
     protected Object[] allCapsStrings() {
         return new Object[][] {
             {"ALL_CAPS"},
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+import com.github.danzx.zekke.ws.rest.model.Poi;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class BinaryJacksonProviderTest {
+
+    private static final Annotation[] NO_ANNOTATIONS = {};
+
+    private ObjectMapper jsonMapper;
+    private MediaTypeObjectMappers objectMappers;
+    private BinaryJacksonProvider provider;
+
+    @Before
+    public void setUp() {
+        ObjectMapperConfig config = new ObjectMapperConfig();
+        jsonMapper = config.objectMapperCustomizer();
+        objectMappers = config.mediaTypeObjectMappers(jsonMapper);
+        provider = new BinaryJacksonProvider();
+        provider.setObjectMappers(objectMappers);
+    }
+
+    @Test
+    @Parameters(method = "binaryMediaTypes")
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void shouldReadWhatItWrites(MediaType mediaType) throws Exception {
+        Poi poi = new Poi();
+        poi.setId(1L);
+        poi.setName("A Name");
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        assertThat(provider.isWriteable(Poi.class, Poi.class, NO_ANNOTATIONS, mediaType)).isTrue();
+        provider.writeTo(poi, Poi.class, Poi.class, NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(), body);
+        assertThat(provider.isReadable(Poi.class, Poi.class, NO_ANNOTATIONS, mediaType)).isTrue();
+        Poi result = (Poi) provider.readFrom((Class) Poi.class, Poi.class, NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(), new ByteArrayInputStream(body.toByteArray()));
+
+        assertThat(result).isEqualToComparingFieldByField(poi);
+    }
+
+    @Test
+    public void shouldLeaveJsonAndStreamsToOtherProviders() {
+        assertThat(provider.isWriteable(Poi.class, Poi.class, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE)).isFalse();
+        assertThat(provider.isReadable(Poi.class, Poi.class, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE)).isFalse();
+        assertThat(provider.isWriteable(StreamingOutput.class, StreamingOutput.class, NO_ANNOTATIONS, MediaTypes.APPLICATION_CBOR_TYPE)).isFalse();
+        assertThat(provider.isWriteable(byte[].class, byte[].class, NO_ANNOTATIONS, MediaTypes.APPLICATION_CBOR_TYPE)).isFalse();
+        assertThat(provider.isReadable(InputStream.class, InputStream.class, NO_ANNOTATIONS, MediaTypes.APPLICATION_SMILE_TYPE)).isFalse();
+    }
+
+    @Test
+    public void shouldFindTheMapperOfEachMediaType() {
+        assertThat(objectMappers.forMediaType(MediaType.APPLICATION_JSON_TYPE.withCharset("UTF-8"))).isSameAs(jsonMapper);
+        assertThat(objectMappers.forMediaType(MediaTypes.APPLICATION_CBOR_TYPE)).isNotNull().isNotSameAs(jsonMapper);
+        assertThat(objectMappers.forMediaType(MediaTypes.APPLICATION_SMILE_TYPE)).isNotNull().isNotSameAs(jsonMapper);
+        assertThat(objectMappers.forMediaType(MediaType.WILDCARD_TYPE)).isNull();
+        assertThat(objectMappers.forMediaType(MediaType.TEXT_PLAIN_TYPE)).isNull();
+        assertThat(objectMappers.forMediaType(null)).isNull();
+    }
+
+    @SuppressWarnings("unused")
+    private Object[] binaryMediaTypes() {
+        return new Object[] { MediaTypes.APPLICATION_CBOR_TYPE, MediaTypes.APPLICATION_SMILE_TYPE };
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.github.danzx.zekke.metrics.CacheStats;
+import com.github.danzx.zekke.metrics.MetricsRegistry;
+import com.github.danzx.zekke.metrics.TimerSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsEndpointTest {
+
+    private MetricsRegistry registry;
+    private MetricsEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        registry = new MetricsRegistry();
+        endpoint = new MetricsEndpoint(registry);
+        registry.timer(MetricsRegistry.HTTP_CATEGORY, "WaypointEndpoint.getPois").record(1_000_000);
+        registry.registerCache(() -> new CacheStats("waypoint_queries", 1, 3, 1, 0));
+    }
+
+    @Test
+    public void shouldGetMetrics() {
+        assertThat(endpoint.getMetrics())
+            .extracting(TimerSnapshot::getOperation, TimerSnapshot::getCount, TimerSnapshot::getP99Millis)
+            .containsOnly(tuple("WaypointEndpoint.getPois", 1L, 1.0));
+    }
+
+    @Test
+    public void shouldGetPrometheusMetrics() {
+        assertThat(endpoint.getPrometheusMetrics())
+            .contains("# TYPE zekke_http_duration_seconds summary")
+            .contains("zekke_http_duration_seconds_count{operation=\"WaypointEndpoint.getPois\"} 1")
+            .contains("zekke_cache_hits_total{cache=\"waypoint_queries\"} 3");
+    }
+
+    @Test
+    public void shouldGetCacheMetrics() {
+        assertThat(endpoint.getCacheMetrics())
+            .extracting(CacheStats::getName, CacheStats::getHitRate)
+            .containsOnly(tuple("waypoint_queries", .75));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Route;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.service.RouteService;
+import com.github.danzx.zekke.test.spring.BaseSpringValidationTest;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.config.ModelTransformerConfig;
+import com.github.danzx.zekke.ws.rest.config.WaypointToPoiMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToTypedWaypointMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToWalkwayMapping;
+import com.github.danzx.zekke.ws.rest.model.ErrorMessage;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.model.WaypointRoute;
+
+import net.rakugakibox.spring.boot.orika.OrikaAutoConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = {
+        OrikaAutoConfiguration.class,
+        ModelTransformerConfig.class,
+        WaypointToPoiMapping.class,
+        WaypointToTypedWaypointMapping.class,
+        WaypointToWalkwayMapping.class
+})
+public class RouteEndpointTest extends BaseSpringValidationTest {
+
+    private @Inject Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+
+    private RouteService mockRouteService;
+    private RouteEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        assertThat(waypointToTypedWaypointTransformer).isNotNull();
+        mockRouteService = mock(RouteService.class);
+        endpoint = new RouteEndpoint(mockRouteService, waypointToTypedWaypointTransformer);
+    }
+
+    @Test
+    public void shouldGetRouteFailValidationWhenParametersAreNull() throws Exception {
+        Method method = RouteEndpoint.class.getMethod("getRoute", String.class, Long.class, Long.class, List.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, null, null, null };
+        Set<ConstraintViolation<RouteEndpoint>> violations = validator().forExecutables().validateParameters(
+                endpoint,
+                method,
+                parameterValues
+        );
+        assertThat(violations).isNotNull().isNotEmpty().hasSize(3);
+    }
+
+    @Test
+    public void shouldGetRouteRespondWithData() {
+        Waypoint poi = new Waypoint();
+        poi.setId(1L);
+        poi.setName("A Name");
+        poi.setType(Type.POI);
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.431, 43.5));
+        when(mockRouteService.findShortestRoute(Waypoint.DEFAULT_AREA, 1L, 2L)).thenReturn(Optional.of(new Route(asList(poi, walkway), 111.5)));
+
+        Response response = endpoint.getRoute(Waypoint.DEFAULT_AREA, 1L, 2L, emptyList());
+
+        assertThat(response).isNotNull()
+            .extracting(Response::getStatusInfo, Response::hasEntity)
+            .containsOnly(Status.OK, true);
+        WaypointRoute route = (WaypointRoute) response.getEntity();
+        assertThat(route.getDistance()).isEqualTo(111.5);
+        assertThat(route.getWaypoints())
+            .extracting(TypedWaypoint::getId, TypedWaypoint::getName, TypedWaypoint::getType)
+            .containsExactly(
+                    tuple(1L, "A Name", Type.POI),
+                    tuple(2L, null, Type.WALKWAY));
+    }
+
+    @Test
+    public void shouldGetRouteRespondWithNotFoundWhenNoRoute() {
+        when(mockRouteService.findShortestRoute(Waypoint.DEFAULT_AREA, 1L, 2L)).thenReturn(Optional.empty());
+        Response response = endpoint.getRoute(Waypoint.DEFAULT_AREA, 1L, 2L, emptyList());
+        Response.Status status = Response.Status.NOT_FOUND;
+        ErrorMessage errorMessage = new ErrorMessage.Builder()
+                .statusCode(status.getStatusCode())
+                .type(ErrorMessage.Type.NOT_FOUND)
+                .detailMessage("There is no walkable route between the given waypoints")
+                .build();
+
+        assertThat(response).isNotNull()
+            .extracting(Response::getStatusInfo, Response::hasEntity, Response::getEntity)
+            .containsOnly(status, true, errorMessage);
+    }
+}
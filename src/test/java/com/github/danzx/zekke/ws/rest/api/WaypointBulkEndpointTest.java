@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.service.WaypointService;
+import com.github.danzx.zekke.test.spring.BaseSpringValidationTest;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.config.ModelTransformerConfig;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+import com.github.danzx.zekke.ws.rest.config.WaypointToPoiMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToTypedWaypointMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToWalkwayMapping;
+import com.github.danzx.zekke.ws.rest.model.BulkImportReport;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+
+import net.rakugakibox.spring.boot.orika.OrikaAutoConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = {
+        OrikaAutoConfiguration.class,
+        ModelTransformerConfig.class,
+        WaypointToPoiMapping.class,
+        WaypointToTypedWaypointMapping.class,
+        WaypointToWalkwayMapping.class,
+        ObjectMapperConfig.class
+})
+public class WaypointBulkEndpointTest extends BaseSpringValidationTest {
+
+    private static final String POI = "{\"type\":\"POI\",\"name\":\"Library\",\"location\":{\"latitude\":19.05,\"longitude\":-98.25}}";
+    private static final String WALKWAY = "{\"type\":\"WALKWAY\",\"location\":{\"latitude\":19.051,\"longitude\":-98.251}}";
+
+    private @Inject Transformer<Waypoint, TypedWaypoint> waypointToTypedWaypointTransformer;
+    private @Inject ObjectMapper mapper;
+
+    private WaypointService mockWaypointService;
+    private WaypointBulkEndpoint endpoint;
+
+    @Before
+    public void setUp() {
+        assertThat(waypointToTypedWaypointTransformer).isNotNull();
+        assertThat(mapper).isNotNull();
+        mockWaypointService = mock(WaypointService.class);
+        when(mockWaypointService.persistAll(anyListOf(Waypoint.class))).thenReturn(emptyMap());
+        endpoint = new WaypointBulkEndpoint(mockWaypointService, mapper, validator(), waypointToTypedWaypointTransformer, 2);
+    }
+
+    @Test
+    public void shouldImportJsonArrayInBatches() throws Exception {
+        List<List<Waypoint>> batches = capturePersistedBatches();
+
+        BulkImportReport report = endpoint.importWaypoints(body("[" + POI + "," + WALKWAY + "," + POI + "]"), emptyList());
+
+        assertThat(report.getReceived()).isEqualTo(3);
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getFailures()).isEmpty();
+        assertThat(batches).extracting(List::size).containsExactly(2, 1);
+        assertThat(batches.get(0)).extracting(Waypoint::getName, Waypoint::getType)
+            .containsExactly(tuple(Optional.of("Library"), Type.POI), tuple(Optional.empty(), Type.WALKWAY));
+    }
+
+    @Test
+    public void shouldImportNdjson() throws Exception {
+        BulkImportReport report = endpoint.importWaypoints(body(POI + "\n" + WALKWAY + "\n"), emptyList());
+
+        assertThat(report.getReceived()).isEqualTo(2);
+        assertThat(report.getImported()).isEqualTo(2);
+        verify(mockWaypointService, times(1)).persistAll(anyListOf(Waypoint.class));
+    }
+
+    @Test
+    public void shouldReportInvalidItemsAndImportTheRest() throws Exception {
+        String withId = "{\"id\":7,\"type\":\"WALKWAY\",\"location\":{\"latitude\":19.05,\"longitude\":-98.25}}";
+        String withoutLocation = "{\"type\":\"WALKWAY\"}";
+        String namedWalkway = "{\"type\":\"WALKWAY\",\"name\":\"Hall\",\"location\":{\"latitude\":19.05,\"longitude\":-98.25}}";
+        String notAWaypoint = "{\"type\":\"ROAD\"}";
+
+        BulkImportReport report = endpoint.importWaypoints(
+                body("[" + withId + "," + POI + "," + withoutLocation + "," + namedWalkway + "," + notAWaypoint + "]"),
+                emptyList());
+
+        assertThat(report.getReceived()).isEqualTo(5);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getFailures()).extracting(BulkImportReport.Failure::getIndex).containsExactly(0, 2, 3, 4);
+        assertThat(report.getFailures()).extracting(BulkImportReport.Failure::getMessage).doesNotContainNull();
+    }
+
+    @Test
+    public void shouldReportItemsThatCouldNotBePersisted() throws Exception {
+        when(mockWaypointService.persistAll(anyListOf(Waypoint.class)))
+            .thenReturn(emptyMap())
+            .thenReturn(singletonMap(0, "bulk.duplicate.key.error"));
+
+        BulkImportReport report = endpoint.importWaypoints(body("[" + POI + "," + WALKWAY + "," + POI + "]"), emptyList());
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailures())
+            .extracting(BulkImportReport.Failure::getIndex, BulkImportReport.Failure::getMessage)
+            .containsExactly(tuple(2, "A waypoint with the same id already exists"));
+    }
+
+    @Test
+    public void shouldNotPersistAnythingWhenBodyIsEmpty() throws Exception {
+        BulkImportReport report = endpoint.importWaypoints(body("[]"), emptyList());
+        assertThat(report.getReceived()).isZero();
+        verify(mockWaypointService, never()).persistAll(anyListOf(Waypoint.class));
+    }
+
+    @Test
+    public void shouldFailWhenJsonIsMalformed() {
+        Throwable thrown = catchThrowable(() -> endpoint.importWaypoints(body("[" + POI + ",{\"type\":"), emptyList()));
+        assertThat(thrown).isInstanceOf(JsonMappingException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Waypoint>> capturePersistedBatches() {
+        List<List<Waypoint>> batches = new ArrayList<>();
+        when(mockWaypointService.persistAll(anyListOf(Waypoint.class))).thenAnswer(invocation -> {
+            batches.add(new ArrayList<>((List<Waypoint>) invocation.getArguments()[0]));
+            return emptyMap();
+        });
+        return batches;
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -16,36 +16,62 @@
 package com.github.danzx.zekke.ws.rest.api;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.validation.ConstraintViolation;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.Variant;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.github.danzx.zekke.domain.BoundingBox;
 import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.WaypointChangeSet;
 import com.github.danzx.zekke.service.WaypointService;
 import com.github.danzx.zekke.test.spring.BaseSpringValidationTest;
 import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.MediaTypeObjectMappers;
+import com.github.danzx.zekke.ws.rest.MediaTypes;
+import com.github.danzx.zekke.ws.rest.RawWaypointJsonStreamingOutput.Representation;
 import com.github.danzx.zekke.ws.rest.config.ModelTransformerConfig;
 import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
 import com.github.danzx.zekke.ws.rest.config.WaypointToPoiMapping;
@@ -55,16 +81,29 @@ import com.github.danzx.zekke.ws.rest.model.ErrorMessage;
 import com.github.danzx.zekke.ws.rest.model.Poi;
 import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
 import com.github.danzx.zekke.ws.rest.model.Walkway;
+import com.github.danzx.zekke.ws.rest.model.WaypointChanges;
 import com.github.danzx.zekke.ws.rest.patch.ObjectPatch;
 import com.github.danzx.zekke.ws.rest.patch.jsonpatch.JsonObjectPatch;
+import com.github.danzx.zekke.ws.rest.snapshot.ContentCoding;
+import com.github.danzx.zekke.ws.rest.snapshot.WaypointSnapshot;
+import com.github.danzx.zekke.ws.rest.snapshot.WaypointSnapshots;
 
 import com.github.fge.jsonpatch.JsonPatch;
 
+import com.mongodb.DBObjectCodec;
+import com.mongodb.MongoClient;
+
 import net.rakugakibox.spring.boot.orika.OrikaAutoConfiguration;
 
+import org.bson.RawBsonDocument;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import org.mockito.ArgumentCaptor;
+
+import org.mongodb.morphia.Morphia;
+
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(classes = {
@@ -81,9 +120,14 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
     private @Inject Transformer<Waypoint, TypedWaypoint> waypointToWalkwayTransformer;
     private @Inject Transformer<Waypoint, Walkway> waypointToTypedWaypointTransformer;
     private @Inject ObjectMapper mapper;
+    private @Inject MediaTypeObjectMappers objectMappers;
 
     private WaypointService mockWaypointService;
+    private WaypointSnapshots mockSnapshots;
+    private Request jsonRequest;
+    private HttpHeaders noHeaders;
     private WaypointEndpoint endpoint;
+    private WaypointEndpoint rawEndpoint;
 
     @Before
     public void setUp() {
@@ -92,58 +136,199 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
         assertThat(waypointToTypedWaypointTransformer).isNotNull();
         assertThat(mapper).isNotNull();
         mockWaypointService = mock(WaypointService.class);
-        endpoint = new WaypointEndpoint(mockWaypointService, waypointToPoiTransformer, waypointToTypedWaypointTransformer, waypointToWalkwayTransformer);
+        mockSnapshots = mock(WaypointSnapshots.class);
+        when(mockSnapshots.find(any(), any())).thenReturn(Optional.empty());
+        jsonRequest = requestAccepting(MediaType.APPLICATION_JSON_TYPE);
+        noHeaders = mock(HttpHeaders.class);
+        endpoint = new WaypointEndpoint(mockWaypointService, waypointToPoiTransformer, waypointToTypedWaypointTransformer, waypointToWalkwayTransformer, objectMappers, mockSnapshots, false);
+        rawEndpoint = new WaypointEndpoint(mockWaypointService, waypointToPoiTransformer, waypointToTypedWaypointTransformer, waypointToWalkwayTransformer, objectMappers, mockSnapshots, true);
     }
 
     @Test
     public void shouldGetTypedWaypointsFailValidationWhenBboxNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getTypedWaypoints", BoundingBox.class, Integer.class);
+        Method method = WaypointEndpoint.class.getMethod("getTypedWaypoints", String.class, BoundingBox.class, Integer.class, Request.class, HttpHeaders.class);
         BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(1111d, 12313d), Coordinates.ofLatLng(1111d, 12313d));
-        Object[] parameterValues = { bbox, null };
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, bbox, null, null, null };
 
         assertBoundingBoxValidation(method, parameterValues);
     }
 
     @Test
-    public void shouldGetTypedWaypointsWontFail() {
-        when(mockWaypointService.findWaypoints(any())).thenReturn(emptyList());
-        List<TypedWaypoint> result = endpoint.getTypedWaypoints(null, null);
+    public void shouldGetTypedWaypointsWontFail() throws Exception {
+        when(mockWaypointService.streamWaypoints(any())).thenReturn(Stream.empty());
+        String result = write(endpoint.getTypedWaypoints(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders));
+
+        assertThat(result).isEqualTo("[]");
+    }
+
+    @Test
+    public void shouldGetTypedWaypointsWriteEachWaypointAndCloseTheStream() throws Exception {
+        Waypoint poi = new Waypoint();
+        poi.setId(1L);
+        poi.setName("A Name");
+        poi.setType(Type.POI);
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.431, 43.5));
+        AtomicBoolean closed = new AtomicBoolean();
+        when(mockWaypointService.streamWaypoints(any())).thenReturn(Stream.of(poi, walkway).onClose(() -> closed.set(true)));
+
+        List<TypedWaypoint> result = mapper.readValue(write(endpoint.getTypedWaypoints(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders)), new TypeReference<List<TypedWaypoint>>() {});
+
+        assertThat(result).extracting(TypedWaypoint::getId, TypedWaypoint::getName, TypedWaypoint::getType)
+            .containsExactly(
+                    tuple(1L, "A Name", Type.POI),
+                    tuple(2L, null, Type.WALKWAY));
+        assertThat(closed.get()).isTrue();
+    }
+
+    @Test
+    public void shouldRawReadsWriteTheSameJsonAsTheModels() throws Exception {
+        Waypoint poi = new Waypoint();
+        poi.setId(1L);
+        poi.setName("A \"quoted\" Name");
+        poi.setType(Type.POI);
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        poi.setPaths(singletonList(Path.to(2L, 10.5)));
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(-12.431, -43.0));
+        walkway.setPaths(singletonList(Path.to(1L, null)));
+        Morphia morphia = new Morphia().map(Waypoint.class);
+        DBObjectCodec codec = new DBObjectCodec(MongoClient.getDefaultCodecRegistry());
+        when(mockWaypointService.streamWaypoints(any())).thenAnswer(invocation -> Stream.of(poi, walkway));
+        when(mockWaypointService.streamWaypointDocuments(any())).thenAnswer(invocation -> Stream.of(poi, walkway)
+                .map(morphia::toDBObject)
+                .map(dbObject -> new RawBsonDocument(dbObject, codec)));
+
+        assertThat(mapper.readTree(write(rawEndpoint.getTypedWaypoints(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders))))
+            .isEqualTo(mapper.readTree(write(endpoint.getTypedWaypoints(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders))));
+        assertThat(mapper.readTree(write(rawEndpoint.getPois(Waypoint.DEFAULT_AREA, null, null, null, jsonRequest, noHeaders))))
+            .isEqualTo(mapper.readTree(write(endpoint.getPois(Waypoint.DEFAULT_AREA, null, null, null, jsonRequest, noHeaders))));
+        assertThat(mapper.readTree(write(rawEndpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders))))
+            .isEqualTo(mapper.readTree(write(endpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders))));
+    }
+
+    @Test
+    public void shouldRawReadsWriteBinaryFormatsFromTheModels() throws Exception {
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.431, 43.5));
+        when(mockWaypointService.streamWaypoints(any())).thenAnswer(invocation -> Stream.of(walkway));
+
+        Response response = rawEndpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, requestAccepting(MediaTypes.APPLICATION_CBOR_TYPE), noHeaders);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
+        List<Walkway> result = objectMappers.forMediaType(MediaTypes.APPLICATION_CBOR_TYPE).readValue(body.toByteArray(), new TypeReference<List<Walkway>>() {});
+
+        assertThat(response.getMediaType()).isEqualTo(MediaTypes.APPLICATION_CBOR_TYPE);
+        assertThat(result).extracting(Walkway::getId).containsExactly(2L);
+        verify(mockWaypointService, never()).streamWaypointDocuments(any());
+    }
+
+    @Test
+    public void shouldGetUnfilteredWaypointsFromTheirSnapshot() throws Exception {
+        byte[] json = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+        WaypointSnapshot snapshot = WaypointSnapshot.of("1", json);
+        when(mockSnapshots.find(Waypoint.DEFAULT_AREA, Representation.WALKWAY)).thenReturn(Optional.of(snapshot));
+        HttpHeaders gzipHeaders = mock(HttpHeaders.class);
+        when(gzipHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(singletonList("gzip, deflate"));
+
+        Response identity = endpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders);
+        Response gzip = endpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, jsonRequest, gzipHeaders);
+
+        assertThat(identity.getEntity()).isSameAs(json);
+        assertThat(identity.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(identity.getHeaderString(HttpHeaders.CONTENT_LENGTH)).isEqualTo(String.valueOf(json.length));
+        assertThat(gzip.getEntity()).isSameAs(snapshot.encodedWith(ContentCoding.GZIP));
+        assertThat(gzip.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(identity.getHeaderString(HttpHeaders.VARY)).isEqualTo("Accept, Accept-Encoding");
+        assertThat(gzip.getHeaderString(HttpHeaders.VARY)).isEqualTo("Accept, Accept-Encoding");
+        verify(mockWaypointService, never()).streamWaypoints(any());
+    }
+
+    @Test
+    public void shouldNotUseSnapshotsForFilteredOrBinaryListings() throws Exception {
+        when(mockSnapshots.find(any(), any())).thenReturn(Optional.of(WaypointSnapshot.of("1", new byte[0])));
+        when(mockWaypointService.streamWaypoints(any())).thenAnswer(invocation -> Stream.empty());
+
+        assertThat(endpoint.getPois(Waypoint.DEFAULT_AREA, null, null, 5, jsonRequest, noHeaders).getEntity()).isInstanceOf(StreamingOutput.class);
+        assertThat(endpoint.getPois(Waypoint.DEFAULT_AREA, null, "name", null, jsonRequest, noHeaders).getEntity()).isInstanceOf(StreamingOutput.class);
+        assertThat(endpoint.getPois(Waypoint.DEFAULT_AREA, null, null, null, requestAccepting(MediaTypes.APPLICATION_SMILE_TYPE), noHeaders).getEntity()).isInstanceOf(StreamingOutput.class);
+    }
+
+    @Test
+    public void shouldGetChangesAsTypedWaypointsAndDeletedIds() {
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.431, 43.5));
+        walkway.setVersion(8L);
+        when(mockWaypointService.findChangesSince(5L, 20)).thenReturn(new WaypointChangeSet(singletonList(walkway), singletonList(3L), 9L, true));
+
+        WaypointChanges changes = endpoint.getChanges(5L, 20);
+
+        assertThat(changes.getUpserts()).extracting(TypedWaypoint::getId, TypedWaypoint::getType).containsExactly(tuple(2L, Type.WALKWAY));
+        assertThat(changes.getDeletions()).containsExactly(3L);
+        assertThat(changes.getCursor()).isEqualTo(9L);
+        assertThat(changes.isHasMore()).isTrue();
+    }
+
+    @Test
+    public void shouldCapTheNumberOfChanges() {
+        WaypointChangeSet noChanges = new WaypointChangeSet(emptyList(), emptyList(), 0L, false);
+        when(mockWaypointService.findChangesSince(anyLong(), anyInt())).thenReturn(noChanges);
 
-        assertThat(result).isNotNull().isEmpty();
+        endpoint.getChanges(0L, null);
+        endpoint.getChanges(0L, Integer.MAX_VALUE);
+
+        verify(mockWaypointService, times(2)).findChangesSince(0L, 1000);
+    }
+
+    @Test
+    public void shouldRawReadsLeaveNameQueriesToTheDao() throws Exception {
+        when(mockWaypointService.streamWaypoints(any())).thenReturn(Stream.empty());
+
+        assertThat(write(rawEndpoint.getPois(Waypoint.DEFAULT_AREA, null, "name", null, jsonRequest, noHeaders))).isEqualTo("[]");
+        verify(mockWaypointService, never()).streamWaypointDocuments(any());
     }
 
     @Test
     public void shouldGetWalkwaysFailValidationWhenBboxNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getWalkways", BoundingBox.class, Integer.class);
+        Method method = WaypointEndpoint.class.getMethod("getWalkways", String.class, BoundingBox.class, Integer.class, Request.class, HttpHeaders.class);
         BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(1111d, 12313d), Coordinates.ofLatLng(1111d, 12313d));
-        Object[] parameterValues = { bbox, null };
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, bbox, null, null, null };
 
         assertBoundingBoxValidation(method, parameterValues);
     }
 
     @Test
-    public void shouldGetWalkwayWontFail() {
-        when(mockWaypointService.findWaypoints(any())).thenReturn(emptyList());
-        List<Walkway> result = endpoint.getWalkways(null, null);
+    public void shouldGetWalkwayWontFail() throws Exception {
+        when(mockWaypointService.streamWaypoints(any())).thenReturn(Stream.empty());
+        String result = write(endpoint.getWalkways(Waypoint.DEFAULT_AREA, null, null, jsonRequest, noHeaders));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo("[]");
     }
 
     @Test
     public void shouldGetPoisFailValidationWhenBboxIsNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getPois", BoundingBox.class, String.class, Integer.class);
+        Method method = WaypointEndpoint.class.getMethod("getPois", String.class, BoundingBox.class, String.class, Integer.class, Request.class, HttpHeaders.class);
         BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(1111d, 12313d), Coordinates.ofLatLng(1111d, 12313d));
-        Object[] parameterValues = { bbox, null, null };
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, bbox, null, null, null, null };
 
         assertBoundingBoxValidation(method, parameterValues);
     }
 
     @Test
-    public void shouldGetPoisWontFail() {
-        when(mockWaypointService.findWaypoints(any())).thenReturn(emptyList());
-        List<Poi> result = endpoint.getPois(null, null, null);
+    public void shouldGetPoisWontFail() throws Exception {
+        when(mockWaypointService.streamWaypoints(any())).thenReturn(Stream.empty());
+        String result = write(endpoint.getPois(Waypoint.DEFAULT_AREA, null, null, null, jsonRequest, noHeaders));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo("[]");
     }
 
     @Test
@@ -224,25 +409,25 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetPoiSuggestionsFailValidationWhenBboxIsNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getPoiSuggestions", BoundingBox.class, String.class, Integer.class);
+        Method method = WaypointEndpoint.class.getMethod("getPoiSuggestions", String.class, BoundingBox.class, String.class, Integer.class, AsyncResponse.class);
         BoundingBox bbox = BoundingBox.ofBottomTop(Coordinates.ofLatLng(1111d, 12313d), Coordinates.ofLatLng(1111d, 12313d));
-        Object[] parameterValues = { bbox, null, null };
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, bbox, null, null, null };
 
         assertBoundingBoxValidation(method, parameterValues);
     }
 
     @Test
     public void shouldGetPoiSuggestionsWontFail() {
-        when(mockWaypointService.findWaypoints(any())).thenReturn(emptyList());
-        List<Poi> result = endpoint.getPoiSuggestions(null, null, null);
+        when(mockWaypointService.findWaypointsAsync(any())).thenReturn(completedFuture(emptyList()));
+        Object result = resumed(asyncResponse -> endpoint.getPoiSuggestions(Waypoint.DEFAULT_AREA, null, null, null, asyncResponse));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo(emptyList());
     }
 
     @Test
     public void shouldGetNearTypedWaypointsFailValidationWhenCoordiantesIsNull() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearTypedWaypoints", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { null, null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearTypedWaypoints", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, null, null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -253,8 +438,8 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearTypedWaypointsFailValidationWhenCoordiantesIsNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearTypedWaypoints", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { Coordinates.ofLatLng(1111d, 12313d), null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearTypedWaypoints", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(1111d, 12313d), null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -265,16 +450,16 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearTypedWaypointsWontFail() {
-        when(mockWaypointService.findWaypointsNearALocation(any())).thenReturn(emptyList());
-        List<TypedWaypoint> result = endpoint.getNearTypedWaypoints(Coordinates.ofLatLng(12.43, 43.5), null, null);
+        when(mockWaypointService.findWaypointsNearALocationAsync(any())).thenReturn(completedFuture(emptyList()));
+        Object result = resumed(asyncResponse -> endpoint.getNearTypedWaypoints(Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(12.43, 43.5), null, null, asyncResponse));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo(emptyList());
     }
 
     @Test
     public void shouldGetNearPoisFailValidationWhenCoordiantesIsNull() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearPois", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { null, null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearPois", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, null, null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -285,8 +470,8 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearPoisFailValidationWhenCoordiantesIsNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearPois", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { Coordinates.ofLatLng(1111d, 12313d), null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearPois", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(1111d, 12313d), null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -297,16 +482,16 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearPoisWontFail() {
-        when(mockWaypointService.findWaypointsNearALocation(any())).thenReturn(emptyList());
-        List<Poi> result = endpoint.getNearPois(Coordinates.ofLatLng(12.43, 43.5), null, null);
+        when(mockWaypointService.findWaypointsNearALocationAsync(any())).thenReturn(completedFuture(emptyList()));
+        Object result = resumed(asyncResponse -> endpoint.getNearPois(Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(12.43, 43.5), null, null, asyncResponse));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo(emptyList());
     }
 
     @Test
     public void shouldGetNearWalwaysFailValidationWhenCoordiantesIsNull() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearWalways", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { null, null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearWalways", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, null, null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -317,8 +502,8 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearWalwaysFailValidationWhenCoordiantesIsNotNullButInvalid() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getNearWalways", Coordinates.class, Integer.class, Integer.class);
-        Object[] parameterValues = { Coordinates.ofLatLng(1111d, 12313d), null, null };
+        Method method = WaypointEndpoint.class.getMethod("getNearWalways", String.class, Coordinates.class, Integer.class, Integer.class, AsyncResponse.class);
+        Object[] parameterValues = { Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(1111d, 12313d), null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -329,16 +514,16 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetNearWalkwaysWontFail() {
-        when(mockWaypointService.findWaypointsNearALocation(any())).thenReturn(emptyList());
-        List<Walkway> result = endpoint.getNearWalways(Coordinates.ofLatLng(12.43, 43.5), null, null);
+        when(mockWaypointService.findWaypointsNearALocationAsync(any())).thenReturn(completedFuture(emptyList()));
+        Object result = resumed(asyncResponse -> endpoint.getNearWalways(Waypoint.DEFAULT_AREA, Coordinates.ofLatLng(12.43, 43.5), null, null, asyncResponse));
 
-        assertThat(result).isNotNull().isEmpty();
+        assertThat(result).isEqualTo(emptyList());
     }
 
     @Test
     public void shouldGetWaypointFailValidationWhenIdIsNull() throws Exception {
-        Method method = WaypointEndpoint.class.getMethod("getWaypoint", Long.class, List.class);
-        Object[] parameterValues = { null, null };
+        Method method = WaypointEndpoint.class.getMethod("getWaypoint", Long.class, List.class, AsyncResponse.class);
+        Object[] parameterValues = { null, null, null };
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
                 method,
@@ -361,8 +546,8 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
         waypoint.setName(responseBody.getName());
         waypoint.setType(responseBody.getType());
         
-        when(mockWaypointService.findWaypointById(responseBody.getId())).thenReturn(Optional.of(waypoint));
-        Response response = endpoint.getWaypoint(responseBody.getId(), emptyList());
+        when(mockWaypointService.findWaypointByIdAsync(responseBody.getId())).thenReturn(completedFuture(Optional.of(waypoint)));
+        Response response = (Response) resumed(asyncResponse -> endpoint.getWaypoint(responseBody.getId(), emptyList(), asyncResponse));
 
         assertThat(response).isNotNull()
             .extracting(Response::getStatusInfo, Response::hasEntity)
@@ -375,8 +560,8 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
 
     @Test
     public void shouldGetWaypointRespondWithNotFoundWhenNoData() {
-        when(mockWaypointService.findWaypointById(5L)).thenReturn(Optional.empty());
-        Response response = endpoint.getWaypoint(5L, emptyList());
+        when(mockWaypointService.findWaypointByIdAsync(5L)).thenReturn(completedFuture(Optional.empty()));
+        Response response = (Response) resumed(asyncResponse -> endpoint.getWaypoint(5L, emptyList(), asyncResponse));
         Response.Status status = Response.Status.NOT_FOUND;
         ErrorMessage errorMessage = new ErrorMessage.Builder()
                 .statusCode(status.getStatusCode())
@@ -489,11 +674,63 @@ public class WaypointEndpointTest extends BaseSpringValidationTest {
             .containsOnly(responseBody.getId(), responseBody.getName(), responseBody.getLocation(), responseBody.getType());
     }
 
+    @Test
+    public void shouldPatchWaypointKeepPaths() throws Exception {
+        long id = 1L;
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        waypoint.setType(Type.WALKWAY);
+        waypoint.setPaths(singletonList(Path.to(2L, 15.5)));
+
+        when(mockWaypointService.findWaypointById(id)).thenReturn(Optional.of(waypoint));
+
+        Response response = endpoint.patchWaypoint(id, dummyPatch(), emptyList());
+
+        verify(mockWaypointService).persist(waypoint);
+        assertThat(((TypedWaypoint) response.getEntity()).getPaths())
+            .extracting("toWaypoint", "distance")
+            .containsOnly(tuple(2L, 15.5));
+    }
+
+    @Test
+    public void shouldResumeWithTheCauseWhenTheReadFails() {
+        IllegalStateException failure = new IllegalStateException();
+        CompletableFuture<Optional<Waypoint>> failedRead = new CompletableFuture<>();
+        failedRead.completeExceptionally(new CompletionException(failure));
+        when(mockWaypointService.findWaypointByIdAsync(5L)).thenReturn(failedRead);
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        endpoint.getWaypoint(5L, emptyList(), asyncResponse);
+
+        verify(asyncResponse).resume(failure);
+    }
+
     private ObjectPatch dummyPatch() throws Exception {
         JsonPatch jsonPatch = mapper.readValue("[]", JsonPatch.class);
         return new JsonObjectPatch(mapper, jsonPatch);
     }
 
+    private static Object resumed(Consumer<AsyncResponse> call) {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+        call.accept(asyncResponse);
+        ArgumentCaptor<Object> entity = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).resume(entity.capture());
+        return entity.getValue();
+    }
+
+    private static Request requestAccepting(MediaType mediaType) {
+        Request request = mock(Request.class);
+        when(request.selectVariant(anyListOf(Variant.class))).thenReturn(new Variant(mediaType, (String) null, null));
+        return request;
+    }
+
+    private static String write(Response response) throws IOException {
+        assertThat(response.getMediaType()).isEqualTo(MediaType.APPLICATION_JSON_TYPE);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(body);
+        return body.toString(StandardCharsets.UTF_8.name());
+    }
+
     private void assertBoundingBoxValidation(Method method, Object[] parameterValues) {
         Set<ConstraintViolation<WaypointEndpoint>> violations = validator().forExecutables().validateParameters(
                 endpoint,
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.ws.rest.sse.WaypointEventBroadcaster;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+
+import org.junit.Test;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+public class WaypointEventEndpointTest extends BaseMockitoTest {
+
+    private @Mock WaypointEventBroadcaster broadcaster;
+
+    private @InjectMocks WaypointEventEndpoint endpoint;
+
+    @Test
+    public void shouldSubscribeANewOutputWithTheFilters() {
+        BoundingBox bbox = BoundingBox.fromString("12.23,32.681;15.234,37.65");
+        when(broadcaster.subscribe(any(EventOutput.class), eq(Waypoint.DEFAULT_AREA), eq(bbox), eq(Type.POI))).thenAnswer(invocation -> invocation.getArguments()[0]);
+
+        EventOutput output = endpoint.getEvents(Waypoint.DEFAULT_AREA, bbox, Type.POI);
+
+        assertThat(output).isNotNull();
+        assertThat(output.isClosed()).isFalse();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.service.WaypointTileService;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.tile.TileKey;
+import com.github.danzx.zekke.tile.VectorTile;
+
+import org.junit.Test;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+public class WaypointTileEndpointTest extends BaseMockitoTest {
+
+    private static final VectorTile TILE = VectorTile.of(new byte[] { 1, 2, 3 });
+
+    private @Mock WaypointTileService tileService;
+    private @Mock Request request;
+
+    private @InjectMocks WaypointTileEndpoint endpoint;
+
+    @Test
+    public void shouldRespondWithTheTileAndItsETag() {
+        when(tileService.getTile(TileKey.of(16, 14876, 29233))).thenReturn(TILE);
+
+        Response response = endpoint.getTile(Waypoint.DEFAULT_AREA, 16, 14876, 29233, request);
+
+        assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+        assertThat(response.getEntity()).isEqualTo(TILE.getData());
+        assertThat(response.getEntityTag()).isEqualTo(new EntityTag(TILE.getTag()));
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+    }
+
+    @Test
+    public void shouldRespondNotModifiedWhenTheETagMatches() {
+        when(tileService.getTile(any())).thenReturn(TILE);
+        when(request.evaluatePreconditions(new EntityTag(TILE.getTag()))).thenReturn(Response.notModified(TILE.getTag()));
+
+        Response response = endpoint.getTile(Waypoint.DEFAULT_AREA, 1, 0, 1, request);
+
+        assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_MODIFIED);
+        assertThat(response.hasEntity()).isFalse();
+    }
+
+    @Test
+    public void shouldRespondNotFoundWhenTheTileDoesNotExist() {
+        assertThat(catchThrowable(() -> endpoint.getTile(Waypoint.DEFAULT_AREA, 1, 2, 0, request))).isInstanceOf(NotFoundException.class);
+        verify(tileService, never()).getTile(any());
+    }
+}
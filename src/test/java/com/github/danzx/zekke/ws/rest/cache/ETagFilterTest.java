@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointDataVersion;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+public class ETagFilterTest extends BaseMockitoTest {
+
+    private static final String ETAG_PROPERTY = ETagFilter.class.getName() + ".etag";
+
+    private @Mock ContainerRequestContext requestContext;
+    private @Mock ContainerResponseContext responseContext;
+    private @Mock ResourceInfo resourceInfo;
+    private @Mock UriInfo uriInfo;
+    private @Mock WaypointDao dao;
+
+    private WaypointDataVersion dataVersion;
+    private ETagFilter filter;
+
+    @Before
+    public void setUp() {
+        dataVersion = new WaypointDataVersion(dao, 0);
+        filter = new ETagFilter();
+        filter.setDataVersion(dataVersion);
+        filter.setResourceInfo(resourceInfo);
+        when(requestContext.getMethod()).thenReturn(HttpMethod.GET);
+        when(requestContext.getHeaderString(HttpHeaders.ACCEPT)).thenReturn("application/json");
+    }
+
+    @Test
+    public void shouldTagOkResponses() throws Exception {
+        EntityTag etag = requestAndCaptureETag();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        when(requestContext.getProperty(ETAG_PROPERTY)).thenReturn(etag);
+        when(responseContext.getStatus()).thenReturn(200);
+        when(responseContext.getHeaders()).thenReturn(headers);
+
+        filter.filter(requestContext, responseContext);
+
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(headers.getFirst(HttpHeaders.CACHE_CONTROL)).hasToString("no-cache");
+    }
+
+    @Test
+    public void shouldNotTagErrorResponses() throws Exception {
+        when(requestContext.getProperty(ETAG_PROPERTY)).thenReturn(new EntityTag("1"));
+        when(responseContext.getStatus()).thenReturn(404);
+        filter.filter(requestContext, responseContext);
+        verify(responseContext, never()).getHeaders();
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWhenETagMatches() throws Exception {
+        EntityTag etag = requestAndCaptureETag();
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"other\", W/" + etag);
+
+        filter.filter(requestContext);
+
+        ArgumentCaptor<Response> captor = ArgumentCaptor.forClass(Response.class);
+        verify(requestContext).abortWith(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(304);
+        assertThat(captor.getValue().getEntityTag()).isEqualTo(etag);
+    }
+
+    @Test
+    public void shouldNotAnswerNotModifiedWhenDataChanged() throws Exception {
+        EntityTag etag = requestAndCaptureETag();
+        when(dao.findDataVersion()).thenReturn(1L);
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn(etag.toString());
+
+        filter.filter(requestContext);
+
+        verify(requestContext, never()).abortWith(any());
+    }
+
+    @Test
+    public void shouldTagEachRepresentationDifferently() throws Exception {
+        EntityTag jsonETag = requestAndCaptureETag();
+        when(requestContext.getHeaderString(HttpHeaders.ACCEPT)).thenReturn("application/cbor");
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn(jsonETag.toString());
+
+        filter.filter(requestContext);
+
+        verify(requestContext, never()).abortWith(any());
+    }
+
+    @Test
+    public void shouldTagEachContentCodingDifferently() throws Exception {
+        EntityTag identityETag = requestAndCaptureETag();
+        when(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn(identityETag.toString());
+
+        filter.filter(requestContext);
+
+        verify(requestContext, never()).abortWith(any());
+    }
+
+    @Test
+    public void shouldKeepTheTagOfAnAreaWhenAnotherAreaChanges() throws Exception {
+        scopeToArea("campus");
+        EntityTag etag = requestAndCaptureETag();
+        when(dao.findDataVersion()).thenReturn(1L);
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn(etag.toString());
+
+        filter.filter(requestContext);
+
+        verify(requestContext).abortWith(any());
+    }
+
+    @Test
+    public void shouldNotAnswerNotModifiedWhenTheAreaChanged() throws Exception {
+        scopeToArea("campus");
+        EntityTag etag = requestAndCaptureETag();
+        when(dao.findDataVersion("campus")).thenReturn(1L);
+        when(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH)).thenReturn(etag.toString());
+
+        filter.filter(requestContext);
+
+        verify(requestContext, never()).abortWith(any());
+    }
+
+    @Test
+    public void shouldIgnoreOtherMethods() throws Exception {
+        when(requestContext.getMethod()).thenReturn(HttpMethod.POST);
+        filter.filter(requestContext);
+        verify(requestContext, never()).setProperty(anyString(), any());
+        verify(requestContext, never()).abortWith(any());
+    }
+
+    private void scopeToArea(String area) throws Exception {
+        MultivaluedMap<String, String> queryParameters = new MultivaluedHashMap<>();
+        queryParameters.putSingle("area", area);
+        when(resourceInfo.getResourceMethod()).thenReturn(Resource.class.getMethod("get", String.class));
+        when(requestContext.getUriInfo()).thenReturn(uriInfo);
+        when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+    }
+
+    private EntityTag requestAndCaptureETag() throws Exception {
+        filter.filter(requestContext);
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(requestContext).setProperty(eq(ETAG_PROPERTY), captor.capture());
+        return (EntityTag) captor.getValue();
+    }
+
+    public static class Resource {
+        public String get(@QueryParam("area") String area) {
+            return area;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import javax.ws.rs.HttpMethod;
+
+import com.github.danzx.zekke.metrics.MetricsRegistry;
+import com.github.danzx.zekke.metrics.TimerSnapshot;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.ws.rest.api.ErrorEndpoint;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.Mock;
+
+public class ResourceMetricsListenerTest extends BaseMockitoTest {
+
+    private @Mock RequestEvent event;
+    private @Mock ExtendedUriInfo uriInfo;
+
+    private ResourceMethod resourceMethod;
+    private MetricsRegistry registry;
+    private ResourceMetricsListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new MetricsRegistry();
+        listener = new ResourceMetricsListener();
+        listener.setMetricsRegistry(registry);
+        when(event.getUriInfo()).thenReturn(uriInfo);
+        Resource.Builder resource = Resource.builder("errors");
+        resource.addMethod(HttpMethod.GET).handledBy(ErrorEndpoint.class, ErrorEndpoint.class.getMethod("resourceNotFound", List.class));
+        resourceMethod = resource.build().getResourceMethods().get(0);
+    }
+
+    @Test
+    public void shouldTimeFinishedRequestsByResourceMethod() {
+        when(uriInfo.getMatchedResourceMethod()).thenReturn(resourceMethod);
+        RequestEventListener requestListener = listener.onRequest(event);
+
+        when(event.getType()).thenReturn(RequestEvent.Type.RESP_FILTERS_START);
+        requestListener.onEvent(event);
+        when(event.getType()).thenReturn(RequestEvent.Type.FINISHED);
+        requestListener.onEvent(event);
+        requestListener = listener.onRequest(event);
+        requestListener.onEvent(event);
+
+        assertThat(registry.snapshot())
+            .extracting(TimerSnapshot::getCategory, TimerSnapshot::getOperation, TimerSnapshot::getCount)
+            .containsOnly(tuple(MetricsRegistry.HTTP_CATEGORY, "ErrorEndpoint.resourceNotFound", 2L));
+    }
+
+    @Test
+    public void shouldIgnoreUnmatchedRequests() {
+        when(event.getType()).thenReturn(RequestEvent.Type.FINISHED);
+
+        listener.onRequest(event).onEvent(event);
+
+        assertThat(registry.snapshot()).isEmpty();
+    }
+}
@@ -53,7 +53,7 @@ public class JwtAuthenticationFilterTest extends BaseMockitoTest {
     static {
         SigningKeyHolder keyHolder = new SigningKeyHolder("keys/test1.key");
         String issuer = "testIssuer";
-        VERIFIER = new JjwtVerifier(issuer, keyHolder);
+        VERIFIER = new JjwtVerifier(issuer, keyHolder, 100);
         TOKEN_FACTORY = new JjwtFactory(1L, issuer, keyHolder);
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.snapshot;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class ContentCodingTest {
+
+    @Test
+    @Parameters(method = "acceptEncodings")
+    public void shouldPickThePreferredCoding(List<String> acceptEncodings, ContentCoding expected) {
+        assertThat(ContentCoding.preferred(acceptEncodings)).isEqualTo(expected);
+    }
+
+    @SuppressWarnings("unused")
+    private Object[] acceptEncodings() {
+        return new Object[][] {
+            { null, ContentCoding.IDENTITY },
+            { singletonList(""), ContentCoding.IDENTITY },
+            { singletonList("gzip, deflate, br"), ContentCoding.GZIP },
+            { singletonList("deflate, gzip"), ContentCoding.GZIP },
+            { singletonList("x-gzip"), ContentCoding.GZIP },
+            { singletonList("GZIP;q=0.5"), ContentCoding.GZIP },
+            { singletonList("deflate"), ContentCoding.DEFLATE },
+            { singletonList("gzip;q=0, deflate"), ContentCoding.DEFLATE },
+            { asList("br", "deflate;q=0.1"), ContentCoding.DEFLATE },
+            { singletonList("*"), ContentCoding.GZIP },
+            { singletonList("*;q=0.5, gzip;q=0"), ContentCoding.DEFLATE },
+            { singletonList("gzip;q=nope"), ContentCoding.IDENTITY },
+            { singletonList("br, identity"), ContentCoding.IDENTITY }
+        };
+    }
+}
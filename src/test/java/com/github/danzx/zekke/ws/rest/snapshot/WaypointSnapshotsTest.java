@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.github.danzx.zekke.data.filter.waypoint.WaypointFilterOptions;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.persistence.dao.WaypointDao;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.service.WaypointDataVersion;
+import com.github.danzx.zekke.service.WaypointService;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.ws.rest.RawWaypointJsonStreamingOutput.Representation;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2PoiTransformer;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2TypedWaypointTransformer;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2WalkwayTransformer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+public class WaypointSnapshotsTest extends BaseMockitoTest {
+
+    private @Mock WaypointService waypointService;
+    private @Mock WaypointDao dao;
+
+    private WaypointDataVersion dataVersion;
+    private List<Runnable> scheduled;
+    private WaypointSnapshots snapshots;
+
+    @Before
+    public void setUp() {
+        dataVersion = new WaypointDataVersion(dao, 0);
+        scheduled = new ArrayList<>();
+        snapshots = new WaypointSnapshots(waypointService, 
+                new Waypoint2PoiTransformer(), 
+                new Waypoint2WalkwayTransformer(), 
+                new Waypoint2TypedWaypointTransformer(), 
+                new ObjectMapperConfig().objectMapperCustomizer(), 
+                dataVersion, 
+                scheduled::add);
+        when(waypointService.streamWaypoints(any())).thenAnswer(invocation -> {
+            WaypointFilterOptions filterOptions = invocation.getArgumentAt(0, WaypointFilterOptions.class);
+            return Stream.of(poi(), walkway()).filter(waypoint -> !filterOptions.getWaypointType().isPresent() || 
+                    filterOptions.getWaypointType().get() == waypoint.getType());
+        });
+    }
+
+    @Test
+    public void shouldScheduleARebuildWhenThereIsNoSnapshot() {
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.WALKWAY)).isEmpty();
+
+        assertThat(scheduled).hasSize(1);
+        verify(waypointService, never()).streamWaypoints(any());
+    }
+
+    @Test
+    public void shouldFindEveryListingInEveryCodingOnceRebuilt() throws Exception {
+        runScheduled();
+
+        assertThat(json(Representation.TYPED_WAYPOINT, ContentCoding.IDENTITY))
+            .isEqualTo("[{\"id\":1,\"location\":{\"latitude\":12.43,\"longitude\":43.5},\"type\":\"POI\",\"name\":\"A Name\",\"area\":\"default\"},"
+                    + "{\"id\":2,\"location\":{\"latitude\":12.431,\"longitude\":43.5},\"type\":\"WALKWAY\",\"area\":\"default\"}]");
+        assertThat(json(Representation.POI, ContentCoding.IDENTITY)).isEqualTo("[{\"id\":1,\"location\":{\"latitude\":12.43,\"longitude\":43.5},\"name\":\"A Name\"}]");
+        for (Representation representation : Representation.values()) {
+            String identity = json(representation, ContentCoding.IDENTITY);
+            assertThat(json(representation, ContentCoding.GZIP)).isEqualTo(identity);
+            assertThat(json(representation, ContentCoding.DEFLATE)).isEqualTo(identity);
+        }
+    }
+
+    @Test
+    public void shouldRebuildFromThePrimary() {
+        runScheduled();
+
+        ArgumentCaptor<WaypointFilterOptions> filterOptions = ArgumentCaptor.forClass(WaypointFilterOptions.class);
+        verify(waypointService, times(3)).streamWaypoints(filterOptions.capture());
+        assertThat(filterOptions.getAllValues()).allMatch(WaypointFilterOptions::fromPrimary);
+    }
+
+    @Test
+    public void shouldNotFindStaleSnapshots() {
+        runScheduled();
+        WaypointChangeEvent change = new WaypointChangeEvent(this, poi(), WaypointChangeEvent.Change.SAVED);
+        when(dao.findDataVersion(Waypoint.DEFAULT_AREA)).thenReturn(1L);
+        snapshots.onWaypointChange(change);
+
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+        assertThat(scheduled).hasSize(1);
+
+        runScheduled();
+
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isPresent();
+        verify(waypointService, times(6)).streamWaypoints(any());
+    }
+
+    @Test
+    public void shouldKeepTheSnapshotsOfOtherAreas() {
+        runScheduled();
+        Waypoint elsewhere = poi();
+        elsewhere.setArea("north");
+        WaypointChangeEvent change = new WaypointChangeEvent(this, elsewhere, WaypointChangeEvent.Change.SAVED);
+        when(dao.findDataVersion("north")).thenReturn(1L);
+        snapshots.onWaypointChange(change);
+
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isPresent();
+    }
+
+    @Test
+    public void shouldRebuildTheAreaOfADeletedWaypoint() {
+        runScheduled();
+        Waypoint deleted = new Waypoint();
+        deleted.setId(1L);
+        WaypointChangeEvent change = new WaypointChangeEvent(this, deleted, poi(), WaypointChangeEvent.Change.DELETED);
+        when(dao.findDataVersion(Waypoint.DEFAULT_AREA)).thenReturn(1L);
+        snapshots.onWaypointChange(change);
+
+        assertThat(scheduled).hasSize(1);
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+    }
+
+    @Test
+    public void shouldCoalesceRebuildsUntilTheScheduledOneRuns() {
+        snapshots.onWaypointChange(new WaypointChangeEvent(this, poi(), WaypointChangeEvent.Change.SAVED));
+        snapshots.onWaypointChange(new WaypointChangeEvent(this, walkway(), WaypointChangeEvent.Change.DELETED));
+        snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI);
+
+        assertThat(scheduled).hasSize(1);
+    }
+
+    @Test
+    public void shouldKeepNoSnapshotWhenTheRebuildFails() {
+        when(waypointService.streamWaypoints(any())).thenThrow(new IllegalStateException("Mongo is down"));
+        runScheduled();
+
+        assertThat(snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+        assertThat(scheduled).hasSize(1);
+    }
+
+    @Test
+    public void shouldScheduleAgainWhenTheExecutorRejects() {
+        WaypointSnapshots rejecting = new WaypointSnapshots(waypointService, 
+                new Waypoint2PoiTransformer(), 
+                new Waypoint2WalkwayTransformer(), 
+                new Waypoint2TypedWaypointTransformer(), 
+                new ObjectMapper(), 
+                dataVersion, 
+                runnable -> { throw new RejectedExecutionException(); });
+
+        assertThat(rejecting.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+        assertThat(rejecting.find(Waypoint.DEFAULT_AREA, Representation.POI)).isEmpty();
+    }
+
+    @Test
+    public void shouldCompressSnapshots() {
+        byte[] body = new byte[4096];
+        WaypointSnapshot snapshot = WaypointSnapshot.of("1", body);
+
+        assertThat(snapshot.encodedWith(ContentCoding.IDENTITY)).isSameAs(body);
+        assertThat(snapshot.encodedWith(ContentCoding.GZIP).length).isLessThan(body.length / 10);
+        assertThat(snapshot.encodedWith(ContentCoding.DEFLATE).length).isLessThan(body.length / 10);
+    }
+
+    private void runScheduled() {
+        List<Runnable> toRun = new ArrayList<>(scheduled);
+        scheduled.clear();
+        if (toRun.isEmpty()) snapshots.find(Waypoint.DEFAULT_AREA, Representation.POI);
+        toRun.addAll(scheduled);
+        scheduled.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    private String json(Representation representation, ContentCoding coding) throws IOException {
+        Optional<WaypointSnapshot> snapshot = snapshots.find(Waypoint.DEFAULT_AREA, representation);
+        assertThat(snapshot).isPresent();
+        InputStream body = new ByteArrayInputStream(snapshot.get().encodedWith(coding));
+        if (coding == ContentCoding.GZIP) body = new GZIPInputStream(body);
+        else if (coding == ContentCoding.DEFLATE) body = new InflaterInputStream(body);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = body.read(buffer)) != -1;) json.write(buffer, 0, read);
+        return json.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static Waypoint poi() {
+        Waypoint poi = new Waypoint();
+        poi.setId(1L);
+        poi.setName("A Name");
+        poi.setType(Type.POI);
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        return poi;
+    }
+
+    private static Waypoint walkway() {
+        Waypoint walkway = new Waypoint();
+        walkway.setId(2L);
+        walkway.setType(Type.WALKWAY);
+        walkway.setLocation(Coordinates.ofLatLng(12.431, 43.5));
+        return walkway;
+    }
+}
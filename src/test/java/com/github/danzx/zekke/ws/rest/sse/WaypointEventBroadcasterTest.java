@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.sse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.github.danzx.zekke.domain.BoundingBox;
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.service.WaypointChangeEvent;
+import com.github.danzx.zekke.test.mockito.BaseMockitoTest;
+import com.github.danzx.zekke.ws.rest.config.ObjectMapperConfig;
+import com.github.danzx.zekke.ws.rest.transformer.Waypoint2TypedWaypointTransformer;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+public class WaypointEventBroadcasterTest extends BaseMockitoTest {
+
+    private static final int QUEUE_SIZE = 4;
+    private static final BoundingBox BBOX = BoundingBox.ofBottomTop(Coordinates.ofLatLng(12.0, 43.0), Coordinates.ofLatLng(13.0, 44.0));
+
+    private @Mock EventOutput output;
+    private @Mock EventOutput otherOutput;
+
+    private WaypointEventBroadcaster broadcaster;
+
+    @Before
+    public void setUp() {
+        broadcaster = newBroadcaster(2);
+    }
+
+    @Test
+    public void shouldSendSavedWaypointsAsTypedWaypoints() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, poi(), WaypointChangeEvent.Change.SAVED));
+
+        OutboundEvent event = sentTo(output);
+        assertThat(event.getName()).isEqualTo(WaypointEventBroadcaster.SAVED_EVENT);
+        assertThat(event.getId()).isEqualTo("7");
+        assertThat(event.getData()).isEqualTo("{\"id\":1,\"location\":{\"latitude\":12.43,\"longitude\":43.5},\"type\":\"POI\",\"name\":\"A Name\",\"area\":\"default\"}");
+    }
+
+    @Test
+    public void shouldSendDeletionsOfUnknownWaypointsToEverySubscriber() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, BBOX, Type.WALKWAY);
+        Waypoint deleted = new Waypoint();
+        deleted.setId(1L);
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, deleted, WaypointChangeEvent.Change.DELETED));
+
+        OutboundEvent event = sentTo(output);
+        assertThat(event.getName()).isEqualTo(WaypointEventBroadcaster.DELETED_EVENT);
+        assertThat(event.getData()).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    public void shouldOnlySendDeletionsOfWaypointsAcceptedByTheFilters() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, BBOX, Type.POI);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, Type.WALKWAY);
+        Waypoint deleted = new Waypoint();
+        deleted.setId(1L);
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, deleted, poi(), WaypointChangeEvent.Change.DELETED));
+
+        assertThat(sentTo(output).getName()).isEqualTo(WaypointEventBroadcaster.DELETED_EVENT);
+        verify(otherOutput, never()).write(any());
+    }
+
+    @Test
+    public void shouldSendLeftWhenAWaypointIsSavedOutsideTheFilters() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, BBOX, Type.POI);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, Type.WALKWAY);
+        Waypoint moved = poi();
+        moved.setLocation(Coordinates.ofLatLng(14.0, 43.5));
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, moved, poi(), WaypointChangeEvent.Change.SAVED));
+
+        OutboundEvent event = sentTo(output);
+        assertThat(event.getName()).isEqualTo(WaypointEventBroadcaster.LEFT_EVENT);
+        assertThat(event.getData()).isEqualTo("{\"id\":1}");
+        verify(otherOutput, never()).write(any());
+    }
+
+    @Test
+    public void shouldOnlySendSavedWaypointsAcceptedByTheFilters() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, BBOX, Type.POI);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, Type.WALKWAY);
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, poi(), WaypointChangeEvent.Change.SAVED));
+        Waypoint outside = poi();
+        outside.setLocation(Coordinates.ofLatLng(14.0, 43.5));
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, outside, WaypointChangeEvent.Change.SAVED));
+
+        verify(output).write(any());
+        verify(otherOutput, never()).write(any());
+    }
+
+    @Test
+    public void shouldOnlySendSavedWaypointsOfTheSubscribedArea() throws IOException {
+        broadcaster.subscribe(output, "north", null, null);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, null);
+
+        broadcaster.onWaypointChange(new WaypointChangeEvent(this, poi(), WaypointChangeEvent.Change.SAVED));
+
+        verify(output, never()).write(any());
+        verify(otherOutput).write(any());
+    }
+
+    @Test
+    public void shouldRejectSubscribersWhenFull() {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, null);
+
+        assertThat(catchThrowable(() -> broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, null))).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void shouldDropSubscribersThatFailOrClosed() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+        broadcaster.subscribe(otherOutput, Waypoint.DEFAULT_AREA, null, null);
+        doThrow(new IOException("Broken pipe")).when(output).write(any());
+        when(otherOutput.isClosed()).thenReturn(true);
+
+        broadcaster.heartbeat();
+
+        assertThat(broadcaster.subscribers()).isZero();
+        verify(output).close();
+        verify(otherOutput, never()).write(any());
+    }
+
+    @Test
+    public void shouldDisconnectSubscribersThatFallBehind() throws IOException {
+        List<Runnable> writes = new ArrayList<>();
+        broadcaster = new WaypointEventBroadcaster(new Waypoint2TypedWaypointTransformer(), 
+                new ObjectMapperConfig().objectMapperCustomizer(), 
+                2, 
+                QUEUE_SIZE, 
+                Runnable::run, 
+                writes::add);
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+
+        for (int i = 0; i < QUEUE_SIZE; i++) broadcaster.heartbeat();
+        assertThat(broadcaster.subscribers()).isEqualTo(1);
+        broadcaster.heartbeat();
+
+        assertThat(broadcaster.subscribers()).isZero();
+        assertThat(writes).hasSize(1);
+        verify(output).close();
+        writes.get(0).run();
+        verify(output, never()).write(any());
+    }
+
+    @Test
+    public void shouldNotOvershootTheSubscriberLimit() throws Exception {
+        int threads = 8;
+        broadcaster = newBroadcaster(threads / 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> subscriptions = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            subscriptions.add(executor.submit(() -> {
+                start.await();
+                try {
+                    broadcaster.subscribe(mock(EventOutput.class), Waypoint.DEFAULT_AREA, null, null);
+                    return true;
+                } catch (RejectedExecutionException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int subscribed = 0;
+        for (Future<Boolean> subscription : subscriptions) if (subscription.get()) subscribed++;
+        executor.shutdown();
+
+        assertThat(subscribed).isEqualTo(threads / 2);
+        assertThat(broadcaster.subscribers()).isEqualTo(threads / 2);
+    }
+
+    @Test
+    public void shouldSendHeartbeatsAsComments() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+
+        broadcaster.heartbeat();
+
+        OutboundEvent event = sentTo(output);
+        assertThat(event.getComment()).isNotNull();
+        assertThat(event.getData()).isNull();
+    }
+
+    @Test
+    public void shouldCloseEveryOutputOnShutdown() throws IOException {
+        broadcaster.subscribe(output, Waypoint.DEFAULT_AREA, null, null);
+
+        broadcaster.shutdown();
+
+        verify(output).close();
+        assertThat(broadcaster.subscribers()).isZero();
+    }
+
+    private OutboundEvent sentTo(EventOutput output) throws IOException {
+        ArgumentCaptor<OutboundEvent> event = ArgumentCaptor.forClass(OutboundEvent.class);
+        verify(output).write(event.capture());
+        return event.getValue();
+    }
+
+    private static WaypointEventBroadcaster newBroadcaster(int maxSubscribers) {
+        return new WaypointEventBroadcaster(new Waypoint2TypedWaypointTransformer(), 
+                new ObjectMapperConfig().objectMapperCustomizer(), 
+                maxSubscribers, 
+                QUEUE_SIZE, 
+                Runnable::run, 
+                Runnable::run);
+    }
+
+    private static Waypoint poi() {
+        Waypoint poi = new Waypoint();
+        poi.setId(1L);
+        poi.setVersion(7L);
+        poi.setName("A Name");
+        poi.setType(Type.POI);
+        poi.setLocation(Coordinates.ofLatLng(12.43, 43.5));
+        return poi;
+    }
+}
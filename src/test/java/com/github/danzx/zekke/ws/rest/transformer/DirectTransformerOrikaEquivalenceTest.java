@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Daniel Pedraza-Arcega
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.danzx.zekke.ws.rest.transformer;
+
+import static java.util.Arrays.asList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
+import com.github.danzx.zekke.domain.Waypoint;
+import com.github.danzx.zekke.domain.Waypoint.Type;
+import com.github.danzx.zekke.domain.transformer.orika.WaypointOrikaTransformer;
+import com.github.danzx.zekke.transformer.Transformer;
+import com.github.danzx.zekke.ws.rest.config.WaypointToPoiMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToTypedWaypointMapping;
+import com.github.danzx.zekke.ws.rest.config.WaypointToWalkwayMapping;
+import com.github.danzx.zekke.ws.rest.model.Poi;
+import com.github.danzx.zekke.ws.rest.model.TypedWaypoint;
+import com.github.danzx.zekke.ws.rest.model.Walkway;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DirectTransformerOrikaEquivalenceTest {
+
+    private static MapperFacade mapperFacade;
+
+    @BeforeClass
+    public static void setUpMapper() {
+        MapperFactory mapperFactory = new DefaultMapperFactory.Builder().mapNulls(false).build();
+        new WaypointToPoiMapping().configure(mapperFactory);
+        new WaypointToWalkwayMapping().configure(mapperFactory);
+        new WaypointToTypedWaypointMapping().configure(mapperFactory);
+        mapperFacade = mapperFactory.getMapperFacade();
+    }
+
+    @Test
+    public void shouldPoiTransformerMatchOrika() {
+        assertEquivalent(new Waypoint2PoiTransformer(), new WaypointOrikaTransformer<>(mapperFacade, Poi.class));
+    }
+
+    @Test
+    public void shouldWalkwayTransformerMatchOrika() {
+        assertEquivalent(new Waypoint2WalkwayTransformer(), new WaypointOrikaTransformer<>(mapperFacade, Walkway.class));
+    }
+
+    @Test
+    public void shouldTypedWaypointTransformerMatchOrika() {
+        assertEquivalent(new Waypoint2TypedWaypointTransformer(), new WaypointOrikaTransformer<>(mapperFacade, TypedWaypoint.class));
+    }
+
+    private <B> void assertEquivalent(Transformer<Waypoint, B> direct, Transformer<Waypoint, B> orika) {
+        List<Waypoint> waypoints = waypoints();
+        List<B> directModels = direct.convertListAtoListB(waypoints);
+        List<B> orikaModels = orika.convertListAtoListB(waypoints);
+        assertThat(directModels).usingFieldByFieldElementComparator().isEqualTo(orikaModels);
+        assertThat(direct.convertListBtoListA(directModels)).isEqualTo(orika.convertListBtoListA(orikaModels));
+    }
+
+    private List<Waypoint> waypoints() {
+        Waypoint poi = newWaypoint(1L, "Name", Type.POI, 12.43, 43.5);
+        poi.setPaths(asList(Path.to(2L, 10.5), Path.to(3L, 7.25)));
+        Waypoint walkway = newWaypoint(2L, null, Type.WALKWAY, -12.431, -43.0);
+        Waypoint empty = new Waypoint();
+        return asList(poi, walkway, empty, null);
+    }
+
+    private Waypoint newWaypoint(long id, String name, Type type, double lat, double lng) {
+        Waypoint waypoint = new Waypoint();
+        waypoint.setId(id);
+        waypoint.setName(name);
+        waypoint.setType(type);
+        waypoint.setLocation(Coordinates.ofLatLng(lat, lng));
+        return waypoint;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.github.danzx.zekke.ws.rest.transformer;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 
@@ -26,6 +27,7 @@ import java.util.List;
 import javax.inject.Inject;
 
 import com.github.danzx.zekke.domain.Coordinates;
+import com.github.danzx.zekke.domain.Path;
 import com.github.danzx.zekke.domain.Waypoint;
 import com.github.danzx.zekke.domain.Waypoint.Type;
 import com.github.danzx.zekke.test.spring.BaseSpringTest;
@@ -76,6 +78,22 @@ public class Waypoint2TypedWaypointTransformerTest extends BaseSpringTest {
         assertThat(actual).isNotNull().isEqualTo(expectedWaypoint);
     }
 
+    @Test
+    public void shouldConvertPaths() {
+        Waypoint waypoint = newWaypoint(1L, "Name", Type.POI, 12.43, 43.5);
+        waypoint.setPaths(asList(Path.to(2L, 10.5), Path.to(3L, null)));
+        TypedWaypoint actual = transformer.convertAtoB(waypoint);
+        assertThat(actual.getPaths()).extracting("toWaypoint", "distance").containsExactly(tuple(2L, 10.5), tuple(3L, null));
+    }
+
+    @Test
+    public void shouldRevertPaths() {
+        Waypoint expectedWaypoint = newWaypoint(1L, "Name", Type.POI, 12.43, 43.5);
+        expectedWaypoint.setPaths(asList(Path.to(2L, 10.5), Path.to(3L, null)));
+        Waypoint actual = transformer.convertBtoA(transformer.convertAtoB(expectedWaypoint));
+        assertThat(actual.getPaths()).isEqualTo(expectedWaypoint.getPaths());
+    }
+
     @Test
     public void shouldConvertNull() {
         assertThat(transformer.convertAtoB(null)).isNull();